@@ -0,0 +1,42 @@
+package com.eduflow.config;
+
+import com.eduflow.exception.ResourceNotFoundException;
+import com.eduflow.repository.academic.AssessmentStatisticsRepository;
+import com.eduflow.service.AssessmentScoreService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Backfills assessment statistics on start for assessments created before they were stored,
+ * so reading assessment lists never has to write them.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AssessmentStatisticsInitializer implements ApplicationRunner {
+
+    private final AssessmentStatisticsRepository statisticsRepository;
+    private final AssessmentScoreService scoreService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<Long> assessmentIds = statisticsRepository.findAssessmentIdsWithoutStatistics();
+        if (assessmentIds.isEmpty()) {
+            return;
+        }
+        log.info("{} assessments have no statistics, computing them from their scores...", assessmentIds.size());
+        // Each assessment commits on its own; recording no scores only recomputes the statistics
+        for (Long assessmentId : assessmentIds) {
+            try {
+                scoreService.recordScores(assessmentId, List.of());
+            } catch (ResourceNotFoundException e) {
+                log.debug("Assessment {} was deleted before its statistics were computed", assessmentId);
+            }
+        }
+    }
+}
@@ -12,6 +12,7 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
@@ -36,6 +37,9 @@ public class DataInitializer implements CommandLineRunner {
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Value("${spring.datasource.url:}")
+    private String datasourceUrl;
+
     @Override
     @Transactional
     public void run(String... args) {
@@ -48,6 +52,12 @@ public class DataInitializer implements CommandLineRunner {
     }
 
     private void resetSequences() {
+        // setval() is PostgreSQL-specific; a failed native query would mark this transaction rollback-only
+        if (!datasourceUrl.startsWith("jdbc:postgresql")) {
+            log.info("Skipping database sequence synchronization for non-PostgreSQL datasource");
+            return;
+        }
+
         log.info("Starting database sequence synchronization...");
 
         List<String> tables = Arrays.asList(
@@ -0,0 +1,32 @@
+package com.eduflow.config;
+
+import com.eduflow.repository.finance.StudentFeeAssignmentRepository;
+import com.eduflow.repository.finance.StudentFeeLedgerRepository;
+import com.eduflow.service.StudentFeeLedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfills the student fee ledger on first start after it was introduced,
+ * when fee assignments exist but no ledger rows have been built yet.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FeeLedgerInitializer implements ApplicationRunner {
+
+    private final StudentFeeLedgerRepository ledgerRepository;
+    private final StudentFeeAssignmentRepository assignmentRepository;
+    private final StudentFeeLedgerService ledgerService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (ledgerRepository.count() == 0 && assignmentRepository.count() > 0) {
+            log.info("Student fee ledger is empty, rebuilding from fee assignments...");
+            ledgerService.rebuildAllLedgers();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.eduflow.config;
+
+import com.eduflow.service.PaymentReconciliationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs stale payment reconciliation on a fixed delay. Off unless {@code payment.reconciliation.enabled}
+ * is set, so it is switched on only on the nodes meant to settle payments against a live gateway.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "payment.reconciliation.enabled", havingValue = "true")
+public class PaymentReconciliationScheduler {
+
+    private final PaymentReconciliationService reconciliationService;
+
+    @Scheduled(fixedDelayString = "${payment.reconciliation.interval:600000}",
+               initialDelayString = "${payment.reconciliation.initial-delay:60000}")
+    public void reconcileStalePayments() {
+        reconciliationService.reconcileStalePayments();
+    }
+}
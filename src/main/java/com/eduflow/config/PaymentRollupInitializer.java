@@ -0,0 +1,33 @@
+package com.eduflow.config;
+
+import com.eduflow.entity.finance.Payment;
+import com.eduflow.repository.finance.PaymentDailyRollupRepository;
+import com.eduflow.repository.finance.PaymentRepository;
+import com.eduflow.service.PaymentRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfills the daily collection rollup on first start after it was introduced,
+ * when completed payments exist but no rollup rows have been built yet.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PaymentRollupInitializer implements ApplicationRunner {
+
+    private final PaymentDailyRollupRepository rollupRepository;
+    private final PaymentRepository paymentRepository;
+    private final PaymentRollupService rollupService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (rollupRepository.count() == 0 && paymentRepository.existsByStatus(Payment.PaymentStatus.COMPLETED)) {
+            log.info("Payment daily rollup is empty, rebuilding from completed payments...");
+            rollupService.rebuildAllRollups();
+        }
+    }
+}
@@ -1,19 +1,40 @@
 package com.eduflow.controller.admin;
 
 import com.eduflow.dto.request.AssignFeeRequest;
+import com.eduflow.dto.request.BulkFeeAdjustmentRequest;
 import com.eduflow.dto.request.CreateFeeRequest;
+import com.eduflow.dto.response.BulkFeeAdjustmentResponse;
+import com.eduflow.dto.response.BulkFeeAssignmentResponse;
 import com.eduflow.dto.response.FeeResponse;
+import com.eduflow.dto.response.LedgerDiscrepancyResponse;
+import com.eduflow.dto.response.LedgerVerificationResponse;
 import com.eduflow.dto.response.MessageResponse;
+import com.eduflow.dto.response.OverdueSweepResponse;
+import com.eduflow.dto.response.PagedResponse;
 import com.eduflow.dto.response.StudentFeeResponse;
+import com.eduflow.entity.finance.LedgerDiscrepancy;
+import com.eduflow.service.FeeExportService;
 import com.eduflow.service.FeeService;
+import com.eduflow.service.IdempotencyService;
+import com.eduflow.service.LedgerVerificationService;
 import com.eduflow.service.NotificationService;
+import com.eduflow.service.OverdueFeeSweepService;
+import com.eduflow.service.StudentFeeLedgerService;
+import com.eduflow.service.export.ExportFormat;
+import com.eduflow.service.export.FeeStatementFilter;
+import com.fasterxml.jackson.core.type.TypeReference;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -27,6 +48,11 @@ public class AdminFeeController {
 
     private final FeeService feeService;
     private final NotificationService notificationService;
+    private final StudentFeeLedgerService ledgerService;
+    private final OverdueFeeSweepService overdueFeeSweepService;
+    private final FeeExportService feeExportService;
+    private final IdempotencyService idempotencyService;
+    private final LedgerVerificationService ledgerVerificationService;
 
     @GetMapping
     @Operation(summary = "List all fees", description = "Get all fee structures")
@@ -75,8 +101,26 @@ public class AdminFeeController {
 
     @PostMapping("/assign")
     @Operation(summary = "Assign fees to students", description = "Assign fees to students or classes")
-    public ResponseEntity<List<StudentFeeResponse>> assignFees(@Valid @RequestBody AssignFeeRequest request) {
-        return ResponseEntity.ok(feeService.assignFeesToStudents(request));
+    public ResponseEntity<List<StudentFeeResponse>> assignFees(
+            @Valid @RequestBody AssignFeeRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(idempotencyService.execute(
+                "fee-assign:" + userDetails.getUsername(), idempotencyKey, request,
+                new TypeReference<List<StudentFeeResponse>>() {},
+                () -> feeService.assignFeesToStudents(request)));
+    }
+
+    @PostMapping("/assign/bulk")
+    @Operation(summary = "Bulk assign fees",
+               description = "Assign a fee to many students or whole classes using batched inserts; safe to re-run")
+    public ResponseEntity<BulkFeeAssignmentResponse> bulkAssignFees(
+            @Valid @RequestBody AssignFeeRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(idempotencyService.execute(
+                "fee-assign-bulk:" + userDetails.getUsername(), idempotencyKey, request,
+                BulkFeeAssignmentResponse.class, () -> feeService.bulkAssignFeesToStudents(request)));
     }
 
     @GetMapping("/student/{studentId}")
@@ -110,6 +154,23 @@ public class AdminFeeController {
         return ResponseEntity.ok(feeService.waiveFee(id, reason));
     }
 
+    @PostMapping("/assignments/discount/bulk")
+    @Operation(summary = "Bulk apply discount",
+               description = "Apply a fixed or percentage discount to every fee assignment of the given assignments, " +
+                       "fees, classes or grades; safe to re-run")
+    public ResponseEntity<BulkFeeAdjustmentResponse> bulkApplyDiscount(
+            @Valid @RequestBody BulkFeeAdjustmentRequest request) {
+        return ResponseEntity.ok(feeService.bulkApplyDiscount(request));
+    }
+
+    @PostMapping("/assignments/waive/bulk")
+    @Operation(summary = "Bulk waive fees",
+               description = "Waive every fee assignment of the given assignments, fees, classes or grades; safe to re-run")
+    public ResponseEntity<BulkFeeAdjustmentResponse> bulkWaiveFees(
+            @Valid @RequestBody BulkFeeAdjustmentRequest request) {
+        return ResponseEntity.ok(feeService.bulkWaiveFees(request));
+    }
+
     @PostMapping("/overdue/notify")
     @Operation(summary = "Send overdue notifications",
                description = "Send notifications to parents about overdue fees for their children")
@@ -122,4 +183,70 @@ public class AdminFeeController {
     public ResponseEntity<List<StudentFeeResponse>> getOverdueFees() {
         return ResponseEntity.ok(feeService.getOverdueFees());
     }
+
+    @PostMapping("/ledger/rebuild")
+    @Operation(summary = "Rebuild fee ledger",
+               description = "Recompute every student fee ledger row from the fee assignments")
+    public ResponseEntity<MessageResponse> rebuildFeeLedger() {
+        int rows = ledgerService.rebuildAllLedgers();
+        return ResponseEntity.ok(MessageResponse.success("Fee ledger rebuilt: " + rows + " rows"));
+    }
+
+    @PostMapping("/ledger/verify")
+    @Operation(summary = "Verify fee ledger",
+               description = "Compare every assignment's amount paid with its completed payments and record discrepancies")
+    public ResponseEntity<LedgerVerificationResponse> verifyFeeLedger(
+            @RequestParam(defaultValue = "false") boolean autoCorrect) {
+        return ResponseEntity.ok(ledgerVerificationService.verifyLedger(autoCorrect));
+    }
+
+    @GetMapping("/ledger/discrepancies")
+    @Operation(summary = "List ledger discrepancies",
+               description = "Assignments whose amount paid did not match their completed payments, by status")
+    public ResponseEntity<PagedResponse<LedgerDiscrepancyResponse>> getLedgerDiscrepancies(
+            @RequestParam(defaultValue = "OPEN") LedgerDiscrepancy.DiscrepancyStatus status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(ledgerVerificationService.getDiscrepancies(status, page, Math.min(size, 500)));
+    }
+
+    @PostMapping("/overdue/sweep")
+    @Operation(summary = "Sweep overdue fees",
+               description = "Mark every unpaid fee assignment past its due date as OVERDUE")
+    public ResponseEntity<OverdueSweepResponse> sweepOverdueFees() {
+        return ResponseEntity.ok(overdueFeeSweepService.sweepOverdueFees());
+    }
+
+    @GetMapping("/export/statement")
+    @Operation(summary = "Export fee statement",
+               description = "Stream every fee line for a class, grade or academic year as CSV or XLSX")
+    public ResponseEntity<StreamingResponseBody> exportFeeStatement(
+            @RequestParam(required = false) Long classId,
+            @RequestParam(required = false) Integer grade,
+            @RequestParam(required = false) String academicYear,
+            @RequestParam(defaultValue = "CSV") ExportFormat format) {
+        return export(new FeeStatementFilter(classId, grade, academicYear, false), format, "fee-statement");
+    }
+
+    @GetMapping("/export/arrears")
+    @Operation(summary = "Export arrears",
+               description = "Stream unpaid fee lines past their due date for a class, grade or academic year as CSV or XLSX")
+    public ResponseEntity<StreamingResponseBody> exportArrears(
+            @RequestParam(required = false) Long classId,
+            @RequestParam(required = false) Integer grade,
+            @RequestParam(required = false) String academicYear,
+            @RequestParam(defaultValue = "CSV") ExportFormat format) {
+        return export(new FeeStatementFilter(classId, grade, academicYear, true), format, "arrears");
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(FeeStatementFilter filter, ExportFormat format,
+                                                         String name) {
+        String filename = name + (filter.academicYear() != null
+                ? "-" + filter.academicYear().replaceAll("[^A-Za-z0-9_-]", "")
+                : "") + "." + format.getExtension();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .body(out -> feeExportService.exportFeeStatement(filter, format, out));
+    }
 }
@@ -1,20 +1,35 @@
 package com.eduflow.controller.admin;
 
+import com.eduflow.dto.request.BulkCashReceiptRequest;
+import com.eduflow.dto.response.BulkCashReceiptResponse;
+import com.eduflow.dto.response.CollectionBreakdownResponse;
+import com.eduflow.dto.response.CollectionSeriesResponse;
 import com.eduflow.dto.response.MessageResponse;
 import com.eduflow.dto.response.PagedResponse;
+import com.eduflow.dto.response.PaymentReconciliationResponse;
 import com.eduflow.dto.response.PaymentResponse;
 import com.eduflow.entity.finance.Payment;
+import com.eduflow.service.CashReceiptService;
+import com.eduflow.service.IdempotencyService;
 import com.eduflow.service.NotificationService;
+import com.eduflow.service.PaymentReconciliationService;
+import com.eduflow.service.PaymentRollupService;
 import com.eduflow.service.PaymentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping("/v1/admin/payments")
 @RequiredArgsConstructor
@@ -24,6 +39,10 @@ public class AdminPaymentController {
 
     private final PaymentService paymentService;
     private final NotificationService notificationService;
+    private final PaymentReconciliationService reconciliationService;
+    private final PaymentRollupService paymentRollupService;
+    private final CashReceiptService cashReceiptService;
+    private final IdempotencyService idempotencyService;
 
     @GetMapping
     @Operation(summary = "List all payments", description = "Get paginated list of all payments")
@@ -40,6 +59,52 @@ public class AdminPaymentController {
         return ResponseEntity.ok(paymentService.getPaymentsByStatus(status, pageable));
     }
 
+    @PostMapping("/cash-receipts")
+    @Operation(summary = "Post cash receipts",
+               description = "Post a batch of cash receipts in one transaction and report the outcome of every line")
+    public ResponseEntity<BulkCashReceiptResponse> postCashReceipts(
+            @Valid @RequestBody BulkCashReceiptRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(idempotencyService.execute(
+                "cash-receipts:" + userDetails.getUsername(), idempotencyKey, request,
+                BulkCashReceiptResponse.class, () -> cashReceiptService.postReceipts(request)));
+    }
+
+    @PostMapping("/reconcile")
+    @Operation(summary = "Reconcile stale payments",
+               description = "Verify stale pending and processing payments with the gateway and settle them")
+    public ResponseEntity<PaymentReconciliationResponse> reconcileStalePayments() {
+        return ResponseEntity.ok(reconciliationService.reconcileStalePayments());
+    }
+
+    @GetMapping("/collections/series")
+    @Operation(summary = "Collection time series",
+               description = "Completed payment totals per day, week or month within a date range")
+    public ResponseEntity<CollectionSeriesResponse> getCollectionSeries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") CollectionSeriesResponse.Bucket bucket) {
+        return ResponseEntity.ok(paymentRollupService.getCollectionSeries(from, to, bucket));
+    }
+
+    @GetMapping("/collections/breakdown")
+    @Operation(summary = "Collection breakdown",
+               description = "Completed payment totals by payment method and fee category within a date range")
+    public ResponseEntity<CollectionBreakdownResponse> getCollectionBreakdown(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(paymentRollupService.getCollectionBreakdown(from, to));
+    }
+
+    @PostMapping("/collections/rebuild")
+    @Operation(summary = "Rebuild collection rollups",
+               description = "Recompute the daily collection rollup from all completed payments")
+    public ResponseEntity<MessageResponse> rebuildCollectionRollups() {
+        int rows = paymentRollupService.rebuildAllRollups();
+        return ResponseEntity.ok(MessageResponse.success("Collection rollup rebuilt: " + rows + " rows"));
+    }
+
     @PostMapping("/reminders/overdue")
     @Operation(summary = "Send overdue payment reminders",
                description = "Send notifications to parents about overdue fee payments")
@@ -0,0 +1,59 @@
+package com.eduflow.controller.admin;
+
+import com.eduflow.dto.request.GeneratePaymentPlansRequest;
+import com.eduflow.dto.response.BulkPaymentPlanResponse;
+import com.eduflow.dto.response.PaymentPlanInstallmentResponse;
+import com.eduflow.dto.response.PaymentPlanResponse;
+import com.eduflow.dto.response.PaymentPlanScanResponse;
+import com.eduflow.service.PaymentPlanService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/v1/admin/payment-plans")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Admin - Payment Plans", description = "Installment payment plan endpoints")
+public class AdminPaymentPlanController {
+
+    private final PaymentPlanService paymentPlanService;
+
+    @PostMapping("/generate")
+    @Operation(summary = "Generate payment plans",
+               description = "Create installment plans for every student with an outstanding balance in the given classes or grade")
+    public ResponseEntity<BulkPaymentPlanResponse> generatePlans(@Valid @RequestBody GeneratePaymentPlansRequest request) {
+        return ResponseEntity.ok(paymentPlanService.generatePlans(request));
+    }
+
+    @GetMapping("/student/{studentId}")
+    @Operation(summary = "Get student payment plans", description = "Get all payment plans of a student with their installments")
+    public ResponseEntity<List<PaymentPlanResponse>> getStudentPlans(@PathVariable Long studentId) {
+        return ResponseEntity.ok(paymentPlanService.getStudentPlans(studentId));
+    }
+
+    @GetMapping("/installments/due")
+    @Operation(summary = "List due installments",
+               description = "Unpaid installments of open plans due on or before a date, paged by installment id")
+    public ResponseEntity<List<PaymentPlanInstallmentResponse>> getDueInstallments(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dueBy,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(paymentPlanService.getDueInstallments(dueBy, afterId, Math.min(limit, 1000)));
+    }
+
+    @PostMapping("/scan")
+    @Operation(summary = "Scan installments",
+               description = "Mark overdue installments and move plans to DEFAULTED or COMPLETED")
+    public ResponseEntity<PaymentPlanScanResponse> scanInstallments() {
+        return ResponseEntity.ok(paymentPlanService.scanInstallments());
+    }
+}
@@ -7,15 +7,16 @@ import com.eduflow.entity.academic.Parent;
 import com.eduflow.entity.academic.Student;
 import com.eduflow.entity.communication.Announcement;
 import com.eduflow.entity.communication.AnnouncementRead;
+import com.eduflow.entity.finance.StudentFeeLedger;
 import com.eduflow.exception.ResourceNotFoundException;
 import com.eduflow.repository.academic.AssessmentScoreRepository;
 import com.eduflow.repository.academic.ParentRepository;
 import com.eduflow.repository.communication.AnnouncementReadRepository;
 import com.eduflow.repository.communication.AnnouncementRepository;
 import com.eduflow.repository.communication.NotificationRepository;
-import com.eduflow.repository.finance.PaymentRepository;
-import com.eduflow.repository.finance.StudentFeeAssignmentRepository;
+import com.eduflow.repository.finance.StudentFeeLedgerRepository;
 import com.eduflow.service.FeeService;
+import com.eduflow.service.IdempotencyService;
 import com.eduflow.service.PaymentService;
 import com.eduflow.service.StudentService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -49,10 +50,10 @@ public class ParentController {
     private final StudentService studentService;
     private final FeeService feeService;
     private final PaymentService paymentService;
+    private final IdempotencyService idempotencyService;
     private final ParentRepository parentRepository;
     private final NotificationRepository notificationRepository;
-    private final StudentFeeAssignmentRepository feeAssignmentRepository;
-    private final PaymentRepository paymentRepository;
+    private final StudentFeeLedgerRepository feeLedgerRepository;
     private final AnnouncementRepository announcementRepository;
     private final AnnouncementReadRepository announcementReadRepository;
     private final AssessmentScoreRepository assessmentScoreRepository;
@@ -68,20 +69,13 @@ public class ParentController {
         BigDecimal totalFeesPaid = BigDecimal.ZERO;
         int overdueCount = 0;
 
-        for (Student child : children) {
-            var fees = feeAssignmentRepository.findByStudentId(child.getId());
-            for (var fee : fees) {
-                totalFeesDue = totalFeesDue.add(fee.getNetAmount());
-                // Calculate actual payments for this fee
-                BigDecimal feePaid = paymentRepository.calculateTotalPaidByFeeAssignmentId(fee.getId());
-                BigDecimal feeBalance = fee.getNetAmount().subtract(feePaid);
-                if (fee.getDueDate() != null && fee.getDueDate().isBefore(java.time.LocalDate.now())
-                        && feeBalance.compareTo(BigDecimal.ZERO) > 0) {
-                    overdueCount++;
-                }
+        List<Long> childIds = children.stream().map(Student::getId).toList();
+        if (!childIds.isEmpty()) {
+            for (StudentFeeLedger ledger : feeLedgerRepository.findByStudentIdIn(childIds)) {
+                totalFeesDue = totalFeesDue.add(ledger.getTotalFees());
+                totalFeesPaid = totalFeesPaid.add(ledger.getTotalPaid());
+                overdueCount += ledger.getOverdueCount();
             }
-            // Get actual completed payments for this student
-            totalFeesPaid = totalFeesPaid.add(paymentRepository.calculateTotalPaidByStudentId(child.getId()));
         }
 
         BigDecimal outstandingBalance = totalFeesDue.subtract(totalFeesPaid);
@@ -104,26 +98,23 @@ public class ParentController {
         Parent parent = getParentFromUser(userDetails);
         List<StudentResponse> children = studentService.getStudentsByParentId(parent.getId());
 
-        // Enrich each child with fee summary using actual payment data
+        // Enrich each child with fee summary from the ledger, one row per child and academic year
+        Map<Long, List<StudentFeeLedger>> ledgersByStudent = children.isEmpty() ? Map.of()
+                : feeLedgerRepository.findByStudentIdIn(children.stream().map(StudentResponse::getId).toList())
+                        .stream()
+                        .collect(Collectors.groupingBy(l -> l.getStudent().getId()));
+
         for (StudentResponse child : children) {
-            var fees = feeAssignmentRepository.findByStudentId(child.getId());
             BigDecimal totalFees = BigDecimal.ZERO;
-
-            for (var fee : fees) {
-                totalFees = totalFees.add(fee.getNetAmount());
-            }
-
-            // Get actual completed payments for this student
-            BigDecimal totalPaid = paymentRepository.calculateTotalPaidByStudentId(child.getId());
-            BigDecimal balance = totalFees.subtract(totalPaid);
-
-            // Count pending fees (where balance > 0)
+            BigDecimal totalPaid = BigDecimal.ZERO;
+            BigDecimal balance = BigDecimal.ZERO;
             int pendingCount = 0;
-            for (var fee : fees) {
-                BigDecimal feePaid = paymentRepository.calculateTotalPaidByFeeAssignmentId(fee.getId());
-                if (fee.getNetAmount().subtract(feePaid).compareTo(BigDecimal.ZERO) > 0) {
-                    pendingCount++;
-                }
+
+            for (StudentFeeLedger ledger : ledgersByStudent.getOrDefault(child.getId(), List.of())) {
+                totalFees = totalFees.add(ledger.getTotalFees());
+                totalPaid = totalPaid.add(ledger.getTotalPaid());
+                balance = balance.add(ledger.getOutstandingBalance());
+                pendingCount += ledger.getPendingCount();
             }
 
             child.setFeeSummary(StudentResponse.FeeSummary.builder()
@@ -314,9 +305,12 @@ public class ParentController {
     @Operation(summary = "Make payment", description = "Initiate a payment for a fee")
     public ResponseEntity<PaymentResponse> makePayment(
             @Valid @RequestBody CreatePaymentRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @AuthenticationPrincipal UserDetails userDetails) {
         // Verify parent has access to the student associated with the fee assignment
-        return ResponseEntity.ok(paymentService.initiatePayment(request));
+        return ResponseEntity.ok(idempotencyService.execute(
+                "parent-payment:" + userDetails.getUsername(), idempotencyKey, request, PaymentResponse.class,
+                () -> paymentService.initiatePayment(request)));
     }
 
     @GetMapping("/payments/{paymentId}")
@@ -5,14 +5,14 @@ import com.eduflow.entity.academic.AssessmentScore;
 import com.eduflow.entity.academic.Student;
 import com.eduflow.entity.communication.Announcement;
 import com.eduflow.entity.communication.AnnouncementRead;
+import com.eduflow.entity.finance.StudentFeeLedger;
 import com.eduflow.exception.ResourceNotFoundException;
 import com.eduflow.repository.academic.AssessmentScoreRepository;
 import com.eduflow.repository.academic.StudentRepository;
 import com.eduflow.repository.communication.AnnouncementReadRepository;
 import com.eduflow.repository.communication.AnnouncementRepository;
 import com.eduflow.repository.communication.NotificationRepository;
-import com.eduflow.repository.finance.PaymentRepository;
-import com.eduflow.repository.finance.StudentFeeAssignmentRepository;
+import com.eduflow.repository.finance.StudentFeeLedgerRepository;
 import com.eduflow.service.FeeService;
 import com.eduflow.service.PaymentService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -46,8 +46,7 @@ public class StudentController {
     private final StudentRepository studentRepository;
     private final FeeService feeService;
     private final PaymentService paymentService;
-    private final StudentFeeAssignmentRepository feeAssignmentRepository;
-    private final PaymentRepository paymentRepository;
+    private final StudentFeeLedgerRepository feeLedgerRepository;
     private final AssessmentScoreRepository assessmentScoreRepository;
     private final NotificationRepository notificationRepository;
     private final AnnouncementRepository announcementRepository;
@@ -100,26 +99,20 @@ public class StudentController {
         Student student = getStudentFromUser(userDetails);
 
         // Fee summary
-        var fees = feeAssignmentRepository.findByStudentId(student.getId());
         BigDecimal totalFees = BigDecimal.ZERO;
+        BigDecimal totalPaid = BigDecimal.ZERO;
+        BigDecimal outstandingBalance = BigDecimal.ZERO;
         int pendingFees = 0;
         int overdueFees = 0;
 
-        for (var fee : fees) {
-            totalFees = totalFees.add(fee.getNetAmount());
-            BigDecimal feePaid = paymentRepository.calculateTotalPaidByFeeAssignmentId(fee.getId());
-            BigDecimal balance = fee.getNetAmount().subtract(feePaid);
-            if (balance.compareTo(BigDecimal.ZERO) > 0) {
-                pendingFees++;
-                if (fee.getDueDate() != null && fee.getDueDate().isBefore(LocalDate.now())) {
-                    overdueFees++;
-                }
-            }
+        for (StudentFeeLedger ledger : feeLedgerRepository.findByStudentId(student.getId())) {
+            totalFees = totalFees.add(ledger.getTotalFees());
+            totalPaid = totalPaid.add(ledger.getTotalPaid());
+            outstandingBalance = outstandingBalance.add(ledger.getOutstandingBalance());
+            pendingFees += ledger.getPendingCount();
+            overdueFees += ledger.getOverdueCount();
         }
 
-        BigDecimal totalPaid = paymentRepository.calculateTotalPaidByStudentId(student.getId());
-        BigDecimal outstandingBalance = totalFees.subtract(totalPaid);
-
         // Academic summary
         List<AssessmentScore> recentScores = assessmentScoreRepository.findByStudentIdWithDetails(student.getId());
         int totalAssessments = recentScores.size();
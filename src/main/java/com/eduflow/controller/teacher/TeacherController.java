@@ -6,6 +6,7 @@ import com.eduflow.dto.request.CreateHomeworkRequest;
 import com.eduflow.dto.response.*;
 import com.eduflow.entity.academic.Assessment;
 import com.eduflow.entity.academic.AssessmentScore;
+import com.eduflow.entity.academic.AssessmentStatistics;
 import com.eduflow.entity.academic.Attendance;
 import com.eduflow.entity.academic.TeacherClassSubject;
 import com.eduflow.entity.academic.Grade;
@@ -16,6 +17,8 @@ import com.eduflow.entity.communication.AnnouncementRead;
 import com.eduflow.entity.communication.Homework;
 import com.eduflow.entity.communication.Notification;
 import com.eduflow.exception.ResourceNotFoundException;
+import com.eduflow.service.AssessmentScoreService;
+import com.eduflow.service.AttendanceAnalyticsService;
 import com.eduflow.service.NotificationService;
 import com.eduflow.repository.academic.*;
 import com.eduflow.repository.communication.AnnouncementReadRepository;
@@ -38,6 +41,7 @@ import org.springframework.web.bind.annotation.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -48,6 +52,8 @@ import java.util.stream.Collectors;
 @Tag(name = "Teacher", description = "Teacher portal endpoints")
 public class TeacherController {
 
+    private static final int ATTENDANCE_UPSERT_MAX_ATTEMPTS = 3;
+
     private final TeacherRepository teacherRepository;
     private final SchoolClassRepository classRepository;
     private final StudentRepository studentRepository;
@@ -58,9 +64,12 @@ public class TeacherController {
     private final AnnouncementRepository announcementRepository;
     private final AnnouncementReadRepository announcementReadRepository;
     private final AttendanceRepository attendanceRepository;
+    private final AttendanceJdbcRepository attendanceJdbcRepository;
+    private final AttendanceAnalyticsService attendanceAnalyticsService;
     private final TeacherClassSubjectRepository teacherClassSubjectRepository;
     private final AssessmentRepository assessmentRepository;
     private final AssessmentScoreRepository assessmentScoreRepository;
+    private final AssessmentScoreService assessmentScoreService;
     private final NotificationService notificationService;
 
     @GetMapping("/dashboard")
@@ -339,26 +348,16 @@ public class TeacherController {
 
         assessment = assessmentRepository.save(assessment);
 
-        // If scores are provided, save them
-        if (request.getScores() != null && !request.getScores().isEmpty()) {
-            for (CreateAssessmentRequest.StudentScore scoreReq : request.getScores()) {
-                com.eduflow.entity.academic.Student student = studentRepository.findById(scoreReq.getStudentId())
-                        .orElseThrow(() -> new ResourceNotFoundException("Student", "id", scoreReq.getStudentId()));
-
-                AssessmentScore score = AssessmentScore.builder()
-                        .assessment(assessment)
-                        .student(student)
-                        .score(scoreReq.getScore())
-                        .remarks(scoreReq.getRemarks())
-                        .absent(scoreReq.getAbsent() != null ? scoreReq.getAbsent() : false)
-                        .build();
-                assessmentScoreRepository.save(score);
-            }
-            log.info("POST /assessments - Saved {} scores", request.getScores().size());
+        // Also creates the assessment's statistics, so every assessment has a row
+        List<CreateAssessmentRequest.StudentScore> scores =
+                request.getScores() != null ? request.getScores() : List.of();
+        AssessmentStatistics statistics = assessmentScoreService.recordScores(assessment.getId(), scores);
+        if (!scores.isEmpty()) {
+            log.info("POST /assessments - Saved {} scores", scores.size());
         }
 
         log.info("POST /assessments - Response: assessmentId={}", assessment.getId());
-        return ResponseEntity.ok(mapToAssessmentResponse(assessment, true));
+        return ResponseEntity.ok(mapToAssessmentResponse(assessment, statistics, true));
     }
 
     @GetMapping("/assessments")
@@ -377,9 +376,7 @@ public class TeacherController {
             assessments = assessmentRepository.findByTeacherIdWithDetails(teacher.getId());
         }
 
-        List<AssessmentResponse> response = assessments.stream()
-                .map(a -> mapToAssessmentResponse(a, false))
-                .collect(Collectors.toList());
+        List<AssessmentResponse> response = mapToAssessmentResponses(assessments);
 
         log.info("GET /assessments - Response: {} assessments found", response.size());
         return ResponseEntity.ok(response);
@@ -395,7 +392,8 @@ public class TeacherController {
         Assessment assessment = assessmentRepository.findByIdWithDetails(assessmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Assessment", "id", assessmentId));
 
-        AssessmentResponse response = mapToAssessmentResponse(assessment, true);
+        AssessmentStatistics statistics = assessmentScoreService.getStatistics(List.of(assessmentId)).get(assessmentId);
+        AssessmentResponse response = mapToAssessmentResponse(assessment, statistics, true);
         log.info("GET /assessments/{} - Response: {} scores", assessmentId, response.getScores().size());
         return ResponseEntity.ok(response);
     }
@@ -409,27 +407,12 @@ public class TeacherController {
         log.info("POST /assessments/{}/scores - Request: {} students, user={}",
                 assessmentId, scores.size(), userDetails.getUsername());
 
-        Assessment assessment = assessmentRepository.findById(assessmentId)
+        AssessmentStatistics statistics = assessmentScoreService.recordScores(assessmentId, scores);
+        Assessment assessment = assessmentRepository.findByIdWithDetails(assessmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Assessment", "id", assessmentId));
 
-        for (CreateAssessmentRequest.StudentScore scoreReq : scores) {
-            com.eduflow.entity.academic.Student student = studentRepository.findById(scoreReq.getStudentId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Student", "id", scoreReq.getStudentId()));
-
-            AssessmentScore score = assessmentScoreRepository.findByAssessmentIdAndStudentId(assessmentId, scoreReq.getStudentId())
-                    .orElse(AssessmentScore.builder()
-                            .assessment(assessment)
-                            .student(student)
-                            .build());
-
-            score.setScore(scoreReq.getScore());
-            score.setRemarks(scoreReq.getRemarks());
-            score.setAbsent(scoreReq.getAbsent() != null ? scoreReq.getAbsent() : false);
-            assessmentScoreRepository.save(score);
-        }
-
         log.info("POST /assessments/{}/scores - Response: {} scores saved", assessmentId, scores.size());
-        return ResponseEntity.ok(mapToAssessmentResponse(assessment, true));
+        return ResponseEntity.ok(mapToAssessmentResponse(assessment, statistics, true));
     }
 
     @GetMapping("/classes/{classId}/assessments")
@@ -448,9 +431,7 @@ public class TeacherController {
             assessments = assessmentRepository.findBySchoolClassIdWithDetails(classId);
         }
 
-        List<AssessmentResponse> response = assessments.stream()
-                .map(a -> mapToAssessmentResponse(a, false))
-                .collect(Collectors.toList());
+        List<AssessmentResponse> response = mapToAssessmentResponses(assessments);
 
         log.info("GET /classes/{}/assessments - Response: {} assessments found", classId, response.size());
         return ResponseEntity.ok(response);
@@ -583,27 +564,29 @@ public class TeacherController {
         private String message;
     }
 
-    private AssessmentResponse mapToAssessmentResponse(Assessment assessment, boolean includeScores) {
-        List<AssessmentScore> scores = assessmentScoreRepository.findByAssessmentIdOrderByStudentUserLastNameAsc(assessment.getId());
-
-        java.math.BigDecimal avgScore = null;
-        java.math.BigDecimal avgPercentage = null;
-        int scoredCount = (int) scores.stream().filter(s -> s.getScore() != null && !s.getAbsent()).count();
-
-        if (scoredCount > 0) {
-            avgScore = scores.stream()
-                    .filter(s -> s.getScore() != null && !s.getAbsent())
-                    .map(AssessmentScore::getScore)
-                    .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add)
-                    .divide(java.math.BigDecimal.valueOf(scoredCount), 2, java.math.RoundingMode.HALF_UP);
-
-            avgPercentage = avgScore.multiply(java.math.BigDecimal.valueOf(100))
-                    .divide(assessment.getMaxScore(), 2, java.math.RoundingMode.HALF_UP);
-        }
+    // Lists are built from the stored statistics alone, without loading scores or class rosters
+    private List<AssessmentResponse> mapToAssessmentResponses(List<Assessment> assessments) {
+        Map<Long, AssessmentStatistics> statistics = assessmentScoreService.getStatistics(
+                assessments.stream().map(Assessment::getId).collect(Collectors.toList()));
+        return assessments.stream()
+                .map(a -> mapToAssessmentResponse(a, statistics.get(a.getId()), false))
+                .collect(Collectors.toList());
+    }
 
+    private AssessmentResponse mapToAssessmentResponse(Assessment assessment, AssessmentStatistics statistics,
+                                                       boolean includeScores) {
         List<AssessmentResponse.ScoreInfo> scoreInfos = null;
+        AssessmentResponse.StatisticsInfo statisticsInfo = null;
         if (includeScores) {
-            scoreInfos = scores.stream()
+            statisticsInfo = AssessmentResponse.StatisticsInfo.builder()
+                    .absentCount(statistics.getAbsentCount())
+                    .minScore(statistics.getMinScore())
+                    .maxScore(statistics.getMaxScore())
+                    .standardDeviation(statistics.getStandardDeviation())
+                    .gradeDistribution(statistics.getGradeDistribution())
+                    .build();
+            scoreInfos = assessmentScoreRepository.findByAssessmentIdOrderByStudentUserLastNameAsc(assessment.getId())
+                    .stream()
                     .map(s -> AssessmentResponse.ScoreInfo.builder()
                             .id(s.getId())
                             .studentId(s.getStudent().getId())
@@ -641,10 +624,11 @@ public class TeacherController {
                         .id(assessment.getTeacher().getId())
                         .name(assessment.getTeacher().getUser().getFullName())
                         .build())
-                .totalStudents(assessment.getSchoolClass().getStudents().size())
-                .scoredStudents(scoredCount)
-                .averageScore(avgScore)
-                .averagePercentage(avgPercentage)
+                .totalStudents(statistics.getClassSize())
+                .scoredStudents(statistics.getScoredCount())
+                .averageScore(statistics.getMeanScore())
+                .averagePercentage(statistics.getMeanPercentage())
+                .statistics(statisticsInfo)
                 .scores(scoreInfos)
                 .build();
     }
@@ -699,36 +683,63 @@ public class TeacherController {
         log.debug("POST /classes/{}/attendance - Request body: {}", classId, requests);
 
         Teacher teacher = getTeacherFromUser(userDetails);
-        SchoolClass schoolClass = classRepository.findById(classId)
-                .orElseThrow(() -> new ResourceNotFoundException("Class", "id", classId));
-
-        List<AttendanceResponse> responses = new java.util.ArrayList<>();
+        if (!classRepository.existsById(classId)) {
+            throw new ResourceNotFoundException("Class", "id", classId);
+        }
 
+        // The last mark for a student wins, as it did when each mark was saved in turn
+        java.util.Map<Long, AttendanceJdbcRepository.AttendanceMark> marks = new java.util.LinkedHashMap<>();
         for (MarkAttendanceRequest request : requests) {
-            com.eduflow.entity.academic.Student student = studentRepository.findById(request.getStudentId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Student", "id", request.getStudentId()));
-
-            Attendance attendance = attendanceRepository
-                    .findByStudentIdAndSchoolClassIdAndDate(request.getStudentId(), classId, date)
-                    .orElse(Attendance.builder()
-                            .student(student)
-                            .schoolClass(schoolClass)
-                            .date(date)
-                            .build());
-
-            attendance.setStatus(request.getStatus());
-            attendance.setRemarks(request.getRemarks());
-            attendance.setMarkedBy(teacher);
+            marks.put(request.getStudentId(), new AttendanceJdbcRepository.AttendanceMark(
+                    request.getStudentId(), request.getStatus(), request.getRemarks()));
+        }
+        if (marks.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
 
-            attendance = attendanceRepository.save(attendance);
-            responses.add(mapToAttendanceResponse(attendance));
-            log.debug("Marked attendance for student {} as {}", request.getStudentId(), request.getStatus());
+        java.util.Set<Long> missing = new java.util.HashSet<>(marks.keySet());
+        studentRepository.findExistingIds(marks.keySet()).forEach(missing::remove);
+        if (!missing.isEmpty()) {
+            throw new ResourceNotFoundException("Student", "id", missing.iterator().next());
         }
 
-        log.info("POST /classes/{}/attendance - Response: {} attendance records saved", classId, responses.size());
+        AttendanceJdbcRepository.UpsertResult result = upsertAttendance(
+                classId, date, teacher.getId(), List.copyOf(marks.values()));
+        attendanceAnalyticsService.recordMarks(classId, date, marks.values().stream()
+                .collect(Collectors.toMap(AttendanceJdbcRepository.AttendanceMark::studentId,
+                        AttendanceJdbcRepository.AttendanceMark::status)));
+
+        java.util.Map<Long, Attendance> saved = attendanceRepository
+                .findWithStudentsByClassIdAndDate(classId, date, marks.keySet()).stream()
+                .collect(Collectors.toMap(a -> a.getStudent().getId(), a -> a));
+        List<AttendanceResponse> responses = marks.keySet().stream()
+                .map(saved::get)
+                .filter(java.util.Objects::nonNull)
+                .map(this::mapToAttendanceResponse)
+                .collect(Collectors.toList());
+
+        log.info("POST /classes/{}/attendance - Response: {} attendance records saved ({} updated, {} inserted)",
+                classId, responses.size(), result.updated(), result.inserted());
         return ResponseEntity.ok(responses);
     }
 
+    // Two teachers submitting the same roster at once can both try to insert a row; the loser
+    // retries and finds it as an update
+    private AttendanceJdbcRepository.UpsertResult upsertAttendance(
+            Long classId, LocalDate date, Long teacherId, List<AttendanceJdbcRepository.AttendanceMark> marks) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return attendanceJdbcRepository.upsert(classId, date, teacherId, marks);
+            } catch (org.springframework.dao.DataIntegrityViolationException e) {
+                if (attempt >= ATTENDANCE_UPSERT_MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("Concurrent attendance marking for class {} on {}, retrying (attempt {})",
+                        classId, date, attempt);
+            }
+        }
+    }
+
     @GetMapping("/students/{studentId}/attendance")
     @Operation(summary = "Get student attendance", description = "Get attendance history for a student")
     public ResponseEntity<List<AttendanceResponse>> getStudentAttendance(
@@ -749,6 +760,43 @@ public class TeacherController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/students/{studentId}/attendance/summary")
+    @Operation(summary = "Get student attendance summary",
+            description = "Get attendance counts, percentage and streaks for a student within a date range")
+    public ResponseEntity<AttendanceSummaryResponse> getStudentAttendanceSummary(
+            @PathVariable Long studentId,
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        log.info("GET /students/{}/attendance/summary - Request: startDate={}, endDate={}, user={}",
+                studentId, startDate, endDate, userDetails.getUsername());
+
+        AttendanceSummaryResponse response =
+                attendanceAnalyticsService.getStudentSummary(studentId, startDate, endDate);
+
+        log.info("GET /students/{}/attendance/summary - Response: {} days marked", studentId, response.getTotalDays());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/classes/{classId}/attendance/summary")
+    @Operation(summary = "Get class attendance summary",
+            description = "Get attendance counts, percentage and streaks for each student in a class")
+    public ResponseEntity<ClassAttendanceSummaryResponse> getClassAttendanceSummary(
+            @PathVariable Long classId,
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        log.info("GET /classes/{}/attendance/summary - Request: startDate={}, endDate={}, user={}",
+                classId, startDate, endDate, userDetails.getUsername());
+
+        ClassAttendanceSummaryResponse response =
+                attendanceAnalyticsService.getClassSummary(classId, startDate, endDate);
+
+        log.info("GET /classes/{}/attendance/summary - Response: {} students, {} with an absence streak",
+                classId, response.getStudentCount(), response.getStudentsWithAbsenceStreak());
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/classes/{classId}/attendance/range")
     @Operation(summary = "Get class attendance for date range", description = "Get attendance records for a class within a date range")
     public ResponseEntity<ClassAttendanceRangeResponse> getClassAttendanceRange(
@@ -789,6 +837,25 @@ public class TeacherController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/classes/{classId}/attendance/matrix")
+    @Operation(summary = "Get class attendance matrix",
+            description = "Get a compact student x date grid of attendance statuses for a class")
+    public ResponseEntity<ClassAttendanceMatrixResponse> getClassAttendanceMatrix(
+            @PathVariable Long classId,
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        log.info("GET /classes/{}/attendance/matrix - Request: startDate={}, endDate={}, user={}",
+                classId, startDate, endDate, userDetails.getUsername());
+
+        ClassAttendanceMatrixResponse response =
+                attendanceAnalyticsService.getClassMatrix(classId, startDate, endDate);
+
+        log.info("GET /classes/{}/attendance/matrix - Response: {} students x {} dates, {} records",
+                classId, response.getStudents().size(), response.getDates().size(), response.getTotalRecords());
+        return ResponseEntity.ok(response);
+    }
+
     @lombok.Data
     @lombok.Builder
     @lombok.NoArgsConstructor
@@ -1026,10 +1093,7 @@ public class TeacherController {
     }
 
     private Teacher getTeacherFromUser(UserDetails userDetails) {
-        // In a real implementation, this would look up the teacher by user email
-        return teacherRepository.findAll().stream()
-                .filter(t -> t.getUser().getEmail().equals(userDetails.getUsername()))
-                .findFirst()
+        return teacherRepository.findByUserEmail(userDetails.getUsername())
                 .orElseThrow(() -> new ResourceNotFoundException("Teacher profile not found"));
     }
 
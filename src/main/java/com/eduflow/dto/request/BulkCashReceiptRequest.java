@@ -0,0 +1,50 @@
+package com.eduflow.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCashReceiptRequest {
+
+    @NotEmpty(message = "At least one receipt line is required")
+    @Size(max = 1000, message = "At most 1000 receipt lines can be posted at once")
+    private List<@Valid @NotNull Line> lines;
+
+    // Post nothing when any line is rejected, instead of posting the valid lines
+    private boolean allOrNothing;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+
+        @NotNull(message = "Student fee assignment ID is required")
+        private Long studentFeeAssignmentId;
+
+        @NotNull(message = "Amount is required")
+        @Positive(message = "Amount must be positive")
+        private BigDecimal amount;
+
+        @NotBlank(message = "Receipt reference is required")
+        @Size(max = 100, message = "Receipt reference must be at most 100 characters")
+        private String reference;
+
+        private String payerName;
+        private String notes;
+    }
+}
@@ -0,0 +1,37 @@
+package com.eduflow.dto.request;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkFeeAdjustmentRequest {
+
+    // At least one target must be given; when several are, an assignment must match all of them
+    private Set<Long> assignmentIds;
+    private Set<Long> feeIds;
+    private Set<Long> classIds;
+    private Set<Integer> grades;
+    private String academicYear;
+
+    // Discounts only: exactly one of discountAmount or discountPercentage
+    @DecimalMin(value = "0.00", message = "Discount amount cannot be negative")
+    private BigDecimal discountAmount;
+
+    @DecimalMin(value = "0.00", message = "Discount percentage cannot be negative")
+    @DecimalMax(value = "100.00", message = "Discount percentage cannot exceed 100")
+    private BigDecimal discountPercentage;
+
+    @NotBlank(message = "Reason is required")
+    private String reason;
+}
@@ -0,0 +1,41 @@
+package com.eduflow.dto.request;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeneratePaymentPlansRequest {
+
+    @NotBlank(message = "Academic year is required")
+    private String academicYear;
+
+    // Either classIds or grade should be provided
+    private Set<Long> classIds;
+    private Integer grade;
+
+    @NotNull(message = "Number of installments is required")
+    @Min(value = 2, message = "A payment plan needs at least 2 installments")
+    @Max(value = 24, message = "A payment plan can have at most 24 installments")
+    private Integer numberOfInstallments;
+
+    @NotNull(message = "First due date is required")
+    private LocalDate firstDueDate;
+
+    @Min(value = 1, message = "Installments must be at least a month apart")
+    @Builder.Default
+    private Integer intervalMonths = 1;
+
+    private String notes;
+}
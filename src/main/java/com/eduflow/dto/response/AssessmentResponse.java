@@ -10,6 +10,7 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Builder
@@ -34,6 +35,8 @@ public class AssessmentResponse {
     private BigDecimal averageScore;
     private BigDecimal averagePercentage;
 
+    private StatisticsInfo statistics;
+
     private List<ScoreInfo> scores;
 
     @Data
@@ -80,4 +83,16 @@ public class AssessmentResponse {
         private String remarks;
         private Boolean absent;
     }
-}
\ No newline at end of file
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StatisticsInfo {
+        private int absentCount;
+        private BigDecimal minScore;
+        private BigDecimal maxScore;
+        private BigDecimal standardDeviation;
+        private Map<String, Integer> gradeDistribution;
+    }
+}
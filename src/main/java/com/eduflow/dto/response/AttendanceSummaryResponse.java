@@ -0,0 +1,32 @@
+package com.eduflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceSummaryResponse {
+
+    private Long studentId;
+    private String studentNumber;
+    private String studentName;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private long totalDays;
+    private long presentDays;
+    private long absentDays;
+    private long lateDays;
+    private long excusedDays;
+    // Present and late days over all marked days
+    private BigDecimal attendancePercentage;
+    private int currentAbsenceStreak;
+    private int longestPresentStreak;
+    private LocalDate lastMarkedDate;
+}
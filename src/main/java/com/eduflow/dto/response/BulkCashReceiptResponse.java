@@ -0,0 +1,45 @@
+package com.eduflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCashReceiptResponse {
+
+    private int linesReceived;
+    private int linesPosted;
+    private int linesRejected;
+    private BigDecimal totalPosted;
+    private long elapsedMillis;
+    private List<LineResult> results;
+
+    public enum LineStatus {
+        POSTED,
+        REJECTED,
+        // Valid, but not posted because another line was rejected in an all-or-nothing batch
+        SKIPPED
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineResult {
+        private int lineNumber;
+        private Long studentFeeAssignmentId;
+        private String reference;
+        private BigDecimal amount;
+        private LineStatus status;
+        private String transactionRef;
+        private BigDecimal remainingBalance;
+        private String message;
+    }
+}
@@ -0,0 +1,26 @@
+package com.eduflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkFeeAdjustmentResponse {
+
+    public enum Operation {
+        DISCOUNT, WAIVER
+    }
+
+    private Operation operation;
+    private long assignmentsUpdated;
+    private long studentsAffected;
+    private BigDecimal outstandingChange;
+    private int batchesProcessed;
+    private long elapsedMillis;
+}
@@ -0,0 +1,21 @@
+package com.eduflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkFeeAssignmentResponse {
+
+    private Long feeId;
+    private String feeName;
+    private String academicYear;
+    private long assignmentsCreated;
+    private int batchesProcessed;
+    private long elapsedMillis;
+    private boolean completed;
+}
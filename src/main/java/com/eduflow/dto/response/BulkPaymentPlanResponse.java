@@ -0,0 +1,19 @@
+package com.eduflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPaymentPlanResponse {
+
+    private String academicYear;
+    private long plansCreated;
+    private long installmentsCreated;
+    private int batchesProcessed;
+    private long elapsedMillis;
+}
@@ -0,0 +1,43 @@
+package com.eduflow.dto.response;
+
+import com.eduflow.entity.academic.Attendance;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A class's attendance as a student x date grid. {@code dates} holds the days in the range with
+ * at least one mark; each student's {@code cells} has one character per date, in the same order,
+ * taken from {@code statusCodes}, with '-' where the student was not marked.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassAttendanceMatrixResponse {
+
+    private Long classId;
+    private String className;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Map<Character, Attendance.AttendanceStatus> statusCodes;
+    private List<LocalDate> dates;
+    private List<Row> students;
+    private int totalRecords;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Row {
+        private Long studentId;
+        private String studentNumber;
+        private String studentName;
+        private String cells;
+    }
+}
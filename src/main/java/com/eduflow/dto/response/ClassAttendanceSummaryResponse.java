@@ -0,0 +1,28 @@
+package com.eduflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassAttendanceSummaryResponse {
+
+    private Long classId;
+    private String className;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private int studentCount;
+    private BigDecimal averageAttendancePercentage;
+    private int studentsWithAbsenceStreak;
+    private List<AttendanceSummaryResponse> students;
+    private LocalDateTime indexRebuiltAt;
+}
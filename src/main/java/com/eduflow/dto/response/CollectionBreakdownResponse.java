@@ -0,0 +1,35 @@
+package com.eduflow.dto.response;
+
+import com.eduflow.entity.finance.FeeCategory;
+import com.eduflow.entity.finance.Payment;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CollectionBreakdownResponse {
+
+    private LocalDate from;
+    private LocalDate to;
+    private BigDecimal totalCollected;
+    private long paymentCount;
+    private Map<Payment.PaymentMethod, Amount> byPaymentMethod;
+    private Map<FeeCategory.CategoryType, Amount> byCategory;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Amount {
+        private BigDecimal amount;
+        private long paymentCount;
+    }
+}
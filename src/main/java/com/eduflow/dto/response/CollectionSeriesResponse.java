@@ -0,0 +1,38 @@
+package com.eduflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CollectionSeriesResponse {
+
+    private LocalDate from;
+    private LocalDate to;
+    private Bucket bucket;
+    private BigDecimal totalCollected;
+    private long paymentCount;
+    private List<Point> points;
+
+    public enum Bucket {
+        DAY, WEEK, MONTH
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Point {
+        private LocalDate periodStart;
+        private BigDecimal amount;
+        private long paymentCount;
+    }
+}
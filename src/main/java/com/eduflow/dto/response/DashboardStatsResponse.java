@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Data
 @Builder
@@ -20,4 +21,6 @@ public class DashboardStatsResponse {
     private BigDecimal outstandingFees;
     private long totalPayments;
     private long pendingPayments;
+    private LocalDateTime lastUpdatedAt;
+    private LocalDateTime lastReconciledAt;
 }
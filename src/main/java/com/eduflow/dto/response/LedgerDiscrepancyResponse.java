@@ -0,0 +1,27 @@
+package com.eduflow.dto.response;
+
+import com.eduflow.entity.finance.LedgerDiscrepancy;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerDiscrepancyResponse {
+
+    private Long id;
+    private Long studentFeeAssignmentId;
+    private Long studentId;
+    private BigDecimal recordedAmountPaid;
+    private BigDecimal completedPaymentsTotal;
+    private BigDecimal difference;
+    private LedgerDiscrepancy.DiscrepancyStatus status;
+    private LocalDateTime detectedAt;
+    private LocalDateTime resolvedAt;
+}
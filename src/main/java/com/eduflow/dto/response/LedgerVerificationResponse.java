@@ -0,0 +1,22 @@
+package com.eduflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerVerificationResponse {
+
+    private boolean autoCorrect;
+    private long assignmentsChecked;
+    private long discrepanciesFound;
+    private long discrepanciesCorrected;
+    private long discrepanciesResolved;
+    private int chunksProcessed;
+    private int chunkErrors;
+    private long elapsedMillis;
+}
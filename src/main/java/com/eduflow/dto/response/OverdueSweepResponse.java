@@ -0,0 +1,20 @@
+package com.eduflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OverdueSweepResponse {
+
+    private LocalDate asOf;
+    private long assignmentsMarkedOverdue;
+    private int batchesProcessed;
+    private long elapsedMillis;
+}
@@ -0,0 +1,28 @@
+package com.eduflow.dto.response;
+
+import com.eduflow.entity.finance.PaymentPlanInstallment;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentPlanInstallmentResponse {
+
+    private Long id;
+    private Long paymentPlanId;
+    private Long studentId;
+    private Integer installmentNumber;
+    private LocalDate dueDate;
+    private BigDecimal amount;
+    private BigDecimal paidAmount;
+    private BigDecimal balance;
+    private LocalDate paidDate;
+    private PaymentPlanInstallment.InstallmentStatus status;
+}
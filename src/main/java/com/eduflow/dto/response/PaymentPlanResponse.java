@@ -0,0 +1,30 @@
+package com.eduflow.dto.response;
+
+import com.eduflow.entity.finance.PaymentPlan;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentPlanResponse {
+
+    private Long id;
+    private Long studentId;
+    private String academicYear;
+    private BigDecimal totalAmount;
+    private Integer numberOfInstallments;
+    private BigDecimal installmentAmount;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private PaymentPlan.PlanStatus status;
+    private String notes;
+    private List<PaymentPlanInstallmentResponse> installments;
+}
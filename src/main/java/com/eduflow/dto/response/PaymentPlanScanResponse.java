@@ -0,0 +1,21 @@
+package com.eduflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentPlanScanResponse {
+
+    private LocalDate asOf;
+    private long installmentsMarkedOverdue;
+    private long plansDefaulted;
+    private long plansCompleted;
+    private long elapsedMillis;
+}
@@ -0,0 +1,22 @@
+package com.eduflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentReconciliationResponse {
+
+    private long paymentsChecked;
+    private long paymentsCompleted;
+    private long paymentsFailed;
+    private long paymentsUnverified;
+    private long paymentsSkipped;
+    private long paymentsExpired;
+    private long errors;
+    private long elapsedMillis;
+}
@@ -0,0 +1,20 @@
+package com.eduflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookInboxDrainResponse {
+
+    private long eventsProcessed;
+    private long eventsRetried;
+    private long eventsFailed;
+    private int batchesProcessed;
+    private long backlog;
+    private long elapsedMillis;
+}
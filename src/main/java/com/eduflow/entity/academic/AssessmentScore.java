@@ -35,16 +35,22 @@ public class AssessmentScore extends BaseEntity {
     private Boolean absent = false;
 
     public BigDecimal getPercentage() {
-        if (score != null && assessment != null && assessment.getMaxScore() != null
-                && assessment.getMaxScore().compareTo(BigDecimal.ZERO) > 0) {
+        return percentage(score, assessment != null ? assessment.getMaxScore() : null);
+    }
+
+    public String getGradeLetter() {
+        return gradeLetter(getPercentage());
+    }
+
+    public static BigDecimal percentage(BigDecimal score, BigDecimal maxScore) {
+        if (score != null && maxScore != null && maxScore.compareTo(BigDecimal.ZERO) > 0) {
             return score.multiply(BigDecimal.valueOf(100))
-                    .divide(assessment.getMaxScore(), 2, RoundingMode.HALF_UP);
+                    .divide(maxScore, 2, RoundingMode.HALF_UP);
         }
         return null;
     }
 
-    public String getGradeLetter() {
-        BigDecimal percentage = getPercentage();
+    public static String gradeLetter(BigDecimal percentage) {
         if (percentage == null) return "N/A";
 
         double pct = percentage.doubleValue();
@@ -0,0 +1,82 @@
+package com.eduflow.entity.academic;
+
+import com.eduflow.entity.base.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Score statistics for one assessment, recomputed whenever its scores are written. Only scores
+ * that are present and not marked absent count towards the figures; the standard deviation is
+ * the population one. The class size is the number of students in the class as of the last write,
+ * so assessment lists can be built without loading scores or rosters. It is only counted when the
+ * assessment's scores are written, so transfers and enrolments leave it stale until the next one.
+ */
+@Entity
+@Table(name = "assessment_statistics")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AssessmentStatistics extends BaseEntity {
+
+    @Column(name = "assessment_id", nullable = false, unique = true)
+    private Long assessmentId;
+
+    @Column(name = "class_size", nullable = false)
+    private int classSize;
+
+    @Column(name = "scored_count", nullable = false)
+    private int scoredCount;
+
+    @Column(name = "absent_count", nullable = false)
+    private int absentCount;
+
+    @Column(name = "mean_score", precision = 7, scale = 2)
+    private BigDecimal meanScore;
+
+    @Column(name = "mean_percentage", precision = 5, scale = 2)
+    private BigDecimal meanPercentage;
+
+    @Column(name = "min_score", precision = 5, scale = 2)
+    private BigDecimal minScore;
+
+    @Column(name = "max_score", precision = 5, scale = 2)
+    private BigDecimal maxScore;
+
+    @Column(name = "std_dev", precision = 7, scale = 2)
+    private BigDecimal standardDeviation;
+
+    @Column(name = "grade_a_count", nullable = false)
+    private int gradeACount;
+
+    @Column(name = "grade_b_count", nullable = false)
+    private int gradeBCount;
+
+    @Column(name = "grade_c_count", nullable = false)
+    private int gradeCCount;
+
+    @Column(name = "grade_d_count", nullable = false)
+    private int gradeDCount;
+
+    @Column(name = "grade_e_count", nullable = false)
+    private int gradeECount;
+
+    @Column(name = "grade_f_count", nullable = false)
+    private int gradeFCount;
+
+    public Map<String, Integer> getGradeDistribution() {
+        Map<String, Integer> distribution = new LinkedHashMap<>();
+        distribution.put("A", gradeACount);
+        distribution.put("B", gradeBCount);
+        distribution.put("C", gradeCCount);
+        distribution.put("D", gradeDCount);
+        distribution.put("E", gradeECount);
+        distribution.put("F", gradeFCount);
+        return distribution;
+    }
+}
@@ -8,7 +8,8 @@ import java.time.LocalDate;
 
 @Entity
 @Table(name = "attendance",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"student_id", "school_class_id", "date"}))
+        uniqueConstraints = @UniqueConstraint(columnNames = {"student_id", "school_class_id", "date"}),
+        indexes = @Index(name = "idx_attendance_updated_at", columnList = "updated_at"))
 @Getter
 @Setter
 @NoArgsConstructor
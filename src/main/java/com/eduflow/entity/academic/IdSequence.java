@@ -0,0 +1,26 @@
+package com.eduflow.entity.academic;
+
+import com.eduflow.entity.base.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Counter row behind a generated identifier series, e.g. one per student-number prefix and year.
+ * Nodes reserve numbers from it in blocks; {@code nextValue} is the first number not yet handed out.
+ */
+@Entity
+@Table(name = "id_sequences",
+        uniqueConstraints = @UniqueConstraint(name = "uk_id_sequences_name", columnNames = "sequence_name"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdSequence extends BaseEntity {
+
+    @Column(name = "sequence_name", nullable = false, length = 50)
+    private String sequenceName;
+
+    @Column(name = "next_value", nullable = false)
+    private long nextValue;
+}
@@ -0,0 +1,49 @@
+package com.eduflow.entity.finance;
+
+import com.eduflow.entity.base.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A client-supplied Idempotency-Key claimed by one request. While the request runs the row is
+ * IN_PROGRESS; once it succeeds the serialised response is kept so retries can replay it.
+ * Rows past {@code expiresAt} are abandoned claims or replays nobody needs any more.
+ */
+@Entity
+@Table(name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_keys_scope_key",
+                columnNames = {"scope", "idempotency_key"}),
+        indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyKey extends BaseEntity {
+
+    @Column(nullable = false, length = 150)
+    private String scope;
+
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private KeyStatus status;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public enum KeyStatus {
+        IN_PROGRESS,
+        COMPLETED
+    }
+}
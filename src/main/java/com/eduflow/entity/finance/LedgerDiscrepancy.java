@@ -0,0 +1,60 @@
+package com.eduflow.entity.finance;
+
+import com.eduflow.entity.base.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A fee assignment whose amount_paid did not match the sum of its completed payments when the
+ * ledger verifier last looked at it. Rows are OPEN until the amount is corrected, either by the
+ * verifier itself or by a later run that finds the assignment consistent again.
+ */
+@Entity
+@Table(name = "ledger_discrepancies",
+        indexes = {
+                @Index(name = "idx_ledger_discrepancies_status", columnList = "status, id"),
+                @Index(name = "idx_ledger_discrepancies_assignment", columnList = "student_fee_assignment_id")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerDiscrepancy extends BaseEntity {
+
+    @Column(name = "student_fee_assignment_id", nullable = false)
+    private Long studentFeeAssignmentId;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Column(name = "recorded_amount_paid", nullable = false, precision = 10, scale = 2)
+    private BigDecimal recordedAmountPaid;
+
+    @Column(name = "completed_payments_total", nullable = false, precision = 10, scale = 2)
+    private BigDecimal completedPaymentsTotal;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private DiscrepancyStatus status = DiscrepancyStatus.OPEN;
+
+    @Column(name = "detected_at", nullable = false)
+    private LocalDateTime detectedAt;
+
+    @Column(name = "resolved_at")
+    private LocalDateTime resolvedAt;
+
+    public BigDecimal getDifference() {
+        return recordedAmountPaid.subtract(completedPaymentsTotal);
+    }
+
+    public enum DiscrepancyStatus {
+        OPEN,
+        CORRECTED,
+        RESOLVED
+    }
+}
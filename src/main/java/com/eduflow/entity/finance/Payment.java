@@ -10,7 +10,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments",
+        indexes = {
+                @Index(name = "idx_payments_gateway_ref", columnList = "gateway_ref"),
+                @Index(name = "idx_payments_assignment_status", columnList = "student_fee_assignment_id, status")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -35,6 +39,10 @@ public class Payment extends BaseEntity {
     @Column(name = "gateway_ref")
     private String gatewayRef;
 
+    // Bursar's receipt number for cash posted in bulk; unique so a receipt is never posted twice
+    @Column(name = "receipt_reference", unique = true, length = 100)
+    private String receiptReference;
+
     @Enumerated(EnumType.STRING)
     @Builder.Default
     private PaymentStatus status = PaymentStatus.PENDING;
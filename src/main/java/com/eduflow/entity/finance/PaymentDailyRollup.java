@@ -0,0 +1,44 @@
+package com.eduflow.entity.finance;
+
+import com.eduflow.entity.base.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Completed-payment totals per day, payment method and fee category.
+ * Maintained incrementally by the payment service so collection reports read a
+ * few rows per day instead of scanning payments.
+ */
+@Entity
+@Table(name = "payment_daily_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_payment_daily_rollup",
+                columnNames = {"collection_date", "payment_method", "category"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentDailyRollup extends BaseEntity {
+
+    @Column(name = "collection_date", nullable = false)
+    private LocalDate collectionDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method", nullable = false)
+    private Payment.PaymentMethod paymentMethod;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private FeeCategory.CategoryType category;
+
+    @Column(name = "total_amount", nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    @Column(name = "payment_count", nullable = false)
+    @Builder.Default
+    private long paymentCount = 0;
+}
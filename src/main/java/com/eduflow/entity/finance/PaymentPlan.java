@@ -11,7 +11,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "payment_plans")
+@Table(name = "payment_plans",
+        indexes = {
+                @Index(name = "idx_payment_plans_student_year", columnList = "student_id, academic_year, status"),
+                @Index(name = "idx_payment_plans_status", columnList = "status")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
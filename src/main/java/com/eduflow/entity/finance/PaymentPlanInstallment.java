@@ -8,7 +8,13 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "payment_plan_installments")
+@Table(name = "payment_plan_installments",
+        uniqueConstraints = @UniqueConstraint(name = "uk_ppi_plan_number",
+                columnNames = {"payment_plan_id", "installment_number"}),
+        indexes = {
+                @Index(name = "idx_ppi_status_due_date", columnList = "status, due_date"),
+                @Index(name = "idx_ppi_plan", columnList = "payment_plan_id")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -7,7 +7,8 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payment_transactions")
+@Table(name = "payment_transactions",
+        indexes = @Index(name = "idx_payment_transactions_gateway_ref", columnList = "gateway_ref"))
 @Getter
 @Setter
 @NoArgsConstructor
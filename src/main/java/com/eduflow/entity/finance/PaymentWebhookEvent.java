@@ -0,0 +1,64 @@
+package com.eduflow.entity.finance;
+
+import com.eduflow.entity.base.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A gateway webhook accepted by the inbox and waiting to be applied. Events that share a
+ * partition key belong to the same payment and are applied in id order.
+ */
+@Entity
+@Table(name = "payment_webhook_inbox",
+        indexes = {
+                @Index(name = "idx_webhook_inbox_status_next_attempt", columnList = "status, next_attempt_at, id"),
+                @Index(name = "idx_webhook_inbox_partition_key", columnList = "partition_key, id")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentWebhookEvent extends BaseEntity {
+
+    @Column(name = "raw_payload", nullable = false, columnDefinition = "TEXT")
+    private String rawPayload;
+
+    @Column(name = "partition_key", nullable = false)
+    private String partitionKey;
+
+    @Column(name = "transaction_id", unique = true)
+    private String transactionId;
+
+    @Column(name = "event_type")
+    private String eventType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private InboxStatus status = InboxStatus.RECEIVED;
+
+    @Builder.Default
+    private int attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    public enum InboxStatus {
+        RECEIVED,
+        PROCESSING,
+        PROCESSED,
+        FAILED
+    }
+}
@@ -12,7 +12,8 @@ import java.util.Set;
 
 @Entity
 @Table(name = "student_fee_assignments",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"student_id", "fee_id", "academic_year"}))
+        uniqueConstraints = @UniqueConstraint(columnNames = {"student_id", "fee_id", "academic_year"}),
+        indexes = @Index(name = "idx_sfa_status_due_date", columnList = "status, due_date"))
 @Getter
 @Setter
 @NoArgsConstructor
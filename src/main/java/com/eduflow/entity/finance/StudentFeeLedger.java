@@ -0,0 +1,80 @@
+package com.eduflow.entity.finance;
+
+import com.eduflow.entity.academic.Student;
+import com.eduflow.entity.base.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Per-student, per-academic-year projection of fee assignment totals.
+ * Maintained incrementally by the fee and payment services so dashboards read
+ * one row per child instead of aggregating payments per fee.
+ */
+@Entity
+@Table(name = "student_fee_ledger",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"student_id", "academic_year"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StudentFeeLedger extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "student_id", nullable = false)
+    private Student student;
+
+    @Column(name = "academic_year", nullable = false)
+    private String academicYear;
+
+    @Column(name = "total_fees", nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal totalFees = BigDecimal.ZERO;
+
+    @Column(name = "total_paid", nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal totalPaid = BigDecimal.ZERO;
+
+    @Column(name = "outstanding_balance", nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal outstandingBalance = BigDecimal.ZERO;
+
+    @Column(name = "fee_count", nullable = false)
+    @Builder.Default
+    private int feeCount = 0;
+
+    @Column(name = "pending_count", nullable = false)
+    @Builder.Default
+    private int pendingCount = 0;
+
+    @Column(name = "overdue_count", nullable = false)
+    @Builder.Default
+    private int overdueCount = 0;
+
+    /**
+     * What a single fee assignment adds to its student's ledger row.
+     * Capture it before mutating an assignment so the difference can be applied afterwards.
+     */
+    public record Contribution(BigDecimal netAmount, BigDecimal amountPaid, int fees, int pending, int overdue) {
+
+        public static final Contribution NONE = new Contribution(BigDecimal.ZERO, BigDecimal.ZERO, 0, 0, 0);
+
+        public static Contribution of(StudentFeeAssignment assignment) {
+            boolean waived = assignment.getStatus() == StudentFeeAssignment.FeeStatus.WAIVED;
+            boolean pending = !waived && assignment.getBalance().compareTo(BigDecimal.ZERO) > 0;
+            boolean overdue = assignment.getStatus() == StudentFeeAssignment.FeeStatus.OVERDUE;
+            return new Contribution(
+                    assignment.getNetAmount(),
+                    assignment.getAmountPaid(),
+                    1,
+                    pending ? 1 : 0,
+                    overdue ? 1 : 0);
+        }
+
+        public BigDecimal outstanding() {
+            return pending == 1 ? netAmount.subtract(amountPaid) : BigDecimal.ZERO;
+        }
+    }
+}
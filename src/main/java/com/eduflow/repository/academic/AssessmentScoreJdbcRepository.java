@@ -0,0 +1,108 @@
+package com.eduflow.repository.academic;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC-backed score writes for assessments. A class's marks are written as one batch of UPDATEs
+ * for students already scored and one batch of INSERTs for the rest, while the assessment row is
+ * locked so concurrent submissions for the same assessment apply one after the other.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AssessmentScoreJdbcRepository {
+
+    private static final String UPDATE_SQL =
+            "UPDATE assessment_scores SET score = ?, remarks = ?, absent = ?, updated_at = ?, updated_by = ?, " +
+            "version = version + 1 WHERE assessment_id = ? AND student_id = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO assessment_scores (assessment_id, student_id, score, remarks, absent, created_at, " +
+            "updated_at, created_by, updated_by, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String ASSESSMENT_SQL = "SELECT max_score, school_class_id FROM assessments WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditorAware<String> auditorAware;
+
+    /**
+     * Locks the assessment row for the rest of the surrounding transaction.
+     *
+     * @return the assessment's maximum score and class, or empty if there is no such assessment
+     */
+    public Optional<LockedAssessment> lockAssessment(long assessmentId) {
+        return jdbcTemplate.query(ASSESSMENT_SQL + " FOR UPDATE",
+                (rs, rowNum) -> new LockedAssessment(rs.getBigDecimal(1), rs.getLong(2)), assessmentId)
+                .stream().findFirst();
+    }
+
+    /**
+     * Reads the same columns as {@link #lockAssessment} without locking, for read-only callers.
+     */
+    public Optional<LockedAssessment> findAssessment(long assessmentId) {
+        return jdbcTemplate.query(ASSESSMENT_SQL,
+                (rs, rowNum) -> new LockedAssessment(rs.getBigDecimal(1), rs.getLong(2)), assessmentId)
+                .stream().findFirst();
+    }
+
+    public List<ScoreRow> findScores(long assessmentId) {
+        return jdbcTemplate.query(
+                "SELECT student_id, score, absent FROM assessment_scores WHERE assessment_id = ?",
+                (rs, rowNum) -> new ScoreRow(rs.getLong(1), rs.getBigDecimal(2), rs.getBoolean(3)),
+                assessmentId);
+    }
+
+    public void updateScores(long assessmentId, List<ScoreMark> marks) {
+        if (marks.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String auditor = auditorAware.getCurrentAuditor().orElse("system");
+        jdbcTemplate.batchUpdate(UPDATE_SQL, marks, marks.size(), (ps, mark) -> {
+            ps.setObject(1, mark.score(), Types.DECIMAL);
+            ps.setString(2, mark.remarks());
+            ps.setBoolean(3, mark.absent());
+            ps.setTimestamp(4, now);
+            ps.setString(5, auditor);
+            ps.setLong(6, assessmentId);
+            ps.setLong(7, mark.studentId());
+        });
+    }
+
+    public void insertScores(long assessmentId, List<ScoreMark> marks) {
+        if (marks.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String auditor = auditorAware.getCurrentAuditor().orElse("system");
+        jdbcTemplate.batchUpdate(INSERT_SQL, marks, marks.size(), (ps, mark) -> {
+            ps.setLong(1, assessmentId);
+            ps.setLong(2, mark.studentId());
+            ps.setObject(3, mark.score(), Types.DECIMAL);
+            ps.setString(4, mark.remarks());
+            ps.setBoolean(5, mark.absent());
+            ps.setTimestamp(6, now);
+            ps.setTimestamp(7, now);
+            ps.setString(8, auditor);
+            ps.setString(9, auditor);
+        });
+    }
+
+    public record LockedAssessment(BigDecimal maxScore, long classId) {
+    }
+
+    public record ScoreRow(long studentId, BigDecimal score, boolean absent) {
+    }
+
+    public record ScoreMark(long studentId, BigDecimal score, String remarks, boolean absent) {
+    }
+}
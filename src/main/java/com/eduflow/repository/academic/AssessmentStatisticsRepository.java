@@ -0,0 +1,22 @@
+package com.eduflow.repository.academic;
+
+import com.eduflow.entity.academic.AssessmentStatistics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AssessmentStatisticsRepository extends JpaRepository<AssessmentStatistics, Long> {
+
+    Optional<AssessmentStatistics> findByAssessmentId(Long assessmentId);
+
+    List<AssessmentStatistics> findByAssessmentIdIn(Collection<Long> assessmentIds);
+
+    @Query("SELECT a.id FROM Assessment a " +
+            "WHERE NOT EXISTS (SELECT 1 FROM AssessmentStatistics s WHERE s.assessmentId = a.id) ORDER BY a.id")
+    List<Long> findAssessmentIdsWithoutStatistics();
+}
@@ -0,0 +1,193 @@
+package com.eduflow.repository.academic;
+
+import com.eduflow.entity.academic.Attendance;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC-backed roster writes for attendance. A class's roll-call is written as one batch of
+ * UPDATEs for students already marked that day and one batch of inserts for the rest, instead
+ * of a lookup and a save per student.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AttendanceJdbcRepository {
+
+    private static final String UPDATE_SQL =
+            "UPDATE attendance SET status = ?, remarks = ?, marked_by = ?, updated_at = ?, updated_by = ?, " +
+            "version = version + 1 WHERE student_id = ? AND school_class_id = ? AND date = ?";
+
+    // Guarded by NOT EXISTS so a row created concurrently for the same (student, class, date) is
+    // skipped here; two inserts racing past the check are stopped by the unique constraint
+    private static final String INSERT_IF_ABSENT_SQL =
+            "INSERT INTO attendance (student_id, school_class_id, date, status, remarks, marked_by, created_at, " +
+            "updated_at, created_by, updated_by, version) " +
+            "SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0 " +
+            "WHERE NOT EXISTS (SELECT 1 FROM attendance WHERE student_id = ? AND school_class_id = ? AND date = ?)";
+
+    private static final String ROSTER_SQL =
+            "SELECT s.id, s.student_id, u.first_name, u.last_name FROM students s JOIN users u ON u.id = s.user_id ";
+
+    private static final RowMapper<RosterEntry> ROSTER_MAPPER = (rs, rowNum) ->
+            new RosterEntry(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4));
+
+    private static final int STREAM_FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditorAware<String> auditorAware;
+
+    /**
+     * Writes one attendance row per mark for the class and date, updating rows that already
+     * exist and inserting the others, in a single transaction.
+     *
+     * @return how many rows were updated and how many inserted
+     */
+    @Transactional
+    public UpsertResult upsert(long classId, LocalDate date, Long markedBy, List<AttendanceMark> marks) {
+        if (marks.isEmpty()) {
+            return new UpsertResult(0, 0);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String auditor = auditorAware.getCurrentAuditor().orElse("system");
+        Date sqlDate = Date.valueOf(date);
+
+        int[][] updates = jdbcTemplate.batchUpdate(UPDATE_SQL, marks, marks.size(), (ps, mark) -> {
+            ps.setString(1, mark.status().name());
+            ps.setString(2, mark.remarks());
+            ps.setObject(3, markedBy, Types.BIGINT);
+            ps.setTimestamp(4, now);
+            ps.setString(5, auditor);
+            ps.setLong(6, mark.studentId());
+            ps.setLong(7, classId);
+            ps.setDate(8, sqlDate);
+        });
+
+        List<AttendanceMark> unmarked = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : updates) {
+            for (int count : batch) {
+                if (count == 0) {
+                    unmarked.add(marks.get(index));
+                }
+                index++;
+            }
+        }
+        if (unmarked.isEmpty()) {
+            return new UpsertResult(marks.size(), 0);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_IF_ABSENT_SQL, unmarked, unmarked.size(), (ps, mark) -> {
+            ps.setLong(1, mark.studentId());
+            ps.setLong(2, classId);
+            ps.setDate(3, sqlDate);
+            ps.setString(4, mark.status().name());
+            ps.setString(5, mark.remarks());
+            ps.setObject(6, markedBy, Types.BIGINT);
+            ps.setTimestamp(7, now);
+            ps.setTimestamp(8, now);
+            ps.setString(9, auditor);
+            ps.setString(10, auditor);
+            ps.setLong(11, mark.studentId());
+            ps.setLong(12, classId);
+            ps.setDate(13, sqlDate);
+        });
+        return new UpsertResult(marks.size() - unmarked.size(), unmarked.size());
+    }
+
+    /**
+     * Streams every attendance row's student, date and status to {@code consumer} without
+     * loading entities, for rebuilding in-memory attendance indexes. Runs in a read-only
+     * transaction so the driver can fetch from a cursor instead of buffering the table.
+     */
+    @Transactional(readOnly = true)
+    public void forEachMark(MarkConsumer consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "SELECT student_id, date, status FROM attendance",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getDate(2).toLocalDate(),
+                Attendance.AttendanceStatus.valueOf(rs.getString(3))));
+    }
+
+    /**
+     * Hands each mark of the class between {@code from} and {@code to} inclusive to
+     * {@code consumer}, reading only the student, date and status columns.
+     */
+    /**
+     * Streams the student, date and status of every attendance row written at or after
+     * {@code since}, for topping up in-memory attendance indexes between rebuilds.
+     */
+    public void forEachMarkWrittenSince(LocalDateTime since, MarkConsumer consumer) {
+        jdbcTemplate.query("SELECT student_id, date, status FROM attendance WHERE updated_at >= ?",
+                (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getDate(2).toLocalDate(),
+                        Attendance.AttendanceStatus.valueOf(rs.getString(3))),
+                Timestamp.valueOf(since));
+    }
+
+    public void forEachClassMark(long classId, LocalDate from, LocalDate to, MarkConsumer consumer) {
+        jdbcTemplate.query(
+                "SELECT student_id, date, status FROM attendance " +
+                        "WHERE school_class_id = ? AND date BETWEEN ? AND ?",
+                (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getDate(2).toLocalDate(),
+                        Attendance.AttendanceStatus.valueOf(rs.getString(3))),
+                classId, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /**
+     * Students currently in the class together with any marked in it between {@code from} and
+     * {@code to}, so students who have since moved class keep their rows.
+     */
+    public List<RosterEntry> findRosterWithMarks(long classId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(ROSTER_SQL + "WHERE s.current_class_id = ? OR s.id IN (" +
+                        "SELECT a.student_id FROM attendance a " +
+                        "WHERE a.school_class_id = ? AND a.date BETWEEN ? AND ?) " +
+                        "ORDER BY u.last_name, u.first_name, s.id",
+                ROSTER_MAPPER, classId, classId, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    public List<RosterEntry> findRoster(long classId) {
+        return jdbcTemplate.query(ROSTER_SQL + "WHERE s.current_class_id = ? ORDER BY u.last_name, u.first_name, s.id",
+                ROSTER_MAPPER, classId);
+    }
+
+    public Optional<RosterEntry> findRosterEntry(long studentId) {
+        return jdbcTemplate.query(ROSTER_SQL + "WHERE s.id = ?", ROSTER_MAPPER, studentId).stream().findFirst();
+    }
+
+    @FunctionalInterface
+    public interface MarkConsumer {
+        void accept(long studentId, LocalDate date, Attendance.AttendanceStatus status);
+    }
+
+    public record RosterEntry(long studentId, String studentNumber, String firstName, String lastName) {
+
+        public String fullName() {
+            return firstName + " " + lastName;
+        }
+    }
+
+    public record AttendanceMark(long studentId, Attendance.AttendanceStatus status, String remarks) {
+    }
+
+    public record UpsertResult(int updated, int inserted) {
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,9 +16,20 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
 
     List<Attendance> findBySchoolClassIdAndDate(Long classId, LocalDate date);
 
+    @Query("SELECT a FROM Attendance a JOIN FETCH a.student s JOIN FETCH s.user JOIN FETCH a.schoolClass " +
+            "LEFT JOIN FETCH a.markedBy t LEFT JOIN FETCH t.user " +
+            "WHERE a.schoolClass.id = :classId AND a.date = :date AND s.id IN :studentIds")
+    List<Attendance> findWithStudentsByClassIdAndDate(@Param("classId") Long classId,
+                                                      @Param("date") LocalDate date,
+                                                      @Param("studentIds") Collection<Long> studentIds);
+
     List<Attendance> findByStudentIdAndDateBetween(Long studentId, LocalDate startDate, LocalDate endDate);
 
-    List<Attendance> findBySchoolClassIdAndDateBetween(Long classId, LocalDate startDate, LocalDate endDate);
+    @Query("SELECT a FROM Attendance a JOIN FETCH a.student s JOIN FETCH s.user " +
+            "WHERE a.schoolClass.id = :classId AND a.date BETWEEN :startDate AND :endDate")
+    List<Attendance> findBySchoolClassIdAndDateBetween(@Param("classId") Long classId,
+                                                       @Param("startDate") LocalDate startDate,
+                                                       @Param("endDate") LocalDate endDate);
 
     Optional<Attendance> findByStudentIdAndSchoolClassIdAndDate(Long studentId, Long classId, LocalDate date);
 
@@ -0,0 +1,33 @@
+package com.eduflow.repository.academic;
+
+import com.eduflow.entity.academic.IdSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdSequenceRepository extends JpaRepository<IdSequence, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO id_sequences (sequence_name, next_value, created_at, updated_at, created_by, " +
+            "updated_by, version) " +
+            "SELECT :sequenceName, :initialValue, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'system', 'system', 0 " +
+            "WHERE NOT EXISTS (SELECT 1 FROM id_sequences s WHERE s.sequence_name = :sequenceName)",
+            nativeQuery = true)
+    int insertMissing(@Param("sequenceName") String sequenceName, @Param("initialValue") long initialValue);
+
+    /**
+     * Moves the counter past a block of {@code blockSize} numbers. The row stays locked until the
+     * surrounding transaction ends, so concurrent reservations from any node serialise here.
+     */
+    @Modifying
+    @Query(value = "UPDATE id_sequences SET next_value = next_value + :blockSize, " +
+            "updated_at = CURRENT_TIMESTAMP, version = version + 1 WHERE sequence_name = :sequenceName",
+            nativeQuery = true)
+    int advance(@Param("sequenceName") String sequenceName, @Param("blockSize") long blockSize);
+
+    @Query(value = "SELECT next_value FROM id_sequences WHERE sequence_name = :sequenceName", nativeQuery = true)
+    Long findNextValue(@Param("sequenceName") String sequenceName);
+}
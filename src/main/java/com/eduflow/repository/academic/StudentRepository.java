@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,6 +40,30 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
             "OR LOWER(s.user.lastName) LIKE LOWER(CONCAT('%', :name, '%'))")
     Page<Student> searchByName(@Param("name") String name, Pageable pageable);
 
+    @Query("SELECT s.id FROM Student s WHERE s.id IN :studentIds")
+    List<Long> findExistingIds(@Param("studentIds") Collection<Long> studentIds);
+
+    @Query("SELECT COUNT(s) FROM Student s WHERE s.currentClass.id IN :classIds")
+    long countByCurrentClassIdIn(@Param("classIds") Collection<Long> classIds);
+
+    @Query("SELECT s.id FROM Student s WHERE s.id IN :studentIds AND NOT EXISTS (" +
+            "SELECT 1 FROM StudentFeeAssignment sfa WHERE sfa.student = s " +
+            "AND sfa.fee.id = :feeId AND sfa.academicYear = :academicYear) ORDER BY s.id")
+    List<Long> findIdsWithoutFeeAssignment(
+            @Param("studentIds") Collection<Long> studentIds,
+            @Param("feeId") Long feeId,
+            @Param("academicYear") String academicYear);
+
+    @Query("SELECT s.id FROM Student s WHERE s.currentClass.id IN :classIds AND s.id > :afterId AND NOT EXISTS (" +
+            "SELECT 1 FROM StudentFeeAssignment sfa WHERE sfa.student = s " +
+            "AND sfa.fee.id = :feeId AND sfa.academicYear = :academicYear) ORDER BY s.id")
+    List<Long> findIdsInClassesWithoutFeeAssignment(
+            @Param("classIds") Collection<Long> classIds,
+            @Param("feeId") Long feeId,
+            @Param("academicYear") String academicYear,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
     @Query("SELECT MAX(CAST(SUBSTRING(s.studentId, 8) AS int)) FROM Student s WHERE s.studentId LIKE CONCAT(:prefix, '%')")
     Integer findMaxStudentIdNumber(@Param("prefix") String prefix);
 }
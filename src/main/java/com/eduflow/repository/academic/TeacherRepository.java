@@ -23,6 +23,9 @@ public interface TeacherRepository extends JpaRepository<Teacher, Long> {
 
     Optional<Teacher> findByUserId(Long userId);
 
+    @Query("SELECT t FROM Teacher t JOIN FETCH t.user u WHERE u.email = :email")
+    Optional<Teacher> findByUserEmail(@Param("email") String email);
+
     @Query("SELECT DISTINCT t FROM Teacher t " +
             "LEFT JOIN FETCH t.user " +
             "LEFT JOIN FETCH t.subjects " +
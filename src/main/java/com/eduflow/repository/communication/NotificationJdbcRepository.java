@@ -0,0 +1,61 @@
+package com.eduflow.repository.communication;
+
+import com.eduflow.entity.communication.Notification;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC-backed batch inserts for notifications generated by bulk reminder runs.
+ */
+@Repository
+@RequiredArgsConstructor
+public class NotificationJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notifications (recipient_id, title, message, type, channel, is_read, sent_at, " +
+            "reference_type, reference_id, delivery_status, created_at, updated_at, created_by, updated_by, " +
+            "version) VALUES (?, ?, ?, ?, ?, false, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditorAware<String> auditorAware;
+
+    /**
+     * Inserts the notifications as SENT in a single JDBC batch.
+     */
+    public void insertSent(List<NewNotification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String auditor = auditorAware.getCurrentAuditor().orElse("system");
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, notifications, notifications.size(), (ps, notification) -> {
+            ps.setLong(1, notification.recipientId());
+            ps.setString(2, notification.title());
+            ps.setString(3, notification.message());
+            ps.setString(4, notification.type().name());
+            ps.setString(5, notification.channel().name());
+            ps.setTimestamp(6, now);
+            ps.setString(7, notification.referenceType());
+            ps.setLong(8, notification.referenceId());
+            ps.setString(9, Notification.DeliveryStatus.SENT.name());
+            ps.setTimestamp(10, now);
+            ps.setTimestamp(11, now);
+            ps.setString(12, auditor);
+            ps.setString(13, auditor);
+        });
+    }
+
+    public record NewNotification(long recipientId, String title, String message,
+                                  Notification.NotificationType type,
+                                  Notification.NotificationChannel channel,
+                                  String referenceType, long referenceId) {
+    }
+}
@@ -0,0 +1,186 @@
+package com.eduflow.repository.finance;
+
+import com.eduflow.entity.finance.FeeCategory;
+import com.eduflow.entity.finance.StudentFeeAssignment;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JDBC-backed posting of cash receipt batches: one locking read for every assignment in the
+ * batch, then JDBC batches of payment inserts, in-place amount_paid increments and ledger deltas.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CashReceiptJdbcRepository {
+
+    // Row locks keep concurrent payments on the same assignments from overdrawing their balance
+    private static final String LOCK_ASSIGNMENTS_SQL =
+            "SELECT sfa.id, sfa.student_id, sfa.academic_year, sfa.amount, COALESCE(sfa.discount_amount, 0), " +
+            "COALESCE(sfa.amount_paid, 0), sfa.status, fc.name, " +
+            "EXISTS (SELECT 1 FROM payment_plans pp WHERE pp.student_id = sfa.student_id " +
+            "AND pp.academic_year = sfa.academic_year AND pp.status IN ('ACTIVE', 'DEFAULTED')) " +
+            "FROM student_fee_assignments sfa " +
+            "JOIN fees f ON f.id = sfa.fee_id " +
+            "JOIN fee_categories fc ON fc.id = f.category_id " +
+            "WHERE sfa.id IN (%s) FOR UPDATE";
+
+    private static final String SELECT_POSTED_REFERENCES_SQL =
+            "SELECT receipt_reference FROM payments WHERE receipt_reference IN (%s)";
+
+    private static final String INSERT_PAYMENT_SQL =
+            "INSERT INTO payments (student_fee_assignment_id, amount, payment_method, transaction_ref, status, " +
+            "paid_at, payer_name, notes, receipt_reference, created_at, updated_at, created_by, updated_by, version) " +
+            "VALUES (?, ?, 'CASH', ?, 'COMPLETED', ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String CREDIT_ASSIGNMENT_SQL =
+            "UPDATE student_fee_assignments SET amount_paid = COALESCE(amount_paid, 0) + ?, status = ?, " +
+            "updated_at = ?, updated_by = ?, version = version + 1 WHERE id = ?";
+
+    private static final String APPLY_LEDGER_PAYMENT_SQL =
+            "UPDATE student_fee_ledger SET total_paid = total_paid + ?, outstanding_balance = outstanding_balance - ?, " +
+            "pending_count = pending_count + ?, overdue_count = overdue_count + ?, updated_at = ? " +
+            "WHERE student_id = ? AND academic_year = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditorAware<String> auditorAware;
+
+    /**
+     * Reads and row-locks the assignments until the surrounding transaction ends.
+     */
+    public List<ReceiptAssignment> lockAssignments(Collection<Long> assignmentIds) {
+        if (assignmentIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(
+                String.format(LOCK_ASSIGNMENTS_SQL, String.join(", ", Collections.nCopies(assignmentIds.size(), "?"))),
+                (rs, rowNum) -> new ReceiptAssignment(
+                        rs.getLong(1),
+                        rs.getLong(2),
+                        rs.getString(3),
+                        rs.getBigDecimal(4),
+                        rs.getBigDecimal(5),
+                        rs.getBigDecimal(6),
+                        StudentFeeAssignment.FeeStatus.valueOf(rs.getString(7)),
+                        FeeCategory.CategoryType.valueOf(rs.getString(8)),
+                        rs.getBoolean(9)),
+                assignmentIds.toArray());
+    }
+
+    /**
+     * @return those of the given receipt references that an earlier batch already posted
+     */
+    public List<String> findPostedReferences(Collection<String> references) {
+        if (references.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(references.size(), "?"));
+        return jdbcTemplate.queryForList(String.format(SELECT_POSTED_REFERENCES_SQL, placeholders),
+                String.class, references.toArray());
+    }
+
+    /**
+     * @throws org.springframework.dao.DuplicateKeyException if a receipt reference was posted meanwhile
+     */
+    public void insertPayments(List<NewCashPayment> payments, LocalDateTime paidAt) {
+        if (payments.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(paidAt);
+        String auditor = auditor();
+        jdbcTemplate.batchUpdate(INSERT_PAYMENT_SQL, payments, payments.size(), (ps, payment) -> {
+            ps.setLong(1, payment.assignmentId());
+            ps.setBigDecimal(2, payment.amount());
+            ps.setString(3, payment.transactionRef());
+            ps.setTimestamp(4, now);
+            ps.setString(5, payment.payerName());
+            ps.setString(6, payment.notes());
+            ps.setString(7, payment.receiptReference());
+            ps.setTimestamp(8, now);
+            ps.setTimestamp(9, now);
+            ps.setString(10, auditor);
+            ps.setString(11, auditor);
+        });
+    }
+
+    /**
+     * Adds each credit to the assignment's amount_paid in place and sets its resulting status.
+     */
+    public void creditAssignments(List<AssignmentCredit> credits) {
+        if (credits.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String auditor = auditor();
+        jdbcTemplate.batchUpdate(CREDIT_ASSIGNMENT_SQL, credits, credits.size(), (ps, credit) -> {
+            ps.setBigDecimal(1, credit.amount());
+            ps.setString(2, credit.status().name());
+            ps.setTimestamp(3, now);
+            ps.setString(4, auditor);
+            ps.setLong(5, credit.assignmentId());
+        });
+    }
+
+    /**
+     * Applies each student's combined payments to their ledger row in place.
+     *
+     * @return the changes whose ledger row does not exist yet
+     */
+    public List<LedgerPayment> applyLedgerPayments(List<LedgerPayment> changes) {
+        if (changes.isEmpty()) {
+            return List.of();
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] counts = jdbcTemplate.batchUpdate(APPLY_LEDGER_PAYMENT_SQL, changes, changes.size(), (ps, change) -> {
+            ps.setBigDecimal(1, change.paid());
+            ps.setBigDecimal(2, change.paid());
+            ps.setInt(3, change.pendingDelta());
+            ps.setInt(4, change.overdueDelta());
+            ps.setTimestamp(5, now);
+            ps.setLong(6, change.studentId());
+            ps.setString(7, change.academicYear());
+        });
+
+        List<LedgerPayment> missing = new ArrayList<>();
+        for (int i = 0; i < changes.size(); i++) {
+            if (counts[0][i] == 0) {
+                missing.add(changes.get(i));
+            }
+        }
+        return missing;
+    }
+
+    private String auditor() {
+        return auditorAware.getCurrentAuditor().orElse("system");
+    }
+
+    public record ReceiptAssignment(long assignmentId, long studentId, String academicYear, BigDecimal amount,
+                                    BigDecimal discountAmount, BigDecimal amountPaid,
+                                    StudentFeeAssignment.FeeStatus status, FeeCategory.CategoryType category,
+                                    boolean hasOpenPlan) {
+
+        public BigDecimal netAmount() {
+            return amount.subtract(discountAmount);
+        }
+    }
+
+    public record NewCashPayment(long assignmentId, BigDecimal amount, String transactionRef, String payerName,
+                                 String notes, String receiptReference) {}
+
+    public record LedgerPayment(long studentId, String academicYear, BigDecimal paid, int pendingDelta,
+                                int overdueDelta) {}
+
+    public record AssignmentCredit(long assignmentId, BigDecimal amount, StudentFeeAssignment.FeeStatus status) {}
+}
@@ -0,0 +1,68 @@
+package com.eduflow.repository.finance;
+
+import com.eduflow.entity.finance.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+
+    Optional<IdempotencyKey> findByScopeAndIdempotencyKey(String scope, String idempotencyKey);
+
+    /**
+     * Claims a key for one request. Returns 0 when the key is already claimed; two nodes racing
+     * past the NOT EXISTS check are separated by the unique constraint instead.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (scope, idempotency_key, request_hash, status, expires_at, " +
+            "created_at, updated_at, created_by, updated_by, version) " +
+            "SELECT :scope, :idempotencyKey, :requestHash, 'IN_PROGRESS', :expiresAt, " +
+            "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'system', 'system', 0 " +
+            "WHERE NOT EXISTS (SELECT 1 FROM idempotency_keys k " +
+            "WHERE k.scope = :scope AND k.idempotency_key = :idempotencyKey)",
+            nativeQuery = true)
+    int claim(@Param("scope") String scope, @Param("idempotencyKey") String idempotencyKey,
+              @Param("requestHash") String requestHash, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query(value = "UPDATE idempotency_keys SET status = 'COMPLETED', response_body = :responseBody, " +
+            "expires_at = :expiresAt, updated_at = CURRENT_TIMESTAMP, version = version + 1 " +
+            "WHERE scope = :scope AND idempotency_key = :idempotencyKey AND status = 'IN_PROGRESS'",
+            nativeQuery = true)
+    int complete(@Param("scope") String scope, @Param("idempotencyKey") String idempotencyKey,
+                 @Param("responseBody") String responseBody, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Extends the lease of a claim whose request is still running.
+     */
+    @Modifying
+    @Query(value = "UPDATE idempotency_keys SET expires_at = :expiresAt, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE scope = :scope AND idempotency_key = :idempotencyKey AND status = 'IN_PROGRESS'",
+            nativeQuery = true)
+    int renew(@Param("scope") String scope, @Param("idempotencyKey") String idempotencyKey,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Gives up a claim whose request failed, so a retry with the same key runs again.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE scope = :scope AND idempotency_key = :idempotencyKey " +
+            "AND status = 'IN_PROGRESS'", nativeQuery = true)
+    int release(@Param("scope") String scope, @Param("idempotencyKey") String idempotencyKey);
+
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE scope = :scope AND idempotency_key = :idempotencyKey " +
+            "AND expires_at < :now", nativeQuery = true)
+    int deleteIfExpired(@Param("scope") String scope, @Param("idempotencyKey") String idempotencyKey,
+                        @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE expires_at < :now", nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
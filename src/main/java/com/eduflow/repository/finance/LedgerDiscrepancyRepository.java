@@ -0,0 +1,39 @@
+package com.eduflow.repository.finance;
+
+import com.eduflow.entity.finance.LedgerDiscrepancy;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LedgerDiscrepancyRepository extends JpaRepository<LedgerDiscrepancy, Long> {
+
+    Page<LedgerDiscrepancy> findByStatus(LedgerDiscrepancy.DiscrepancyStatus status, Pageable pageable);
+
+    long countByStatus(LedgerDiscrepancy.DiscrepancyStatus status);
+
+    List<LedgerDiscrepancy> findByStudentFeeAssignmentIdInAndStatus(Collection<Long> assignmentIds,
+                                                                    LedgerDiscrepancy.DiscrepancyStatus status);
+
+    /**
+     * Closes open discrepancies in the assignment id range {@code (afterId, lastId]} that were
+     * not seen again by the run that started at {@code runStartedAt}.
+     */
+    @Modifying
+    @Query("UPDATE LedgerDiscrepancy d " +
+            "SET d.status = com.eduflow.entity.finance.LedgerDiscrepancy.DiscrepancyStatus.RESOLVED, " +
+            "d.resolvedAt = :now " +
+            "WHERE d.status = com.eduflow.entity.finance.LedgerDiscrepancy.DiscrepancyStatus.OPEN " +
+            "AND d.studentFeeAssignmentId > :afterId AND d.studentFeeAssignmentId <= :lastId " +
+            "AND d.detectedAt < :runStartedAt")
+    int resolveUnseen(@Param("afterId") long afterId, @Param("lastId") long lastId,
+                      @Param("runStartedAt") LocalDateTime runStartedAt, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,96 @@
+package com.eduflow.repository.finance;
+
+import com.eduflow.entity.finance.FeeCategory;
+import com.eduflow.entity.finance.Payment;
+import com.eduflow.entity.finance.PaymentDailyRollup;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PaymentDailyRollupRepository extends JpaRepository<PaymentDailyRollup, Long> {
+
+    /**
+     * Creates the zero row in its own transaction, so two payments racing to open the same
+     * day only collide here and never roll back the caller's payment.
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "INSERT INTO payment_daily_rollup (collection_date, payment_method, category, " +
+            "total_amount, payment_count, created_at, updated_at, created_by, updated_by, version) " +
+            "SELECT :collectionDate, :paymentMethod, :category, 0, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, " +
+            "'system', 'system', 0 WHERE NOT EXISTS (SELECT 1 FROM payment_daily_rollup r " +
+            "WHERE r.collection_date = :collectionDate AND r.payment_method = :paymentMethod " +
+            "AND r.category = :category)",
+            nativeQuery = true)
+    int insertMissing(@Param("collectionDate") LocalDate collectionDate,
+                      @Param("paymentMethod") String paymentMethod,
+                      @Param("category") String category);
+
+    @Modifying
+    @Query(value = "UPDATE payment_daily_rollup SET total_amount = total_amount + :amountDelta, " +
+            "payment_count = payment_count + :countDelta, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE collection_date = :collectionDate AND payment_method = :paymentMethod " +
+            "AND category = :category",
+            nativeQuery = true)
+    int applyDelta(@Param("collectionDate") LocalDate collectionDate,
+                   @Param("paymentMethod") String paymentMethod,
+                   @Param("category") String category,
+                   @Param("amountDelta") BigDecimal amountDelta,
+                   @Param("countDelta") long countDelta);
+
+    /** One row of {earliest, latest} collection date, both null when the table is empty. */
+    @Query("SELECT MIN(r.collectionDate), MAX(r.collectionDate) FROM PaymentDailyRollup r")
+    List<Object[]> findDateRange();
+
+    /** One row of {earliest, latest} paid-at time of payments in the given status. */
+    @Query("SELECT MIN(p.paidAt), MAX(p.paidAt) FROM Payment p WHERE p.status = :status")
+    List<Object[]> findPaidAtRange(@Param("status") Payment.PaymentStatus status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM PaymentDailyRollup r WHERE r.collectionDate BETWEEN :from AND :to ORDER BY r.id")
+    List<PaymentDailyRollup> lockRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<PaymentDailyRollup> findByCollectionDateAndPaymentMethodAndCategory(
+            LocalDate collectionDate, Payment.PaymentMethod paymentMethod, FeeCategory.CategoryType category);
+
+    /** Rows are {collectionDate, paymentMethod, category, totalAmount, paymentCount}. */
+    @Query(value = "SELECT CAST(p.paid_at AS DATE), p.payment_method, fc.name, SUM(p.amount), COUNT(*) " +
+            "FROM payments p " +
+            "JOIN student_fee_assignments sfa ON sfa.id = p.student_fee_assignment_id " +
+            "JOIN fees f ON f.id = sfa.fee_id " +
+            "JOIN fee_categories fc ON fc.id = f.category_id " +
+            "WHERE p.status = 'COMPLETED' AND p.paid_at >= :fromTime AND p.paid_at < :toTime " +
+            "GROUP BY CAST(p.paid_at AS DATE), p.payment_method, fc.name",
+            nativeQuery = true)
+    List<Object[]> sumCompletedBetween(@Param("fromTime") LocalDateTime fromTime,
+                                       @Param("toTime") LocalDateTime toTime);
+
+    /** Rows are {collectionDate, totalAmount, paymentCount}, one per day with collections. */
+    @Query("SELECT r.collectionDate, SUM(r.totalAmount), SUM(r.paymentCount) FROM PaymentDailyRollup r " +
+            "WHERE r.collectionDate BETWEEN :from AND :to GROUP BY r.collectionDate ORDER BY r.collectionDate")
+    List<Object[]> sumByDate(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /** Rows are {paymentMethod, totalAmount, paymentCount}. */
+    @Query("SELECT r.paymentMethod, SUM(r.totalAmount), SUM(r.paymentCount) FROM PaymentDailyRollup r " +
+            "WHERE r.collectionDate BETWEEN :from AND :to GROUP BY r.paymentMethod")
+    List<Object[]> sumByPaymentMethod(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /** Rows are {category, totalAmount, paymentCount}. */
+    @Query("SELECT r.category, SUM(r.totalAmount), SUM(r.paymentCount) FROM PaymentDailyRollup r " +
+            "WHERE r.collectionDate BETWEEN :from AND :to GROUP BY r.category")
+    List<Object[]> sumByCategory(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
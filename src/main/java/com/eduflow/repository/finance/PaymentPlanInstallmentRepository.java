@@ -0,0 +1,18 @@
+package com.eduflow.repository.finance;
+
+import com.eduflow.entity.finance.PaymentPlanInstallment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PaymentPlanInstallmentRepository extends JpaRepository<PaymentPlanInstallment, Long> {
+
+    // Locked so two payments by one student against different fees allocate in turn
+    @Query(value = "SELECT * FROM payment_plan_installments WHERE payment_plan_id = :planId " +
+            "AND status <> 'PAID' ORDER BY installment_number FOR UPDATE", nativeQuery = true)
+    List<PaymentPlanInstallment> findUnpaidByPlanIdForUpdate(@Param("planId") Long planId);
+}
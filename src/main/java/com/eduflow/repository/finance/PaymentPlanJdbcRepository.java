@@ -0,0 +1,236 @@
+package com.eduflow.repository.finance;
+
+import com.eduflow.entity.finance.PaymentPlanInstallment;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JDBC-backed bulk writes and scans for payment plans and their installments.
+ * Entities use IDENTITY ids, which disables Hibernate insert batching, so plan generation
+ * and status transitions go through plain JDBC batches and set-based updates instead.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PaymentPlanJdbcRepository {
+
+    // A student qualifies once per academic year: an outstanding ledger balance and no open plan
+    private static final String SELECT_CANDIDATES_SQL =
+            "SELECT s.id, l.outstanding_balance FROM students s " +
+            "JOIN student_fee_ledger l ON l.student_id = s.id AND l.academic_year = ? " +
+            "JOIN school_classes c ON c.id = s.current_class_id " +
+            "WHERE s.id > ? AND l.outstanding_balance > 0 AND %s " +
+            "AND NOT EXISTS (SELECT 1 FROM payment_plans pp WHERE pp.student_id = s.id " +
+            "AND pp.academic_year = l.academic_year AND pp.status IN ('ACTIVE', 'DEFAULTED')) " +
+            "ORDER BY s.id LIMIT ?";
+
+    // Serialises concurrent generation runs over the same students; the loser then sees the winner's plans
+    private static final String LOCK_LEDGERS_SQL =
+            "SELECT student_id FROM student_fee_ledger WHERE academic_year = ? AND student_id IN (%s) " +
+            "ORDER BY student_id FOR UPDATE";
+
+    // Guarded by NOT EXISTS so a plan opened concurrently for the same student and year is not duplicated
+    private static final String INSERT_PLAN_IF_ABSENT_SQL =
+            "INSERT INTO payment_plans (student_id, total_amount, number_of_installments, installment_amount, " +
+            "start_date, end_date, academic_year, status, notes, created_at, updated_at, created_by, " +
+            "updated_by, version) " +
+            "SELECT ?, ?, ?, ?, ?, ?, ?, 'ACTIVE', ?, ?, ?, ?, ?, 0 " +
+            "WHERE NOT EXISTS (SELECT 1 FROM payment_plans WHERE student_id = ? AND academic_year = ? " +
+            "AND status IN ('ACTIVE', 'DEFAULTED'))";
+
+    private static final String SELECT_OPEN_PLANS_SQL =
+            "SELECT id, student_id, total_amount, installment_amount FROM payment_plans " +
+            "WHERE academic_year = ? AND status = 'ACTIVE' AND student_id IN (%s) " +
+            "AND NOT EXISTS (SELECT 1 FROM payment_plan_installments i WHERE i.payment_plan_id = payment_plans.id)";
+
+    private static final String INSERT_INSTALLMENT_SQL =
+            "INSERT INTO payment_plan_installments (payment_plan_id, installment_number, amount, due_date, " +
+            "paid_amount, status, created_at, updated_at, created_by, updated_by, version) " +
+            "VALUES (?, ?, ?, ?, 0, 'PENDING', ?, ?, ?, ?, 0)";
+
+    // Served by idx_ppi_status_due_date as one range scan per open status
+    private static final String MARK_INSTALLMENTS_OVERDUE_SQL =
+            "UPDATE payment_plan_installments SET status = 'OVERDUE', updated_at = ?, updated_by = ?, " +
+            "version = version + 1 WHERE status IN ('PENDING', 'PARTIAL') AND due_date < ?";
+
+    private static final String DEFAULT_PLANS_SQL =
+            "UPDATE payment_plans SET status = 'DEFAULTED', updated_at = ?, updated_by = ?, version = version + 1 " +
+            "WHERE status = 'ACTIVE' AND id IN (SELECT i.payment_plan_id FROM payment_plan_installments i " +
+            "WHERE i.status = 'OVERDUE' AND i.due_date < ?)";
+
+    private static final String COMPLETE_PLANS_SQL =
+            "UPDATE payment_plans SET status = 'COMPLETED', updated_at = ?, updated_by = ?, version = version + 1 " +
+            "WHERE status IN ('ACTIVE', 'DEFAULTED') AND NOT EXISTS (SELECT 1 FROM payment_plan_installments i " +
+            "WHERE i.payment_plan_id = payment_plans.id AND i.status <> 'PAID')";
+
+    private static final String SELECT_DUE_INSTALLMENTS_SQL =
+            "SELECT i.id, i.payment_plan_id, p.student_id, i.installment_number, i.due_date, i.amount, " +
+            "COALESCE(i.paid_amount, 0) AS paid_amount, i.status FROM payment_plan_installments i " +
+            "JOIN payment_plans p ON p.id = i.payment_plan_id " +
+            "WHERE i.status IN ('PENDING', 'PARTIAL', 'OVERDUE') AND i.due_date <= ? AND i.id > ? " +
+            "AND p.status IN ('ACTIVE', 'DEFAULTED') ORDER BY i.id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditorAware<String> auditorAware;
+
+    /**
+     * Returns the next chunk of students, ordered by id and starting after {@code afterId}, who owe
+     * money for the academic year, have no open plan, and sit in one of the classes or the grade.
+     */
+    public List<PlanCandidate> findPlanCandidates(String academicYear, Collection<Long> classIds, Integer grade,
+                                                  long afterId, int limit) {
+        List<Object> args = new ArrayList<>();
+        args.add(academicYear);
+        args.add(afterId);
+        String filter;
+        if (classIds != null && !classIds.isEmpty()) {
+            filter = "c.id IN (" + placeholders(classIds.size()) + ")";
+            args.addAll(classIds);
+        } else {
+            filter = "c.grade = ? AND c.academic_year = ?";
+            args.add(grade);
+            args.add(academicYear);
+        }
+        args.add(limit);
+
+        return jdbcTemplate.query(String.format(SELECT_CANDIDATES_SQL, filter),
+                (rs, rowNum) -> new PlanCandidate(rs.getLong(1), rs.getBigDecimal(2)),
+                args.toArray());
+    }
+
+    /**
+     * Opens an ACTIVE plan for every candidate and writes its installment schedule, two JDBC
+     * batches in all. Installments split the balance evenly; the last one absorbs the rounding.
+     * The candidates' ledger rows stay locked until the caller's transaction ends, so two runs
+     * over the same students cannot both write a plan or a schedule.
+     *
+     * @return the plans actually created, candidates that already had an open plan are skipped
+     */
+    public List<NewPlan> insertPlans(List<PlanCandidate> candidates, String academicYear, int installments,
+                                     List<LocalDate> dueDates, String notes) {
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        List<Object> studentArgs = new ArrayList<>(candidates.size() + 1);
+        studentArgs.add(academicYear);
+        candidates.forEach(candidate -> studentArgs.add(candidate.studentId()));
+        jdbcTemplate.queryForList(String.format(LOCK_LEDGERS_SQL, placeholders(candidates.size())),
+                Long.class, studentArgs.toArray());
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String auditor = auditorAware.getCurrentAuditor().orElse("system");
+        Date startDate = Date.valueOf(dueDates.get(0));
+        Date endDate = Date.valueOf(dueDates.get(dueDates.size() - 1));
+
+        jdbcTemplate.batchUpdate(INSERT_PLAN_IF_ABSENT_SQL, candidates, candidates.size(), (ps, candidate) -> {
+            ps.setLong(1, candidate.studentId());
+            ps.setBigDecimal(2, candidate.balance());
+            ps.setInt(3, installments);
+            ps.setBigDecimal(4, installmentAmount(candidate.balance(), installments));
+            ps.setDate(5, startDate);
+            ps.setDate(6, endDate);
+            ps.setString(7, academicYear);
+            ps.setString(8, notes);
+            ps.setTimestamp(9, now);
+            ps.setTimestamp(10, now);
+            ps.setString(11, auditor);
+            ps.setString(12, auditor);
+            ps.setLong(13, candidate.studentId());
+            ps.setString(14, academicYear);
+        });
+
+        // IDENTITY ids are not returned by a batch, so read back the plans that have no schedule yet
+        List<NewPlan> plans = jdbcTemplate.query(
+                String.format(SELECT_OPEN_PLANS_SQL, placeholders(candidates.size())),
+                (rs, rowNum) -> new NewPlan(rs.getLong(1), rs.getLong(2), rs.getBigDecimal(3), rs.getBigDecimal(4)),
+                studentArgs.toArray());
+
+        List<Object[]> rows = new ArrayList<>(plans.size() * installments);
+        for (NewPlan plan : plans) {
+            BigDecimal remainder = plan.totalAmount();
+            for (int number = 1; number <= installments; number++) {
+                BigDecimal amount = number < installments ? plan.installmentAmount() : remainder;
+                remainder = remainder.subtract(amount);
+                rows.add(new Object[]{plan.planId(), number, amount, Date.valueOf(dueDates.get(number - 1)),
+                        now, now, auditor, auditor});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_INSTALLMENT_SQL, rows);
+
+        return plans;
+    }
+
+    /**
+     * @return the number of open installments past their due date that became OVERDUE
+     */
+    public int markInstallmentsOverdue(LocalDate today) {
+        return jdbcTemplate.update(MARK_INSTALLMENTS_OVERDUE_SQL,
+                Timestamp.valueOf(LocalDateTime.now()), auditor(), Date.valueOf(today));
+    }
+
+    /**
+     * @return the number of ACTIVE plans with an installment overdue since before {@code overdueBefore}
+     */
+    public int defaultPlans(LocalDate overdueBefore) {
+        return jdbcTemplate.update(DEFAULT_PLANS_SQL,
+                Timestamp.valueOf(LocalDateTime.now()), auditor(), Date.valueOf(overdueBefore));
+    }
+
+    /**
+     * @return the number of ACTIVE or DEFAULTED plans whose installments are all PAID
+     */
+    public int completePlans() {
+        return jdbcTemplate.update(COMPLETE_PLANS_SQL, Timestamp.valueOf(LocalDateTime.now()), auditor());
+    }
+
+    /**
+     * Returns the next chunk of unpaid installments of open plans due on or before {@code dueBy},
+     * ordered by id and starting after {@code afterId}.
+     */
+    public List<DueInstallment> findDueInstallments(LocalDate dueBy, long afterId, int limit) {
+        return jdbcTemplate.query(SELECT_DUE_INSTALLMENTS_SQL,
+                (rs, rowNum) -> new DueInstallment(
+                        rs.getLong("id"),
+                        rs.getLong("payment_plan_id"),
+                        rs.getLong("student_id"),
+                        rs.getInt("installment_number"),
+                        rs.getDate("due_date").toLocalDate(),
+                        rs.getBigDecimal("amount"),
+                        rs.getBigDecimal("paid_amount"),
+                        PaymentPlanInstallment.InstallmentStatus.valueOf(rs.getString("status"))),
+                Date.valueOf(dueBy), afterId, limit);
+    }
+
+    private String auditor() {
+        return auditorAware.getCurrentAuditor().orElse("system");
+    }
+
+    private static BigDecimal installmentAmount(BigDecimal total, int installments) {
+        return total.divide(BigDecimal.valueOf(installments), 2, RoundingMode.DOWN);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    public record PlanCandidate(long studentId, BigDecimal balance) {}
+
+    public record NewPlan(long planId, long studentId, BigDecimal totalAmount, BigDecimal installmentAmount) {}
+
+    public record DueInstallment(long installmentId, long planId, long studentId, int installmentNumber,
+                                 LocalDate dueDate, BigDecimal amount, BigDecimal paidAmount,
+                                 PaymentPlanInstallment.InstallmentStatus status) {}
+}
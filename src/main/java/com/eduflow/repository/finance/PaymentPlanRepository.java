@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +15,10 @@ public interface PaymentPlanRepository extends JpaRepository<PaymentPlan, Long>
 
     List<PaymentPlan> findByStudentId(Long studentId);
 
+    @Query("SELECT DISTINCT pp FROM PaymentPlan pp LEFT JOIN FETCH pp.installments " +
+            "WHERE pp.student.id = :studentId ORDER BY pp.id")
+    List<PaymentPlan> findByStudentIdWithInstallments(@Param("studentId") Long studentId);
+
     List<PaymentPlan> findByStudentIdAndAcademicYear(Long studentId, String academicYear);
 
     @Query("SELECT pp FROM PaymentPlan pp WHERE pp.student.id = :studentId AND pp.status = :status")
@@ -26,4 +31,11 @@ public interface PaymentPlanRepository extends JpaRepository<PaymentPlan, Long>
 
     Optional<PaymentPlan> findByStudentIdAndAcademicYearAndStatus(
             Long studentId, String academicYear, PaymentPlan.PlanStatus status);
+
+    @Query("SELECT pp FROM PaymentPlan pp WHERE pp.student.id = :studentId AND pp.academicYear = :academicYear " +
+            "AND pp.status IN :statuses ORDER BY pp.id")
+    List<PaymentPlan> findByStudentIdAndAcademicYearAndStatusIn(
+            @Param("studentId") Long studentId,
+            @Param("academicYear") String academicYear,
+            @Param("statuses") Collection<PaymentPlan.PlanStatus> statuses);
 }
@@ -10,6 +10,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -52,8 +53,26 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
             "AND p.createdAt < :cutoffTime")
     List<Payment> findStalePendingPayments(@Param("cutoffTime") LocalDateTime cutoffTime);
 
+    @Query("SELECT p FROM Payment p WHERE p.status IN :statuses AND p.createdAt < :cutoffTime " +
+            "AND p.gatewayRef IS NOT NULL AND p.id > :afterId ORDER BY p.id")
+    List<Payment> findStalePaymentsAfter(
+            @Param("statuses") Collection<Payment.PaymentStatus> statuses,
+            @Param("cutoffTime") LocalDateTime cutoffTime,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    @Query("SELECT p.id FROM Payment p WHERE p.status = :status AND p.createdAt < :cutoffTime " +
+            "AND p.gatewayRef IS NULL AND p.id > :afterId ORDER BY p.id")
+    List<Long> findUnsentPaymentIdsAfter(
+            @Param("status") Payment.PaymentStatus status,
+            @Param("cutoffTime") LocalDateTime cutoffTime,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
     boolean existsByTransactionRef(String transactionRef);
 
+    boolean existsByStatus(Payment.PaymentStatus status);
+
     @Query("SELECT SUM(p.amount) FROM Payment p WHERE p.status = 'COMPLETED'")
     BigDecimal calculateTotalCollected();
 
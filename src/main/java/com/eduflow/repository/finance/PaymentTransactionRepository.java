@@ -1,9 +1,13 @@
 package com.eduflow.repository.finance;
 
 import com.eduflow.entity.finance.PaymentTransaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +21,8 @@ public interface PaymentTransactionRepository extends JpaRepository<PaymentTrans
     List<PaymentTransaction> findByPaymentIdOrderByCreatedAtDesc(Long paymentId);
 
     boolean existsByGatewayRef(String gatewayRef);
+
+    @Query("SELECT t.gatewayRef FROM PaymentTransaction t WHERE t.transactionType = 'WEBHOOK' " +
+            "AND t.gatewayRef IS NOT NULL AND t.createdAt >= :since ORDER BY t.id DESC")
+    List<String> findRecentWebhookGatewayRefs(@Param("since") LocalDateTime since, Pageable pageable);
 }
@@ -0,0 +1,11 @@
+package com.eduflow.repository.finance;
+
+import com.eduflow.entity.finance.PaymentWebhookEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PaymentWebhookEventRepository extends JpaRepository<PaymentWebhookEvent, Long> {
+
+    long countByStatus(PaymentWebhookEvent.InboxStatus status);
+}
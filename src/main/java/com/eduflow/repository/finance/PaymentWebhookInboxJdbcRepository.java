@@ -0,0 +1,180 @@
+package com.eduflow.repository.finance;
+
+import com.eduflow.entity.finance.PaymentWebhookEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC access to payment_webhook_inbox. Appends happen on the webhook request thread and
+ * claims on the drain path, so both stay single statements without entity loading.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PaymentWebhookInboxJdbcRepository {
+
+    private static final String APPEND_SQL =
+            "INSERT INTO payment_webhook_inbox (raw_payload, partition_key, transaction_id, event_type, status, " +
+            "attempts, next_attempt_at, created_at, updated_at, created_by, updated_by, version) " +
+            "SELECT ?, ?, ?, ?, 'RECEIVED', 0, ?, ?, ?, 'system', 'system', 0 " +
+            "WHERE NOT EXISTS (SELECT 1 FROM payment_webhook_inbox WHERE transaction_id = ?)";
+
+    // Gateway and merchant references both identify the payment; prefer the gateway's
+    private static final String SELECT_PAYMENT_ID_SQL =
+            "SELECT id FROM payments WHERE gateway_ref = ? OR transaction_ref = ? " +
+            "ORDER BY CASE WHEN gateway_ref = ? THEN 0 ELSE 1 END LIMIT 1";
+
+    // Events appended before their payment was visible keep a reference key until the payment exists
+    private static final String RESOLVE_GATEWAY_KEYS_SQL =
+            "UPDATE payment_webhook_inbox SET partition_key = CONCAT('P:', " +
+            "(SELECT p.id FROM payments p WHERE p.gateway_ref = SUBSTRING(partition_key, 3))), " +
+            "version = version + 1 " +
+            "WHERE partition_key LIKE 'G:%' AND status IN ('RECEIVED', 'PROCESSING') " +
+            "AND EXISTS (SELECT 1 FROM payments p WHERE p.gateway_ref = SUBSTRING(partition_key, 3))";
+
+    private static final String RESOLVE_MERCHANT_KEYS_SQL =
+            "UPDATE payment_webhook_inbox SET partition_key = CONCAT('P:', " +
+            "(SELECT p.id FROM payments p WHERE p.transaction_ref = SUBSTRING(partition_key, 3))), " +
+            "version = version + 1 " +
+            "WHERE partition_key LIKE 'M:%' AND status IN ('RECEIVED', 'PROCESSING') " +
+            "AND EXISTS (SELECT 1 FROM payments p WHERE p.transaction_ref = SUBSTRING(partition_key, 3))";
+
+    // An event is only claimable once nothing earlier for the same payment is waiting on a retry or
+    // still held by a live claim (another drainer may be applying it), which keeps per-payment order
+    // across retries and nodes. Expired PROCESSING claims are picked up again.
+    private static final String SELECT_CLAIMABLE_SQL =
+            "SELECT i.id, i.raw_payload, i.partition_key, i.attempts FROM payment_webhook_inbox i " +
+            "WHERE ((i.status = 'RECEIVED' AND i.next_attempt_at <= ?) " +
+            "OR (i.status = 'PROCESSING' AND i.claimed_at < ?)) " +
+            "AND NOT EXISTS (SELECT 1 FROM payment_webhook_inbox e WHERE e.partition_key = i.partition_key " +
+            "AND e.id < i.id AND ((e.status = 'RECEIVED' AND e.next_attempt_at > ?) " +
+            "OR (e.status = 'PROCESSING' AND e.claimed_at >= ?))) " +
+            "ORDER BY i.id LIMIT ?";
+
+    private static final String CLAIM_SQL =
+            "UPDATE payment_webhook_inbox SET status = 'PROCESSING', claimed_at = ?, version = version + 1 " +
+            "WHERE id = ? AND (status = 'RECEIVED' OR (status = 'PROCESSING' AND claimed_at < ?))";
+
+    private static final String MARK_PROCESSED_SQL =
+            "UPDATE payment_webhook_inbox SET status = 'PROCESSED', processed_at = ?, updated_at = ?, " +
+            "attempts = attempts + 1, last_error = NULL, version = version + 1 WHERE id = ?";
+
+    private static final String MARK_FAILED_SQL =
+            "UPDATE payment_webhook_inbox SET status = ?, attempts = ?, next_attempt_at = ?, last_error = ?, " +
+            "claimed_at = NULL, updated_at = ?, version = version + 1 WHERE id = ?";
+
+    private static final String RELEASE_SQL =
+            "UPDATE payment_webhook_inbox SET status = 'RECEIVED', claimed_at = NULL, version = version + 1 " +
+            "WHERE id = ? AND status = 'PROCESSING'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Appends a webhook to the inbox.
+     *
+     * @return false if an event with the same gateway transaction id was already received
+     */
+    public boolean append(String rawPayload, String partitionKey, String transactionId, String eventType) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            return jdbcTemplate.update(APPEND_SQL,
+                    rawPayload, partitionKey, transactionId, eventType, now, now, now, transactionId) > 0;
+        } catch (DuplicateKeyException e) {
+            // Concurrent delivery of the same event won the insert
+            return false;
+        }
+    }
+
+    /**
+     * Looks up the payment a webhook refers to, by gateway reference or else merchant reference.
+     */
+    public Optional<Long> findPaymentId(String gatewayRef, String merchantRef) {
+        return jdbcTemplate.queryForList(SELECT_PAYMENT_ID_SQL, Long.class, gatewayRef, merchantRef, gatewayRef)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Rewrites reference partition keys of unfinished events to the payment id once the payment
+     * can be found, so all of a payment's events share one key.
+     *
+     * @return the number of events rewritten
+     */
+    public int resolvePartitionKeys() {
+        return jdbcTemplate.update(RESOLVE_GATEWAY_KEYS_SQL) + jdbcTemplate.update(RESOLVE_MERCHANT_KEYS_SQL);
+    }
+
+    /**
+     * Claims up to {@code limit} events in id order for processing.
+     *
+     * @param leaseCutoff PROCESSING claims older than this are treated as abandoned
+     */
+    public List<InboxEvent> claimBatch(int limit, LocalDateTime leaseCutoff) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp cutoff = Timestamp.valueOf(leaseCutoff);
+
+        List<InboxEvent> candidates = jdbcTemplate.query(SELECT_CLAIMABLE_SQL,
+                (rs, rowNum) -> new InboxEvent(
+                        rs.getLong("id"),
+                        rs.getString("raw_payload"),
+                        rs.getString("partition_key"),
+                        rs.getInt("attempts")),
+                now, cutoff, now, cutoff, limit);
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+
+        int[][] results = jdbcTemplate.batchUpdate(CLAIM_SQL, candidates, candidates.size(), (ps, event) -> {
+            ps.setTimestamp(1, now);
+            ps.setLong(2, event.id());
+            ps.setTimestamp(3, cutoff);
+        });
+
+        List<InboxEvent> claimed = new ArrayList<>(candidates.size());
+        int index = 0;
+        for (int[] batch : results) {
+            for (int count : batch) {
+                if (count > 0) {
+                    claimed.add(candidates.get(index));
+                }
+                index++;
+            }
+        }
+        return claimed;
+    }
+
+    public void markProcessed(long id) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(MARK_PROCESSED_SQL, now, now, id);
+    }
+
+    /**
+     * Records a failed attempt. The event goes back to RECEIVED for another try at
+     * {@code nextAttemptAt}, or to FAILED once it has no attempts left.
+     */
+    public void markFailed(long id, int attempts, LocalDateTime nextAttemptAt, String error, boolean exhausted) {
+        PaymentWebhookEvent.InboxStatus status = exhausted
+                ? PaymentWebhookEvent.InboxStatus.FAILED
+                : PaymentWebhookEvent.InboxStatus.RECEIVED;
+        String truncated = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        jdbcTemplate.update(MARK_FAILED_SQL, status.name(), attempts, Timestamp.valueOf(nextAttemptAt),
+                truncated, Timestamp.valueOf(LocalDateTime.now()), id);
+    }
+
+    public void release(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(RELEASE_SQL, ids, ids.size(), (ps, id) -> ps.setLong(1, id));
+    }
+
+    public record InboxEvent(long id, String rawPayload, String partitionKey, int attempts) {
+    }
+}
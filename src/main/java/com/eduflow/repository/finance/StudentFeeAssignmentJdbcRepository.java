@@ -0,0 +1,517 @@
+package com.eduflow.repository.finance;
+
+import com.eduflow.entity.finance.Fee;
+import com.eduflow.entity.finance.StudentFeeAssignment;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * JDBC-backed bulk writes for student fee assignments.
+ * Entities use IDENTITY ids, which disables Hibernate insert batching, so set-based
+ * operations go through plain JDBC batches instead.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StudentFeeAssignmentJdbcRepository {
+
+    // Guarded by NOT EXISTS so a row created concurrently for the same
+    // (student, fee, academic_year) is skipped instead of violating the unique constraint
+    private static final String INSERT_IF_ABSENT_SQL =
+            "INSERT INTO student_fee_assignments (student_id, fee_id, academic_year, due_date, amount, " +
+            "discount_amount, discount_reason, amount_paid, status, created_at, updated_at, created_by, " +
+            "updated_by, version) " +
+            "SELECT ?, ?, ?, ?, ?, ?, ?, 0, ?, ?, ?, ?, ?, 0 " +
+            "WHERE NOT EXISTS (SELECT 1 FROM student_fee_assignments " +
+            "WHERE student_id = ? AND fee_id = ? AND academic_year = ?)";
+
+    // Same rule as StudentFeeAssignment.updateStatus(): only rows with nothing paid, something still
+    // owed and a past due date become OVERDUE. Fully discounted rows count as paid there
+    private static final String OVERDUE_PREDICATE =
+            "status = 'PENDING' AND due_date < ? AND COALESCE(amount_paid, 0) = 0 " +
+            "AND amount - COALESCE(discount_amount, 0) > COALESCE(amount_paid, 0)";
+
+    // The candidate select locks the chunk and the UPDATE touches exactly the locked ids, so a row
+    // that became overdue after the select is never flipped without its student's ledger rebuild
+    private static final String SELECT_OVERDUE_CANDIDATES_SQL =
+            "SELECT id, student_id FROM student_fee_assignments " +
+            "WHERE " + OVERDUE_PREDICATE + " AND id > ? ORDER BY id LIMIT ? FOR UPDATE";
+
+    private static final String MARK_OVERDUE_SQL =
+            "UPDATE student_fee_assignments SET status = 'OVERDUE', updated_at = ?, updated_by = ?, " +
+            "version = version + 1 " +
+            "WHERE id IN (%s)";
+
+    // Served by idx_sfa_status_due_date as one range scan per open status. Rows come out grouped
+    // by parent so callers can build one reminder at a time without holding the whole result
+    private static final String SELECT_UPCOMING_FOR_PARENTS_SQL =
+            "SELECT sfa.id, pu.id AS parent_user_id, pu.first_name AS parent_first_name, " +
+            "pu.last_name AS parent_last_name, su.first_name AS student_first_name, " +
+            "su.last_name AS student_last_name, f.name AS fee_name, sfa.due_date, " +
+            "sfa.amount - COALESCE(sfa.discount_amount, 0) - COALESCE((SELECT SUM(p.amount) FROM payments p " +
+            "WHERE p.student_fee_assignment_id = sfa.id AND p.status = 'COMPLETED'), 0) AS balance " +
+            "FROM student_fee_assignments sfa " +
+            "JOIN fees f ON f.id = sfa.fee_id " +
+            "JOIN students s ON s.id = sfa.student_id " +
+            "JOIN users su ON su.id = s.user_id " +
+            "JOIN parents par ON par.id = s.parent_id " +
+            "JOIN users pu ON pu.id = par.user_id " +
+            "WHERE sfa.status IN ('PENDING', 'PARTIAL', 'OVERDUE') AND sfa.due_date BETWEEN ? AND ? " +
+            "ORDER BY pu.id, sfa.due_date, sfa.id";
+
+    // Same rows as findOverdueFees(), with the balance taken from amount_paid as getBalance() does
+    private static final String SELECT_OVERDUE_FOR_PARENTS_SQL =
+            "SELECT sfa.id, pu.id AS parent_user_id, pu.first_name AS parent_first_name, " +
+            "pu.last_name AS parent_last_name, su.first_name AS student_first_name, " +
+            "su.last_name AS student_last_name, f.name AS fee_name, sfa.due_date, " +
+            "sfa.amount - COALESCE(sfa.discount_amount, 0) - COALESCE(sfa.amount_paid, 0) AS balance " +
+            "FROM student_fee_assignments sfa " +
+            "JOIN fees f ON f.id = sfa.fee_id " +
+            "JOIN students s ON s.id = sfa.student_id " +
+            "JOIN users su ON su.id = s.user_id " +
+            "JOIN parents par ON par.id = s.parent_id " +
+            "JOIN users pu ON pu.id = par.user_id " +
+            "WHERE sfa.due_date < ? AND sfa.status NOT IN ('PAID', 'WAIVED') " +
+            "ORDER BY pu.id, sfa.due_date, sfa.id";
+
+    private static final String COUNT_OVERDUE_WITHOUT_PARENT_SQL =
+            "SELECT COUNT(*) FROM student_fee_assignments sfa " +
+            "JOIN students s ON s.id = sfa.student_id " +
+            "WHERE sfa.due_date < ? AND sfa.status NOT IN ('PAID', 'WAIVED') AND s.parent_id IS NULL";
+
+    // Keyset-paged on the primary key so each page is a short, independent query
+    private static final String SELECT_STATEMENT_PAGE_SQL =
+            "SELECT sfa.id, s.student_id AS student_number, u.first_name, u.last_name, c.name AS class_name, " +
+            "c.grade, sfa.academic_year, f.name AS fee_name, fc.name AS category, sfa.due_date, sfa.amount, " +
+            "COALESCE(sfa.discount_amount, 0) AS discount_amount, COALESCE(sfa.amount_paid, 0) AS amount_paid, " +
+            "sfa.status " +
+            "FROM student_fee_assignments sfa " +
+            "JOIN students s ON s.id = sfa.student_id " +
+            "JOIN users u ON u.id = s.user_id " +
+            "JOIN fees f ON f.id = sfa.fee_id " +
+            "JOIN fee_categories fc ON fc.id = f.category_id " +
+            "LEFT JOIN school_classes c ON c.id = s.current_class_id " +
+            "WHERE sfa.id > ?%s ORDER BY sfa.id LIMIT ?";
+
+    // Index-only walk of the primary key; returns the last id of the next chunk
+    private static final String SELECT_CHUNK_END_SQL =
+            "SELECT MAX(id) FROM (SELECT id FROM student_fee_assignments WHERE id > ? ORDER BY id LIMIT ?) chunk";
+
+    private static final String SELECT_AMOUNT_PAID_RANGE_SQL =
+            "SELECT id, student_id, COALESCE(amount_paid, 0) AS amount_paid FROM student_fee_assignments " +
+            "WHERE id > ? AND id <= ? ORDER BY id";
+
+    // One grouped range scan of idx_payments_assignment_status per chunk
+    private static final String SUM_COMPLETED_PAYMENTS_RANGE_SQL =
+            "SELECT student_fee_assignment_id, SUM(amount) AS total FROM payments " +
+            "WHERE student_fee_assignment_id > ? AND student_fee_assignment_id <= ? AND status = 'COMPLETED' " +
+            "GROUP BY student_fee_assignment_id";
+
+    // Locked in id order, so two transactions locking overlapping sets cannot deadlock
+    private static final String LOCK_ASSIGNMENTS_SQL =
+            "SELECT id FROM student_fee_assignments WHERE id IN (%s) ORDER BY id FOR UPDATE";
+
+    // Bulk discounts and waivers: the target and change predicates are appended to the candidate
+    // select, which locks the chunk. The UPDATE then touches exactly the locked ids, so a row that
+    // became eligible after the select is never updated without its student's ledger rebuild.
+    private static final String SELECT_ADJUSTMENT_CANDIDATES_SQL =
+            "SELECT id, student_id FROM student_fee_assignments WHERE id > ?%s ORDER BY id LIMIT ? FOR UPDATE";
+
+    // Status follows StudentFeeAssignment.updateStatus(), evaluated against the new discount
+    private static final String APPLY_DISCOUNT_SQL =
+            "UPDATE student_fee_assignments SET discount_amount = %1$s, discount_reason = ?, " +
+            "status = CASE WHEN COALESCE(amount_paid, 0) >= amount - %1$s THEN 'PAID' " +
+            "WHEN COALESCE(amount_paid, 0) > 0 THEN 'PARTIAL' " +
+            "WHEN due_date < ? THEN 'OVERDUE' ELSE 'PENDING' END, " +
+            "updated_at = ?, updated_by = ?, version = version + 1 " +
+            "WHERE id IN (%2$s)";
+
+    private static final String WAIVE_SQL =
+            "UPDATE student_fee_assignments SET status = 'WAIVED', discount_amount = amount, discount_reason = ?, " +
+            "updated_at = ?, updated_by = ?, version = version + 1 " +
+            "WHERE id IN (%s)";
+
+    // Same rule as StudentFeeLedger.Contribution.outstanding()
+    private static final String SUM_OUTSTANDING_SQL =
+            "SELECT COALESCE(SUM(CASE WHEN status <> 'WAIVED' " +
+            "AND amount - COALESCE(discount_amount, 0) - COALESCE(amount_paid, 0) > 0 " +
+            "THEN amount - COALESCE(discount_amount, 0) - COALESCE(amount_paid, 0) ELSE 0 END), 0) " +
+            "FROM student_fee_assignments WHERE id IN (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditorAware<String> auditorAware;
+
+    /**
+     * Inserts a PENDING assignment of the fee for every student in a single JDBC batch.
+     *
+     * @return the ids of the students whose row was actually inserted
+     */
+    public List<Long> insertPendingAssignments(List<Long> studentIds, Fee fee, LocalDate dueDate,
+                                               BigDecimal discountAmount, String discountReason) {
+        if (studentIds.isEmpty()) {
+            return List.of();
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String auditor = auditorAware.getCurrentAuditor().orElse("system");
+
+        int[][] results = jdbcTemplate.batchUpdate(INSERT_IF_ABSENT_SQL, studentIds, studentIds.size(),
+                (ps, studentId) -> {
+                    ps.setLong(1, studentId);
+                    ps.setLong(2, fee.getId());
+                    ps.setString(3, fee.getAcademicYear());
+                    ps.setDate(4, Date.valueOf(dueDate));
+                    ps.setBigDecimal(5, fee.getAmount());
+                    ps.setBigDecimal(6, discountAmount);
+                    ps.setString(7, discountReason);
+                    ps.setString(8, StudentFeeAssignment.FeeStatus.PENDING.name());
+                    ps.setTimestamp(9, now);
+                    ps.setTimestamp(10, now);
+                    ps.setString(11, auditor);
+                    ps.setString(12, auditor);
+                    ps.setLong(13, studentId);
+                    ps.setLong(14, fee.getId());
+                    ps.setString(15, fee.getAcademicYear());
+                });
+
+        List<Long> inserted = new ArrayList<>(studentIds.size());
+        int index = 0;
+        for (int[] batch : results) {
+            for (int count : batch) {
+                if (count > 0) {
+                    inserted.add(studentIds.get(index));
+                }
+                index++;
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Returns and locks the next chunk of PENDING, unpaid assignments due before {@code today},
+     * ordered by id and starting after {@code afterId}. Call it inside the transaction that marks them.
+     */
+    public List<OverdueCandidate> findOverdueCandidates(long afterId, LocalDate today, int limit) {
+        return jdbcTemplate.query(SELECT_OVERDUE_CANDIDATES_SQL,
+                (rs, rowNum) -> new OverdueCandidate(rs.getLong("id"), rs.getLong("student_id")),
+                Date.valueOf(today), afterId, limit);
+    }
+
+    /**
+     * Flips the given candidates to OVERDUE with one UPDATE.
+     *
+     * @return the number of assignments updated
+     */
+    public int markOverdue(List<Long> assignmentIds) {
+        List<Object> args = new ArrayList<>();
+        args.add(Timestamp.valueOf(LocalDateTime.now()));
+        args.add(auditorAware.getCurrentAuditor().orElse("system"));
+        args.addAll(assignmentIds);
+        return jdbcTemplate.update(String.format(MARK_OVERDUE_SQL, placeholders(assignmentIds.size())),
+                args.toArray());
+    }
+
+    /**
+     * Streams open assignments due between {@code from} and {@code to} (inclusive) for students
+     * with a parent, ordered by parent user. Rows are fetched from a cursor {@code fetchSize}
+     * at a time and handed to {@code consumer} one by one.
+     */
+    public void streamUpcomingForParents(LocalDate from, LocalDate to, int fetchSize,
+                                         Consumer<ParentFeeRow> consumer) {
+        streamForParents(SELECT_UPCOMING_FOR_PARENTS_SQL, fetchSize, consumer, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /**
+     * Streams assignments past their due date that are neither paid nor waived, for students with
+     * a parent, ordered by parent user. Rows are fetched {@code fetchSize} at a time.
+     */
+    public void streamOverdueForParents(LocalDate today, int fetchSize, Consumer<ParentFeeRow> consumer) {
+        streamForParents(SELECT_OVERDUE_FOR_PARENTS_SQL, fetchSize, consumer, Date.valueOf(today));
+    }
+
+    public long countOverdueWithoutParent(LocalDate today) {
+        Long count = jdbcTemplate.queryForObject(COUNT_OVERDUE_WITHOUT_PARENT_SQL, Long.class, Date.valueOf(today));
+        return count != null ? count : 0;
+    }
+
+    private void streamForParents(String sql, int fetchSize, Consumer<ParentFeeRow> consumer, Date... dates) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < dates.length; i++) {
+                ps.setDate(i + 1, dates[i]);
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(new ParentFeeRow(
+                rs.getLong("id"),
+                rs.getLong("parent_user_id"),
+                rs.getString("parent_first_name") + " " + rs.getString("parent_last_name"),
+                rs.getString("student_first_name") + " " + rs.getString("student_last_name"),
+                rs.getString("fee_name"),
+                rs.getDate("due_date").toLocalDate(),
+                rs.getBigDecimal("balance"))));
+    }
+
+    /**
+     * Returns the next page of fee statement lines matching the filter, ordered by assignment id
+     * and starting after {@code afterId}. With {@code arrearsOnly} only unwaived lines with a
+     * balance that were due before {@code asOf} are returned.
+     */
+    public List<StatementRow> findStatementPage(StatementFilter filter, LocalDate asOf, long afterId, int limit) {
+        StringBuilder where = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        args.add(afterId);
+        if (filter.classId() != null) {
+            where.append(" AND s.current_class_id = ?");
+            args.add(filter.classId());
+        }
+        if (filter.grade() != null) {
+            where.append(" AND c.grade = ?");
+            args.add(filter.grade());
+        }
+        if (filter.academicYear() != null) {
+            where.append(" AND sfa.academic_year = ?");
+            args.add(filter.academicYear());
+        }
+        if (filter.arrearsOnly()) {
+            where.append(" AND sfa.status <> 'WAIVED' AND sfa.due_date < ? AND sfa.amount " +
+                    "- COALESCE(sfa.discount_amount, 0) - COALESCE(sfa.amount_paid, 0) > 0");
+            args.add(Date.valueOf(asOf));
+        }
+        args.add(limit);
+
+        return jdbcTemplate.query(String.format(SELECT_STATEMENT_PAGE_SQL, where),
+                (rs, rowNum) -> {
+                    BigDecimal amount = rs.getBigDecimal("amount");
+                    BigDecimal discount = rs.getBigDecimal("discount_amount");
+                    BigDecimal paid = rs.getBigDecimal("amount_paid");
+                    int gradeValue = rs.getInt("grade");
+                    Integer grade = rs.wasNull() ? null : gradeValue;
+                    return new StatementRow(
+                            rs.getLong("id"),
+                            rs.getString("student_number"),
+                            rs.getString("first_name") + " " + rs.getString("last_name"),
+                            rs.getString("class_name"),
+                            grade,
+                            rs.getString("academic_year"),
+                            rs.getString("fee_name"),
+                            rs.getString("category"),
+                            rs.getDate("due_date").toLocalDate(),
+                            amount,
+                            discount,
+                            paid,
+                            amount.subtract(discount).subtract(paid),
+                            StudentFeeAssignment.FeeStatus.valueOf(rs.getString("status")));
+                },
+                args.toArray());
+    }
+
+    /**
+     * Returns the id of the last assignment in the next chunk of {@code size} rows after
+     * {@code afterId}, or null once there are no more rows.
+     */
+    public Long findChunkEnd(long afterId, int size) {
+        return jdbcTemplate.queryForObject(SELECT_CHUNK_END_SQL, Long.class, afterId, size);
+    }
+
+    /**
+     * Returns the recorded amount paid of every assignment in the id range {@code (afterId, lastId]}.
+     */
+    public List<PaidAmountRow> findPaidAmounts(long afterId, long lastId) {
+        return jdbcTemplate.query(SELECT_AMOUNT_PAID_RANGE_SQL,
+                (rs, rowNum) -> new PaidAmountRow(rs.getLong("id"), rs.getLong("student_id"),
+                        rs.getBigDecimal("amount_paid")),
+                afterId, lastId);
+    }
+
+    /**
+     * Sums completed payments per assignment for the id range {@code (afterId, lastId]}.
+     * Assignments without a completed payment are absent from the map.
+     */
+    public Map<Long, BigDecimal> sumCompletedPayments(long afterId, long lastId) {
+        Map<Long, BigDecimal> totals = new HashMap<>();
+        jdbcTemplate.query(SUM_COMPLETED_PAYMENTS_RANGE_SQL,
+                (RowCallbackHandler) rs -> totals.put(
+                        rs.getLong("student_fee_assignment_id"), rs.getBigDecimal("total")),
+                afterId, lastId);
+        return totals;
+    }
+
+    /**
+     * Locks the given assignments until the calling transaction ends.
+     */
+    public void lockAssignments(List<Long> assignmentIds) {
+        jdbcTemplate.queryForList(String.format(LOCK_ASSIGNMENTS_SQL, placeholders(assignmentIds.size())),
+                Long.class, assignmentIds.toArray());
+    }
+
+    /**
+     * Returns and locks the next chunk of targeted assignments that the discount would change,
+     * ordered by id and starting after {@code afterId}. Waived assignments and ones already carrying
+     * this discount and reason are left out, so a re-run finds nothing to do. Call it inside the
+     * transaction that applies the discount.
+     */
+    public List<AdjustmentCandidate> findDiscountCandidates(AdjustmentTarget target, Discount discount,
+                                                            long afterId, int limit) {
+        List<Object> args = new ArrayList<>();
+        args.add(afterId);
+        String where = targetClause(target, args) + discountChangeClause(discount, args);
+        args.add(limit);
+        return jdbcTemplate.query(String.format(SELECT_ADJUSTMENT_CANDIDATES_SQL, where),
+                (rs, rowNum) -> new AdjustmentCandidate(rs.getLong("id"), rs.getLong("student_id")),
+                args.toArray());
+    }
+
+    /**
+     * Applies the discount to the given candidates with one UPDATE, recomputing each row's status.
+     * An amount discount is capped at the fee amount.
+     *
+     * @return the number of assignments updated
+     */
+    public int applyDiscount(Discount discount, List<Long> assignmentIds, LocalDate today) {
+        List<Object> args = new ArrayList<>();
+        args.add(discount.value());
+        args.add(discount.reason());
+        args.add(discount.value());
+        args.add(Date.valueOf(today));
+        args.add(Timestamp.valueOf(LocalDateTime.now()));
+        args.add(auditorAware.getCurrentAuditor().orElse("system"));
+        args.addAll(assignmentIds);
+        return jdbcTemplate.update(String.format(APPLY_DISCOUNT_SQL, discount.expression(),
+                placeholders(assignmentIds.size())), args.toArray());
+    }
+
+    /**
+     * Returns and locks the next chunk of targeted assignments that are not yet waived, ordered by
+     * id and starting after {@code afterId}. Call it inside the transaction that waives them.
+     */
+    public List<AdjustmentCandidate> findWaiverCandidates(AdjustmentTarget target, long afterId, int limit) {
+        List<Object> args = new ArrayList<>();
+        args.add(afterId);
+        String where = targetClause(target, args) + " AND status <> 'WAIVED'";
+        args.add(limit);
+        return jdbcTemplate.query(String.format(SELECT_ADJUSTMENT_CANDIDATES_SQL, where),
+                (rs, rowNum) -> new AdjustmentCandidate(rs.getLong("id"), rs.getLong("student_id")),
+                args.toArray());
+    }
+
+    /**
+     * Waives the given candidates with one UPDATE, discounting the full fee amount as
+     * {@link StudentFeeAssignment} waivers do.
+     *
+     * @return the number of assignments updated
+     */
+    public int waive(String reason, List<Long> assignmentIds) {
+        List<Object> args = new ArrayList<>();
+        args.add(reason);
+        args.add(Timestamp.valueOf(LocalDateTime.now()));
+        args.add(auditorAware.getCurrentAuditor().orElse("system"));
+        args.addAll(assignmentIds);
+        return jdbcTemplate.update(String.format(WAIVE_SQL, placeholders(assignmentIds.size())), args.toArray());
+    }
+
+    /**
+     * Sums the outstanding balance of the given assignments.
+     */
+    public BigDecimal sumOutstanding(List<Long> assignmentIds) {
+        return jdbcTemplate.queryForObject(String.format(SUM_OUTSTANDING_SQL, placeholders(assignmentIds.size())),
+                BigDecimal.class, assignmentIds.toArray());
+    }
+
+    private static String targetClause(AdjustmentTarget target, List<Object> args) {
+        StringBuilder where = new StringBuilder();
+        if (target.assignmentIds() != null && !target.assignmentIds().isEmpty()) {
+            where.append(" AND id IN (").append(placeholders(target.assignmentIds().size())).append(')');
+            args.addAll(target.assignmentIds());
+        }
+        if (target.feeIds() != null && !target.feeIds().isEmpty()) {
+            where.append(" AND fee_id IN (").append(placeholders(target.feeIds().size())).append(')');
+            args.addAll(target.feeIds());
+        }
+        if (target.classIds() != null && !target.classIds().isEmpty()) {
+            where.append(" AND student_id IN (SELECT s.id FROM students s WHERE s.current_class_id IN (")
+                    .append(placeholders(target.classIds().size())).append("))");
+            args.addAll(target.classIds());
+        }
+        if (target.grades() != null && !target.grades().isEmpty()) {
+            where.append(" AND student_id IN (SELECT s.id FROM students s " +
+                            "JOIN school_classes c ON c.id = s.current_class_id WHERE c.grade IN (")
+                    .append(placeholders(target.grades().size())).append("))");
+            args.addAll(target.grades());
+        }
+        if (target.academicYear() != null) {
+            where.append(" AND academic_year = ?");
+            args.add(target.academicYear());
+        }
+        return where.toString();
+    }
+
+    private static String discountChangeClause(Discount discount, List<Object> args) {
+        args.add(discount.value());
+        args.add(discount.reason());
+        return " AND status <> 'WAIVED' AND (COALESCE(discount_amount, 0) <> " + discount.expression() +
+                " OR discount_reason IS NULL OR discount_reason <> ?)";
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    public record AdjustmentCandidate(long assignmentId, long studentId) {
+    }
+
+    public record AdjustmentTarget(Set<Long> assignmentIds, Set<Long> feeIds, Set<Long> classIds,
+                                   Set<Integer> grades, String academicYear) {
+    }
+
+    /**
+     * A discount of either a fixed {@code amount} or a {@code percentage} of each fee.
+     */
+    public record Discount(BigDecimal amount, BigDecimal percentage, String reason) {
+
+        String expression() {
+            return amount != null ? "LEAST(amount, ?)" : "ROUND(amount * ? / 100, 2)";
+        }
+
+        BigDecimal value() {
+            return amount != null ? amount : percentage;
+        }
+    }
+
+    public record OverdueCandidate(long assignmentId, long studentId) {
+    }
+
+    public record StatementFilter(Long classId, Integer grade, String academicYear, boolean arrearsOnly) {
+    }
+
+    public record StatementRow(long assignmentId, String studentNumber, String studentName, String className,
+                               Integer grade, String academicYear, String feeName, String category,
+                               LocalDate dueDate, BigDecimal amount, BigDecimal discount, BigDecimal amountPaid,
+                               BigDecimal balance, StudentFeeAssignment.FeeStatus status) {
+    }
+
+    public record PaidAmountRow(long assignmentId, long studentId, BigDecimal amountPaid) {
+    }
+
+    public record ParentFeeRow(long assignmentId, long parentUserId, String parentName, String studentName,
+                               String feeName, LocalDate dueDate, BigDecimal balance) {
+    }
+}
@@ -17,6 +17,14 @@ public interface StudentFeeAssignmentRepository extends JpaRepository<StudentFee
 
     List<StudentFeeAssignment> findByStudentId(Long studentId);
 
+    /**
+     * Loads the assignment and holds its row lock until the transaction ends, so payments on the
+     * same fee apply one after another instead of failing the version check. Must run before the
+     * assignment is first read in the transaction; an already loaded copy is returned as it is.
+     */
+    @Query(value = "SELECT * FROM student_fee_assignments WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<StudentFeeAssignment> findByIdForUpdate(@Param("id") Long id);
+
     List<StudentFeeAssignment> findByStudentIdAndAcademicYear(Long studentId, String academicYear);
 
     List<StudentFeeAssignment> findByFeeId(Long feeId);
@@ -55,11 +63,19 @@ public interface StudentFeeAssignmentRepository extends JpaRepository<StudentFee
             @Param("classId") Long classId,
             @Param("academicYear") String academicYear);
 
-    @Query(value = "SELECT COALESCE(" +
-            "(SELECT SUM(sfa.amount - sfa.discount_amount) FROM student_fee_assignments sfa WHERE sfa.status NOT IN ('PAID', 'WAIVED')) - " +
-            "(SELECT COALESCE(SUM(p.amount), 0) FROM payments p " +
-            "JOIN student_fee_assignments sfa ON p.student_fee_assignment_id = sfa.id " +
-            "WHERE p.status = 'COMPLETED' AND sfa.status NOT IN ('PAID', 'WAIVED')), 0)",
+    // Reads one row of each table behind the dashboard totals, which fixes a repeatable-read
+    // transaction's view of all of them before any of the longer totals run
+    @Query(value = "SELECT COUNT(*) FROM (" +
+            "SELECT MIN(id) AS id FROM students UNION ALL SELECT MIN(id) FROM teachers " +
+            "UNION ALL SELECT MIN(id) FROM school_classes UNION ALL SELECT MIN(id) FROM payments " +
+            "UNION ALL SELECT MIN(id) FROM student_fee_assignments) t",
+            nativeQuery = true)
+    long pinDashboardSnapshot();
+
+    // Same rule as StudentFeeLedger.Contribution: every unwaived fee that still has a balance owes that balance
+    @Query(value = "SELECT COALESCE(SUM(sfa.amount - sfa.discount_amount - sfa.amount_paid), 0) " +
+            "FROM student_fee_assignments sfa " +
+            "WHERE sfa.status <> 'WAIVED' AND sfa.amount - sfa.discount_amount - sfa.amount_paid > 0",
             nativeQuery = true)
     BigDecimal calculateTotalOutstandingFees();
 }
@@ -0,0 +1,96 @@
+package com.eduflow.repository.finance;
+
+import com.eduflow.entity.finance.StudentFeeLedger;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StudentFeeLedgerRepository extends JpaRepository<StudentFeeLedger, Long> {
+
+    Optional<StudentFeeLedger> findByStudentIdAndAcademicYear(Long studentId, String academicYear);
+
+    @Query("SELECT l FROM StudentFeeLedger l WHERE l.student.id = :studentId")
+    List<StudentFeeLedger> findByStudentId(@Param("studentId") Long studentId);
+
+    @Query("SELECT l FROM StudentFeeLedger l WHERE l.student.id IN :studentIds")
+    List<StudentFeeLedger> findByStudentIdIn(@Param("studentIds") Collection<Long> studentIds);
+
+    @Modifying
+    @Query(value = "INSERT INTO student_fee_ledger (student_id, academic_year, total_fees, total_paid, " +
+            "outstanding_balance, fee_count, pending_count, overdue_count, created_at, updated_at, " +
+            "created_by, updated_by, version) " +
+            "SELECT s.id, :academicYear, 0, 0, 0, 0, 0, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, " +
+            "'system', 'system', 0 FROM students s WHERE s.id IN :studentIds AND NOT EXISTS (" +
+            "SELECT 1 FROM student_fee_ledger l WHERE l.student_id = s.id AND l.academic_year = :academicYear)",
+            nativeQuery = true)
+    int insertMissing(@Param("studentIds") Collection<Long> studentIds, @Param("academicYear") String academicYear);
+
+    @Modifying
+    @Query("UPDATE StudentFeeLedger l SET " +
+            "l.totalFees = l.totalFees + :feesDelta, " +
+            "l.totalPaid = l.totalPaid + :paidDelta, " +
+            "l.outstandingBalance = l.outstandingBalance + :feesDelta - :paidDelta, " +
+            "l.feeCount = l.feeCount + :countDelta, " +
+            "l.pendingCount = l.pendingCount + :pendingDelta, " +
+            "l.overdueCount = l.overdueCount + :overdueDelta, " +
+            "l.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE l.student.id IN :studentIds AND l.academicYear = :academicYear")
+    int applyDelta(@Param("studentIds") Collection<Long> studentIds,
+                   @Param("academicYear") String academicYear,
+                   @Param("feesDelta") BigDecimal feesDelta,
+                   @Param("paidDelta") BigDecimal paidDelta,
+                   @Param("countDelta") int countDelta,
+                   @Param("pendingDelta") int pendingDelta,
+                   @Param("overdueDelta") int overdueDelta);
+
+    @Modifying
+    @Query(value = "DELETE FROM student_fee_ledger WHERE student_id IN :studentIds", nativeQuery = true)
+    int deleteByStudentIdIn(@Param("studentIds") Collection<Long> studentIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM student_fee_ledger", nativeQuery = true)
+    int deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO student_fee_ledger (student_id, academic_year, total_fees, total_paid, " +
+            "outstanding_balance, fee_count, pending_count, overdue_count, created_at, updated_at, " +
+            "created_by, updated_by, version) " +
+            "SELECT sfa.student_id, sfa.academic_year, " +
+            "SUM(sfa.amount - COALESCE(sfa.discount_amount, 0)), " +
+            "SUM(COALESCE(sfa.amount_paid, 0)), " +
+            "SUM(sfa.amount - COALESCE(sfa.discount_amount, 0) - COALESCE(sfa.amount_paid, 0)), " +
+            "COUNT(*), " +
+            "SUM(CASE WHEN sfa.status <> 'WAIVED' AND sfa.amount - COALESCE(sfa.discount_amount, 0) " +
+            "- COALESCE(sfa.amount_paid, 0) > 0 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN sfa.status = 'OVERDUE' THEN 1 ELSE 0 END), " +
+            "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'system', 'system', 0 " +
+            "FROM student_fee_assignments sfa GROUP BY sfa.student_id, sfa.academic_year",
+            nativeQuery = true)
+    int rebuildAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO student_fee_ledger (student_id, academic_year, total_fees, total_paid, " +
+            "outstanding_balance, fee_count, pending_count, overdue_count, created_at, updated_at, " +
+            "created_by, updated_by, version) " +
+            "SELECT sfa.student_id, sfa.academic_year, " +
+            "SUM(sfa.amount - COALESCE(sfa.discount_amount, 0)), " +
+            "SUM(COALESCE(sfa.amount_paid, 0)), " +
+            "SUM(sfa.amount - COALESCE(sfa.discount_amount, 0) - COALESCE(sfa.amount_paid, 0)), " +
+            "COUNT(*), " +
+            "SUM(CASE WHEN sfa.status <> 'WAIVED' AND sfa.amount - COALESCE(sfa.discount_amount, 0) " +
+            "- COALESCE(sfa.amount_paid, 0) > 0 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN sfa.status = 'OVERDUE' THEN 1 ELSE 0 END), " +
+            "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'system', 'system', 0 " +
+            "FROM student_fee_assignments sfa WHERE sfa.student_id IN :studentIds " +
+            "GROUP BY sfa.student_id, sfa.academic_year",
+            nativeQuery = true)
+    int rebuildRows(@Param("studentIds") Collection<Long> studentIds);
+}
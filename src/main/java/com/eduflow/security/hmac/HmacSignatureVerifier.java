@@ -7,55 +7,100 @@ import org.springframework.stereotype.Component;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
 
+/**
+ * Verifies webhook HMAC-SHA256 signatures. Each thread keeps its own Mac per active secret,
+ * keyed once up front, so a verification only hashes the raw body and compares digests.
+ * During key rotation the previous secrets stay valid alongside the current one.
+ */
 @Slf4j
 @Component
 public class HmacSignatureVerifier {
 
-    @Value("${payment.gateway.webhook-secret}")
-    private String webhookSecret;
-
     private static final String HMAC_SHA256 = "HmacSHA256";
+    private static final int DIGEST_LENGTH = 32;
+
+    private final List<SecretKeySpec> keys;
+    private final ThreadLocal<ThreadState> threadState;
+
+    public HmacSignatureVerifier(@Value("${payment.gateway.webhook-secret}") String webhookSecret,
+                                 @Value("${payment.gateway.webhook-previous-secrets:}") String[] previousSecrets) {
+        List<SecretKeySpec> activeKeys = new ArrayList<>();
+        if (webhookSecret != null && !webhookSecret.isEmpty()) {
+            activeKeys.add(new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), HMAC_SHA256));
+        }
+        if (previousSecrets != null) {
+            Arrays.stream(previousSecrets)
+                    .map(String::trim)
+                    .filter(secret -> !secret.isEmpty())
+                    .forEach(secret -> activeKeys.add(
+                            new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_SHA256)));
+        }
+        this.keys = List.copyOf(activeKeys);
+        this.threadState = ThreadLocal.withInitial(this::createThreadState);
+    }
 
     public boolean verifySignature(String payload, String signature) {
-        if (payload == null || signature == null || webhookSecret == null || webhookSecret.isEmpty()) {
+        if (payload == null) {
+            log.warn("Missing parameters for HMAC verification");
+            return false;
+        }
+        return verifySignature(payload.getBytes(StandardCharsets.UTF_8), signature);
+    }
+
+    /**
+     * Checks a Base64 signature against the raw request body under every active secret.
+     */
+    public boolean verifySignature(byte[] payload, String signature) {
+        if (payload == null || signature == null || keys.isEmpty()) {
             log.warn("Missing parameters for HMAC verification");
             return false;
         }
 
+        ThreadState state = threadState.get();
+        int expectedLength;
         try {
-            String expectedSignature = calculateHmacSignature(payload);
-            boolean isValid = MessageDigest.isEqual(
-                    expectedSignature.getBytes(StandardCharsets.UTF_8),
-                    signature.getBytes(StandardCharsets.UTF_8)
-            );
-
-            if (!isValid) {
-                log.warn("HMAC signature verification failed");
-            }
-
-            return isValid;
-        } catch (Exception e) {
-            log.error("Error verifying HMAC signature: {}", e.getMessage());
+            expectedLength = Base64.getDecoder().decode(
+                    signature.getBytes(StandardCharsets.ISO_8859_1), state.expected);
+        } catch (IllegalArgumentException e) {
+            log.warn("HMAC signature is not a Base64 HMAC-SHA256 digest");
             return false;
         }
+
+        if (expectedLength == DIGEST_LENGTH) {
+            for (Mac mac : state.macs) {
+                try {
+                    // doFinal resets the Mac, so the keyed instance is ready for the next call
+                    mac.update(payload);
+                    mac.doFinal(state.actual, 0);
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("Failed to calculate HMAC signature", e);
+                }
+                if (MessageDigest.isEqual(state.actual, state.expected)) {
+                    return true;
+                }
+            }
+        }
+
+        log.warn("HMAC signature verification failed");
+        return false;
     }
 
+    /**
+     * Signs with the current secret.
+     */
     public String calculateHmacSignature(String payload) {
-        try {
-            Mac mac = Mac.getInstance(HMAC_SHA256);
-            SecretKeySpec secretKeySpec = new SecretKeySpec(
-                    webhookSecret.getBytes(StandardCharsets.UTF_8),
-                    HMAC_SHA256
-            );
-            mac.init(secretKeySpec);
-            byte[] hash = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(hash);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to calculate HMAC signature", e);
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("No webhook secret configured");
         }
+        byte[] hash = threadState.get().macs[0].doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hash);
     }
 
     public boolean verifyTimestamp(long timestamp, long toleranceSeconds) {
@@ -63,4 +108,29 @@ public class HmacSignatureVerifier {
         long timeDifference = Math.abs(currentTime - timestamp);
         return timeDifference <= toleranceSeconds;
     }
+
+    private ThreadState createThreadState() {
+        Mac[] threadMacs = new Mac[keys.size()];
+        try {
+            for (int i = 0; i < keys.size(); i++) {
+                threadMacs[i] = Mac.getInstance(HMAC_SHA256);
+                threadMacs[i].init(keys.get(i));
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to initialise HMAC", e);
+        }
+        return new ThreadState(threadMacs);
+    }
+
+    // Keyed Macs and digest buffers reused by every verification on one thread
+    private static final class ThreadState {
+
+        private final Mac[] macs;
+        private final byte[] expected = new byte[DIGEST_LENGTH];
+        private final byte[] actual = new byte[DIGEST_LENGTH];
+
+        private ThreadState(Mac[] macs) {
+            this.macs = macs;
+        }
+    }
 }
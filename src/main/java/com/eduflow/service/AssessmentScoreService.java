@@ -0,0 +1,19 @@
+package com.eduflow.service;
+
+import com.eduflow.dto.request.CreateAssessmentRequest;
+import com.eduflow.entity.academic.AssessmentStatistics;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface AssessmentScoreService {
+
+    AssessmentStatistics recordScores(Long assessmentId, List<CreateAssessmentRequest.StudentScore> scores);
+
+    /**
+     * Returns the stored statistics of the given assessments keyed by assessment id. Never writes:
+     * an assessment still without stored statistics gets them computed from its scores.
+     */
+    Map<Long, AssessmentStatistics> getStatistics(Collection<Long> assessmentIds);
+}
@@ -0,0 +1,24 @@
+package com.eduflow.service;
+
+import com.eduflow.dto.response.AttendanceSummaryResponse;
+import com.eduflow.dto.response.ClassAttendanceMatrixResponse;
+import com.eduflow.dto.response.ClassAttendanceSummaryResponse;
+import com.eduflow.entity.academic.Attendance;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+public interface AttendanceAnalyticsService {
+
+    AttendanceSummaryResponse getStudentSummary(Long studentId, LocalDate startDate, LocalDate endDate);
+
+    ClassAttendanceSummaryResponse getClassSummary(Long classId, LocalDate startDate, LocalDate endDate);
+
+    ClassAttendanceMatrixResponse getClassMatrix(Long classId, LocalDate startDate, LocalDate endDate);
+
+    void recordMarks(Long classId, LocalDate date, Map<Long, Attendance.AttendanceStatus> statusByStudent);
+
+    void rebuild();
+
+    void refresh();
+}
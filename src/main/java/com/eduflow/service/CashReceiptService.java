@@ -0,0 +1,9 @@
+package com.eduflow.service;
+
+import com.eduflow.dto.request.BulkCashReceiptRequest;
+import com.eduflow.dto.response.BulkCashReceiptResponse;
+
+public interface CashReceiptService {
+
+    BulkCashReceiptResponse postReceipts(BulkCashReceiptRequest request);
+}
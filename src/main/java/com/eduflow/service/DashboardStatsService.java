@@ -0,0 +1,25 @@
+package com.eduflow.service;
+
+import com.eduflow.dto.response.DashboardStatsResponse;
+import com.eduflow.entity.finance.Payment;
+
+import java.math.BigDecimal;
+
+public interface DashboardStatsService {
+
+    DashboardStatsResponse getDashboardStats();
+
+    DashboardStatsResponse reconcile();
+
+    void recordStudentCreated();
+
+    void recordTeacherCreated();
+
+    void recordClassCreated();
+
+    void recordPaymentCreated(Payment.PaymentStatus status, BigDecimal amount);
+
+    void recordPaymentStatusChange(Payment.PaymentStatus from, Payment.PaymentStatus to, BigDecimal amount);
+
+    void recordOutstandingChange(BigDecimal delta);
+}
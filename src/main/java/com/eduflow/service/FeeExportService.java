@@ -0,0 +1,15 @@
+package com.eduflow.service;
+
+import com.eduflow.service.export.ExportFormat;
+import com.eduflow.service.export.FeeStatementFilter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface FeeExportService {
+
+    /**
+     * @return the number of statement lines written
+     */
+    long exportFeeStatement(FeeStatementFilter filter, ExportFormat format, OutputStream out) throws IOException;
+}
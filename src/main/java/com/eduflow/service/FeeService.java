@@ -1,7 +1,10 @@
 package com.eduflow.service;
 
 import com.eduflow.dto.request.AssignFeeRequest;
+import com.eduflow.dto.request.BulkFeeAdjustmentRequest;
 import com.eduflow.dto.request.CreateFeeRequest;
+import com.eduflow.dto.response.BulkFeeAdjustmentResponse;
+import com.eduflow.dto.response.BulkFeeAssignmentResponse;
 import com.eduflow.dto.response.FeeResponse;
 import com.eduflow.dto.response.StudentFeeResponse;
 
@@ -25,6 +28,8 @@ public interface FeeService {
 
     List<StudentFeeResponse> assignFeesToStudents(AssignFeeRequest request);
 
+    BulkFeeAssignmentResponse bulkAssignFeesToStudents(AssignFeeRequest request);
+
     List<StudentFeeResponse> getStudentFees(Long studentId);
 
     List<StudentFeeResponse> getStudentFeesByYear(Long studentId, String academicYear);
@@ -33,5 +38,9 @@ public interface FeeService {
 
     StudentFeeResponse waiveFee(Long assignmentId, String reason);
 
+    BulkFeeAdjustmentResponse bulkApplyDiscount(BulkFeeAdjustmentRequest request);
+
+    BulkFeeAdjustmentResponse bulkWaiveFees(BulkFeeAdjustmentRequest request);
+
     List<StudentFeeResponse> getOverdueFees();
 }
@@ -0,0 +1,25 @@
+package com.eduflow.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    String HEADER = "Idempotency-Key";
+
+    /**
+     * Runs {@code action} at most once per scope and Idempotency-Key. A repeat of a completed
+     * request replays its stored response; a repeat that arrives while the first is still running
+     * waits for it. Without a key the action simply runs.
+     *
+     * @param scope   namespace for the key, normally the endpoint and the caller
+     * @param key     the client's Idempotency-Key header, may be null
+     * @param request request body; a different body under a used key is rejected
+     */
+    <T> T execute(String scope, String key, Object request, Class<T> responseType, Supplier<T> action);
+
+    <T> T execute(String scope, String key, Object request, TypeReference<T> responseType, Supplier<T> action);
+
+    int purgeExpired();
+}
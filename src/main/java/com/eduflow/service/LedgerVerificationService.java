@@ -0,0 +1,16 @@
+package com.eduflow.service;
+
+import com.eduflow.dto.response.LedgerDiscrepancyResponse;
+import com.eduflow.dto.response.LedgerVerificationResponse;
+import com.eduflow.dto.response.PagedResponse;
+import com.eduflow.entity.finance.LedgerDiscrepancy;
+
+public interface LedgerVerificationService {
+
+    LedgerVerificationResponse verifyLedger();
+
+    LedgerVerificationResponse verifyLedger(boolean autoCorrect);
+
+    PagedResponse<LedgerDiscrepancyResponse> getDiscrepancies(LedgerDiscrepancy.DiscrepancyStatus status,
+                                                              int page, int size);
+}
@@ -0,0 +1,27 @@
+package com.eduflow.service;
+
+import com.eduflow.dto.request.GeneratePaymentPlansRequest;
+import com.eduflow.dto.response.BulkPaymentPlanResponse;
+import com.eduflow.dto.response.PaymentPlanInstallmentResponse;
+import com.eduflow.dto.response.PaymentPlanResponse;
+import com.eduflow.dto.response.PaymentPlanScanResponse;
+import com.eduflow.entity.finance.Payment;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PaymentPlanService {
+
+    BulkPaymentPlanResponse generatePlans(GeneratePaymentPlansRequest request);
+
+    List<PaymentPlanResponse> getStudentPlans(Long studentId);
+
+    void allocatePayment(Payment payment);
+
+    void allocatePayment(Long studentId, String academicYear, BigDecimal amount, LocalDate paidDate);
+
+    PaymentPlanScanResponse scanInstallments();
+
+    List<PaymentPlanInstallmentResponse> getDueInstallments(LocalDate dueBy, long afterId, int limit);
+}
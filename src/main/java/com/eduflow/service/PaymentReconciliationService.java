@@ -0,0 +1,8 @@
+package com.eduflow.service;
+
+import com.eduflow.dto.response.PaymentReconciliationResponse;
+
+public interface PaymentReconciliationService {
+
+    PaymentReconciliationResponse reconcileStalePayments();
+}
@@ -0,0 +1,23 @@
+package com.eduflow.service;
+
+import com.eduflow.dto.response.CollectionBreakdownResponse;
+import com.eduflow.dto.response.CollectionSeriesResponse;
+import com.eduflow.entity.finance.FeeCategory;
+import com.eduflow.entity.finance.Payment;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface PaymentRollupService {
+
+    void recordCompleted(Payment payment);
+
+    void recordCompleted(LocalDate collectionDate, Payment.PaymentMethod paymentMethod,
+                         FeeCategory.CategoryType category, BigDecimal amount, long paymentCount);
+
+    int rebuildAllRollups();
+
+    CollectionSeriesResponse getCollectionSeries(LocalDate from, LocalDate to, CollectionSeriesResponse.Bucket bucket);
+
+    CollectionBreakdownResponse getCollectionBreakdown(LocalDate from, LocalDate to);
+}
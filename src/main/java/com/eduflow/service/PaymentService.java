@@ -28,5 +28,9 @@ public interface PaymentService {
 
     PaymentResponse processPaymentCallback(String gatewayRef, boolean success, String responseData);
 
+    boolean reconcileStalePayment(Long paymentId, boolean success, String responseData);
+
+    boolean expireUnsentPayment(Long paymentId);
+
     PaymentResponse cancelPayment(Long paymentId, String reason);
 }
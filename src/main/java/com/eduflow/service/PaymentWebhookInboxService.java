@@ -0,0 +1,10 @@
+package com.eduflow.service;
+
+import com.eduflow.dto.response.WebhookInboxDrainResponse;
+
+public interface PaymentWebhookInboxService {
+
+    boolean enqueue(String rawPayload);
+
+    WebhookInboxDrainResponse drainInbox();
+}
@@ -0,0 +1,20 @@
+package com.eduflow.service;
+
+import com.eduflow.entity.finance.StudentFeeAssignment;
+import com.eduflow.entity.finance.StudentFeeLedger;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+public interface StudentFeeLedgerService {
+
+    void recordChange(StudentFeeLedger.Contribution before, StudentFeeAssignment after);
+
+    void recordPayments(Long studentId, String academicYear, BigDecimal paid, int pendingDelta, int overdueDelta);
+
+    void recordBulkAssignment(Collection<Long> studentIds, String academicYear, BigDecimal netAmount);
+
+    void rebuildLedgers(Collection<Long> studentIds);
+
+    int rebuildAllLedgers();
+}
@@ -0,0 +1,6 @@
+package com.eduflow.service;
+
+public interface StudentIdAllocator {
+
+    String nextStudentId();
+}
@@ -0,0 +1,233 @@
+package com.eduflow.service.attendance;
+
+import com.eduflow.entity.academic.Attendance;
+import com.eduflow.repository.academic.AttendanceJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded cache of a class's attendance statuses, one entry per class and ISO week, each a dense
+ * byte per student per day. Missing weeks of a request are read with one projection query over
+ * their span. Roster writes evict the week they touch once they commit; entries also expire after
+ * the configured TTL so marks made on other nodes show up.
+ * <p>Entries live in one insertion-ordered map behind a lock, so an evicted or expired week
+ * leaves the eviction order together with its cells.
+ */
+@Component
+public class ClassAttendanceMatrixCache {
+
+    public static final byte NOT_MARKED = 0;
+    private static final Attendance.AttendanceStatus[] STATUSES = Attendance.AttendanceStatus.values();
+
+    private final AttendanceJdbcRepository attendanceJdbcRepository;
+    private final Duration ttl;
+    private final LinkedHashMap<WeekKey, CachedWeek> weeks;
+    // Bumped by every eviction; a load that raced a write is returned but not cached
+    private long invalidations;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ClassAttendanceMatrixCache(AttendanceJdbcRepository attendanceJdbcRepository,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${attendance.matrix.cache-max-weeks:20000}") int maxWeeks,
+                                      @Value("${attendance.matrix.cache-ttl:10m}") Duration ttl) {
+        this.attendanceJdbcRepository = attendanceJdbcRepository;
+        this.ttl = ttl;
+        this.weeks = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<WeekKey, CachedWeek> eldest) {
+                return size() > maxWeeks;
+            }
+        };
+        this.hits = Counter.builder("eduflow.attendance.matrix.cache")
+                .description("Class attendance weeks served from memory")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("eduflow.attendance.matrix.cache")
+                .description("Class attendance weeks read from the database")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("eduflow.attendance.matrix.cache.size", this, ClassAttendanceMatrixCache::size)
+                .description("Class attendance weeks held in the matrix cache")
+                .register(meterRegistry);
+    }
+
+    public static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    public static byte encode(Attendance.AttendanceStatus status) {
+        return (byte) (status.ordinal() + 1);
+    }
+
+    public static Attendance.AttendanceStatus decode(byte code) {
+        return code == NOT_MARKED ? null : STATUSES[code - 1];
+    }
+
+    /**
+     * Returns the weeks from the one containing {@code from} to the one containing {@code to},
+     * keyed by their Monday in date order.
+     */
+    public Map<LocalDate, WeekCells> getWeeks(long classId, LocalDate from, LocalDate to) {
+        Map<LocalDate, WeekCells> result = new LinkedHashMap<>();
+        Set<LocalDate> missing = new LinkedHashSet<>();
+        for (LocalDate week = weekStart(from); !week.isAfter(to); week = week.plusWeeks(1)) {
+            WeekCells cached = cached(new WeekKey(classId, week));
+            if (cached != null) {
+                hits.increment();
+                result.put(week, cached);
+            } else {
+                misses.increment();
+                result.put(week, null);
+                missing.add(week);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        long generation = generation();
+        LocalDate firstMissing = missing.iterator().next();
+        LocalDate lastMissing = firstMissing;
+        for (LocalDate week : missing) {
+            lastMissing = week;
+        }
+        Map<LocalDate, Map<Long, byte[]>> loaded = new HashMap<>();
+        attendanceJdbcRepository.forEachClassMark(classId, firstMissing, lastMissing.plusDays(6),
+                (studentId, date, status) -> {
+                    LocalDate week = weekStart(date);
+                    if (missing.contains(week)) {
+                        loaded.computeIfAbsent(week, w -> new HashMap<>())
+                                .computeIfAbsent(studentId, id -> new byte[WeekCells.DAYS])
+                                [date.getDayOfWeek().getValue() - 1] = encode(status);
+                    }
+                });
+
+        for (LocalDate week : missing) {
+            WeekCells cells = WeekCells.of(loaded.getOrDefault(week, Map.of()));
+            result.put(week, cells);
+            remember(new WeekKey(classId, week), cells, generation);
+        }
+        return result;
+    }
+
+    /**
+     * Evicts the week containing {@code date} for the class once the surrounding transaction
+     * commits, or straight away outside one.
+     */
+    public void invalidate(long classId, LocalDate date) {
+        WeekKey key = new WeekKey(classId, weekStart(date));
+        Runnable evict = () -> {
+            synchronized (this) {
+                invalidations++;
+                weeks.remove(key);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        } else {
+            evict.run();
+        }
+    }
+
+    synchronized int size() {
+        return weeks.size();
+    }
+
+    private synchronized long generation() {
+        return invalidations;
+    }
+
+    private synchronized WeekCells cached(WeekKey key) {
+        CachedWeek cached = weeks.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt() - System.nanoTime() < 0) {
+            weeks.remove(key);
+            return null;
+        }
+        return cached.cells();
+    }
+
+    // Removing first moves a reloaded week to the young end, in step with its new expiry
+    private synchronized void remember(WeekKey key, WeekCells cells, long generation) {
+        if (invalidations != generation) {
+            return;
+        }
+        weeks.remove(key);
+        weeks.put(key, new CachedWeek(cells, System.nanoTime() + ttl.toNanos()));
+    }
+
+    /**
+     * One week of a class: the students with at least one mark, in id order, and a
+     * {@code students x 7} row-major array of encoded statuses, Monday first.
+     */
+    public static final class WeekCells {
+
+        public static final int DAYS = 7;
+
+        private final long[] studentIds;
+        private final byte[] cells;
+        // Bit d is set when any student was marked on day d
+        private final int markedDays;
+
+        private WeekCells(long[] studentIds, byte[] cells, int markedDays) {
+            this.studentIds = studentIds;
+            this.cells = cells;
+            this.markedDays = markedDays;
+        }
+
+        static WeekCells of(Map<Long, byte[]> byStudent) {
+            long[] studentIds = byStudent.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            byte[] cells = new byte[studentIds.length * DAYS];
+            int markedDays = 0;
+            for (int row = 0; row < studentIds.length; row++) {
+                byte[] days = byStudent.get(studentIds[row]);
+                System.arraycopy(days, 0, cells, row * DAYS, DAYS);
+                for (int day = 0; day < DAYS; day++) {
+                    if (days[day] != NOT_MARKED) {
+                        markedDays |= 1 << day;
+                    }
+                }
+            }
+            return new WeekCells(studentIds, cells, markedDays);
+        }
+
+        public boolean isMarked(int day) {
+            return (markedDays & (1 << day)) != 0;
+        }
+
+        public byte status(long studentId, int day) {
+            int row = Arrays.binarySearch(studentIds, studentId);
+            return row < 0 ? NOT_MARKED : cells[row * DAYS + day];
+        }
+    }
+
+    private record WeekKey(long classId, LocalDate weekStart) {
+    }
+
+    private record CachedWeek(WeekCells cells, long expiresAt) {
+    }
+}
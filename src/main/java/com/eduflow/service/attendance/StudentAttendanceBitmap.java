@@ -0,0 +1,119 @@
+package com.eduflow.service.attendance;
+
+import com.eduflow.entity.academic.Attendance;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * One student's attendance as bitmaps: for each calendar year with at least one mark, one
+ * 366-bit plane per status, indexed by day of year. A day is marked in at most one plane, and a
+ * day with no bit set was not marked. A school year of marks fits in 192 bytes, and counts over
+ * a date range are a handful of masked popcounts.
+ * <p>
+ * Attendance rows are keyed by student, class and date, but a student sits in one class at a
+ * time, so the bitmap keeps one status per day. If a student is marked in two classes on the same
+ * day, for example when moved mid-morning, the mark applied last replaces the other and the day
+ * counts once, where counting attendance rows would see two. After a rebuild it is unspecified
+ * which of the two marks is kept.
+ */
+public class StudentAttendanceBitmap {
+
+    private static final Attendance.AttendanceStatus[] STATUSES = Attendance.AttendanceStatus.values();
+    private static final int WORDS_PER_PLANE = 6;
+    private static final int PRESENT_PLANE = Attendance.AttendanceStatus.PRESENT.ordinal() * WORDS_PER_PLANE;
+    private static final int ABSENT_PLANE = Attendance.AttendanceStatus.ABSENT.ordinal() * WORDS_PER_PLANE;
+
+    // year -> STATUSES.length planes of WORDS_PER_PLANE words each
+    private final TreeMap<Integer, long[]> years = new TreeMap<>();
+
+    public synchronized void mark(LocalDate date, Attendance.AttendanceStatus status) {
+        long[] planes = years.computeIfAbsent(date.getYear(), year -> new long[STATUSES.length * WORDS_PER_PLANE]);
+        int day = date.getDayOfYear() - 1;
+        int word = day >>> 6;
+        long bit = 1L << day;
+        for (int plane = 0; plane < STATUSES.length; plane++) {
+            planes[plane * WORDS_PER_PLANE + word] &= ~bit;
+        }
+        planes[status.ordinal() * WORDS_PER_PLANE + word] |= bit;
+    }
+
+    /**
+     * Counts marks per status and walks the marked days in order to find streaks, for the days
+     * from {@code from} to {@code to} inclusive.
+     */
+    public synchronized Summary summarize(LocalDate from, LocalDate to) {
+        long[] counts = new long[STATUSES.length];
+        int longestPresent = 0;
+        int presentRun = 0;
+        int absentRun = 0;
+        LocalDate lastMarked = null;
+
+        for (Map.Entry<Integer, long[]> entry : years.subMap(from.getYear(), true, to.getYear(), true).entrySet()) {
+            int year = entry.getKey();
+            long[] planes = entry.getValue();
+            int firstDay = year == from.getYear() ? from.getDayOfYear() - 1 : 0;
+            int lastDay = year == to.getYear() ? to.getDayOfYear() - 1 : WORDS_PER_PLANE * 64 - 1;
+
+            for (int word = firstDay >>> 6; word <= lastDay >>> 6; word++) {
+                long mask = rangeMask(word, firstDay, lastDay);
+                long marked = 0;
+                for (int plane = 0; plane < STATUSES.length; plane++) {
+                    long bits = planes[plane * WORDS_PER_PLANE + word] & mask;
+                    counts[plane] += Long.bitCount(bits);
+                    marked |= bits;
+                }
+
+                // Streaks run over marked days only, so weekends and holidays do not break them
+                while (marked != 0) {
+                    long bit = Long.lowestOneBit(marked);
+                    marked ^= bit;
+                    int day = (word << 6) + Long.numberOfTrailingZeros(bit);
+                    if ((planes[PRESENT_PLANE + word] & bit) != 0) {
+                        presentRun++;
+                        absentRun = 0;
+                        longestPresent = Math.max(longestPresent, presentRun);
+                    } else if ((planes[ABSENT_PLANE + word] & bit) != 0) {
+                        presentRun = 0;
+                        absentRun++;
+                    } else {
+                        presentRun = 0;
+                        absentRun = 0;
+                    }
+                    lastMarked = LocalDate.ofYearDay(year, day + 1);
+                }
+            }
+        }
+
+        return new Summary(
+                counts[Attendance.AttendanceStatus.PRESENT.ordinal()],
+                counts[Attendance.AttendanceStatus.ABSENT.ordinal()],
+                counts[Attendance.AttendanceStatus.LATE.ordinal()],
+                counts[Attendance.AttendanceStatus.EXCUSED.ordinal()],
+                absentRun,
+                longestPresent,
+                lastMarked);
+    }
+
+    private static long rangeMask(int word, int firstDay, int lastDay) {
+        int low = Math.max(firstDay - (word << 6), 0);
+        int high = Math.min(lastDay - (word << 6), 63);
+        long upTo = high == 63 ? -1L : (1L << (high + 1)) - 1;
+        return upTo & (-1L << low);
+    }
+
+    /**
+     * @param currentAbsenceStreak consecutive ABSENT marks ending at the last marked day
+     * @param longestPresentStreak longest run of consecutive PRESENT marks in the range
+     */
+    public record Summary(long presentDays, long absentDays, long lateDays, long excusedDays,
+                          int currentAbsenceStreak, int longestPresentStreak, LocalDate lastMarkedDate) {
+
+        public static final Summary EMPTY = new Summary(0, 0, 0, 0, 0, 0, null);
+
+        public long totalDays() {
+            return presentDays + absentDays + lateDays + excusedDays;
+        }
+    }
+}
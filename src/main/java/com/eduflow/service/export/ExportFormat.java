@@ -0,0 +1,33 @@
+package com.eduflow.service.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public enum ExportFormat {
+
+    CSV("text/csv", "csv"),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public TabularExportWriter open(OutputStream out, String sheetName) throws IOException {
+        return switch (this) {
+            case CSV -> new CsvExportWriter(out);
+            case XLSX -> new XlsxExportWriter(out, sheetName);
+        };
+    }
+}
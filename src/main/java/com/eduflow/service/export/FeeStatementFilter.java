@@ -0,0 +1,8 @@
+package com.eduflow.service.export;
+
+/**
+ * Which fee lines an export covers. Any of class, grade and academic year may be null to leave
+ * that dimension open; {@code arrearsOnly} keeps unpaid lines past their due date.
+ */
+public record FeeStatementFilter(Long classId, Integer grade, String academicYear, boolean arrearsOnly) {
+}
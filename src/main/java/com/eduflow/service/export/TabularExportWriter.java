@@ -0,0 +1,21 @@
+package com.eduflow.service.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes rows straight to an output stream, one at a time, so an export never holds more
+ * than the row being written. Numbers are written as numbers, everything else as text.
+ */
+public interface TabularExportWriter extends Closeable {
+
+    void writeRow(List<?> cells) throws IOException;
+
+    /** Pushes buffered rows to the client, called between pages. */
+    void flush() throws IOException;
+
+    /** Finishes the document; the underlying stream is left open. */
+    @Override
+    void close() throws IOException;
+}
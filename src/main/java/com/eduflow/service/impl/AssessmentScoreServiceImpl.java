@@ -0,0 +1,183 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.request.CreateAssessmentRequest;
+import com.eduflow.entity.academic.AssessmentScore;
+import com.eduflow.entity.academic.AssessmentStatistics;
+import com.eduflow.exception.ResourceNotFoundException;
+import com.eduflow.repository.academic.AssessmentScoreJdbcRepository;
+import com.eduflow.repository.academic.AssessmentStatisticsRepository;
+import com.eduflow.repository.academic.StudentRepository;
+import com.eduflow.service.AssessmentScoreService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes an assessment's scores in bulk: the submitted students and the assessment's existing
+ * scores are each read in one query, changes are written as batched UPDATEs and INSERTs, and the
+ * assessment's statistics are recomputed from the merged scores in the same pass and transaction.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AssessmentScoreServiceImpl implements AssessmentScoreService {
+
+    private final AssessmentScoreJdbcRepository scoreJdbcRepository;
+    private final AssessmentStatisticsRepository statisticsRepository;
+    private final StudentRepository studentRepository;
+
+    @Override
+    @Transactional
+    public AssessmentStatistics recordScores(Long assessmentId, List<CreateAssessmentRequest.StudentScore> scores) {
+        AssessmentScoreJdbcRepository.LockedAssessment assessment = scoreJdbcRepository.lockAssessment(assessmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Assessment", "id", assessmentId));
+
+        // The last score for a student wins, as it did when each score was saved in turn
+        Map<Long, AssessmentScoreJdbcRepository.ScoreMark> marks = new LinkedHashMap<>();
+        for (CreateAssessmentRequest.StudentScore score : scores) {
+            marks.put(score.getStudentId(), new AssessmentScoreJdbcRepository.ScoreMark(score.getStudentId(),
+                    score.getScore(), score.getRemarks(), Boolean.TRUE.equals(score.getAbsent())));
+        }
+
+        if (!marks.isEmpty()) {
+            Set<Long> missing = new HashSet<>(marks.keySet());
+            studentRepository.findExistingIds(marks.keySet()).forEach(missing::remove);
+            if (!missing.isEmpty()) {
+                Long studentId = missing.iterator().next();
+                throw new ResourceNotFoundException("Student", "id", studentId);
+            }
+        }
+
+        Map<Long, AssessmentScoreJdbcRepository.ScoreRow> merged = new HashMap<>();
+        for (AssessmentScoreJdbcRepository.ScoreRow row : scoreJdbcRepository.findScores(assessmentId)) {
+            merged.put(row.studentId(), row);
+        }
+        List<AssessmentScoreJdbcRepository.ScoreMark> updates = new ArrayList<>();
+        List<AssessmentScoreJdbcRepository.ScoreMark> inserts = new ArrayList<>();
+        for (AssessmentScoreJdbcRepository.ScoreMark mark : marks.values()) {
+            boolean exists = merged.put(mark.studentId(),
+                    new AssessmentScoreJdbcRepository.ScoreRow(mark.studentId(), mark.score(), mark.absent())) != null;
+            (exists ? updates : inserts).add(mark);
+        }
+        scoreJdbcRepository.updateScores(assessmentId, updates);
+        scoreJdbcRepository.insertScores(assessmentId, inserts);
+
+        AssessmentStatistics statistics = statisticsRepository.findByAssessmentId(assessmentId)
+                .orElseGet(() -> AssessmentStatistics.builder().assessmentId(assessmentId).build());
+        computeStatistics(statistics, assessment, merged.values());
+        statistics = statisticsRepository.save(statistics);
+
+        log.debug("Recorded scores for assessment {}: {} updated, {} inserted, {} scored",
+                assessmentId, updates.size(), inserts.size(), statistics.getScoredCount());
+        return statistics;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, AssessmentStatistics> getStatistics(Collection<Long> assessmentIds) {
+        Map<Long, AssessmentStatistics> statistics = new HashMap<>();
+        if (assessmentIds.isEmpty()) {
+            return statistics;
+        }
+        for (AssessmentStatistics stats : statisticsRepository.findByAssessmentIdIn(assessmentIds)) {
+            statistics.put(stats.getAssessmentId(), stats);
+        }
+        // Only assessments created before statistics were stored lack a row, until
+        // AssessmentStatisticsInitializer stores theirs; in the meantime they are computed, not stored
+        for (Long assessmentId : assessmentIds) {
+            if (!statistics.containsKey(assessmentId)) {
+                scoreJdbcRepository.findAssessment(assessmentId).ifPresent(assessment -> {
+                    AssessmentStatistics computed = AssessmentStatistics.builder().assessmentId(assessmentId).build();
+                    computeStatistics(computed, assessment, scoreJdbcRepository.findScores(assessmentId));
+                    statistics.put(assessmentId, computed);
+                });
+            }
+        }
+        return statistics;
+    }
+
+    // The only place the class size is counted; see AssessmentStatistics
+    private void computeStatistics(AssessmentStatistics statistics,
+                                   AssessmentScoreJdbcRepository.LockedAssessment assessment,
+                                   Collection<AssessmentScoreJdbcRepository.ScoreRow> scores) {
+        statistics.setClassSize((int) studentRepository.countByCurrentClassIdIn(List.of(assessment.classId())));
+        applyStatistics(statistics, scores, assessment.maxScore());
+    }
+
+    /**
+     * Computes count, mean, min, max, standard deviation and the grade histogram in one pass
+     * over the scores. The mean and its percentage are rounded the same way the assessment
+     * responses always have; the variance uses Welford's update so it stays stable.
+     */
+    static void applyStatistics(AssessmentStatistics statistics,
+                                Collection<AssessmentScoreJdbcRepository.ScoreRow> scores,
+                                BigDecimal maxScore) {
+        int scored = 0;
+        int absent = 0;
+        BigDecimal sum = BigDecimal.ZERO;
+        BigDecimal min = null;
+        BigDecimal max = null;
+        double mean = 0;
+        double sumSquaredDeviations = 0;
+        int[] grades = new int[6];
+
+        for (AssessmentScoreJdbcRepository.ScoreRow row : scores) {
+            if (row.absent()) {
+                absent++;
+                continue;
+            }
+            if (row.score() == null) {
+                continue;
+            }
+            BigDecimal score = row.score();
+            scored++;
+            sum = sum.add(score);
+            min = min == null || score.compareTo(min) < 0 ? score : min;
+            max = max == null || score.compareTo(max) > 0 ? score : max;
+
+            double value = score.doubleValue();
+            double delta = value - mean;
+            mean += delta / scored;
+            sumSquaredDeviations += delta * (value - mean);
+
+            String letter = AssessmentScore.gradeLetter(AssessmentScore.percentage(score, maxScore));
+            if (!"N/A".equals(letter)) {
+                grades[letter.charAt(0) - 'A']++;
+            }
+        }
+
+        statistics.setScoredCount(scored);
+        statistics.setAbsentCount(absent);
+        statistics.setMinScore(min);
+        statistics.setMaxScore(max);
+        if (scored > 0) {
+            BigDecimal meanScore = sum.divide(BigDecimal.valueOf(scored), 2, RoundingMode.HALF_UP);
+            statistics.setMeanScore(meanScore);
+            statistics.setMeanPercentage(AssessmentScore.percentage(meanScore, maxScore));
+            statistics.setStandardDeviation(BigDecimal.valueOf(Math.sqrt(sumSquaredDeviations / scored))
+                    .setScale(2, RoundingMode.HALF_UP));
+        } else {
+            statistics.setMeanScore(null);
+            statistics.setMeanPercentage(null);
+            statistics.setStandardDeviation(null);
+        }
+        statistics.setGradeACount(grades[0]);
+        statistics.setGradeBCount(grades[1]);
+        statistics.setGradeCCount(grades[2]);
+        statistics.setGradeDCount(grades[3]);
+        statistics.setGradeECount(grades[4]);
+        statistics.setGradeFCount(grades[5]);
+    }
+}
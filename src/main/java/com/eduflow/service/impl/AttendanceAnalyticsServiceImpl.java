@@ -0,0 +1,363 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.response.AttendanceSummaryResponse;
+import com.eduflow.dto.response.ClassAttendanceMatrixResponse;
+import com.eduflow.dto.response.ClassAttendanceSummaryResponse;
+import com.eduflow.entity.academic.Attendance;
+import com.eduflow.entity.academic.SchoolClass;
+import com.eduflow.exception.BadRequestException;
+import com.eduflow.exception.ResourceNotFoundException;
+import com.eduflow.repository.academic.AttendanceJdbcRepository;
+import com.eduflow.repository.academic.SchoolClassRepository;
+import com.eduflow.service.AttendanceAnalyticsService;
+import com.eduflow.service.attendance.ClassAttendanceMatrixCache;
+import com.eduflow.service.attendance.StudentAttendanceBitmap;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers attendance counts, percentages and streaks from per-student bitmaps held in memory
+ * instead of counting attendance rows per student. The index is built from the attendance table
+ * at startup and daily, and is updated after each roster write commits. Marks made on other
+ * nodes are picked up by a frequent refresh that re-reads the rows written since the previous
+ * one. Class attendance grids are assembled from per-week blocks held by
+ * {@link ClassAttendanceMatrixCache}.
+ */
+@Slf4j
+@Service
+public class AttendanceAnalyticsServiceImpl implements AttendanceAnalyticsService, ApplicationRunner {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final long MAX_MATRIX_DAYS = 366;
+    private static final char NOT_MARKED_CODE = '-';
+    private static final Map<Character, Attendance.AttendanceStatus> STATUS_CODES = new LinkedHashMap<>();
+    private static final char[] CODE_BY_ENCODED = new char[Attendance.AttendanceStatus.values().length + 1];
+
+    static {
+        CODE_BY_ENCODED[ClassAttendanceMatrixCache.NOT_MARKED] = NOT_MARKED_CODE;
+        for (Attendance.AttendanceStatus status : Attendance.AttendanceStatus.values()) {
+            char code = status.name().charAt(0);
+            STATUS_CODES.put(code, status);
+            CODE_BY_ENCODED[ClassAttendanceMatrixCache.encode(status)] = code;
+        }
+    }
+
+    private final AttendanceJdbcRepository attendanceJdbcRepository;
+    private final SchoolClassRepository classRepository;
+    private final ClassAttendanceMatrixCache matrixCache;
+    private final int absenceStreakAlert;
+    private final Duration refreshOverlap;
+    private final Timer rebuildTimer;
+    private final AtomicLong indexedStudents = new AtomicLong();
+
+    private final Object writeLock = new Object();
+    private volatile Map<Long, StudentAttendanceBitmap> bitmaps = new ConcurrentHashMap<>();
+    // Non-null while a rebuild reads the table; marks committed meanwhile are replayed onto the new index
+    private volatile Queue<Mark> pendingReplay;
+    private volatile LocalDateTime lastRebuiltAt;
+    // Rows written from here on are re-read by the next refresh
+    private volatile LocalDateTime refreshedUpTo;
+
+    public AttendanceAnalyticsServiceImpl(AttendanceJdbcRepository attendanceJdbcRepository,
+                                          SchoolClassRepository classRepository,
+                                          ClassAttendanceMatrixCache matrixCache,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${attendance.analytics.absence-streak-alert:3}")
+                                          int absenceStreakAlert,
+                                          @Value("${attendance.analytics.refresh-overlap:2m}")
+                                          Duration refreshOverlap) {
+        this.attendanceJdbcRepository = attendanceJdbcRepository;
+        this.classRepository = classRepository;
+        this.matrixCache = matrixCache;
+        this.absenceStreakAlert = absenceStreakAlert;
+        this.refreshOverlap = refreshOverlap;
+        this.rebuildTimer = Timer.builder("eduflow.attendance.analytics.rebuild")
+                .description("Duration of attendance index rebuilds")
+                .register(meterRegistry);
+        Gauge.builder("eduflow.attendance.analytics.students", indexedStudents, AtomicLong::get)
+                .description("Students in the attendance index")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    @Override
+    public AttendanceSummaryResponse getStudentSummary(Long studentId, LocalDate startDate, LocalDate endDate) {
+        validateRange(startDate, endDate);
+        AttendanceJdbcRepository.RosterEntry student = attendanceJdbcRepository.findRosterEntry(studentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Student", "id", studentId));
+        return summarize(index(), student, startDate, endDate);
+    }
+
+    @Override
+    public ClassAttendanceSummaryResponse getClassSummary(Long classId, LocalDate startDate, LocalDate endDate) {
+        validateRange(startDate, endDate);
+        SchoolClass schoolClass = classRepository.findById(classId)
+                .orElseThrow(() -> new ResourceNotFoundException("Class", "id", classId));
+
+        Map<Long, StudentAttendanceBitmap> index = index();
+        List<AttendanceSummaryResponse> students = new ArrayList<>();
+        BigDecimal percentageTotal = BigDecimal.ZERO;
+        int withPercentage = 0;
+        int withAbsenceStreak = 0;
+        for (AttendanceJdbcRepository.RosterEntry student : attendanceJdbcRepository.findRoster(classId)) {
+            AttendanceSummaryResponse summary = summarize(index, student, startDate, endDate);
+            students.add(summary);
+            if (summary.getAttendancePercentage() != null) {
+                percentageTotal = percentageTotal.add(summary.getAttendancePercentage());
+                withPercentage++;
+            }
+            if (summary.getCurrentAbsenceStreak() >= absenceStreakAlert) {
+                withAbsenceStreak++;
+            }
+        }
+
+        return ClassAttendanceSummaryResponse.builder()
+                .classId(classId)
+                .className(schoolClass.getName())
+                .startDate(startDate)
+                .endDate(endDate)
+                .studentCount(students.size())
+                .averageAttendancePercentage(withPercentage == 0 ? null
+                        : percentageTotal.divide(BigDecimal.valueOf(withPercentage), 2, RoundingMode.HALF_UP))
+                .studentsWithAbsenceStreak(withAbsenceStreak)
+                .students(students)
+                .indexRebuiltAt(lastRebuiltAt)
+                .build();
+    }
+
+    @Override
+    public ClassAttendanceMatrixResponse getClassMatrix(Long classId, LocalDate startDate, LocalDate endDate) {
+        validateRange(startDate, endDate);
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= MAX_MATRIX_DAYS) {
+            throw new BadRequestException("Date range must not exceed " + MAX_MATRIX_DAYS + " days");
+        }
+        SchoolClass schoolClass = classRepository.findById(classId)
+                .orElseThrow(() -> new ResourceNotFoundException("Class", "id", classId));
+
+        // Columns are the days with at least one mark, so weekends and holidays take no space
+        Map<LocalDate, ClassAttendanceMatrixCache.WeekCells> weeks = matrixCache.getWeeks(classId, startDate, endDate);
+        List<LocalDate> dates = new ArrayList<>();
+        List<ClassAttendanceMatrixCache.WeekCells> columnWeeks = new ArrayList<>();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            ClassAttendanceMatrixCache.WeekCells week = weeks.get(ClassAttendanceMatrixCache.weekStart(day));
+            if (week.isMarked(day.getDayOfWeek().getValue() - 1)) {
+                dates.add(day);
+                columnWeeks.add(week);
+            }
+        }
+
+        List<ClassAttendanceMatrixResponse.Row> rows = new ArrayList<>();
+        int totalRecords = 0;
+        char[] cells = new char[dates.size()];
+        for (AttendanceJdbcRepository.RosterEntry student
+                : attendanceJdbcRepository.findRosterWithMarks(classId, startDate, endDate)) {
+            for (int column = 0; column < cells.length; column++) {
+                byte status = columnWeeks.get(column).status(student.studentId(),
+                        dates.get(column).getDayOfWeek().getValue() - 1);
+                cells[column] = CODE_BY_ENCODED[status];
+                if (status != ClassAttendanceMatrixCache.NOT_MARKED) {
+                    totalRecords++;
+                }
+            }
+            rows.add(ClassAttendanceMatrixResponse.Row.builder()
+                    .studentId(student.studentId())
+                    .studentNumber(student.studentNumber())
+                    .studentName(student.fullName())
+                    .cells(new String(cells))
+                    .build());
+        }
+
+        return ClassAttendanceMatrixResponse.builder()
+                .classId(classId)
+                .className(schoolClass.getName())
+                .startDate(startDate)
+                .endDate(endDate)
+                .statusCodes(STATUS_CODES)
+                .dates(dates)
+                .students(rows)
+                .totalRecords(totalRecords)
+                .build();
+    }
+
+    @Override
+    public void recordMarks(Long classId, LocalDate date, Map<Long, Attendance.AttendanceStatus> statusByStudent) {
+        if (statusByStudent.isEmpty()) {
+            return;
+        }
+        matrixCache.invalidate(classId, date);
+        List<Mark> marks = new ArrayList<>(statusByStudent.size());
+        statusByStudent.forEach((studentId, status) -> marks.add(new Mark(studentId, date, status)));
+        afterCommit(() -> apply(marks));
+    }
+
+    @Override
+    @Scheduled(cron = "${attendance.analytics.rebuild-cron:0 30 1 * * *}")
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        LocalDateTime readStartedAt = LocalDateTime.now();
+        Queue<Mark> replay = new ConcurrentLinkedQueue<>();
+        pendingReplay = replay;
+
+        Map<Long, StudentAttendanceBitmap> rebuilt = new ConcurrentHashMap<>();
+        AtomicLong rows = new AtomicLong();
+        try {
+            attendanceJdbcRepository.forEachMark((studentId, date, status) -> {
+                rebuilt.computeIfAbsent(studentId, id -> new StudentAttendanceBitmap()).mark(date, status);
+                rows.incrementAndGet();
+            });
+        } catch (RuntimeException e) {
+            pendingReplay = null;
+            throw e;
+        }
+
+        // Replayed marks committed after the read began, so they are never older than what was read
+        synchronized (writeLock) {
+            pendingReplay = null;
+            for (Mark mark : replay) {
+                rebuilt.computeIfAbsent(mark.studentId(), id -> new StudentAttendanceBitmap())
+                        .mark(mark.date(), mark.status());
+            }
+            bitmaps = rebuilt;
+            indexedStudents.set(rebuilt.size());
+        }
+        refreshedUpTo = readStartedAt;
+        lastRebuiltAt = LocalDateTime.now();
+
+        long elapsedNanos = System.nanoTime() - start;
+        rebuildTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        log.info("Attendance index rebuilt: {} marks for {} students in {} ms",
+                rows.get(), rebuilt.size(), elapsedNanos / 1_000_000);
+    }
+
+    // Marks are re-read from a little before the previous refresh, covering writes that committed
+    // late or were stamped by a node whose clock runs behind. Applying a mark twice is harmless, and
+    // one overwritten by an older read is corrected by the next refresh.
+    @Override
+    @Scheduled(fixedDelayString = "${attendance.analytics.refresh-interval:60000}",
+               initialDelayString = "${attendance.analytics.refresh-interval:60000}")
+    public synchronized void refresh() {
+        LocalDateTime since = refreshedUpTo;
+        if (since == null) {
+            return;
+        }
+        LocalDateTime readStartedAt = LocalDateTime.now();
+        List<Mark> marks = new ArrayList<>();
+        attendanceJdbcRepository.forEachMarkWrittenSince(since.minus(refreshOverlap),
+                (studentId, date, status) -> marks.add(new Mark(studentId, date, status)));
+        apply(marks);
+        refreshedUpTo = readStartedAt;
+        log.debug("Attendance index refreshed: {} marks written since {}", marks.size(), since);
+    }
+
+    private Map<Long, StudentAttendanceBitmap> index() {
+        if (lastRebuiltAt == null) {
+            ensureBuilt();
+        }
+        return bitmaps;
+    }
+
+    // Only reached when a request beats the startup rebuild; later callers wait on the monitor
+    // and find the index built instead of rebuilding it again
+    private synchronized void ensureBuilt() {
+        if (lastRebuiltAt == null) {
+            rebuild();
+        }
+    }
+
+    private void apply(List<Mark> marks) {
+        synchronized (writeLock) {
+            Map<Long, StudentAttendanceBitmap> current = bitmaps;
+            for (Mark mark : marks) {
+                current.computeIfAbsent(mark.studentId(), id -> new StudentAttendanceBitmap())
+                        .mark(mark.date(), mark.status());
+            }
+            indexedStudents.set(current.size());
+            Queue<Mark> replay = pendingReplay;
+            if (replay != null) {
+                replay.addAll(marks);
+            }
+        }
+    }
+
+    private AttendanceSummaryResponse summarize(Map<Long, StudentAttendanceBitmap> index,
+                                                AttendanceJdbcRepository.RosterEntry student,
+                                                LocalDate startDate, LocalDate endDate) {
+        StudentAttendanceBitmap bitmap = index.get(student.studentId());
+        StudentAttendanceBitmap.Summary summary = bitmap != null
+                ? bitmap.summarize(startDate, endDate)
+                : StudentAttendanceBitmap.Summary.EMPTY;
+        long total = summary.totalDays();
+
+        return AttendanceSummaryResponse.builder()
+                .studentId(student.studentId())
+                .studentNumber(student.studentNumber())
+                .studentName(student.fullName())
+                .startDate(startDate)
+                .endDate(endDate)
+                .totalDays(total)
+                .presentDays(summary.presentDays())
+                .absentDays(summary.absentDays())
+                .lateDays(summary.lateDays())
+                .excusedDays(summary.excusedDays())
+                .attendancePercentage(total == 0 ? null
+                        : BigDecimal.valueOf(summary.presentDays() + summary.lateDays())
+                                .multiply(HUNDRED)
+                                .divide(BigDecimal.valueOf(total), 2, RoundingMode.HALF_UP))
+                .currentAbsenceStreak(summary.currentAbsenceStreak())
+                .longestPresentStreak(summary.longestPresentStreak())
+                .lastMarkedDate(summary.lastMarkedDate())
+                .build();
+    }
+
+    private static void validateRange(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new BadRequestException("Start date must not be after end date");
+        }
+    }
+
+    // The index only moves once the marks are durable; rolled-back writes never touch it
+    private void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    private record Mark(long studentId, LocalDate date, Attendance.AttendanceStatus status) {
+    }
+}
@@ -19,7 +19,9 @@ import com.eduflow.repository.user.RoleRepository;
 import com.eduflow.repository.user.UserRepository;
 import com.eduflow.security.jwt.JwtTokenProvider;
 import com.eduflow.service.AuthService;
+import com.eduflow.service.DashboardStatsService;
 import com.eduflow.service.EmailService;
+import com.eduflow.service.StudentIdAllocator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -48,6 +50,8 @@ public class AuthServiceImpl implements AuthService {
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider tokenProvider;
     private final EmailService emailService;
+    private final DashboardStatsService dashboardStatsService;
+    private final StudentIdAllocator studentIdAllocator;
 
     @Override
     @Transactional
@@ -281,10 +285,11 @@ public class AuthServiceImpl implements AuthService {
                         .dateOfJoining(LocalDate.now())
                         .build();
                 teacherRepository.save(teacher);
+                dashboardStatsService.recordTeacherCreated();
                 log.info("Teacher profile created for user: {} with employeeId: {}", user.getEmail(), employeeId);
             }
             case STUDENT -> {
-                String studentId = generateStudentId();
+                String studentId = studentIdAllocator.nextStudentId();
                 Student student = Student.builder()
                         .studentId(studentId)
                         .user(user)
@@ -292,6 +297,7 @@ public class AuthServiceImpl implements AuthService {
                         .status(Student.StudentStatus.ACTIVE)
                         .build();
                 studentRepository.save(student);
+                dashboardStatsService.recordStudentCreated();
                 log.info("Student profile created for user: {} with studentId: {}", user.getEmail(), studentId);
             }
             case PARENT -> {
@@ -339,12 +345,4 @@ public class AuthServiceImpl implements AuthService {
         int nextNum = (maxNum != null ? maxNum : 0) + 1;
         return prefix + String.format("%04d", nextNum);
     }
-
-    private String generateStudentId() {
-        String year = String.valueOf(LocalDate.now().getYear());
-        String prefix = "STU" + year;
-        Integer maxNum = studentRepository.findMaxStudentIdNumber(prefix);
-        int nextNum = (maxNum != null ? maxNum : 0) + 1;
-        return prefix + String.format("%04d", nextNum);
-    }
 }
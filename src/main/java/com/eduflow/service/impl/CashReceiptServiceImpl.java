@@ -0,0 +1,243 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.request.BulkCashReceiptRequest;
+import com.eduflow.dto.response.BulkCashReceiptResponse;
+import com.eduflow.entity.finance.FeeCategory;
+import com.eduflow.entity.finance.Payment;
+import com.eduflow.entity.finance.StudentFeeAssignment;
+import com.eduflow.exception.BadRequestException;
+import com.eduflow.repository.finance.CashReceiptJdbcRepository;
+import com.eduflow.repository.finance.CashReceiptJdbcRepository.AssignmentCredit;
+import com.eduflow.repository.finance.CashReceiptJdbcRepository.LedgerPayment;
+import com.eduflow.repository.finance.CashReceiptJdbcRepository.NewCashPayment;
+import com.eduflow.repository.finance.CashReceiptJdbcRepository.ReceiptAssignment;
+import com.eduflow.service.CashReceiptService;
+import com.eduflow.service.DashboardStatsService;
+import com.eduflow.service.PaymentPlanService;
+import com.eduflow.service.PaymentRollupService;
+import com.eduflow.service.StudentFeeLedgerService;
+import com.eduflow.service.payment.TransactionRefGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Posts a bursar's batch of cash receipts in one transaction. Every assignment in the batch is
+ * read and locked with a single query, lines are validated in memory against running balances
+ * (several lines may pay the same fee) and against receipt references posted before, and the
+ * accepted lines are written as one JDBC batch of payments and one JDBC batch of amount_paid
+ * increments. Ledger changes are combined per student into one more batch, and rollup and plan
+ * updates are applied once per category or student rather than once per receipt.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CashReceiptServiceImpl implements CashReceiptService {
+
+    private final CashReceiptJdbcRepository cashReceiptJdbcRepository;
+    private final TransactionRefGenerator transactionRefGenerator;
+    private final StudentFeeLedgerService ledgerService;
+    private final DashboardStatsService dashboardStatsService;
+    private final PaymentRollupService paymentRollupService;
+    private final PaymentPlanService paymentPlanService;
+
+    @Override
+    @Transactional
+    public BulkCashReceiptResponse postReceipts(BulkCashReceiptRequest request) {
+        long start = System.nanoTime();
+        List<BulkCashReceiptRequest.Line> lines = request.getLines();
+
+        Set<Long> assignmentIds = lines.stream()
+                .map(BulkCashReceiptRequest.Line::getStudentFeeAssignmentId)
+                .collect(Collectors.toCollection(TreeSet::new));
+        Map<Long, ReceiptAssignment> assignments = cashReceiptJdbcRepository.lockAssignments(assignmentIds).stream()
+                .collect(Collectors.toMap(ReceiptAssignment::assignmentId, Function.identity()));
+
+        // A bursar resubmitting yesterday's sheet must not post it twice
+        Set<String> postedReferences = new HashSet<>(cashReceiptJdbcRepository.findPostedReferences(
+                lines.stream().map(line -> line.getReference().trim()).collect(Collectors.toSet())));
+
+        List<BulkCashReceiptResponse.LineResult> results = new ArrayList<>(lines.size());
+        List<NewCashPayment> payments = new ArrayList<>(lines.size());
+        Map<Long, BigDecimal> credits = new LinkedHashMap<>();
+        Set<String> references = new HashSet<>();
+
+        for (int i = 0; i < lines.size(); i++) {
+            BulkCashReceiptRequest.Line line = lines.get(i);
+            String reference = line.getReference().trim();
+            ReceiptAssignment assignment = assignments.get(line.getStudentFeeAssignmentId());
+            BigDecimal balance = assignment == null ? BigDecimal.ZERO : assignment.netAmount()
+                    .subtract(assignment.amountPaid())
+                    .subtract(credits.getOrDefault(assignment.assignmentId(), BigDecimal.ZERO));
+
+            BulkCashReceiptResponse.LineResult result = BulkCashReceiptResponse.LineResult.builder()
+                    .lineNumber(i + 1)
+                    .studentFeeAssignmentId(line.getStudentFeeAssignmentId())
+                    .reference(reference)
+                    .amount(line.getAmount())
+                    .build();
+            results.add(result);
+
+            String rejection = null;
+            if (postedReferences.contains(reference)) {
+                rejection = "Receipt reference has already been posted";
+            } else if (!references.add(reference)) {
+                rejection = "Duplicate receipt reference in this batch";
+            } else if (assignment == null) {
+                rejection = "Fee assignment not found";
+            } else if (assignment.status() == StudentFeeAssignment.FeeStatus.WAIVED) {
+                rejection = "Fee has been waived";
+            } else if (balance.signum() <= 0) {
+                rejection = "Fee is already fully paid";
+            } else if (line.getAmount().compareTo(balance) > 0) {
+                rejection = "Payment amount exceeds remaining balance of " + balance;
+            }
+
+            if (rejection != null) {
+                result.setStatus(BulkCashReceiptResponse.LineStatus.REJECTED);
+                result.setMessage(rejection);
+                if (assignment != null) {
+                    result.setRemainingBalance(balance.max(BigDecimal.ZERO));
+                }
+                continue;
+            }
+
+            String transactionRef = transactionRefGenerator.nextTransactionRef();
+            credits.merge(assignment.assignmentId(), line.getAmount(), BigDecimal::add);
+            payments.add(new NewCashPayment(assignment.assignmentId(), line.getAmount(), transactionRef,
+                    line.getPayerName(), receiptNotes(reference, line.getNotes()), reference));
+            result.setStatus(BulkCashReceiptResponse.LineStatus.POSTED);
+            result.setTransactionRef(transactionRef);
+            result.setRemainingBalance(balance.subtract(line.getAmount()));
+        }
+
+        int rejected = lines.size() - payments.size();
+        if (request.isAllOrNothing() && rejected > 0) {
+            for (BulkCashReceiptResponse.LineResult result : results) {
+                if (result.getStatus() == BulkCashReceiptResponse.LineStatus.POSTED) {
+                    result.setStatus(BulkCashReceiptResponse.LineStatus.SKIPPED);
+                    result.setTransactionRef(null);
+                    result.setRemainingBalance(null);
+                    result.setMessage("Not posted because other lines were rejected");
+                }
+            }
+            payments.clear();
+            credits.clear();
+        }
+
+        BigDecimal total = post(payments, credits, assignments);
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Cash receipts posted: {} of {} lines, total {} in {} ms",
+                payments.size(), lines.size(), total, elapsedMillis);
+
+        return BulkCashReceiptResponse.builder()
+                .linesReceived(lines.size())
+                .linesPosted(payments.size())
+                .linesRejected(rejected)
+                .totalPosted(total)
+                .elapsedMillis(elapsedMillis)
+                .results(results)
+                .build();
+    }
+
+    private BigDecimal post(List<NewCashPayment> payments, Map<Long, BigDecimal> credits,
+                            Map<Long, ReceiptAssignment> assignments) {
+        if (payments.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+
+        LocalDateTime paidAt = LocalDateTime.now();
+        try {
+            cashReceiptJdbcRepository.insertPayments(payments, paidAt);
+        } catch (DuplicateKeyException e) {
+            // Two batches carrying the same new reference raced past the check; the unique key stops the second
+            throw new BadRequestException("A receipt reference in this batch was posted by another request " +
+                    "at the same time. Submit the batch again to see which lines are affected.");
+        }
+
+        List<AssignmentCredit> assignmentCredits = new ArrayList<>(credits.size());
+        Map<StudentYear, LedgerChange> ledgerChanges = new LinkedHashMap<>();
+        Map<FeeCategory.CategoryType, BigDecimal> byCategory = new EnumMap<>(FeeCategory.CategoryType.class);
+        Map<FeeCategory.CategoryType, Long> countByCategory = new EnumMap<>(FeeCategory.CategoryType.class);
+        BigDecimal total = BigDecimal.ZERO;
+
+        for (Map.Entry<Long, BigDecimal> entry : credits.entrySet()) {
+            ReceiptAssignment assignment = assignments.get(entry.getKey());
+            BigDecimal credit = entry.getValue();
+            boolean paidOff = assignment.amountPaid().add(credit).compareTo(assignment.netAmount()) >= 0;
+            assignmentCredits.add(new AssignmentCredit(assignment.assignmentId(), credit,
+                    paidOff ? StudentFeeAssignment.FeeStatus.PAID : StudentFeeAssignment.FeeStatus.PARTIAL));
+
+            // Before the credit every accepted assignment had a balance, so it counted as pending
+            LedgerChange change = ledgerChanges.computeIfAbsent(
+                    new StudentYear(assignment.studentId(), assignment.academicYear()),
+                    key -> new LedgerChange(assignment.hasOpenPlan()));
+            change.paid = change.paid.add(credit);
+            change.pendingDelta -= paidOff ? 1 : 0;
+            change.overdueDelta -= assignment.status() == StudentFeeAssignment.FeeStatus.OVERDUE ? 1 : 0;
+            total = total.add(credit);
+        }
+        cashReceiptJdbcRepository.creditAssignments(assignmentCredits);
+
+        for (NewCashPayment payment : payments) {
+            FeeCategory.CategoryType category = assignments.get(payment.assignmentId()).category();
+            byCategory.merge(category, payment.amount(), BigDecimal::add);
+            countByCategory.merge(category, 1L, Long::sum);
+            dashboardStatsService.recordPaymentCreated(Payment.PaymentStatus.COMPLETED, payment.amount());
+        }
+        dashboardStatsService.recordOutstandingChange(total.negate());
+
+        List<LedgerPayment> ledgerPayments = new ArrayList<>(ledgerChanges.size());
+        ledgerChanges.forEach((key, change) -> {
+            ledgerPayments.add(new LedgerPayment(key.studentId(), key.academicYear(), change.paid,
+                    change.pendingDelta, change.overdueDelta));
+            if (change.hasOpenPlan) {
+                paymentPlanService.allocatePayment(key.studentId(), key.academicYear(), change.paid,
+                        paidAt.toLocalDate());
+            }
+        });
+        // Ledger rows normally exist already; the rare missing one is created through the ledger service
+        for (LedgerPayment missing : cashReceiptJdbcRepository.applyLedgerPayments(ledgerPayments)) {
+            ledgerService.recordPayments(missing.studentId(), missing.academicYear(), missing.paid(),
+                    missing.pendingDelta(), missing.overdueDelta());
+        }
+        byCategory.forEach((category, amount) -> paymentRollupService.recordCompleted(
+                paidAt.toLocalDate(), Payment.PaymentMethod.CASH, category, amount, countByCategory.get(category)));
+
+        return total;
+    }
+
+    private static String receiptNotes(String reference, String notes) {
+        return notes == null || notes.isBlank() ? "Receipt " + reference : "Receipt " + reference + " - " + notes;
+    }
+
+    private record StudentYear(long studentId, String academicYear) {}
+
+    private static final class LedgerChange {
+        private final boolean hasOpenPlan;
+        private BigDecimal paid = BigDecimal.ZERO;
+        private int pendingDelta;
+        private int overdueDelta;
+
+        private LedgerChange(boolean hasOpenPlan) {
+            this.hasOpenPlan = hasOpenPlan;
+        }
+    }
+}
@@ -16,6 +16,7 @@ import com.eduflow.repository.academic.StudentRepository;
 import com.eduflow.repository.academic.SubjectRepository;
 import com.eduflow.repository.academic.TeacherRepository;
 import com.eduflow.service.ClassService;
+import com.eduflow.service.DashboardStatsService;
 import com.eduflow.service.StudentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -39,6 +40,7 @@ public class ClassServiceImpl implements ClassService {
     private final SubjectRepository subjectRepository;
     private final StudentRepository studentRepository;
     private final StudentService studentService;
+    private final DashboardStatsService dashboardStatsService;
 
     @Override
     @Transactional
@@ -70,6 +72,7 @@ public class ClassServiceImpl implements ClassService {
         }
 
         schoolClass = classRepository.save(schoolClass);
+        dashboardStatsService.recordClassCreated();
         log.info("Class created: {} for academic year {}", schoolClass.getName(), schoolClass.getAcademicYear());
 
         return mapToResponse(schoolClass);
@@ -0,0 +1,256 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.response.DashboardStatsResponse;
+import com.eduflow.entity.finance.Payment;
+import com.eduflow.repository.academic.SchoolClassRepository;
+import com.eduflow.repository.academic.StudentRepository;
+import com.eduflow.repository.academic.TeacherRepository;
+import com.eduflow.repository.finance.PaymentRepository;
+import com.eduflow.repository.finance.StudentFeeAssignmentRepository;
+import com.eduflow.service.DashboardStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Serves admin dashboard statistics from in-memory counters that the write paths adjust
+ * after their transaction commits. A scheduled reconciler recomputes the exact values from
+ * the database, which also picks up writes made by other nodes.
+ * <p>
+ * Writers hold the read side of {@code reconcileLock} from just before their commit until their
+ * counters are updated. The reconciler takes the write side only twice, briefly: to fix the
+ * point its repeatable-read snapshot starts from, and to swap the totals in. Commits in between
+ * are invisible to the snapshot, so their counter updates are kept and replayed onto it.
+ */
+@Slf4j
+@Service
+public class DashboardStatsServiceImpl implements DashboardStatsService {
+
+    private final StudentRepository studentRepository;
+    private final TeacherRepository teacherRepository;
+    private final SchoolClassRepository classRepository;
+    private final PaymentRepository paymentRepository;
+    private final StudentFeeAssignmentRepository feeAssignmentRepository;
+    private final TransactionTemplate snapshotRead;
+    private final ReentrantReadWriteLock reconcileLock = new ReentrantReadWriteLock();
+    // Non-null while a reconcile reads; updates committed meanwhile are replayed onto its totals
+    private volatile Queue<Runnable> pendingReplay;
+
+    private final AtomicLong totalStudents = new AtomicLong();
+    private final AtomicLong totalTeachers = new AtomicLong();
+    private final AtomicLong totalClasses = new AtomicLong();
+    private final AtomicLong totalPayments = new AtomicLong();
+    private final AtomicLong pendingPayments = new AtomicLong();
+    private final AtomicReference<BigDecimal> feesCollected = new AtomicReference<>(BigDecimal.ZERO);
+    private final AtomicReference<BigDecimal> outstandingFees = new AtomicReference<>(BigDecimal.ZERO);
+
+    private volatile LocalDateTime lastUpdatedAt;
+    private volatile LocalDateTime lastReconciledAt;
+
+    public DashboardStatsServiceImpl(StudentRepository studentRepository,
+                                     TeacherRepository teacherRepository,
+                                     SchoolClassRepository classRepository,
+                                     PaymentRepository paymentRepository,
+                                     StudentFeeAssignmentRepository feeAssignmentRepository,
+                                     PlatformTransactionManager transactionManager) {
+        this.studentRepository = studentRepository;
+        this.teacherRepository = teacherRepository;
+        this.classRepository = classRepository;
+        this.paymentRepository = paymentRepository;
+        this.feeAssignmentRepository = feeAssignmentRepository;
+        this.snapshotRead = new TransactionTemplate(transactionManager);
+        this.snapshotRead.setReadOnly(true);
+        this.snapshotRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @Override
+    public DashboardStatsResponse getDashboardStats() {
+        if (lastReconciledAt == null) {
+            return reconcile();
+        }
+        return snapshot();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${dashboard.stats.reconcile-interval:300000}")
+    public synchronized DashboardStatsResponse reconcile() {
+        Queue<Runnable> replay = new ConcurrentLinkedQueue<>();
+        Totals totals;
+        try {
+            // Its own transaction rather than @Transactional, since getDashboardStats() calls it directly
+            totals = snapshotRead.execute(status -> {
+                // No writer is between its commit and its counter update here, so every commit
+                // the snapshot can see has been counted and every later one lands in the replay
+                reconcileLock.writeLock().lock();
+                try {
+                    feeAssignmentRepository.pinDashboardSnapshot();
+                    pendingReplay = replay;
+                } finally {
+                    reconcileLock.writeLock().unlock();
+                }
+                return readTotals();
+            });
+        } catch (RuntimeException e) {
+            pendingReplay = null;
+            throw e;
+        }
+
+        reconcileLock.writeLock().lock();
+        try {
+            pendingReplay = null;
+            totalStudents.set(totals.students());
+            totalTeachers.set(totals.teachers());
+            totalClasses.set(totals.classes());
+            totalPayments.set(totals.payments());
+            pendingPayments.set(totals.pendingPayments());
+            feesCollected.set(totals.collected());
+            outstandingFees.set(totals.outstanding());
+            replay.forEach(Runnable::run);
+
+            lastReconciledAt = LocalDateTime.now();
+            lastUpdatedAt = lastReconciledAt;
+            log.debug("Dashboard statistics reconciled, {} updates replayed", replay.size());
+            return snapshot();
+        } finally {
+            reconcileLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void recordStudentCreated() {
+        afterCommit(() -> totalStudents.incrementAndGet());
+    }
+
+    @Override
+    public void recordTeacherCreated() {
+        afterCommit(() -> totalTeachers.incrementAndGet());
+    }
+
+    @Override
+    public void recordClassCreated() {
+        afterCommit(() -> totalClasses.incrementAndGet());
+    }
+
+    @Override
+    public void recordPaymentCreated(Payment.PaymentStatus status, BigDecimal amount) {
+        afterCommit(() -> {
+            totalPayments.incrementAndGet();
+            applyStatus(status, amount, 1);
+        });
+    }
+
+    @Override
+    public void recordPaymentStatusChange(Payment.PaymentStatus from, Payment.PaymentStatus to, BigDecimal amount) {
+        if (from == to) {
+            return;
+        }
+        afterCommit(() -> {
+            applyStatus(from, amount, -1);
+            applyStatus(to, amount, 1);
+        });
+    }
+
+    @Override
+    public void recordOutstandingChange(BigDecimal delta) {
+        if (delta.signum() == 0) {
+            return;
+        }
+        afterCommit(() -> outstandingFees.accumulateAndGet(delta, BigDecimal::add));
+    }
+
+    private Totals readTotals() {
+        BigDecimal collected = paymentRepository.calculateTotalCollected();
+        BigDecimal outstanding = feeAssignmentRepository.calculateTotalOutstandingFees();
+        return new Totals(
+                studentRepository.count(),
+                teacherRepository.count(),
+                classRepository.count(),
+                paymentRepository.count(),
+                paymentRepository.countPendingPayments(),
+                collected != null ? collected : BigDecimal.ZERO,
+                outstanding != null ? outstanding : BigDecimal.ZERO);
+    }
+
+    private void applyStatus(Payment.PaymentStatus status, BigDecimal amount, int sign) {
+        if (status == Payment.PaymentStatus.PENDING) {
+            pendingPayments.addAndGet(sign);
+        } else if (status == Payment.PaymentStatus.COMPLETED) {
+            feesCollected.accumulateAndGet(sign > 0 ? amount : amount.negate(), BigDecimal::add);
+        }
+    }
+
+    // Counters only move once the change is durable; rolled-back writes never touch them
+    private void afterCommit(Runnable update) {
+        Runnable tracked = () -> {
+            update.run();
+            Queue<Runnable> replay = pendingReplay;
+            if (replay != null) {
+                replay.add(update);
+            }
+            lastUpdatedAt = LocalDateTime.now();
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private boolean locked;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    reconcileLock.readLock().lock();
+                    locked = true;
+                }
+
+                @Override
+                public void afterCommit() {
+                    tracked.run();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (locked) {
+                        locked = false;
+                        reconcileLock.readLock().unlock();
+                    }
+                }
+            });
+        } else {
+            reconcileLock.readLock().lock();
+            try {
+                tracked.run();
+            } finally {
+                reconcileLock.readLock().unlock();
+            }
+        }
+    }
+
+    private DashboardStatsResponse snapshot() {
+        return DashboardStatsResponse.builder()
+                .totalStudents(totalStudents.get())
+                .totalTeachers(totalTeachers.get())
+                .totalClasses(totalClasses.get())
+                .feesCollected(feesCollected.get())
+                .outstandingFees(outstandingFees.get())
+                .totalPayments(totalPayments.get())
+                .pendingPayments(pendingPayments.get())
+                .lastUpdatedAt(lastUpdatedAt)
+                .lastReconciledAt(lastReconciledAt)
+                .build();
+    }
+
+    private record Totals(long students, long teachers, long classes, long payments, long pendingPayments,
+                          BigDecimal collected, BigDecimal outstanding) {
+    }
+}
@@ -1,7 +1,10 @@
 package com.eduflow.service.impl;
 
 import com.eduflow.dto.request.AssignFeeRequest;
+import com.eduflow.dto.request.BulkFeeAdjustmentRequest;
 import com.eduflow.dto.request.CreateFeeRequest;
+import com.eduflow.dto.response.BulkFeeAdjustmentResponse;
+import com.eduflow.dto.response.BulkFeeAssignmentResponse;
 import com.eduflow.dto.response.FeeResponse;
 import com.eduflow.dto.response.StudentFeeResponse;
 import com.eduflow.entity.academic.SchoolClass;
@@ -10,6 +13,7 @@ import com.eduflow.entity.finance.Fee;
 import com.eduflow.entity.finance.FeeCategory;
 import com.eduflow.entity.finance.Payment;
 import com.eduflow.entity.finance.StudentFeeAssignment;
+import com.eduflow.entity.finance.StudentFeeLedger;
 import com.eduflow.exception.BadRequestException;
 import com.eduflow.exception.ResourceNotFoundException;
 import com.eduflow.repository.academic.SchoolClassRepository;
@@ -17,18 +21,28 @@ import com.eduflow.repository.academic.StudentRepository;
 import com.eduflow.repository.finance.FeeCategoryRepository;
 import com.eduflow.repository.finance.FeeRepository;
 import com.eduflow.repository.finance.PaymentRepository;
+import com.eduflow.repository.finance.StudentFeeAssignmentJdbcRepository;
 import com.eduflow.repository.finance.StudentFeeAssignmentRepository;
+import com.eduflow.service.DashboardStatsService;
 import com.eduflow.service.FeeService;
+import com.eduflow.service.StudentFeeLedgerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -42,6 +56,14 @@ public class FeeServiceImpl implements FeeService {
     private final StudentRepository studentRepository;
     private final SchoolClassRepository classRepository;
     private final PaymentRepository paymentRepository;
+    private final StudentFeeAssignmentJdbcRepository assignmentJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StudentFeeLedgerService ledgerService;
+    private final DashboardStatsService dashboardStatsService;
+
+    private static final int BULK_ASSIGNMENT_BATCH_SIZE = 1000;
+    private static final int BULK_ASSIGNMENT_MAX_ATTEMPTS = 3;
+    private static final int BULK_ADJUSTMENT_BATCH_SIZE = 1000;
 
     @Override
     @Transactional(readOnly = true)
@@ -197,7 +219,10 @@ public class FeeServiceImpl implements FeeService {
                         .status(StudentFeeAssignment.FeeStatus.PENDING)
                         .build();
 
-                assignments.add(assignmentRepository.save(assignment));
+                assignment = assignmentRepository.save(assignment);
+                ledgerService.recordChange(StudentFeeLedger.Contribution.NONE, assignment);
+                dashboardStatsService.recordOutstandingChange(StudentFeeLedger.Contribution.of(assignment).outstanding());
+                assignments.add(assignment);
             }
         }
 
@@ -208,6 +233,113 @@ public class FeeServiceImpl implements FeeService {
                 .collect(Collectors.toList());
     }
 
+    // Not @Transactional: each batch commits on its own so progress is durable and a
+    // re-run resumes where an interrupted one stopped
+    @Override
+    public BulkFeeAssignmentResponse bulkAssignFeesToStudents(AssignFeeRequest request) {
+        long startTime = System.currentTimeMillis();
+
+        Fee fee = feeRepository.findById(request.getFeeId())
+                .orElseThrow(() -> new ResourceNotFoundException("Fee", "id", request.getFeeId()));
+
+        List<Long> studentIds = request.getStudentIds() != null
+                ? request.getStudentIds().stream().sorted().toList()
+                : List.of();
+        Set<Long> classIds = request.getClassIds() != null ? request.getClassIds() : Set.of();
+
+        for (int from = 0; from < studentIds.size(); from += BULK_ASSIGNMENT_BATCH_SIZE) {
+            List<Long> batch = studentIds.subList(from, Math.min(from + BULK_ASSIGNMENT_BATCH_SIZE, studentIds.size()));
+            Set<Long> missing = new HashSet<>(batch);
+            studentRepository.findExistingIds(batch).forEach(missing::remove);
+            if (!missing.isEmpty()) {
+                throw new ResourceNotFoundException("Student", "id", missing.iterator().next());
+            }
+        }
+
+        if (studentIds.isEmpty() && (classIds.isEmpty() || studentRepository.countByCurrentClassIdIn(classIds) == 0)) {
+            throw new BadRequestException("No students specified for fee assignment");
+        }
+
+        BigDecimal discountAmount = request.getDiscountAmount() != null ? request.getDiscountAmount() : BigDecimal.ZERO;
+        BulkFeeAssignmentResponse progress = BulkFeeAssignmentResponse.builder()
+                .feeId(fee.getId())
+                .feeName(fee.getName())
+                .academicYear(fee.getAcademicYear())
+                .build();
+
+        for (int from = 0; from < studentIds.size(); from += BULK_ASSIGNMENT_BATCH_SIZE) {
+            List<Long> batch = studentIds.subList(from, Math.min(from + BULK_ASSIGNMENT_BATCH_SIZE, studentIds.size()));
+            BulkAssignmentBatch result = assignBatch(
+                    () -> studentRepository.findIdsWithoutFeeAssignment(batch, fee.getId(), fee.getAcademicYear()),
+                    fee, request, discountAmount);
+            recordBulkProgress(progress, result, startTime);
+        }
+
+        if (!classIds.isEmpty()) {
+            long afterId = 0L;
+            while (true) {
+                long cursor = afterId;
+                BulkAssignmentBatch result = assignBatch(
+                        () -> studentRepository.findIdsInClassesWithoutFeeAssignment(
+                                classIds, fee.getId(), fee.getAcademicYear(), cursor,
+                                PageRequest.of(0, BULK_ASSIGNMENT_BATCH_SIZE)),
+                        fee, request, discountAmount);
+                if (result.studentIds().isEmpty()) {
+                    break;
+                }
+                recordBulkProgress(progress, result, startTime);
+                afterId = result.studentIds().get(result.studentIds().size() - 1);
+            }
+        }
+
+        progress.setCompleted(true);
+        progress.setElapsedMillis(System.currentTimeMillis() - startTime);
+
+        log.info("Fee {} bulk assigned to {} students in {} batches ({} ms)",
+                fee.getName(), progress.getAssignmentsCreated(), progress.getBatchesProcessed(),
+                progress.getElapsedMillis());
+
+        return progress;
+    }
+
+    private BulkAssignmentBatch assignBatch(Supplier<List<Long>> unassignedStudentIds, Fee fee,
+                                            AssignFeeRequest request, BigDecimal discountAmount) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    List<Long> ids = unassignedStudentIds.get();
+                    List<Long> created = assignmentJdbcRepository.insertPendingAssignments(
+                            ids, fee, request.getDueDate(), discountAmount, request.getDiscountReason());
+                    BigDecimal netAmount = fee.getAmount().subtract(discountAmount);
+                    ledgerService.recordBulkAssignment(created, fee.getAcademicYear(), netAmount);
+                    if (netAmount.signum() > 0) {
+                        dashboardStatsService.recordOutstandingChange(
+                                netAmount.multiply(BigDecimal.valueOf(created.size())));
+                    }
+                    return new BulkAssignmentBatch(ids, created.size());
+                });
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent assignment slipped in between the anti-join and the insert;
+                // re-running the batch re-evaluates which students are still missing
+                if (attempt >= BULK_ASSIGNMENT_MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("Concurrent assignment of fee {} detected, retrying batch (attempt {})", fee.getId(), attempt);
+            }
+        }
+    }
+
+    private void recordBulkProgress(BulkFeeAssignmentResponse progress, BulkAssignmentBatch batch, long startTime) {
+        progress.setAssignmentsCreated(progress.getAssignmentsCreated() + batch.created());
+        progress.setBatchesProcessed(progress.getBatchesProcessed() + 1);
+        progress.setElapsedMillis(System.currentTimeMillis() - startTime);
+
+        log.debug("Bulk fee assignment progress for fee {}: {} created after {} batches",
+                progress.getFeeId(), progress.getAssignmentsCreated(), progress.getBatchesProcessed());
+    }
+
+    private record BulkAssignmentBatch(List<Long> studentIds, int created) {}
+
     @Override
     @Transactional(readOnly = true)
     public List<StudentFeeResponse> getStudentFees(Long studentId) {
@@ -234,11 +366,15 @@ public class FeeServiceImpl implements FeeService {
             throw new BadRequestException("Discount cannot exceed fee amount");
         }
 
+        StudentFeeLedger.Contribution before = StudentFeeLedger.Contribution.of(assignment);
         assignment.setDiscountAmount(discountAmount);
         assignment.setDiscountReason(reason);
         assignment.updateStatus();
 
         assignment = assignmentRepository.save(assignment);
+        ledgerService.recordChange(before, assignment);
+        dashboardStatsService.recordOutstandingChange(
+                StudentFeeLedger.Contribution.of(assignment).outstanding().subtract(before.outstanding()));
         log.info("Discount applied to fee assignment: {} - {}", assignmentId, discountAmount);
 
         return mapToStudentFeeResponse(assignment);
@@ -250,16 +386,123 @@ public class FeeServiceImpl implements FeeService {
         StudentFeeAssignment assignment = assignmentRepository.findById(assignmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Fee Assignment", "id", assignmentId));
 
+        StudentFeeLedger.Contribution before = StudentFeeLedger.Contribution.of(assignment);
         assignment.setStatus(StudentFeeAssignment.FeeStatus.WAIVED);
         assignment.setDiscountAmount(assignment.getAmount());
         assignment.setDiscountReason(reason);
 
         assignment = assignmentRepository.save(assignment);
+        ledgerService.recordChange(before, assignment);
+        dashboardStatsService.recordOutstandingChange(
+                StudentFeeLedger.Contribution.of(assignment).outstanding().subtract(before.outstanding()));
         log.info("Fee waived: {} - {}", assignmentId, reason);
 
         return mapToStudentFeeResponse(assignment);
     }
 
+    @Override
+    public BulkFeeAdjustmentResponse bulkApplyDiscount(BulkFeeAdjustmentRequest request) {
+        if ((request.getDiscountAmount() == null) == (request.getDiscountPercentage() == null)) {
+            throw new BadRequestException("Provide either a discount amount or a discount percentage");
+        }
+        StudentFeeAssignmentJdbcRepository.AdjustmentTarget target = toAdjustmentTarget(request);
+        StudentFeeAssignmentJdbcRepository.Discount discount = new StudentFeeAssignmentJdbcRepository.Discount(
+                request.getDiscountAmount(), request.getDiscountPercentage(), request.getReason());
+        LocalDate today = LocalDate.now();
+
+        return bulkAdjust(BulkFeeAdjustmentResponse.Operation.DISCOUNT,
+                afterId -> assignmentJdbcRepository.findDiscountCandidates(
+                        target, discount, afterId, BULK_ADJUSTMENT_BATCH_SIZE),
+                assignmentIds -> assignmentJdbcRepository.applyDiscount(discount, assignmentIds, today));
+    }
+
+    @Override
+    public BulkFeeAdjustmentResponse bulkWaiveFees(BulkFeeAdjustmentRequest request) {
+        StudentFeeAssignmentJdbcRepository.AdjustmentTarget target = toAdjustmentTarget(request);
+
+        return bulkAdjust(BulkFeeAdjustmentResponse.Operation.WAIVER,
+                afterId -> assignmentJdbcRepository.findWaiverCandidates(target, afterId, BULK_ADJUSTMENT_BATCH_SIZE),
+                assignmentIds -> assignmentJdbcRepository.waive(request.getReason(), assignmentIds));
+    }
+
+    // Walks the targeted assignments in id order; each chunk is selected with a row lock, updated by
+    // id and its students' ledgers rebuilt in one transaction that commits on its own. Rows already
+    // adjusted are not candidates, so a re-run or a retry after a failure only touches what is left.
+    private BulkFeeAdjustmentResponse bulkAdjust(
+            BulkFeeAdjustmentResponse.Operation operation,
+            LongFunction<List<StudentFeeAssignmentJdbcRepository.AdjustmentCandidate>> candidates,
+            ToIntFunction<List<Long>> update) {
+        long startTime = System.currentTimeMillis();
+        Set<Long> studentsAffected = new HashSet<>();
+        BigDecimal outstandingChange = BigDecimal.ZERO;
+        long updated = 0;
+        int batches = 0;
+        long afterId = 0;
+
+        while (true) {
+            long fromId = afterId;
+            BulkAdjustmentBatch result = transactionTemplate.execute(status -> {
+                List<StudentFeeAssignmentJdbcRepository.AdjustmentCandidate> chunk = candidates.apply(fromId);
+                if (chunk.isEmpty()) {
+                    return null;
+                }
+
+                List<Long> assignmentIds = chunk.stream()
+                        .map(StudentFeeAssignmentJdbcRepository.AdjustmentCandidate::assignmentId)
+                        .toList();
+                List<Long> studentIds = chunk.stream()
+                        .map(StudentFeeAssignmentJdbcRepository.AdjustmentCandidate::studentId)
+                        .distinct()
+                        .toList();
+
+                BigDecimal outstandingBefore = assignmentJdbcRepository.sumOutstanding(assignmentIds);
+                int count = update.applyAsInt(assignmentIds);
+                BigDecimal delta = assignmentJdbcRepository.sumOutstanding(assignmentIds).subtract(outstandingBefore);
+                ledgerService.rebuildLedgers(studentIds);
+                dashboardStatsService.recordOutstandingChange(delta);
+                return new BulkAdjustmentBatch(assignmentIds.get(assignmentIds.size() - 1), studentIds, count, delta);
+            });
+            if (result == null) {
+                break;
+            }
+
+            updated += result.updated();
+            outstandingChange = outstandingChange.add(result.outstandingChange());
+            studentsAffected.addAll(result.studentIds());
+            batches++;
+            afterId = result.lastId();
+        }
+
+        long elapsedMillis = System.currentTimeMillis() - startTime;
+        log.info("Bulk {} updated {} fee assignments for {} students in {} batches ({} ms)",
+                operation.name().toLowerCase(), updated, studentsAffected.size(), batches, elapsedMillis);
+
+        return BulkFeeAdjustmentResponse.builder()
+                .operation(operation)
+                .assignmentsUpdated(updated)
+                .studentsAffected(studentsAffected.size())
+                .outstandingChange(outstandingChange)
+                .batchesProcessed(batches)
+                .elapsedMillis(elapsedMillis)
+                .build();
+    }
+
+    private StudentFeeAssignmentJdbcRepository.AdjustmentTarget toAdjustmentTarget(BulkFeeAdjustmentRequest request) {
+        if (isEmpty(request.getAssignmentIds()) && isEmpty(request.getFeeIds())
+                && isEmpty(request.getClassIds()) && isEmpty(request.getGrades())) {
+            throw new BadRequestException("Specify assignments, fees, classes or grades to adjust");
+        }
+        return new StudentFeeAssignmentJdbcRepository.AdjustmentTarget(request.getAssignmentIds(),
+                request.getFeeIds(), request.getClassIds(), request.getGrades(), request.getAcademicYear());
+    }
+
+    private static boolean isEmpty(Set<?> values) {
+        return values == null || values.isEmpty();
+    }
+
+    private record BulkAdjustmentBatch(long lastId, List<Long> studentIds, int updated,
+                                       BigDecimal outstandingChange) {}
+
     @Override
     @Transactional(readOnly = true)
     public List<StudentFeeResponse> getOverdueFees() {
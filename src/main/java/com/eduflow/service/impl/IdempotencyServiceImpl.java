@@ -0,0 +1,357 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.entity.finance.IdempotencyKey;
+import com.eduflow.exception.BadRequestException;
+import com.eduflow.exception.DuplicateResourceException;
+import com.eduflow.repository.finance.IdempotencyKeyRepository;
+import com.eduflow.service.IdempotencyService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key handling for POST endpoints. Completed responses are replayed from a bounded
+ * in-memory cache, falling back to the idempotency_keys table, which also carries claims across
+ * nodes. Duplicates on this node wait on the first request's future; duplicates of a request
+ * running on another node poll its claim row. Either way they give up with 409 after the wait
+ * timeout. A failed request releases its claim, so the client can retry with the same key.
+ *
+ * <p>A claim is a lease that this node renews while the request runs, however long that takes.
+ * The actions run their own transactions (payment initiation deliberately calls the gateway
+ * between two of them), so storing the response cannot share their commit. If storing it fails,
+ * the claim is kept and renewed and the write is retried until it succeeds. Until then retries
+ * on this node replay from memory and retries elsewhere wait, and none runs the action again.
+ */
+@Slf4j
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private final IdempotencyKeyRepository keyRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate requiresNew;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Duration waitTimeout;
+    private final int cacheSize;
+    // Insertion-ordered so the eldest entry is evicted first; guarded by its own monitor
+    private final LinkedHashMap<String, CachedResponse> completed;
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    // Claims this node holds: requests still running, and finished ones whose response is not stored yet
+    private final Map<String, HeldClaim> held = new ConcurrentHashMap<>();
+    private final Counter memoryReplays;
+    private final Counter databaseReplays;
+    private final Counter executions;
+
+    public IdempotencyServiceImpl(IdempotencyKeyRepository keyRepository,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${idempotency.ttl:24h}") Duration ttl,
+                                  @Value("${idempotency.lease:60s}") Duration lease,
+                                  @Value("${idempotency.wait-timeout:10s}") Duration waitTimeout,
+                                  @Value("${idempotency.cache-size:10000}") int cacheSize) {
+        this.keyRepository = keyRepository;
+        this.objectMapper = objectMapper;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttl = ttl;
+        this.lease = lease;
+        this.waitTimeout = waitTimeout;
+        this.cacheSize = cacheSize;
+        this.completed = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > IdempotencyServiceImpl.this.cacheSize;
+            }
+        };
+        this.memoryReplays = Counter.builder("eduflow.idempotency.requests")
+                .description("Idempotent requests replayed from memory")
+                .tag("result", "replayed-memory")
+                .register(meterRegistry);
+        this.databaseReplays = Counter.builder("eduflow.idempotency.requests")
+                .description("Idempotent requests replayed from the database")
+                .tag("result", "replayed-database")
+                .register(meterRegistry);
+        this.executions = Counter.builder("eduflow.idempotency.requests")
+                .description("Idempotent requests executed for the first time")
+                .tag("result", "executed")
+                .register(meterRegistry);
+        Gauge.builder("eduflow.idempotency.cache.size", this, IdempotencyServiceImpl::cacheSize)
+                .description("Completed responses held in the idempotency cache")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public <T> T execute(String scope, String key, Object request, Class<T> responseType, Supplier<T> action) {
+        return execute(scope, key, request, objectMapper.constructType(responseType), action);
+    }
+
+    @Override
+    public <T> T execute(String scope, String key, Object request, TypeReference<T> responseType,
+                         Supplier<T> action) {
+        return execute(scope, key, request, objectMapper.constructType(responseType), action);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval:3600000}")
+    public int purgeExpired() {
+        int deleted = requiresNew.execute(status -> keyRepository.deleteExpired(LocalDateTime.now()));
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * Keeps this node's claims alive while their requests run, and retries storing responses
+     * that could not be written when their request finished.
+     */
+    @Scheduled(fixedDelayString = "${idempotency.heartbeat-interval:20000}")
+    public void renewClaims() {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(lease);
+        held.forEach((cacheKey, claim) -> {
+            if (claim.pendingBody != null && storeResponse(claim.scope, claim.key, claim.pendingBody)) {
+                held.remove(cacheKey, claim);
+                return;
+            }
+            try {
+                requiresNew.executeWithoutResult(status -> keyRepository.renew(claim.scope, claim.key, expiresAt));
+            } catch (RuntimeException e) {
+                log.warn("Could not renew idempotency claim {} {}: {}", claim.scope, claim.key, e.getMessage());
+            }
+        });
+    }
+
+    synchronized int cacheSize() {
+        return completed.size();
+    }
+
+    private <T> T execute(String scope, String key, Object request, JavaType responseType, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        key = key.trim();
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String requestHash = hash(request);
+        String cacheKey = scope + '\n' + key;
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+
+        while (true) {
+            CachedResponse cached = cachedResponse(cacheKey);
+            if (cached != null) {
+                memoryReplays.increment();
+                return replay(cached, requestHash, responseType);
+            }
+
+            CompletableFuture<Void> mine = new CompletableFuture<>();
+            CompletableFuture<Void> running = inFlight.putIfAbsent(cacheKey, mine);
+            if (running != null) {
+                // Another thread on this node holds the key; once it finishes, look again
+                awaitLocal(running, deadline);
+                continue;
+            }
+
+            try {
+                return runOnce(scope, key, cacheKey, requestHash, responseType, action, deadline);
+            } finally {
+                inFlight.remove(cacheKey, mine);
+                mine.complete(null);
+            }
+        }
+    }
+
+    private <T> T runOnce(String scope, String key, String cacheKey, String requestHash, JavaType responseType,
+                          Supplier<T> action, long deadline) {
+        while (!claim(scope, key, requestHash)) {
+            Optional<IdempotencyKey> existing = keyRepository.findByScopeAndIdempotencyKey(scope, key);
+            if (existing.isPresent()) {
+                IdempotencyKey row = existing.get();
+                if (!row.getRequestHash().equals(requestHash)) {
+                    throw mismatch();
+                }
+                if (row.getExpiresAt().isBefore(LocalDateTime.now())) {
+                    // An abandoned claim or an expired response; either way the key is free again
+                    requiresNew.executeWithoutResult(status ->
+                            keyRepository.deleteIfExpired(scope, key, LocalDateTime.now()));
+                    continue;
+                }
+                if (row.getStatus() == IdempotencyKey.KeyStatus.COMPLETED) {
+                    CachedResponse response = remember(cacheKey, requestHash, row.getResponseBody());
+                    databaseReplays.increment();
+                    return replay(response, requestHash, responseType);
+                }
+            }
+            // Still running on another node, or released between our claim and our read
+            if (System.nanoTime() - deadline >= 0) {
+                throw stillInProgress();
+            }
+            sleep();
+        }
+
+        HeldClaim claim = new HeldClaim(scope, key);
+        held.put(cacheKey, claim);
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException | Error e) {
+            held.remove(cacheKey, claim);
+            requiresNew.executeWithoutResult(status -> keyRepository.release(scope, key));
+            throw e;
+        }
+
+        executions.increment();
+        String body = serialize(result);
+        remember(cacheKey, requestHash, body);
+        if (storeResponse(scope, key, body)) {
+            held.remove(cacheKey, claim);
+        } else {
+            // The action has committed; hold the claim so nobody runs it again until the response is stored
+            claim.pendingBody = body;
+        }
+        return result;
+    }
+
+    private boolean storeResponse(String scope, String key, String body) {
+        try {
+            requiresNew.executeWithoutResult(status ->
+                    keyRepository.complete(scope, key, body, LocalDateTime.now().plus(ttl)));
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Could not store idempotent response for {} {}, will retry: {}", scope, key, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean claim(String scope, String key, String requestHash) {
+        try {
+            return requiresNew.execute(status -> keyRepository.claim(
+                    scope, key, requestHash, LocalDateTime.now().plus(lease))) == 1;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private void awaitLocal(CompletableFuture<Void> running, long deadline) {
+        try {
+            running.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw stillInProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw stillInProgress();
+        } catch (ExecutionException e) {
+            // Not reached: the future is only ever completed normally
+        }
+    }
+
+    private <T> T replay(CachedResponse cached, String requestHash, JavaType responseType) {
+        if (!cached.requestHash().equals(requestHash)) {
+            throw mismatch();
+        }
+        try {
+            return objectMapper.readValue(cached.body(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response could not be read", e);
+        }
+    }
+
+    private synchronized CachedResponse cachedResponse(String cacheKey) {
+        CachedResponse cached = completed.get(cacheKey);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt() - System.nanoTime() < 0) {
+            completed.remove(cacheKey);
+            return null;
+        }
+        return cached;
+    }
+
+    private synchronized CachedResponse remember(String cacheKey, String requestHash, String body) {
+        CachedResponse cached = new CachedResponse(requestHash, body, System.nanoTime() + ttl.toNanos());
+        // Remove first so a re-added key moves to the young end instead of keeping its old slot
+        completed.remove(cacheKey);
+        completed.put(cacheKey, cached);
+        return cached;
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint idempotent request", e);
+        }
+    }
+
+    private String serialize(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store idempotent response", e);
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw stillInProgress();
+        }
+    }
+
+    private static BadRequestException mismatch() {
+        return new BadRequestException("Idempotency-Key was already used with a different request");
+    }
+
+    private static DuplicateResourceException stillInProgress() {
+        return new DuplicateResourceException("A request with this Idempotency-Key is still being processed");
+    }
+
+    private record CachedResponse(String requestHash, String body, long expiresAt) {}
+
+    private static final class HeldClaim {
+        private final String scope;
+        private final String key;
+        private volatile String pendingBody;
+
+        private HeldClaim(String scope, String key) {
+            this.scope = scope;
+            this.key = key;
+        }
+    }
+}
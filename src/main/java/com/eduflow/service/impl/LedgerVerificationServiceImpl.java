@@ -0,0 +1,332 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.response.LedgerDiscrepancyResponse;
+import com.eduflow.dto.response.LedgerVerificationResponse;
+import com.eduflow.dto.response.PagedResponse;
+import com.eduflow.entity.finance.LedgerDiscrepancy;
+import com.eduflow.entity.finance.StudentFeeAssignment;
+import com.eduflow.entity.finance.StudentFeeLedger;
+import com.eduflow.repository.finance.LedgerDiscrepancyRepository;
+import com.eduflow.repository.finance.StudentFeeAssignmentJdbcRepository;
+import com.eduflow.repository.finance.StudentFeeAssignmentRepository;
+import com.eduflow.service.DashboardStatsService;
+import com.eduflow.service.LedgerVerificationService;
+import com.eduflow.service.StudentFeeLedgerService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Checks that every fee assignment's amount_paid equals the sum of its completed payments.
+ * Assignments are cut into id-range chunks on the primary key; each chunk reads its amounts and
+ * one grouped payment sum in a single read-only snapshot, so chunks take no locks and a payment
+ * landing mid-check cannot show up as a false discrepancy. Chunks run on a fixed-size pool.
+ * Mismatches are recorded in ledger_discrepancies and, with auto-correct, fixed one assignment
+ * at a time under the same row lock payments use.
+ *
+ * <p>The schedule fires on every node. Recording a chunk's mismatches takes the row locks of
+ * their assignments first, so a node verifying the same chunk waits and then refreshes the open
+ * discrepancies the other one committed instead of inserting duplicates.
+ */
+@Slf4j
+@Service
+public class LedgerVerificationServiceImpl implements LedgerVerificationService {
+
+    private final StudentFeeAssignmentJdbcRepository assignmentJdbcRepository;
+    private final StudentFeeAssignmentRepository assignmentRepository;
+    private final LedgerDiscrepancyRepository discrepancyRepository;
+    private final StudentFeeLedgerService ledgerService;
+    private final DashboardStatsService dashboardStatsService;
+    private final TransactionTemplate snapshotRead;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final int concurrency;
+    private final boolean autoCorrect;
+    private final Counter foundCounter;
+    private final Counter correctedCounter;
+    private final Timer verifyTimer;
+    private final AtomicLong openDiscrepancies = new AtomicLong();
+
+    public LedgerVerificationServiceImpl(StudentFeeAssignmentJdbcRepository assignmentJdbcRepository,
+                                         StudentFeeAssignmentRepository assignmentRepository,
+                                         LedgerDiscrepancyRepository discrepancyRepository,
+                                         StudentFeeLedgerService ledgerService,
+                                         DashboardStatsService dashboardStatsService,
+                                         PlatformTransactionManager transactionManager,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${fees.ledger-verify.chunk-size:5000}") int chunkSize,
+                                         @Value("${fees.ledger-verify.concurrency:4}") int concurrency,
+                                         @Value("${fees.ledger-verify.auto-correct:false}") boolean autoCorrect) {
+        this.assignmentJdbcRepository = assignmentJdbcRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.discrepancyRepository = discrepancyRepository;
+        this.ledgerService = ledgerService;
+        this.dashboardStatsService = dashboardStatsService;
+        this.snapshotRead = new TransactionTemplate(transactionManager);
+        this.snapshotRead.setReadOnly(true);
+        this.snapshotRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.concurrency = concurrency;
+        this.autoCorrect = autoCorrect;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "ledger-verifier-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.foundCounter = Counter.builder("eduflow.fees.ledger.discrepancies.found")
+                .description("Fee assignments whose amount paid did not match their completed payments")
+                .register(meterRegistry);
+        this.correctedCounter = Counter.builder("eduflow.fees.ledger.discrepancies.corrected")
+                .description("Fee assignments corrected by the ledger verifier")
+                .register(meterRegistry);
+        this.verifyTimer = Timer.builder("eduflow.fees.ledger.verify")
+                .description("Duration of ledger verification runs")
+                .register(meterRegistry);
+        Gauge.builder("eduflow.fees.ledger.discrepancies.open", openDiscrepancies, AtomicLong::get)
+                .description("Open ledger discrepancies after the last verification run")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    @Scheduled(cron = "${fees.ledger-verify.cron:0 0 2 * * *}")
+    public LedgerVerificationResponse verifyLedger() {
+        return verifyLedger(autoCorrect);
+    }
+
+    @Override
+    public synchronized LedgerVerificationResponse verifyLedger(boolean autoCorrect) {
+        LocalDateTime runStartedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        ChunkResult total = ChunkResult.EMPTY;
+        int chunks = 0;
+        long afterId = 0;
+
+        // Only the chunk bounds are read here; at most `concurrency` chunks are in flight
+        Deque<CompletableFuture<ChunkResult>> inFlight = new ArrayDeque<>();
+        while (true) {
+            Long lastId = assignmentJdbcRepository.findChunkEnd(afterId, chunkSize);
+            if (lastId == null) {
+                break;
+            }
+            long fromId = afterId;
+            inFlight.add(CompletableFuture.supplyAsync(
+                    () -> verifyChunk(fromId, lastId, runStartedAt, autoCorrect), executor));
+            chunks++;
+            afterId = lastId;
+            if (inFlight.size() >= concurrency) {
+                total = total.plus(inFlight.poll().join());
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            total = total.plus(inFlight.poll().join());
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        verifyTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        openDiscrepancies.set(discrepancyRepository.countByStatus(LedgerDiscrepancy.DiscrepancyStatus.OPEN));
+        if (total.found() > 0 || total.errors() > 0) {
+            log.warn("Ledger verification checked {} assignments: {} discrepancies, {} corrected, {} chunk errors",
+                    total.checked(), total.found(), total.corrected(), total.errors());
+        } else {
+            log.info("Ledger verification checked {} assignments in {} chunks, no discrepancies",
+                    total.checked(), chunks);
+        }
+
+        return LedgerVerificationResponse.builder()
+                .autoCorrect(autoCorrect)
+                .assignmentsChecked(total.checked())
+                .discrepanciesFound(total.found())
+                .discrepanciesCorrected(total.corrected())
+                .discrepanciesResolved(total.resolved())
+                .chunksProcessed(chunks)
+                .chunkErrors(total.errors())
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .build();
+    }
+
+    @Override
+    public PagedResponse<LedgerDiscrepancyResponse> getDiscrepancies(LedgerDiscrepancy.DiscrepancyStatus status,
+                                                                     int page, int size) {
+        Page<LedgerDiscrepancy> discrepancies = discrepancyRepository.findByStatus(
+                status, PageRequest.of(page, size, Sort.by("id")));
+        return PagedResponse.of(discrepancies.map(this::mapToResponse).getContent(),
+                page, size, discrepancies.getTotalElements());
+    }
+
+    private ChunkResult verifyChunk(long afterId, long lastId, LocalDateTime runStartedAt, boolean autoCorrect) {
+        try {
+            ChunkScan scan = snapshotRead.execute(status -> {
+                List<StudentFeeAssignmentJdbcRepository.PaidAmountRow> rows =
+                        assignmentJdbcRepository.findPaidAmounts(afterId, lastId);
+                Map<Long, BigDecimal> completed = assignmentJdbcRepository.sumCompletedPayments(afterId, lastId);
+                List<Mismatch> mismatches = new ArrayList<>();
+                for (StudentFeeAssignmentJdbcRepository.PaidAmountRow row : rows) {
+                    BigDecimal expected = completed.getOrDefault(row.assignmentId(), BigDecimal.ZERO);
+                    if (row.amountPaid().compareTo(expected) != 0) {
+                        mismatches.add(new Mismatch(row.assignmentId(), row.studentId(), row.amountPaid(), expected));
+                    }
+                }
+                return new ChunkScan(rows.size(), mismatches);
+            });
+
+            LocalDateTime now = LocalDateTime.now();
+            Integer resolved = transactionTemplate.execute(status -> {
+                record(scan.mismatches(), now);
+                return discrepancyRepository.resolveUnseen(afterId, lastId, runStartedAt, now);
+            });
+            foundCounter.increment(scan.mismatches().size());
+
+            int corrected = 0;
+            if (autoCorrect) {
+                for (Mismatch mismatch : scan.mismatches()) {
+                    if (Boolean.TRUE.equals(transactionTemplate.execute(status -> correct(mismatch.assignmentId())))) {
+                        corrected++;
+                    }
+                }
+                correctedCounter.increment(corrected);
+            }
+            return new ChunkResult(scan.checked(), scan.mismatches().size(), corrected,
+                    resolved != null ? resolved : 0, 0);
+        } catch (RuntimeException e) {
+            log.error("Ledger verification failed for assignments ({}, {}]: {}", afterId, lastId, e.getMessage(), e);
+            return new ChunkResult(0, 0, 0, 0, 1);
+        }
+    }
+
+    // A discrepancy still open from an earlier run, or from a run on another node, is refreshed
+    // rather than reported twice. The assignment locks are held until the new records commit
+    private void record(List<Mismatch> mismatches, LocalDateTime detectedAt) {
+        if (mismatches.isEmpty()) {
+            return;
+        }
+        List<Long> assignmentIds = mismatches.stream().map(Mismatch::assignmentId).toList();
+        assignmentJdbcRepository.lockAssignments(assignmentIds);
+        Map<Long, LedgerDiscrepancy> open = discrepancyRepository.findByStudentFeeAssignmentIdInAndStatus(
+                        assignmentIds, LedgerDiscrepancy.DiscrepancyStatus.OPEN).stream()
+                .collect(Collectors.toMap(LedgerDiscrepancy::getStudentFeeAssignmentId, Function.identity(),
+                        (first, second) -> first));
+
+        List<LedgerDiscrepancy> discrepancies = new ArrayList<>(mismatches.size());
+        for (Mismatch mismatch : mismatches) {
+            LedgerDiscrepancy discrepancy = open.get(mismatch.assignmentId());
+            if (discrepancy == null) {
+                discrepancy = LedgerDiscrepancy.builder()
+                        .studentFeeAssignmentId(mismatch.assignmentId())
+                        .studentId(mismatch.studentId())
+                        .build();
+            }
+            discrepancy.setRecordedAmountPaid(mismatch.recorded());
+            discrepancy.setCompletedPaymentsTotal(mismatch.expected());
+            discrepancy.setDetectedAt(detectedAt);
+            discrepancies.add(discrepancy);
+        }
+        discrepancyRepository.saveAll(discrepancies);
+    }
+
+    /**
+     * Re-reads the assignment and its payments under the row lock and sets amount_paid to the
+     * completed total. Returns false when a payment applied since the scan already made it
+     * consistent; the discrepancy is then closed as RESOLVED instead of CORRECTED.
+     */
+    private boolean correct(long assignmentId) {
+        StudentFeeAssignment assignment = assignmentRepository.findByIdForUpdate(assignmentId).orElse(null);
+        if (assignment == null) {
+            return false;
+        }
+        BigDecimal expected = assignmentJdbcRepository.sumCompletedPayments(assignmentId - 1, assignmentId)
+                .getOrDefault(assignmentId, BigDecimal.ZERO);
+        BigDecimal recorded = Objects.requireNonNullElse(assignment.getAmountPaid(), BigDecimal.ZERO);
+        boolean drifted = recorded.compareTo(expected) != 0;
+
+        if (drifted) {
+            StudentFeeLedger.Contribution before = StudentFeeLedger.Contribution.of(assignment);
+            assignment.setAmountPaid(expected);
+            if (assignment.getStatus() != StudentFeeAssignment.FeeStatus.WAIVED) {
+                assignment.updateStatus();
+            }
+            assignmentRepository.save(assignment);
+            ledgerService.recordChange(before, assignment);
+            dashboardStatsService.recordOutstandingChange(
+                    StudentFeeLedger.Contribution.of(assignment).outstanding().subtract(before.outstanding()));
+            log.info("Corrected amount paid of fee assignment {} from {} to {}", assignmentId, recorded, expected);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (LedgerDiscrepancy discrepancy : discrepancyRepository.findByStudentFeeAssignmentIdInAndStatus(
+                List.of(assignmentId), LedgerDiscrepancy.DiscrepancyStatus.OPEN)) {
+            discrepancy.setStatus(drifted
+                    ? LedgerDiscrepancy.DiscrepancyStatus.CORRECTED
+                    : LedgerDiscrepancy.DiscrepancyStatus.RESOLVED);
+            discrepancy.setResolvedAt(now);
+        }
+        return drifted;
+    }
+
+    private LedgerDiscrepancyResponse mapToResponse(LedgerDiscrepancy discrepancy) {
+        return LedgerDiscrepancyResponse.builder()
+                .id(discrepancy.getId())
+                .studentFeeAssignmentId(discrepancy.getStudentFeeAssignmentId())
+                .studentId(discrepancy.getStudentId())
+                .recordedAmountPaid(discrepancy.getRecordedAmountPaid())
+                .completedPaymentsTotal(discrepancy.getCompletedPaymentsTotal())
+                .difference(discrepancy.getDifference())
+                .status(discrepancy.getStatus())
+                .detectedAt(discrepancy.getDetectedAt())
+                .resolvedAt(discrepancy.getResolvedAt())
+                .build();
+    }
+
+    private record Mismatch(long assignmentId, long studentId, BigDecimal recorded, BigDecimal expected) {
+    }
+
+    private record ChunkScan(int checked, List<Mismatch> mismatches) {
+    }
+
+    private record ChunkResult(long checked, long found, long corrected, long resolved, int errors) {
+
+        static final ChunkResult EMPTY = new ChunkResult(0, 0, 0, 0, 0);
+
+        ChunkResult plus(ChunkResult other) {
+            return new ChunkResult(checked + other.checked, found + other.found, corrected + other.corrected,
+                    resolved + other.resolved, errors + other.errors);
+        }
+    }
+}
@@ -8,8 +8,10 @@ import com.eduflow.entity.finance.StudentFeeAssignment;
 import com.eduflow.entity.user.User;
 import com.eduflow.exception.ResourceNotFoundException;
 import com.eduflow.repository.academic.StudentRepository;
+import com.eduflow.repository.communication.NotificationJdbcRepository;
 import com.eduflow.repository.communication.NotificationRepository;
 import com.eduflow.repository.finance.PaymentRepository;
+import com.eduflow.repository.finance.StudentFeeAssignmentJdbcRepository;
 import com.eduflow.repository.finance.StudentFeeAssignmentRepository;
 import com.eduflow.service.NotificationService;
 import lombok.RequiredArgsConstructor;
@@ -21,9 +23,8 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 @Slf4j
 @Service
@@ -34,6 +35,11 @@ public class NotificationServiceImpl implements NotificationService {
     private final StudentFeeAssignmentRepository feeAssignmentRepository;
     private final StudentRepository studentRepository;
     private final PaymentRepository paymentRepository;
+    private final StudentFeeAssignmentJdbcRepository feeAssignmentJdbcRepository;
+    private final NotificationJdbcRepository notificationJdbcRepository;
+
+    private static final int REMINDER_FETCH_SIZE = 500;
+    private static final int NOTIFICATION_BATCH_SIZE = 500;
 
     @Override
     @Transactional
@@ -58,186 +64,160 @@ public class NotificationServiceImpl implements NotificationService {
         return notification;
     }
 
+    // Streamed like the upcoming reminders, so the run no longer loads every overdue assignment
     @Override
     @Transactional
     public MessageResponse sendOverdueFeesNotifications() {
-        List<StudentFeeAssignment> overdueAssignments = feeAssignmentRepository.findOverdueFees();
+        LocalDate today = LocalDate.now();
 
-        if (overdueAssignments.isEmpty()) {
+        ReminderWriter writer = new ReminderWriter(
+                "This is a reminder that the following fees are overdue:",
+                "Total Overdue Amount: ",
+                "Please make the payment at your earliest convenience to avoid any disruption to your " +
+                        "child's education.",
+                "Overdue Fees Reminder - %s Outstanding");
+        feeAssignmentJdbcRepository.streamOverdueForParents(today, REMINDER_FETCH_SIZE, writer::accept);
+        writer.finish();
+        long withoutParent = feeAssignmentJdbcRepository.countOverdueWithoutParent(today);
+
+        if (writer.assignmentsSeen == 0 && withoutParent == 0) {
             log.info("No overdue fees found");
             return MessageResponse.success("No overdue fees found. No notifications sent.");
         }
-
-        // Group overdue fees by parent to send consolidated notifications
-        Map<User, List<StudentFeeAssignment>> parentAssignments = new HashMap<>();
-        int studentsWithoutParent = 0;
-
-        for (StudentFeeAssignment assignment : overdueAssignments) {
-            Student student = assignment.getStudent();
-            if (student == null) continue;
-
-            Parent parent = student.getParent();
-            if (parent == null || parent.getUser() == null) {
-                studentsWithoutParent++;
-                log.warn("Student {} has no parent assigned, skipping notification",
-                        student.getStudentId());
-                continue;
-            }
-
-            User parentUser = parent.getUser();
-            parentAssignments.computeIfAbsent(parentUser, k -> new java.util.ArrayList<>())
-                    .add(assignment);
-        }
-
-        int notificationsSent = 0;
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd MMM yyyy");
-
-        for (Map.Entry<User, List<StudentFeeAssignment>> entry : parentAssignments.entrySet()) {
-            User parentUser = entry.getKey();
-            List<StudentFeeAssignment> assignments = entry.getValue();
-
-            StringBuilder messageBuilder = new StringBuilder();
-            messageBuilder.append("Dear ").append(parentUser.getFullName()).append(",\n\n");
-            messageBuilder.append("This is a reminder that the following fees are overdue:\n\n");
-
-            BigDecimal totalOverdue = BigDecimal.ZERO;
-
-            for (StudentFeeAssignment assignment : assignments) {
-                Student student = assignment.getStudent();
-                BigDecimal balance = assignment.getBalance();
-                LocalDate dueDate = assignment.getDueDate();
-
-                messageBuilder.append("• ").append(assignment.getFee().getName())
-                        .append(" for ").append(student.getUser().getFullName())
-                        .append("\n  Amount Due: ").append(balance)
-                        .append("\n  Due Date: ").append(dueDate != null ? dueDate.format(dateFormatter) : "N/A")
-                        .append("\n\n");
-
-                totalOverdue = totalOverdue.add(balance);
-            }
-
-            messageBuilder.append("Total Overdue Amount: ").append(totalOverdue).append("\n\n");
-            messageBuilder.append("Please make the payment at your earliest convenience to avoid any disruption to your child's education.\n\n");
-            messageBuilder.append("Thank you,\nEduFlow Administration");
-
-            String title = "Overdue Fees Reminder - " + totalOverdue + " Outstanding";
-
-            createNotification(
-                    parentUser,
-                    title,
-                    messageBuilder.toString(),
-                    Notification.NotificationType.PAYMENT_REMINDER,
-                    Notification.NotificationChannel.IN_APP,
-                    "FEE_ASSIGNMENT",
-                    assignments.get(0).getId()
-            );
-
-            notificationsSent++;
+        if (withoutParent > 0) {
+            log.warn("{} overdue fee assignments belong to students without a parent, skipping them", withoutParent);
         }
 
         String resultMessage = String.format(
-                "Sent %d notifications for %d overdue fee assignments. %d students without parents were skipped.",
-                notificationsSent, overdueAssignments.size(), studentsWithoutParent
+                "Sent %d notifications for %d overdue fee assignments. " +
+                        "%d assignments of students without parents were skipped.",
+                writer.notificationsSent, writer.assignmentsSeen + withoutParent, withoutParent
         );
 
         log.info(resultMessage);
         return MessageResponse.success(resultMessage);
     }
 
+    // Streamed in a single transaction so the cursor stays open; only one parent's reminder
+    // and one insert batch are held in memory at a time
     @Override
     @Transactional
     public MessageResponse sendUpcomingFeesNotifications(int daysBeforeDue) {
         LocalDate today = LocalDate.now();
         LocalDate targetDate = today.plusDays(daysBeforeDue);
 
-        List<StudentFeeAssignment> upcomingAssignments = feeAssignmentRepository.findAll().stream()
-                .filter(a -> a.getDueDate() != null)
-                .filter(a -> !a.getDueDate().isBefore(today))
-                .filter(a -> !a.getDueDate().isAfter(targetDate))
-                .filter(a -> a.getStatus() != StudentFeeAssignment.FeeStatus.PAID &&
-                             a.getStatus() != StudentFeeAssignment.FeeStatus.WAIVED)
-                .toList();
+        ReminderWriter writer = new ReminderWriter(
+                "This is a friendly reminder about upcoming fee payments:",
+                "Total Amount Due: ",
+                "Please make the payment before the due date.",
+                "Payment Reminder - %s Due Soon");
+        feeAssignmentJdbcRepository.streamUpcomingForParents(
+                today, targetDate, REMINDER_FETCH_SIZE, writer::accept);
+        writer.finish();
 
-        if (upcomingAssignments.isEmpty()) {
+        if (writer.assignmentsSeen == 0) {
             log.info("No upcoming fees found within {} days", daysBeforeDue);
             return MessageResponse.success("No upcoming fees found. No notifications sent.");
         }
 
-        Map<User, List<StudentFeeAssignment>> parentAssignments = new HashMap<>();
-        int studentsWithoutParent = 0;
-
-        for (StudentFeeAssignment assignment : upcomingAssignments) {
-            Student student = assignment.getStudent();
-            if (student == null) continue;
+        String resultMessage = String.format(
+                "Sent %d notifications for %d upcoming fee assignments (due within %d days).",
+                writer.notificationsSent, writer.assignmentsSeen, daysBeforeDue
+        );
 
-            Parent parent = student.getParent();
-            if (parent == null || parent.getUser() == null) {
-                studentsWithoutParent++;
-                continue;
-            }
+        log.info(resultMessage);
+        return MessageResponse.success(resultMessage);
+    }
 
-            User parentUser = parent.getUser();
-            parentAssignments.computeIfAbsent(parentUser, k -> new java.util.ArrayList<>())
-                    .add(assignment);
+    /**
+     * Folds parent-ordered fee rows into one reminder per parent and writes the reminders in
+     * JDBC batches.
+     */
+    private class ReminderWriter {
+
+        private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd MMM yyyy");
+        private final List<NotificationJdbcRepository.NewNotification> pending = new ArrayList<>();
+        private final String intro;
+        private final String totalLabel;
+        private final String closing;
+        private final String titleFormat;
+
+        private long parentUserId = -1;
+        private String parentName;
+        private StringBuilder lines = new StringBuilder();
+        private BigDecimal totalDue = BigDecimal.ZERO;
+        private long firstAssignmentId;
+
+        private int assignmentsSeen;
+        private int notificationsSent;
+
+        ReminderWriter(String intro, String totalLabel, String closing, String titleFormat) {
+            this.intro = intro;
+            this.totalLabel = totalLabel;
+            this.closing = closing;
+            this.titleFormat = titleFormat;
         }
 
-        int notificationsSent = 0;
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd MMM yyyy");
-
-        for (Map.Entry<User, List<StudentFeeAssignment>> entry : parentAssignments.entrySet()) {
-            User parentUser = entry.getKey();
-            List<StudentFeeAssignment> assignments = entry.getValue();
-
-            StringBuilder messageBuilder = new StringBuilder();
-            messageBuilder.append("Dear ").append(parentUser.getFullName()).append(",\n\n");
-            messageBuilder.append("This is a friendly reminder about upcoming fee payments:\n\n");
-
-            BigDecimal totalDue = BigDecimal.ZERO;
-
-            for (StudentFeeAssignment assignment : assignments) {
-                Student student = assignment.getStudent();
-                BigDecimal balance = calculateActualBalance(assignment);
-                LocalDate dueDate = assignment.getDueDate();
-
-                if (balance.compareTo(BigDecimal.ZERO) <= 0) continue;
-
-                messageBuilder.append("• ").append(assignment.getFee().getName())
-                        .append(" for ").append(student.getUser().getFullName())
-                        .append("\n  Amount Due: ").append(balance)
-                        .append("\n  Due Date: ").append(dueDate.format(dateFormatter))
-                        .append("\n\n");
-
-                totalDue = totalDue.add(balance);
+        void accept(StudentFeeAssignmentJdbcRepository.ParentFeeRow row) {
+            assignmentsSeen++;
+            if (row.parentUserId() != parentUserId) {
+                completeParent();
+                parentUserId = row.parentUserId();
+                parentName = row.parentName();
             }
 
-            if (totalDue.compareTo(BigDecimal.ZERO) <= 0) continue;
+            if (row.balance().compareTo(BigDecimal.ZERO) <= 0) {
+                return;
+            }
 
-            messageBuilder.append("Total Amount Due: ").append(totalDue).append("\n\n");
-            messageBuilder.append("Please make the payment before the due date.\n\n");
-            messageBuilder.append("Thank you,\nEduFlow Administration");
+            if (totalDue.signum() == 0) {
+                firstAssignmentId = row.assignmentId();
+            }
+            lines.append("• ").append(row.feeName())
+                    .append(" for ").append(row.studentName())
+                    .append("\n  Amount Due: ").append(row.balance())
+                    .append("\n  Due Date: ").append(row.dueDate().format(dateFormatter))
+                    .append("\n\n");
+            totalDue = totalDue.add(row.balance());
+        }
 
-            String title = "Payment Reminder - " + totalDue + " Due Soon";
+        void finish() {
+            completeParent();
+            flush();
+        }
 
-            createNotification(
-                    parentUser,
-                    title,
-                    messageBuilder.toString(),
-                    Notification.NotificationType.PAYMENT_REMINDER,
-                    Notification.NotificationChannel.IN_APP,
-                    "FEE_ASSIGNMENT",
-                    assignments.get(0).getId()
-            );
+        private void completeParent() {
+            if (totalDue.compareTo(BigDecimal.ZERO) > 0) {
+                String message = "Dear " + parentName + ",\n\n" +
+                        intro + "\n\n" +
+                        lines +
+                        totalLabel + totalDue + "\n\n" +
+                        closing + "\n\n" +
+                        "Thank you,\nEduFlow Administration";
+
+                pending.add(new NotificationJdbcRepository.NewNotification(
+                        parentUserId,
+                        String.format(titleFormat, totalDue),
+                        message,
+                        Notification.NotificationType.PAYMENT_REMINDER,
+                        Notification.NotificationChannel.IN_APP,
+                        "FEE_ASSIGNMENT",
+                        firstAssignmentId));
+                notificationsSent++;
+
+                if (pending.size() >= NOTIFICATION_BATCH_SIZE) {
+                    flush();
+                }
+            }
 
-            notificationsSent++;
+            lines = new StringBuilder();
+            totalDue = BigDecimal.ZERO;
         }
 
-        String resultMessage = String.format(
-                "Sent %d notifications for %d upcoming fee assignments (due within %d days).",
-                notificationsSent, upcomingAssignments.size(), daysBeforeDue
-        );
-
-        log.info(resultMessage);
-        return MessageResponse.success(resultMessage);
+        private void flush() {
+            notificationJdbcRepository.insertSent(pending);
+            pending.clear();
+        }
     }
 
     @Override
@@ -0,0 +1,106 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.response.OverdueSweepResponse;
+import com.eduflow.repository.finance.StudentFeeAssignmentJdbcRepository;
+import com.eduflow.service.OverdueFeeSweepService;
+import com.eduflow.service.StudentFeeLedgerService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marks unpaid fee assignments past their due date as OVERDUE. Rows are walked in id order; each
+ * chunk is selected with a row lock, updated by id and its students' ledgers rebuilt in one
+ * transaction that commits on its own, so no lock is held for the whole sweep.
+ */
+@Slf4j
+@Service
+public class OverdueFeeSweepServiceImpl implements OverdueFeeSweepService {
+
+    private final StudentFeeAssignmentJdbcRepository assignmentJdbcRepository;
+    private final StudentFeeLedgerService ledgerService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Counter markedCounter;
+    private final Timer sweepTimer;
+
+    public OverdueFeeSweepServiceImpl(StudentFeeAssignmentJdbcRepository assignmentJdbcRepository,
+                                      StudentFeeLedgerService ledgerService,
+                                      TransactionTemplate transactionTemplate,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${fees.overdue-sweep.batch-size:1000}") int batchSize) {
+        this.assignmentJdbcRepository = assignmentJdbcRepository;
+        this.ledgerService = ledgerService;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.markedCounter = Counter.builder("eduflow.fees.overdue.marked")
+                .description("Fee assignments marked OVERDUE by the sweeper")
+                .register(meterRegistry);
+        this.sweepTimer = Timer.builder("eduflow.fees.overdue.sweep")
+                .description("Duration of overdue fee sweeps")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Scheduled(cron = "${fees.overdue-sweep.cron:0 15 0 * * *}")
+    public synchronized OverdueSweepResponse sweepOverdueFees() {
+        LocalDate today = LocalDate.now();
+        long start = System.nanoTime();
+        long afterId = 0;
+        long marked = 0;
+        int batches = 0;
+
+        while (true) {
+            long fromId = afterId;
+            SweepBatch result = transactionTemplate.execute(status -> {
+                List<StudentFeeAssignmentJdbcRepository.OverdueCandidate> candidates =
+                        assignmentJdbcRepository.findOverdueCandidates(fromId, today, batchSize);
+                if (candidates.isEmpty()) {
+                    return null;
+                }
+
+                List<Long> assignmentIds = candidates.stream()
+                        .map(StudentFeeAssignmentJdbcRepository.OverdueCandidate::assignmentId)
+                        .toList();
+                List<Long> studentIds = candidates.stream()
+                        .map(StudentFeeAssignmentJdbcRepository.OverdueCandidate::studentId)
+                        .distinct()
+                        .toList();
+
+                int count = assignmentJdbcRepository.markOverdue(assignmentIds);
+                ledgerService.rebuildLedgers(studentIds);
+                return new SweepBatch(assignmentIds.get(assignmentIds.size() - 1), count);
+            });
+            if (result == null) {
+                break;
+            }
+
+            marked += result.updated();
+            batches++;
+            afterId = result.lastId();
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        markedCounter.increment(marked);
+        sweepTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        log.info("Overdue fee sweep marked {} assignments in {} batches", marked, batches);
+
+        return OverdueSweepResponse.builder()
+                .asOf(today)
+                .assignmentsMarkedOverdue(marked)
+                .batchesProcessed(batches)
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .build();
+    }
+
+    private record SweepBatch(long lastId, int updated) {}
+}
@@ -0,0 +1,232 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.request.GeneratePaymentPlansRequest;
+import com.eduflow.dto.response.BulkPaymentPlanResponse;
+import com.eduflow.dto.response.PaymentPlanInstallmentResponse;
+import com.eduflow.dto.response.PaymentPlanResponse;
+import com.eduflow.dto.response.PaymentPlanScanResponse;
+import com.eduflow.entity.finance.Payment;
+import com.eduflow.entity.finance.PaymentPlan;
+import com.eduflow.entity.finance.PaymentPlanInstallment;
+import com.eduflow.entity.finance.StudentFeeAssignment;
+import com.eduflow.exception.BadRequestException;
+import com.eduflow.repository.finance.PaymentPlanInstallmentRepository;
+import com.eduflow.repository.finance.PaymentPlanJdbcRepository;
+import com.eduflow.repository.finance.PaymentPlanRepository;
+import com.eduflow.service.PaymentPlanService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Installment plans over a student's outstanding balance for an academic year. Schedules are
+ * generated for a whole class or grade in id-ordered chunks that commit on their own, payments
+ * are allocated to the oldest unpaid installment as they complete, and a daily scan moves
+ * installments and plans between statuses with set-based updates.
+ */
+@Slf4j
+@Service
+public class PaymentPlanServiceImpl implements PaymentPlanService {
+
+    private static final Set<PaymentPlan.PlanStatus> OPEN_STATUSES =
+            Set.of(PaymentPlan.PlanStatus.ACTIVE, PaymentPlan.PlanStatus.DEFAULTED);
+
+    private final PaymentPlanRepository planRepository;
+    private final PaymentPlanInstallmentRepository installmentRepository;
+    private final PaymentPlanJdbcRepository planJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int defaultGraceDays;
+
+    public PaymentPlanServiceImpl(PaymentPlanRepository planRepository,
+                                  PaymentPlanInstallmentRepository installmentRepository,
+                                  PaymentPlanJdbcRepository planJdbcRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${fees.payment-plans.batch-size:1000}") int batchSize,
+                                  @Value("${fees.payment-plans.default-grace-days:30}") int defaultGraceDays) {
+        this.planRepository = planRepository;
+        this.installmentRepository = installmentRepository;
+        this.planJdbcRepository = planJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.defaultGraceDays = defaultGraceDays;
+    }
+
+    // Not @Transactional: each batch commits on its own, and a re-run skips students who already have a plan
+    @Override
+    public BulkPaymentPlanResponse generatePlans(GeneratePaymentPlansRequest request) {
+        long start = System.nanoTime();
+
+        boolean byClass = request.getClassIds() != null && !request.getClassIds().isEmpty();
+        if (!byClass && request.getGrade() == null) {
+            throw new BadRequestException("Either classIds or grade is required to generate payment plans");
+        }
+
+        int installments = request.getNumberOfInstallments();
+        int intervalMonths = request.getIntervalMonths() != null ? request.getIntervalMonths() : 1;
+        List<LocalDate> dueDates = new ArrayList<>(installments);
+        for (int i = 0; i < installments; i++) {
+            dueDates.add(request.getFirstDueDate().plusMonths((long) i * intervalMonths));
+        }
+
+        long plansCreated = 0;
+        int batches = 0;
+        long afterId = 0;
+        while (true) {
+            List<PaymentPlanJdbcRepository.PlanCandidate> candidates = planJdbcRepository.findPlanCandidates(
+                    request.getAcademicYear(), byClass ? request.getClassIds() : null, request.getGrade(),
+                    afterId, batchSize);
+            if (candidates.isEmpty()) {
+                break;
+            }
+
+            List<PaymentPlanJdbcRepository.NewPlan> created = transactionTemplate.execute(status ->
+                    planJdbcRepository.insertPlans(candidates, request.getAcademicYear(), installments,
+                            dueDates, request.getNotes()));
+
+            plansCreated += created != null ? created.size() : 0;
+            batches++;
+            afterId = candidates.get(candidates.size() - 1).studentId();
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Generated {} payment plans for {} in {} batches ({} ms)",
+                plansCreated, request.getAcademicYear(), batches, elapsedMillis);
+
+        return BulkPaymentPlanResponse.builder()
+                .academicYear(request.getAcademicYear())
+                .plansCreated(plansCreated)
+                .installmentsCreated(plansCreated * installments)
+                .batchesProcessed(batches)
+                .elapsedMillis(elapsedMillis)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PaymentPlanResponse> getStudentPlans(Long studentId) {
+        return planRepository.findByStudentIdWithInstallments(studentId).stream()
+                .map(this::mapToPaymentPlanResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Spreads a completed payment over the open plan's unpaid installments, oldest first.
+     * Runs inside the transaction that completes the payment.
+     */
+    @Override
+    @Transactional
+    public void allocatePayment(Payment payment) {
+        StudentFeeAssignment assignment = payment.getStudentFeeAssignment();
+        allocatePayment(assignment.getStudent().getId(), assignment.getAcademicYear(), payment.getAmount(),
+                payment.getPaidAt() != null ? payment.getPaidAt().toLocalDate() : LocalDate.now());
+    }
+
+    @Override
+    @Transactional
+    public void allocatePayment(Long studentId, String academicYear, BigDecimal amount, LocalDate paidDate) {
+        List<PaymentPlan> plans = planRepository.findByStudentIdAndAcademicYearAndStatusIn(
+                studentId, academicYear, OPEN_STATUSES);
+        if (plans.isEmpty()) {
+            return;
+        }
+
+        BigDecimal remaining = amount;
+        for (PaymentPlanInstallment installment : installmentRepository.findUnpaidByPlanIdForUpdate(plans.get(0).getId())) {
+            if (remaining.signum() <= 0) {
+                break;
+            }
+
+            BigDecimal applied = remaining.min(installment.getBalance());
+            installment.setPaidAmount(installment.getPaidAmount().add(applied));
+            remaining = remaining.subtract(applied);
+
+            if (installment.getBalance().signum() <= 0) {
+                installment.setStatus(PaymentPlanInstallment.InstallmentStatus.PAID);
+                installment.setPaidDate(paidDate);
+            } else if (installment.getStatus() == PaymentPlanInstallment.InstallmentStatus.PENDING) {
+                // An overdue installment stays OVERDUE until it is paid in full
+                installment.setStatus(PaymentPlanInstallment.InstallmentStatus.PARTIAL);
+            }
+        }
+    }
+
+    @Override
+    @Scheduled(cron = "${fees.payment-plans.scan-cron:0 30 0 * * *}")
+    public synchronized PaymentPlanScanResponse scanInstallments() {
+        LocalDate today = LocalDate.now();
+        long start = System.nanoTime();
+
+        PaymentPlanScanResponse response = transactionTemplate.execute(status -> PaymentPlanScanResponse.builder()
+                .asOf(today)
+                .installmentsMarkedOverdue(planJdbcRepository.markInstallmentsOverdue(today))
+                .plansDefaulted(planJdbcRepository.defaultPlans(today.minusDays(defaultGraceDays)))
+                .plansCompleted(planJdbcRepository.completePlans())
+                .build());
+
+        response.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("Payment plan scan: {} installments overdue, {} plans defaulted, {} plans completed",
+                response.getInstallmentsMarkedOverdue(), response.getPlansDefaulted(), response.getPlansCompleted());
+        return response;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PaymentPlanInstallmentResponse> getDueInstallments(LocalDate dueBy, long afterId, int limit) {
+        return planJdbcRepository.findDueInstallments(dueBy, afterId, limit).stream()
+                .map(installment -> PaymentPlanInstallmentResponse.builder()
+                        .id(installment.installmentId())
+                        .paymentPlanId(installment.planId())
+                        .studentId(installment.studentId())
+                        .installmentNumber(installment.installmentNumber())
+                        .dueDate(installment.dueDate())
+                        .amount(installment.amount())
+                        .paidAmount(installment.paidAmount())
+                        .balance(installment.amount().subtract(installment.paidAmount()))
+                        .status(installment.status())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private PaymentPlanResponse mapToPaymentPlanResponse(PaymentPlan plan) {
+        List<PaymentPlanInstallmentResponse> installments = plan.getInstallments().stream()
+                .map(installment -> PaymentPlanInstallmentResponse.builder()
+                        .id(installment.getId())
+                        .paymentPlanId(plan.getId())
+                        .studentId(plan.getStudent().getId())
+                        .installmentNumber(installment.getInstallmentNumber())
+                        .dueDate(installment.getDueDate())
+                        .amount(installment.getAmount())
+                        .paidAmount(installment.getPaidAmount())
+                        .balance(installment.getBalance())
+                        .paidDate(installment.getPaidDate())
+                        .status(installment.getStatus())
+                        .build())
+                .collect(Collectors.toList());
+
+        return PaymentPlanResponse.builder()
+                .id(plan.getId())
+                .studentId(plan.getStudent().getId())
+                .academicYear(plan.getAcademicYear())
+                .totalAmount(plan.getTotalAmount())
+                .numberOfInstallments(plan.getNumberOfInstallments())
+                .installmentAmount(plan.getInstallmentAmount())
+                .startDate(plan.getStartDate())
+                .endDate(plan.getEndDate())
+                .status(plan.getStatus())
+                .notes(plan.getNotes())
+                .installments(installments)
+                .build();
+    }
+}
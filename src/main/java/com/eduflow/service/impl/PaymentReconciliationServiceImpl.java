@@ -0,0 +1,234 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.response.PaymentReconciliationResponse;
+import com.eduflow.entity.finance.Payment;
+import com.eduflow.repository.finance.PaymentRepository;
+import com.eduflow.service.PaymentReconciliationService;
+import com.eduflow.service.PaymentService;
+import com.eduflow.service.payment.GatewayRateLimiter;
+import com.eduflow.service.payment.GatewayVerification;
+import com.eduflow.service.payment.PaymentGatewayService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Settles payments whose gateway callback never arrived. Stale PENDING/PROCESSING payments are
+ * paged by id and verified with the gateway on a fixed-size pool, rate limited per gateway,
+ * then pushed through the same transition as a gateway callback. A payment is only failed when
+ * the gateway declines it; an unknown answer or a gateway error leaves it for the next run.
+ * PENDING payments that never got a gateway reference (the process died before or during the
+ * gateway call) cannot be verified and are failed once stale.
+ *
+ * <p>Against a simulated gateway nothing is verified or settled, since its answers say nothing
+ * about whether money was collected. Runs are triggered by the admin endpoint, or on a schedule
+ * by {@link com.eduflow.config.PaymentReconciliationScheduler} when enabled.
+ */
+@Slf4j
+@Service
+public class PaymentReconciliationServiceImpl implements PaymentReconciliationService {
+
+    private static final EnumSet<Payment.PaymentStatus> STALE_STATUSES =
+            EnumSet.of(Payment.PaymentStatus.PENDING, Payment.PaymentStatus.PROCESSING);
+    private static final int SETTLE_MAX_ATTEMPTS = 3;
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentService paymentService;
+    private final PaymentGatewayService paymentGatewayService;
+    private final MeterRegistry meterRegistry;
+    private final GatewayRateLimiter rateLimiter;
+    private final ExecutorService executor;
+    private final long staleAfterMinutes;
+    private final int pageSize;
+    private final Timer runTimer;
+
+    public PaymentReconciliationServiceImpl(PaymentRepository paymentRepository,
+                                            PaymentService paymentService,
+                                            PaymentGatewayService paymentGatewayService,
+                                            MeterRegistry meterRegistry,
+                                            @Value("${payment.reconciliation.stale-after-minutes:30}") long staleAfterMinutes,
+                                            @Value("${payment.reconciliation.page-size:100}") int pageSize,
+                                            @Value("${payment.reconciliation.concurrency:8}") int concurrency,
+                                            @Value("${payment.reconciliation.rate-per-second:10}") double ratePerSecond) {
+        this.paymentRepository = paymentRepository;
+        this.paymentService = paymentService;
+        this.paymentGatewayService = paymentGatewayService;
+        this.meterRegistry = meterRegistry;
+        this.staleAfterMinutes = staleAfterMinutes;
+        this.pageSize = pageSize;
+        this.rateLimiter = new GatewayRateLimiter(ratePerSecond);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "payment-reconciler-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.runTimer = Timer.builder("eduflow.payments.reconciliation.run")
+                .description("Duration of stale payment reconciliation runs")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public synchronized PaymentReconciliationResponse reconcileStalePayments() {
+        long start = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(staleAfterMinutes);
+        long checked = 0;
+        long[] outcomes = new long[Outcome.values().length];
+
+        if (paymentGatewayService.isSimulated()) {
+            log.warn("Payment gateway is simulated, stale payments are left unsettled");
+        } else {
+            checked = verifyStalePayments(cutoff, outcomes);
+        }
+
+        long expired = expireUnsentPayments(cutoff);
+
+        long elapsedNanos = System.nanoTime() - start;
+        runTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (expired > 0) {
+            log.info("Failed {} stale payments that were never sent to the gateway", expired);
+        }
+        if (checked > 0) {
+            log.info("Reconciled {} stale payments: {} completed, {} failed, {} unverified, {} skipped, {} errors",
+                    checked, outcomes[Outcome.COMPLETED.ordinal()], outcomes[Outcome.FAILED.ordinal()],
+                    outcomes[Outcome.UNVERIFIED.ordinal()], outcomes[Outcome.SKIPPED.ordinal()],
+                    outcomes[Outcome.ERROR.ordinal()]);
+        }
+
+        return PaymentReconciliationResponse.builder()
+                .paymentsChecked(checked)
+                .paymentsCompleted(outcomes[Outcome.COMPLETED.ordinal()])
+                .paymentsFailed(outcomes[Outcome.FAILED.ordinal()])
+                .paymentsUnverified(outcomes[Outcome.UNVERIFIED.ordinal()])
+                .paymentsSkipped(outcomes[Outcome.SKIPPED.ordinal()])
+                .paymentsExpired(expired)
+                .errors(outcomes[Outcome.ERROR.ordinal()])
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .build();
+    }
+
+    private long verifyStalePayments(LocalDateTime cutoff, long[] outcomes) {
+        long afterId = 0;
+        long checked = 0;
+        while (true) {
+            List<Payment> page = paymentRepository.findStalePaymentsAfter(
+                    STALE_STATUSES, cutoff, afterId, PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                return checked;
+            }
+
+            // The pool bounds how many verifications are in flight; the page bounds how many are queued
+            List<CompletableFuture<Outcome>> futures = page.stream()
+                    .map(payment -> CompletableFuture.supplyAsync(() -> reconcile(payment), executor))
+                    .toList();
+            for (CompletableFuture<Outcome> future : futures) {
+                outcomes[future.join().ordinal()]++;
+            }
+
+            checked += page.size();
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    private long expireUnsentPayments(LocalDateTime cutoff) {
+        long expired = 0;
+        long afterId = 0;
+        while (true) {
+            List<Long> page = paymentRepository.findUnsentPaymentIdsAfter(
+                    Payment.PaymentStatus.PENDING, cutoff, afterId, PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                return expired;
+            }
+            for (Long paymentId : page) {
+                try {
+                    if (paymentService.expireUnsentPayment(paymentId)) {
+                        expired++;
+                    }
+                } catch (ObjectOptimisticLockingFailureException e) {
+                    // Updated concurrently; the next run looks at it again
+                    log.debug("Payment {} changed while expiring it", paymentId);
+                }
+            }
+            afterId = page.get(page.size() - 1);
+        }
+    }
+
+    private Outcome reconcile(Payment payment) {
+        String gateway = payment.getPaymentMethod().name();
+        Outcome outcome;
+        try {
+            rateLimiter.acquire(gateway);
+
+            long verifyStart = System.nanoTime();
+            GatewayVerification verification = paymentGatewayService.verifyPayment(payment.getGatewayRef());
+            Timer.builder("eduflow.payments.reconciliation.verify")
+                    .description("Gateway verification latency during reconciliation")
+                    .tag("gateway", gateway)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - verifyStart, TimeUnit.NANOSECONDS);
+
+            if (verification == GatewayVerification.UNKNOWN) {
+                outcome = Outcome.UNVERIFIED;
+            } else {
+                boolean confirmed = verification == GatewayVerification.CONFIRMED;
+                boolean transitioned = settle(payment, confirmed);
+                outcome = !transitioned ? Outcome.SKIPPED : confirmed ? Outcome.COMPLETED : Outcome.FAILED;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = Outcome.ERROR;
+        } catch (Exception e) {
+            log.warn("Failed to reconcile payment {}: {}", payment.getTransactionRef(), e.getMessage());
+            outcome = Outcome.ERROR;
+        }
+
+        Counter.builder("eduflow.payments.reconciliation.outcomes")
+                .description("Stale payments processed by reconciliation, by outcome")
+                .tag("outcome", outcome.name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+        return outcome;
+    }
+
+    // A webhook settling the same payment at the same time races on the payment's version;
+    // the status re-check in reconcileStalePayment makes a retry safe
+    private boolean settle(Payment payment, boolean verified) throws InterruptedException {
+        String responseData = "Reconciliation verify: " + (verified ? "SUCCESS" : "FAILED");
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return paymentService.reconcileStalePayment(payment.getId(), verified, responseData);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (attempt >= SETTLE_MAX_ATTEMPTS) {
+                    throw e;
+                }
+                TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(10, 50));
+            }
+        }
+    }
+
+    private enum Outcome {
+        COMPLETED, FAILED, UNVERIFIED, SKIPPED, ERROR
+    }
+}
@@ -0,0 +1,263 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.response.CollectionBreakdownResponse;
+import com.eduflow.dto.response.CollectionSeriesResponse;
+import com.eduflow.entity.finance.FeeCategory;
+import com.eduflow.entity.finance.Payment;
+import com.eduflow.entity.finance.PaymentDailyRollup;
+import com.eduflow.exception.BadRequestException;
+import com.eduflow.repository.finance.PaymentDailyRollupRepository;
+import com.eduflow.service.PaymentRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps payment_daily_rollup in step with completed payments and answers collection
+ * reports from it. Callers invoke {@link #recordCompleted} inside the transaction that
+ * completes the payment so the rollup commits or rolls back with it.
+ * <p>
+ * A rebuild never deletes and reinserts the table under the delta writers. It goes a month at a
+ * time, locking that month's rows before reading the payments. A writer that incremented a row
+ * first has committed by the time the lock is granted, so its payment is in the sums; a writer
+ * that comes later waits for the rebuilt row and adds its delta on top.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PaymentRollupServiceImpl implements PaymentRollupService {
+
+    private static final int CREATE_ATTEMPTS = 3;
+
+    private final PaymentDailyRollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    @Transactional
+    public void recordCompleted(Payment payment) {
+        recordCompleted(payment.getPaidAt().toLocalDate(), payment.getPaymentMethod(),
+                payment.getStudentFeeAssignment().getFee().getCategory().getName(), payment.getAmount(), 1);
+    }
+
+    @Override
+    @Transactional
+    public void recordCompleted(LocalDate collectionDate, Payment.PaymentMethod paymentMethod,
+                                FeeCategory.CategoryType category, BigDecimal amount, long paymentCount) {
+        String method = paymentMethod.name();
+        String categoryName = category.name();
+
+        // Atomic in-place increment; the row is only created the first time a day/method/category is seen.
+        // A rebuild may drop a still-empty row between the insert and the increment, hence the loop
+        int attempt = 0;
+        while (rollupRepository.applyDelta(collectionDate, method, categoryName, amount, paymentCount) == 0) {
+            if (++attempt > CREATE_ATTEMPTS) {
+                throw new IllegalStateException(
+                        "Could not create rollup row for " + collectionDate + " " + method + " " + categoryName);
+            }
+            try {
+                rollupRepository.insertMissing(collectionDate, method, categoryName);
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Rollup row for {} {} {} created concurrently", collectionDate, method, categoryName);
+            }
+        }
+    }
+
+    // Not @Transactional: each month commits on its own so row locks are held briefly
+    @Override
+    public int rebuildAllRollups() {
+        LocalDate first = null;
+        LocalDate last = null;
+        for (Object[] range : List.of(rollupRepository.findDateRange().get(0),
+                rollupRepository.findPaidAtRange(Payment.PaymentStatus.COMPLETED).get(0))) {
+            if (range[0] == null) {
+                continue;
+            }
+            LocalDate from = toLocalDate(range[0]);
+            LocalDate to = toLocalDate(range[1]);
+            first = first == null || from.isBefore(first) ? from : first;
+            last = last == null || to.isAfter(last) ? to : last;
+        }
+
+        int rows = 0;
+        if (first != null) {
+            for (LocalDate month = first.withDayOfMonth(1); !month.isAfter(last); month = month.plusMonths(1)) {
+                LocalDate from = month;
+                LocalDate to = month.with(TemporalAdjusters.lastDayOfMonth());
+                rows += transactionTemplate.execute(status -> rebuildRange(from, to));
+            }
+        }
+        log.info("Payment daily rollup rebuilt: {} rows", rows);
+        return rows;
+    }
+
+    private int rebuildRange(LocalDate from, LocalDate to) {
+        Map<RollupKey, PaymentDailyRollup> existing = new HashMap<>();
+        for (PaymentDailyRollup row : rollupRepository.lockRange(from, to)) {
+            existing.put(new RollupKey(row.getCollectionDate(), row.getPaymentMethod(), row.getCategory()), row);
+        }
+
+        List<Object[]> sums = rollupRepository.sumCompletedBetween(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        for (Object[] sum : sums) {
+            RollupKey key = new RollupKey(toLocalDate(sum[0]), Payment.PaymentMethod.valueOf((String) sum[1]),
+                    FeeCategory.CategoryType.valueOf((String) sum[2]));
+            PaymentDailyRollup row = existing.remove(key);
+            if (row != null) {
+                setTotals(row, (BigDecimal) sum[3], ((Number) sum[4]).longValue());
+            } else {
+                rebuildLateRow(key);
+            }
+        }
+
+        // Rows left over have no completed payments behind them
+        rollupRepository.deleteAll(existing.values());
+        return sums.size();
+    }
+
+    // The row did not exist when the month was locked, so a writer may be incrementing it now.
+    // Lock it first and only then sum its payments.
+    private void rebuildLateRow(RollupKey key) {
+        try {
+            rollupRepository.insertMissing(key.date(), key.method().name(), key.category().name());
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Rollup row for {} created concurrently during rebuild", key);
+        }
+        PaymentDailyRollup row = rollupRepository.findByCollectionDateAndPaymentMethodAndCategory(
+                key.date(), key.method(), key.category()).orElseThrow();
+
+        BigDecimal amount = BigDecimal.ZERO;
+        long count = 0;
+        for (Object[] sum : rollupRepository.sumCompletedBetween(
+                key.date().atStartOfDay(), key.date().plusDays(1).atStartOfDay())) {
+            if (key.method().name().equals(sum[1]) && key.category().name().equals(sum[2])) {
+                amount = (BigDecimal) sum[3];
+                count = ((Number) sum[4]).longValue();
+            }
+        }
+        setTotals(row, amount, count);
+    }
+
+    private static void setTotals(PaymentDailyRollup row, BigDecimal amount, long count) {
+        row.setTotalAmount(amount);
+        row.setPaymentCount(count);
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime.toLocalDate();
+        }
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CollectionSeriesResponse getCollectionSeries(LocalDate from, LocalDate to,
+                                                        CollectionSeriesResponse.Bucket bucket) {
+        validateRange(from, to);
+
+        // At most one row per day, so bucketing in memory stays cheap even over years
+        List<CollectionSeriesResponse.Point> points = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        long count = 0;
+        for (Object[] row : rollupRepository.sumByDate(from, to)) {
+            LocalDate periodStart = periodStart((LocalDate) row[0], bucket);
+            BigDecimal amount = (BigDecimal) row[1];
+            long payments = ((Number) row[2]).longValue();
+
+            CollectionSeriesResponse.Point last = points.isEmpty() ? null : points.get(points.size() - 1);
+            if (last != null && last.getPeriodStart().equals(periodStart)) {
+                last.setAmount(last.getAmount().add(amount));
+                last.setPaymentCount(last.getPaymentCount() + payments);
+            } else {
+                points.add(CollectionSeriesResponse.Point.builder()
+                        .periodStart(periodStart)
+                        .amount(amount)
+                        .paymentCount(payments)
+                        .build());
+            }
+            total = total.add(amount);
+            count += payments;
+        }
+
+        return CollectionSeriesResponse.builder()
+                .from(from)
+                .to(to)
+                .bucket(bucket)
+                .totalCollected(total)
+                .paymentCount(count)
+                .points(points)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CollectionBreakdownResponse getCollectionBreakdown(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+
+        Map<Payment.PaymentMethod, CollectionBreakdownResponse.Amount> byMethod =
+                new EnumMap<>(Payment.PaymentMethod.class);
+        BigDecimal total = BigDecimal.ZERO;
+        long count = 0;
+        for (Object[] row : rollupRepository.sumByPaymentMethod(from, to)) {
+            CollectionBreakdownResponse.Amount amount = toAmount(row);
+            byMethod.put((Payment.PaymentMethod) row[0], amount);
+            total = total.add(amount.getAmount());
+            count += amount.getPaymentCount();
+        }
+
+        Map<FeeCategory.CategoryType, CollectionBreakdownResponse.Amount> byCategory =
+                new EnumMap<>(FeeCategory.CategoryType.class);
+        for (Object[] row : rollupRepository.sumByCategory(from, to)) {
+            byCategory.put((FeeCategory.CategoryType) row[0], toAmount(row));
+        }
+
+        return CollectionBreakdownResponse.builder()
+                .from(from)
+                .to(to)
+                .totalCollected(total)
+                .paymentCount(count)
+                .byPaymentMethod(byMethod)
+                .byCategory(byCategory)
+                .build();
+    }
+
+    private static CollectionBreakdownResponse.Amount toAmount(Object[] row) {
+        return CollectionBreakdownResponse.Amount.builder()
+                .amount((BigDecimal) row[1])
+                .paymentCount(((Number) row[2]).longValue())
+                .build();
+    }
+
+    private static LocalDate periodStart(LocalDate date, CollectionSeriesResponse.Bucket bucket) {
+        return switch (bucket) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    private static void validateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("'from' must not be after 'to'");
+        }
+    }
+
+    private record RollupKey(LocalDate date, Payment.PaymentMethod method, FeeCategory.CategoryType category) {
+    }
+}
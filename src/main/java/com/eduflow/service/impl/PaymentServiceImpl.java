@@ -6,24 +6,31 @@ import com.eduflow.dto.response.PaymentResponse;
 import com.eduflow.entity.finance.Payment;
 import com.eduflow.entity.finance.PaymentTransaction;
 import com.eduflow.entity.finance.StudentFeeAssignment;
+import com.eduflow.entity.finance.StudentFeeLedger;
 import com.eduflow.exception.BadRequestException;
 import com.eduflow.exception.ResourceNotFoundException;
 import com.eduflow.repository.finance.PaymentRepository;
 import com.eduflow.repository.finance.PaymentTransactionRepository;
 import com.eduflow.repository.finance.StudentFeeAssignmentRepository;
+import com.eduflow.service.DashboardStatsService;
+import com.eduflow.service.PaymentPlanService;
+import com.eduflow.service.PaymentRollupService;
 import com.eduflow.service.PaymentService;
+import com.eduflow.service.StudentFeeLedgerService;
 import com.eduflow.service.payment.PaymentGatewayService;
+import com.eduflow.service.payment.TransactionRefGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.UUID;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -35,10 +42,70 @@ public class PaymentServiceImpl implements PaymentService {
     private final PaymentTransactionRepository transactionRepository;
     private final StudentFeeAssignmentRepository feeAssignmentRepository;
     private final PaymentGatewayService paymentGatewayService;
-
+    private final StudentFeeLedgerService ledgerService;
+    private final DashboardStatsService dashboardStatsService;
+    private final PaymentRollupService paymentRollupService;
+    private final PaymentPlanService paymentPlanService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionRefGenerator transactionRefGenerator;
+
+    /**
+     * Runs in two short transactions with the gateway call between them, so no connection or row
+     * lock is held while waiting on the network. A crash in between leaves the payment PENDING
+     * without a gateway reference; the reconciliation job fails it once it is stale.
+     */
     @Override
-    @Transactional
     public PaymentResponse initiatePayment(CreatePaymentRequest request) {
+        Payment created = transactionTemplate.execute(status -> createPendingPayment(request));
+
+        // For cash payments, complete immediately
+        if (request.getPaymentMethod() == Payment.PaymentMethod.CASH) {
+            return transactionTemplate.execute(status ->
+                    completeCashPayment(paymentRepository.findById(created.getId()).orElseThrow()));
+        }
+
+        // For electronic payments, initiate gateway transaction outside any DB transaction
+        String gatewayRef = null;
+        String failureReason = null;
+        try {
+            gatewayRef = paymentGatewayService.initiatePaymentAsync(created).join();
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error("Payment initiation failed: {}", cause.getMessage());
+            failureReason = cause.getMessage();
+        }
+
+        String initiatedRef = gatewayRef;
+        String initiationFailure = failureReason;
+        return transactionTemplate.execute(status -> {
+            Payment payment = paymentRepository.findById(created.getId()).orElseThrow();
+            if (initiatedRef != null) {
+                payment.setGatewayRef(initiatedRef);
+                payment.setStatus(Payment.PaymentStatus.PROCESSING);
+                dashboardStatsService.recordPaymentStatusChange(
+                        Payment.PaymentStatus.PENDING, Payment.PaymentStatus.PROCESSING, payment.getAmount());
+
+                PaymentTransaction transaction = PaymentTransaction.builder()
+                        .payment(payment)
+                        .transactionType(PaymentTransaction.TransactionType.INITIATION)
+                        .gatewayRef(initiatedRef)
+                        .status(PaymentTransaction.TransactionStatus.SUCCESS)
+                        .processedAt(LocalDateTime.now())
+                        .build();
+
+                payment.addTransaction(transaction);
+                log.info("Payment initiated: {} - Gateway ref: {}", payment.getTransactionRef(), initiatedRef);
+            } else {
+                dashboardStatsService.recordPaymentStatusChange(
+                        payment.getStatus(), Payment.PaymentStatus.FAILED, payment.getAmount());
+                payment.setStatus(Payment.PaymentStatus.FAILED);
+                payment.setFailureReason(initiationFailure);
+            }
+            return mapToPaymentResponse(paymentRepository.save(payment));
+        });
+    }
+
+    private Payment createPendingPayment(CreatePaymentRequest request) {
         StudentFeeAssignment feeAssignment = feeAssignmentRepository.findById(request.getStudentFeeAssignmentId())
                 .orElseThrow(() -> new ResourceNotFoundException("Fee Assignment", "id", request.getStudentFeeAssignmentId()));
 
@@ -51,13 +118,11 @@ public class PaymentServiceImpl implements PaymentService {
             throw new BadRequestException("Payment amount exceeds remaining balance");
         }
 
-        String transactionRef = generateTransactionRef();
-
         Payment payment = Payment.builder()
                 .studentFeeAssignment(feeAssignment)
                 .amount(request.getAmount())
                 .paymentMethod(request.getPaymentMethod())
-                .transactionRef(transactionRef)
+                .transactionRef(generateTransactionRef())
                 .status(Payment.PaymentStatus.PENDING)
                 .payerName(request.getPayerName())
                 .payerPhone(request.getPayerPhone())
@@ -66,38 +131,8 @@ public class PaymentServiceImpl implements PaymentService {
                 .build();
 
         payment = paymentRepository.save(payment);
-
-        // For cash payments, complete immediately
-        if (request.getPaymentMethod() == Payment.PaymentMethod.CASH) {
-            return completeCashPayment(payment);
-        }
-
-        // For electronic payments, initiate gateway transaction
-        try {
-            String gatewayRef = paymentGatewayService.initiatePayment(payment);
-            payment.setGatewayRef(gatewayRef);
-            payment.setStatus(Payment.PaymentStatus.PROCESSING);
-
-            PaymentTransaction transaction = PaymentTransaction.builder()
-                    .payment(payment)
-                    .transactionType(PaymentTransaction.TransactionType.INITIATION)
-                    .gatewayRef(gatewayRef)
-                    .status(PaymentTransaction.TransactionStatus.SUCCESS)
-                    .processedAt(LocalDateTime.now())
-                    .build();
-
-            payment.addTransaction(transaction);
-            payment = paymentRepository.save(payment);
-
-            log.info("Payment initiated: {} - Gateway ref: {}", transactionRef, gatewayRef);
-        } catch (Exception e) {
-            log.error("Payment initiation failed: {}", e.getMessage());
-            payment.setStatus(Payment.PaymentStatus.FAILED);
-            payment.setFailureReason(e.getMessage());
-            payment = paymentRepository.save(payment);
-        }
-
-        return mapToPaymentResponse(payment);
+        dashboardStatsService.recordPaymentCreated(payment.getStatus(), payment.getAmount());
+        return payment;
     }
 
     @Override
@@ -173,23 +208,66 @@ public class PaymentServiceImpl implements PaymentService {
         Payment payment = paymentRepository.findByGatewayRef(gatewayRef)
                 .orElseThrow(() -> new ResourceNotFoundException("Payment", "gatewayRef", gatewayRef));
 
+        payment = applyGatewayResult(payment, success, responseData, PaymentTransaction.TransactionType.CALLBACK);
+        return mapToPaymentResponse(payment);
+    }
+
+    @Override
+    @Transactional
+    public boolean reconcileStalePayment(Long paymentId, boolean success, String responseData) {
+        Payment payment = paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Payment", "id", paymentId));
+
+        // A webhook may have settled the payment since it was picked up
+        if (payment.getStatus() != Payment.PaymentStatus.PENDING
+                && payment.getStatus() != Payment.PaymentStatus.PROCESSING) {
+            return false;
+        }
+
+        applyGatewayResult(payment, success, responseData, PaymentTransaction.TransactionType.QUERY);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public boolean expireUnsentPayment(Long paymentId) {
+        Payment payment = paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Payment", "id", paymentId));
+
+        // The gateway call may have finished since the payment was picked up
+        if (payment.getStatus() != Payment.PaymentStatus.PENDING || payment.getGatewayRef() != null) {
+            return false;
+        }
+
+        dashboardStatsService.recordPaymentStatusChange(
+                Payment.PaymentStatus.PENDING, Payment.PaymentStatus.FAILED, payment.getAmount());
+        payment.setStatus(Payment.PaymentStatus.FAILED);
+        payment.setFailureReason("Payment was never sent to the gateway");
+        paymentRepository.save(payment);
+        log.warn("Expired unsent payment: {}", payment.getTransactionRef());
+        return true;
+    }
+
+    private Payment applyGatewayResult(Payment payment, boolean success, String responseData,
+                                       PaymentTransaction.TransactionType transactionType) {
+        // gateway_ref is unique per transaction row and already taken by the INITIATION row
         PaymentTransaction transaction = PaymentTransaction.builder()
                 .payment(payment)
-                .transactionType(PaymentTransaction.TransactionType.CALLBACK)
-                .gatewayRef(gatewayRef)
+                .transactionType(transactionType)
                 .gatewayResponse(responseData)
                 .processedAt(LocalDateTime.now())
                 .build();
 
+        Payment.PaymentStatus previousStatus = payment.getStatus();
+
         if (success) {
+            // The gateway has taken the money, so the payment is applied even if it now overpays the fee
+            applyToFeeAssignment(payment, lockFeeAssignment(payment));
             payment.setStatus(Payment.PaymentStatus.COMPLETED);
             payment.setPaidAt(LocalDateTime.now());
             transaction.setStatus(PaymentTransaction.TransactionStatus.SUCCESS);
-
-            // Update fee assignment
-            StudentFeeAssignment feeAssignment = payment.getStudentFeeAssignment();
-            feeAssignment.addPayment(payment.getAmount());
-            feeAssignmentRepository.save(feeAssignment);
+            paymentRollupService.recordCompleted(payment);
+            paymentPlanService.allocatePayment(payment);
 
             log.info("Payment completed: {} - Amount: {}", payment.getTransactionRef(), payment.getAmount());
         } else {
@@ -202,8 +280,9 @@ public class PaymentServiceImpl implements PaymentService {
 
         payment.addTransaction(transaction);
         payment = paymentRepository.save(payment);
+        dashboardStatsService.recordPaymentStatusChange(previousStatus, payment.getStatus(), payment.getAmount());
 
-        return mapToPaymentResponse(payment);
+        return payment;
     }
 
     @Override
@@ -216,6 +295,8 @@ public class PaymentServiceImpl implements PaymentService {
             throw new BadRequestException("Cannot cancel a completed payment");
         }
 
+        dashboardStatsService.recordPaymentStatusChange(
+                payment.getStatus(), Payment.PaymentStatus.CANCELLED, payment.getAmount());
         payment.setStatus(Payment.PaymentStatus.CANCELLED);
         payment.setFailureReason(reason);
         payment = paymentRepository.save(payment);
@@ -225,12 +306,28 @@ public class PaymentServiceImpl implements PaymentService {
     }
 
     private PaymentResponse completeCashPayment(Payment payment) {
+        // The balance was checked without a lock when the payment was created; payments that
+        // completed since then may have used it up
+        StudentFeeAssignment feeAssignment = lockFeeAssignment(payment);
+        if (payment.getAmount().compareTo(feeAssignment.getBalance()) > 0) {
+            dashboardStatsService.recordPaymentStatusChange(
+                    payment.getStatus(), Payment.PaymentStatus.FAILED, payment.getAmount());
+            payment.setStatus(Payment.PaymentStatus.FAILED);
+            payment.setFailureReason("Payment amount exceeds remaining balance");
+            payment = paymentRepository.save(payment);
+            log.warn("Cash payment rejected: {} - Amount {} exceeds balance {}",
+                    payment.getTransactionRef(), payment.getAmount(), feeAssignment.getBalance());
+            return mapToPaymentResponse(payment);
+        }
+
+        dashboardStatsService.recordPaymentStatusChange(
+                payment.getStatus(), Payment.PaymentStatus.COMPLETED, payment.getAmount());
         payment.setStatus(Payment.PaymentStatus.COMPLETED);
         payment.setPaidAt(LocalDateTime.now());
 
-        StudentFeeAssignment feeAssignment = payment.getStudentFeeAssignment();
-        feeAssignment.addPayment(payment.getAmount());
-        feeAssignmentRepository.save(feeAssignment);
+        applyToFeeAssignment(payment, feeAssignment);
+        paymentRollupService.recordCompleted(payment);
+        paymentPlanService.allocatePayment(payment);
 
         payment = paymentRepository.save(payment);
         log.info("Cash payment completed: {} - Amount: {}", payment.getTransactionRef(), payment.getAmount());
@@ -238,8 +335,28 @@ public class PaymentServiceImpl implements PaymentService {
         return mapToPaymentResponse(payment);
     }
 
+    /**
+     * Reads the payment's fee assignment under a row lock held until commit. A cash payment and a
+     * gateway completion for the same fee then apply one after the other; with only the @Version
+     * check, one of them would fail after the money was already taken.
+     */
+    private StudentFeeAssignment lockFeeAssignment(Payment payment) {
+        Long assignmentId = payment.getStudentFeeAssignment().getId();
+        return feeAssignmentRepository.findByIdForUpdate(assignmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Fee Assignment", "id", assignmentId));
+    }
+
+    private void applyToFeeAssignment(Payment payment, StudentFeeAssignment feeAssignment) {
+        StudentFeeLedger.Contribution before = StudentFeeLedger.Contribution.of(feeAssignment);
+        feeAssignment.addPayment(payment.getAmount());
+        feeAssignmentRepository.save(feeAssignment);
+        ledgerService.recordChange(before, feeAssignment);
+        dashboardStatsService.recordOutstandingChange(
+                StudentFeeLedger.Contribution.of(feeAssignment).outstanding().subtract(before.outstanding()));
+    }
+
     private String generateTransactionRef() {
-        return "PAY" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 6).toUpperCase();
+        return transactionRefGenerator.nextTransactionRef();
     }
 
     private PaymentResponse mapToPaymentResponse(Payment payment) {
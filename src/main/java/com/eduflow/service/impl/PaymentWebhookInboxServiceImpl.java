@@ -0,0 +1,294 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.request.PaymentWebhookRequest;
+import com.eduflow.dto.response.WebhookInboxDrainResponse;
+import com.eduflow.entity.finance.Payment;
+import com.eduflow.entity.finance.PaymentTransaction;
+import com.eduflow.entity.finance.PaymentWebhookEvent;
+import com.eduflow.exception.BadRequestException;
+import com.eduflow.exception.ResourceNotFoundException;
+import com.eduflow.repository.finance.PaymentRepository;
+import com.eduflow.repository.finance.PaymentTransactionRepository;
+import com.eduflow.repository.finance.PaymentWebhookEventRepository;
+import com.eduflow.repository.finance.PaymentWebhookInboxJdbcRepository;
+import com.eduflow.service.PaymentService;
+import com.eduflow.service.PaymentWebhookInboxService;
+import com.eduflow.service.payment.GatewayRefIdempotencyCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable inbox for payment gateway webhooks. The request thread only appends the raw payload;
+ * a worker pool drains the inbox in batches, applying each payment's events in arrival order
+ * and retrying failures with exponential backoff.
+ */
+@Slf4j
+@Service
+public class PaymentWebhookInboxServiceImpl implements PaymentWebhookInboxService {
+
+    private static final EnumSet<Payment.PaymentStatus> SETTLED_STATUSES = EnumSet.of(
+            Payment.PaymentStatus.COMPLETED, Payment.PaymentStatus.FAILED,
+            Payment.PaymentStatus.CANCELLED, Payment.PaymentStatus.REFUNDED);
+
+    private final PaymentWebhookInboxJdbcRepository inboxJdbcRepository;
+    private final PaymentWebhookEventRepository eventRepository;
+    private final PaymentRepository paymentRepository;
+    private final PaymentTransactionRepository transactionRepository;
+    private final PaymentService paymentService;
+    private final GatewayRefIdempotencyCache idempotencyCache;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final long claimLeaseMillis;
+
+    public PaymentWebhookInboxServiceImpl(PaymentWebhookInboxJdbcRepository inboxJdbcRepository,
+                                          PaymentWebhookEventRepository eventRepository,
+                                          PaymentRepository paymentRepository,
+                                          PaymentTransactionRepository transactionRepository,
+                                          PaymentService paymentService,
+                                          GatewayRefIdempotencyCache idempotencyCache,
+                                          TransactionTemplate transactionTemplate,
+                                          ObjectMapper objectMapper,
+                                          @Value("${payment.webhooks.workers:4}") int workers,
+                                          @Value("${payment.webhooks.batch-size:200}") int batchSize,
+                                          @Value("${payment.webhooks.max-attempts:5}") int maxAttempts,
+                                          @Value("${payment.webhooks.retry-backoff:5000}") long retryBackoffMillis,
+                                          @Value("${payment.webhooks.claim-lease:300000}") long claimLeaseMillis) {
+        this.inboxJdbcRepository = inboxJdbcRepository;
+        this.eventRepository = eventRepository;
+        this.paymentRepository = paymentRepository;
+        this.transactionRepository = transactionRepository;
+        this.paymentService = paymentService;
+        this.idempotencyCache = idempotencyCache;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.claimLeaseMillis = claimLeaseMillis;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "webhook-inbox-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public boolean enqueue(String rawPayload) {
+        PaymentWebhookRequest webhookData = parse(rawPayload);
+
+        // Gateway retries of events we have already applied are dropped without touching the database
+        if (idempotencyCache.isKnownDuplicate(webhookData.getTransactionId())) {
+            log.debug("Webhook already processed for transaction: {}", webhookData.getTransactionId());
+            return false;
+        }
+
+        // Partition by payment id so events carrying either reference are ordered together; events
+        // that overtake their payment are keyed by reference and resolved by the drainer
+        String partitionKey = inboxJdbcRepository.findPaymentId(
+                        webhookData.getGatewayReference(), webhookData.getMerchantReference())
+                .map(paymentId -> "P:" + paymentId)
+                .orElseGet(() -> webhookData.getGatewayReference() != null
+                        ? "G:" + webhookData.getGatewayReference()
+                        : "M:" + webhookData.getMerchantReference());
+
+        boolean appended = inboxJdbcRepository.append(
+                rawPayload, partitionKey, webhookData.getTransactionId(), webhookData.getEventType());
+        if (!appended) {
+            log.info("Webhook already received for transaction: {}", webhookData.getTransactionId());
+        }
+        return appended;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${payment.webhooks.drain-interval:1000}")
+    public synchronized WebhookInboxDrainResponse drainInbox() {
+        long start = System.nanoTime();
+        AtomicLong processed = new AtomicLong();
+        AtomicLong retried = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        int batches = 0;
+
+        while (true) {
+            inboxJdbcRepository.resolvePartitionKeys();
+            List<PaymentWebhookInboxJdbcRepository.InboxEvent> batch = inboxJdbcRepository.claimBatch(
+                    batchSize, LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(claimLeaseMillis)));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            // Events for one payment run sequentially on one worker; different payments run in parallel
+            Map<String, List<PaymentWebhookInboxJdbcRepository.InboxEvent>> partitions = new LinkedHashMap<>();
+            for (PaymentWebhookInboxJdbcRepository.InboxEvent event : batch) {
+                partitions.computeIfAbsent(event.partitionKey(), key -> new ArrayList<>()).add(event);
+            }
+
+            List<CompletableFuture<Void>> futures = partitions.values().stream()
+                    .map(events -> CompletableFuture.runAsync(
+                            () -> processPartition(events, processed, retried, failed), executor))
+                    .toList();
+            futures.forEach(CompletableFuture::join);
+            batches++;
+        }
+
+        long backlog = eventRepository.countByStatus(PaymentWebhookEvent.InboxStatus.RECEIVED);
+        if (batches > 0) {
+            log.info("Webhook inbox drained: {} processed, {} retried, {} failed, {} waiting",
+                    processed.get(), retried.get(), failed.get(), backlog);
+        }
+
+        return WebhookInboxDrainResponse.builder()
+                .eventsProcessed(processed.get())
+                .eventsRetried(retried.get())
+                .eventsFailed(failed.get())
+                .batchesProcessed(batches)
+                .backlog(backlog)
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                .build();
+    }
+
+    private void processPartition(List<PaymentWebhookInboxJdbcRepository.InboxEvent> events,
+                                  AtomicLong processed, AtomicLong retried, AtomicLong failed) {
+        for (int i = 0; i < events.size(); i++) {
+            PaymentWebhookInboxJdbcRepository.InboxEvent event = events.get(i);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    applyWebhook(event.rawPayload());
+                    inboxJdbcRepository.markProcessed(event.id());
+                });
+                processed.incrementAndGet();
+            } catch (Exception e) {
+                int attempts = event.attempts() + 1;
+                boolean exhausted = attempts >= maxAttempts;
+                long backoff = retryBackoffMillis << Math.min(attempts - 1, 10);
+                inboxJdbcRepository.markFailed(event.id(), attempts,
+                        LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(backoff)),
+                        e.getMessage(), exhausted);
+                (exhausted ? failed : retried).incrementAndGet();
+                log.warn("Webhook {} failed on attempt {}{}: {}", event.id(), attempts,
+                        exhausted ? " (giving up)" : "", e.getMessage());
+
+                // Later events for this payment wait behind the failed one
+                inboxJdbcRepository.release(events.subList(i + 1, events.size()).stream()
+                        .map(PaymentWebhookInboxJdbcRepository.InboxEvent::id)
+                        .toList());
+                return;
+            }
+        }
+    }
+
+    private void applyWebhook(String rawPayload) {
+        PaymentWebhookRequest webhookData = parse(rawPayload);
+
+        // Check for idempotency - prevent duplicate processing
+        if (idempotencyCache.isProcessed(webhookData.getTransactionId())) {
+            log.info("Webhook already processed for transaction: {}", webhookData.getTransactionId());
+            return;
+        }
+
+        Payment payment = paymentRepository.findByGatewayRef(webhookData.getGatewayReference())
+                .or(() -> paymentRepository.findByTransactionRef(webhookData.getMerchantReference()))
+                // The webhook can overtake the commit that stored the gateway reference; retry later
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Payment", "gatewayRef", webhookData.getGatewayReference()));
+
+        // Log the webhook transaction
+        PaymentTransaction transaction = PaymentTransaction.builder()
+                .payment(payment)
+                .transactionType(PaymentTransaction.TransactionType.WEBHOOK)
+                .gatewayRef(webhookData.getTransactionId())
+                .webhookPayload(rawPayload)
+                .processedAt(LocalDateTime.now())
+                .build();
+
+        // Process based on event type
+        boolean success = processWebhookEvent(webhookData, transaction);
+
+        transactionRepository.save(transaction);
+        idempotencyCache.markProcessed(webhookData.getTransactionId());
+
+        if (success && !SETTLED_STATUSES.contains(payment.getStatus())) {
+            paymentService.processPaymentCallback(
+                    webhookData.getGatewayReference(),
+                    "SUCCESS".equalsIgnoreCase(webhookData.getStatus()) ||
+                            "COMPLETED".equalsIgnoreCase(webhookData.getStatus()),
+                    rawPayload
+            );
+        }
+
+        log.debug("Webhook processed for payment: {}", payment.getTransactionRef());
+    }
+
+    private boolean processWebhookEvent(PaymentWebhookRequest webhookData, PaymentTransaction transaction) {
+        String eventType = webhookData.getEventType();
+        String status = webhookData.getStatus();
+
+        log.debug("Processing webhook event: type={}, status={}", eventType, status);
+
+        switch (eventType != null ? eventType.toUpperCase() : "") {
+            case "PAYMENT.SUCCESS", "PAYMENT.COMPLETED" -> {
+                transaction.setStatus(PaymentTransaction.TransactionStatus.SUCCESS);
+                return true;
+            }
+            case "PAYMENT.FAILED", "PAYMENT.DECLINED" -> {
+                transaction.setStatus(PaymentTransaction.TransactionStatus.FAILED);
+                transaction.setErrorMessage(webhookData.getFailureReason());
+                return true;
+            }
+            case "PAYMENT.PENDING" -> {
+                transaction.setStatus(PaymentTransaction.TransactionStatus.PENDING);
+                return false;
+            }
+            default -> {
+                // Handle status-based fallback
+                if ("SUCCESS".equalsIgnoreCase(status) || "COMPLETED".equalsIgnoreCase(status)) {
+                    transaction.setStatus(PaymentTransaction.TransactionStatus.SUCCESS);
+                    return true;
+                } else if ("FAILED".equalsIgnoreCase(status) || "DECLINED".equalsIgnoreCase(status)) {
+                    transaction.setStatus(PaymentTransaction.TransactionStatus.FAILED);
+                    return true;
+                }
+                log.warn("Unknown webhook event type: {}", eventType);
+                transaction.setStatus(PaymentTransaction.TransactionStatus.PENDING);
+                return false;
+            }
+        }
+    }
+
+    private PaymentWebhookRequest parse(String rawPayload) {
+        try {
+            return objectMapper.readValue(rawPayload, PaymentWebhookRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Invalid webhook payload");
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.entity.finance.StudentFeeAssignment;
+import com.eduflow.entity.finance.StudentFeeLedger;
+import com.eduflow.repository.finance.StudentFeeLedgerRepository;
+import com.eduflow.service.StudentFeeLedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps student_fee_ledger in step with fee assignment writes. Callers invoke it inside
+ * their own transaction so the ledger commits or rolls back with the assignment change.
+ * The overdue count follows the persisted OVERDUE status, which the overdue sweeper sets
+ * and then rebuilds the affected rows for.
+ */
+@Slf4j
+@Service
+public class StudentFeeLedgerServiceImpl implements StudentFeeLedgerService {
+
+    private static final int CREATE_ATTEMPTS = 3;
+
+    private final StudentFeeLedgerRepository ledgerRepository;
+    private final TransactionTemplate requiresNew;
+
+    public StudentFeeLedgerServiceImpl(StudentFeeLedgerRepository ledgerRepository,
+                                       PlatformTransactionManager transactionManager) {
+        this.ledgerRepository = ledgerRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    @Transactional
+    public void recordChange(StudentFeeLedger.Contribution before, StudentFeeAssignment after) {
+        StudentFeeLedger.Contribution current = StudentFeeLedger.Contribution.of(after);
+
+        BigDecimal feesDelta = current.netAmount().subtract(before.netAmount());
+        BigDecimal paidDelta = current.amountPaid().subtract(before.amountPaid());
+        int countDelta = current.fees() - before.fees();
+        int pendingDelta = current.pending() - before.pending();
+        int overdueDelta = current.overdue() - before.overdue();
+
+        if (feesDelta.signum() == 0 && paidDelta.signum() == 0
+                && countDelta == 0 && pendingDelta == 0 && overdueDelta == 0) {
+            return;
+        }
+
+        List<Long> studentIds = List.of(after.getStudent().getId());
+        String academicYear = after.getAcademicYear();
+
+        // Atomic in-place increments; the row is only created the first time a student is seen for a year
+        if (ledgerRepository.applyDelta(studentIds, academicYear,
+                feesDelta, paidDelta, countDelta, pendingDelta, overdueDelta) == 0) {
+            createMissingRows(studentIds, academicYear);
+            ledgerRepository.applyDelta(studentIds, academicYear,
+                    feesDelta, paidDelta, countDelta, pendingDelta, overdueDelta);
+        }
+    }
+
+    /**
+     * Applies the combined effect of several payments on one student's fees for a year, for
+     * callers that write assignments in bulk and never hold them as entities.
+     */
+    @Override
+    @Transactional
+    public void recordPayments(Long studentId, String academicYear, BigDecimal paid, int pendingDelta,
+                               int overdueDelta) {
+        List<Long> studentIds = List.of(studentId);
+        if (ledgerRepository.applyDelta(studentIds, academicYear,
+                BigDecimal.ZERO, paid, 0, pendingDelta, overdueDelta) == 0) {
+            createMissingRows(studentIds, academicYear);
+            ledgerRepository.applyDelta(studentIds, academicYear,
+                    BigDecimal.ZERO, paid, 0, pendingDelta, overdueDelta);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void recordBulkAssignment(Collection<Long> studentIds, String academicYear, BigDecimal netAmount) {
+        if (studentIds.isEmpty()) {
+            return;
+        }
+
+        createMissingRows(studentIds, academicYear);
+        ledgerRepository.applyDelta(studentIds, academicYear,
+                netAmount, BigDecimal.ZERO, 1, netAmount.signum() > 0 ? 1 : 0, 0);
+    }
+
+    /**
+     * Creates zero rows in their own transaction, so two writers opening the same student's year
+     * only collide here and never roll back the caller. The second insert in the caller's
+     * transaction picks up students the new transaction cannot see yet, such as ones it created.
+     */
+    private void createMissingRows(Collection<Long> studentIds, String academicYear) {
+        for (int attempt = 1; attempt <= CREATE_ATTEMPTS; attempt++) {
+            try {
+                requiresNew.executeWithoutResult(status -> ledgerRepository.insertMissing(studentIds, academicYear));
+                break;
+            } catch (DataIntegrityViolationException e) {
+                // The NOT EXISTS check skips the rows the other writer committed on the next attempt
+                log.debug("Ledger rows for {} students in {} created concurrently (attempt {})",
+                        studentIds.size(), academicYear, attempt);
+            }
+        }
+        ledgerRepository.insertMissing(studentIds, academicYear);
+    }
+
+    @Override
+    @Transactional
+    public void rebuildLedgers(Collection<Long> studentIds) {
+        if (studentIds.isEmpty()) {
+            return;
+        }
+
+        ledgerRepository.deleteByStudentIdIn(studentIds);
+        ledgerRepository.rebuildRows(studentIds);
+    }
+
+    @Override
+    @Transactional
+    public int rebuildAllLedgers() {
+        ledgerRepository.deleteAllRows();
+        int rows = ledgerRepository.rebuildAllRows();
+        log.info("Student fee ledger rebuilt: {} rows", rows);
+        return rows;
+    }
+}
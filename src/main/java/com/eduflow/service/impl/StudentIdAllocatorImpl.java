@@ -0,0 +1,118 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.repository.academic.IdSequenceRepository;
+import com.eduflow.repository.academic.StudentRepository;
+import com.eduflow.service.StudentIdAllocator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out student numbers ({@code STU<year><nnnn>}) from blocks reserved in the id_sequences
+ * table, one counter row per prefix. Each node reserves {@code students.id-block-size} numbers at a
+ * time in a short transaction of its own and then serves them from memory with an atomic counter,
+ * so an admission costs one database round trip per block instead of a MAX() scan over students,
+ * and two nodes can never hand out the same number.
+ *
+ * <p>Numbers left in a block when a node stops are skipped, so student numbers are unique and
+ * increasing per node but not gap-free.
+ */
+@Slf4j
+@Service
+public class StudentIdAllocatorImpl implements StudentIdAllocator {
+
+    private static final String PREFIX = "STU";
+
+    private final IdSequenceRepository idSequenceRepository;
+    private final StudentRepository studentRepository;
+    private final TransactionTemplate requiresNew;
+    private final int blockSize;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    public StudentIdAllocatorImpl(IdSequenceRepository idSequenceRepository,
+                                  StudentRepository studentRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${students.id-block-size:50}") int blockSize) {
+        this.idSequenceRepository = idSequenceRepository;
+        this.studentRepository = studentRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    @Override
+    public String nextStudentId() {
+        String prefix = PREFIX + LocalDate.now().getYear();
+        return format(prefix, next(prefix));
+    }
+
+    private long next(String prefix) {
+        Block block = blocks.get(prefix);
+        while (true) {
+            if (block != null) {
+                long value = block.next.getAndIncrement();
+                if (value < block.end) {
+                    return value;
+                }
+            }
+            block = refill(prefix, block);
+        }
+    }
+
+    /**
+     * Reserves a fresh block unless another thread already replaced {@code exhausted} meanwhile.
+     */
+    private synchronized Block refill(String prefix, Block exhausted) {
+        Block current = blocks.get(prefix);
+        if (current != exhausted) {
+            return current;
+        }
+
+        createSequenceIfMissing(prefix);
+        Long end = requiresNew.execute(status -> {
+            idSequenceRepository.advance(prefix, blockSize);
+            return idSequenceRepository.findNextValue(prefix);
+        });
+        Block block = new Block(end - blockSize, end);
+        blocks.put(prefix, block);
+        log.debug("Reserved student numbers {}-{} for {}", block.next.get(), end - 1, prefix);
+        return block;
+    }
+
+    private void createSequenceIfMissing(String prefix) {
+        if (idSequenceRepository.findNextValue(prefix) != null) {
+            return;
+        }
+        // First use of this prefix: continue after any numbers issued before the counter existed
+        Integer maxExisting = studentRepository.findMaxStudentIdNumber(prefix);
+        long initialValue = (maxExisting != null ? maxExisting : 0) + 1L;
+        try {
+            requiresNew.executeWithoutResult(status -> idSequenceRepository.insertMissing(prefix, initialValue));
+        } catch (DataIntegrityViolationException e) {
+            // Another node created it first
+        }
+    }
+
+    private static String format(String prefix, long number) {
+        return prefix + String.format("%04d", number);
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -18,7 +18,9 @@ import com.eduflow.repository.academic.SchoolClassRepository;
 import com.eduflow.repository.academic.StudentRepository;
 import com.eduflow.repository.user.RoleRepository;
 import com.eduflow.repository.user.UserRepository;
+import com.eduflow.service.DashboardStatsService;
 import com.eduflow.service.EmailService;
+import com.eduflow.service.StudentIdAllocator;
 import com.eduflow.service.StudentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -44,6 +46,8 @@ public class StudentServiceImpl implements StudentService {
     private final EnrollmentRepository enrollmentRepository;
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
+    private final DashboardStatsService dashboardStatsService;
+    private final StudentIdAllocator studentIdAllocator;
 
     @Override
     @Transactional
@@ -69,7 +73,7 @@ public class StudentServiceImpl implements StudentService {
         user.addRole(studentRole);
         user = userRepository.save(user);
 
-        String studentId = generateStudentId();
+        String studentId = studentIdAllocator.nextStudentId();
 
         Student student = Student.builder()
                 .studentId(studentId)
@@ -96,6 +100,7 @@ public class StudentServiceImpl implements StudentService {
         }
 
         student = studentRepository.save(student);
+        dashboardStatsService.recordStudentCreated();
         log.info("Student created successfully: {}", student.getStudentId());
 
         // Send welcome email with credentials asynchronously
@@ -254,14 +259,6 @@ public class StudentServiceImpl implements StudentService {
         return PagedResponse.of(content, page.getNumber(), page.getSize(), page.getTotalElements());
     }
 
-    private String generateStudentId() {
-        String year = String.valueOf(LocalDate.now().getYear());
-        String prefix = "STU" + year;
-        Integer maxNum = studentRepository.findMaxStudentIdNumber(prefix);
-        int nextNum = (maxNum != null ? maxNum : 0) + 1;
-        return prefix + String.format("%04d", nextNum);
-    }
-
     private StudentResponse mapToResponse(Student student) {
         StudentResponse.ClassSummary classSummary = null;
         if (student.getCurrentClass() != null) {
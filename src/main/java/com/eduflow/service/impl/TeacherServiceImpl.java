@@ -14,6 +14,7 @@ import com.eduflow.repository.academic.SubjectRepository;
 import com.eduflow.repository.academic.TeacherRepository;
 import com.eduflow.repository.user.RoleRepository;
 import com.eduflow.repository.user.UserRepository;
+import com.eduflow.service.DashboardStatsService;
 import com.eduflow.service.EmailService;
 import com.eduflow.service.TeacherService;
 import lombok.RequiredArgsConstructor;
@@ -41,6 +42,7 @@ public class TeacherServiceImpl implements TeacherService {
     private final SubjectRepository subjectRepository;
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
+    private final DashboardStatsService dashboardStatsService;
 
     @Override
     @Transactional
@@ -83,6 +85,7 @@ public class TeacherServiceImpl implements TeacherService {
         }
 
         teacher = teacherRepository.save(teacher);
+        dashboardStatsService.recordTeacherCreated();
         log.info("Teacher created: {}", teacher.getEmployeeId());
 
         // Send welcome email with credentials asynchronously
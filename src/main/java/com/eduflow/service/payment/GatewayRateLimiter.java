@@ -0,0 +1,40 @@
+package com.eduflow.service.payment;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spaces calls to each gateway evenly so that no gateway sees more than the configured
+ * number of requests per second, however many threads are calling.
+ */
+public class GatewayRateLimiter {
+
+    private final long intervalNanos;
+    private final Map<String, AtomicLong> nextSlots = new ConcurrentHashMap<>();
+
+    public GatewayRateLimiter(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+
+    /**
+     * Blocks until the caller may send the next request to {@code gateway}.
+     */
+    public void acquire(String gateway) throws InterruptedException {
+        AtomicLong nextSlot = nextSlots.computeIfAbsent(gateway, key -> new AtomicLong(System.nanoTime()));
+
+        long now = System.nanoTime();
+        // Reserve max(next, now) for this caller and push the next slot one interval further
+        long reserved = Math.max(now, nextSlot.getAndAccumulate(now,
+                (next, current) -> Math.max(next, current) + intervalNanos));
+
+        long waitNanos = reserved - now;
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
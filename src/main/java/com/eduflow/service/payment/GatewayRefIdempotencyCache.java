@@ -0,0 +1,160 @@
+package com.eduflow.service.payment;
+
+import com.eduflow.repository.finance.PaymentTransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, concurrent record of gateway transaction references that have already been applied,
+ * so duplicate webhooks are rejected without a database round trip. Entries expire after the
+ * configured TTL and the oldest are evicted first once the cache is full. Misses fall back to
+ * payment_transactions, and the cache is warmed from recent rows on startup.
+ *
+ * <p>Entries live in one insertion-ordered map behind a lock, so an expired entry leaves the
+ * eviction order together with its value and a re-added reference is queued exactly once.
+ */
+@Slf4j
+@Component
+public class GatewayRefIdempotencyCache implements ApplicationRunner {
+
+    private final PaymentTransactionRepository transactionRepository;
+    private final int maxSize;
+    private final Duration ttl;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<String, Long> expiresAtByRef;
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public GatewayRefIdempotencyCache(PaymentTransactionRepository transactionRepository,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${payment.idempotency.max-size:100000}") int maxSize,
+                                      @Value("${payment.idempotency.ttl:24h}") Duration ttl) {
+        this(transactionRepository, meterRegistry, maxSize, ttl, System::nanoTime);
+    }
+
+    GatewayRefIdempotencyCache(PaymentTransactionRepository transactionRepository, MeterRegistry meterRegistry,
+                               int maxSize, Duration ttl, LongSupplier nanoClock) {
+        this.transactionRepository = transactionRepository;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.nanoClock = nanoClock;
+        this.expiresAtByRef = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.hits = Counter.builder("eduflow.payments.idempotency.cache")
+                .description("Gateway reference duplicate checks answered from memory")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("eduflow.payments.idempotency.cache")
+                .description("Gateway reference duplicate checks that fell back to the database")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("eduflow.payments.idempotency.cache.size", this, GatewayRefIdempotencyCache::size)
+                .description("Gateway references held in the idempotency cache")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> recent = transactionRepository.findRecentWebhookGatewayRefs(
+                LocalDateTime.now().minus(ttl), PageRequest.of(0, maxSize));
+        // Oldest first, so the most recent references are the last to be evicted
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            remember(recent.get(i));
+        }
+        log.info("Idempotency cache warmed with {} gateway references", recent.size());
+    }
+
+    /**
+     * Answers from memory only. A false result does not mean the reference is new.
+     */
+    public boolean isKnownDuplicate(String gatewayRef) {
+        if (gatewayRef == null) {
+            return false;
+        }
+        boolean known = contains(gatewayRef);
+        (known ? hits : misses).increment();
+        return known;
+    }
+
+    /**
+     * Whether a gateway reference has already been applied, checking the database on a cache miss.
+     */
+    public boolean isProcessed(String gatewayRef) {
+        if (isKnownDuplicate(gatewayRef)) {
+            return true;
+        }
+        if (gatewayRef == null) {
+            return false;
+        }
+
+        boolean processed = transactionRepository.existsByGatewayRef(gatewayRef);
+        if (processed) {
+            remember(gatewayRef);
+        }
+        return processed;
+    }
+
+    /**
+     * Records a gateway reference as applied once the surrounding transaction commits,
+     * so a rolled-back attempt is not treated as a duplicate on retry.
+     */
+    public void markProcessed(String gatewayRef) {
+        if (gatewayRef == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(gatewayRef);
+                }
+            });
+        } else {
+            remember(gatewayRef);
+        }
+    }
+
+    synchronized int size() {
+        return expiresAtByRef.size();
+    }
+
+    private synchronized boolean contains(String gatewayRef) {
+        Long expiresAt = expiresAtByRef.get(gatewayRef);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt - nanoClock.getAsLong() < 0) {
+            expiresAtByRef.remove(gatewayRef);
+            return false;
+        }
+        return true;
+    }
+
+    // Removing first moves a refreshed reference to the young end, in step with its new expiry
+    private synchronized void remember(String gatewayRef) {
+        expiresAtByRef.remove(gatewayRef);
+        expiresAtByRef.put(gatewayRef, nanoClock.getAsLong() + ttl.toNanos());
+    }
+}
@@ -0,0 +1,12 @@
+package com.eduflow.service.payment;
+
+/**
+ * What the gateway says about a payment when asked. Only {@link #DECLINED} is final enough to
+ * fail a payment; {@link #UNKNOWN} covers payments the gateway has not settled yet and answers
+ * it does not recognise, and is left for a later check.
+ */
+public enum GatewayVerification {
+    CONFIRMED,
+    DECLINED,
+    UNKNOWN
+}
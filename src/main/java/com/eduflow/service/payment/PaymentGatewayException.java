@@ -0,0 +1,16 @@
+package com.eduflow.service.payment;
+
+/**
+ * The gateway could not be reached or rejected the request. Distinct from a gateway
+ * answer such as "payment declined", which is returned as a normal result.
+ */
+public class PaymentGatewayException extends RuntimeException {
+
+    public PaymentGatewayException(String message) {
+        super(message);
+    }
+
+    public PaymentGatewayException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -2,11 +2,30 @@ package com.eduflow.service.payment;
 
 import com.eduflow.entity.finance.Payment;
 
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
 public interface PaymentGatewayService {
 
     String initiatePayment(Payment payment);
 
-    boolean verifyPayment(String gatewayRef);
+    /**
+     * @return the gateway's verdict on the payment
+     * @throws PaymentGatewayException if the gateway could not be asked
+     */
+    GatewayVerification verifyPayment(String gatewayRef);
+
+    void processRefund(String gatewayRef, BigDecimal amount);
+
+    CompletableFuture<String> initiatePaymentAsync(Payment payment);
+
+    CompletableFuture<GatewayVerification> verifyPaymentAsync(String gatewayRef);
+
+    CompletableFuture<Void> processRefundAsync(String gatewayRef, BigDecimal amount);
 
-    void processRefund(String gatewayRef, java.math.BigDecimal amount);
+    /**
+     * @return whether responses are generated locally instead of coming from the gateway, in which
+     *         case they say nothing about whether money was collected
+     */
+    boolean isSimulated();
 }
@@ -1,136 +1,257 @@
 package com.eduflow.service.payment;
 
 import com.eduflow.entity.finance.Payment;
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
 
+/**
+ * Gateway client on a shared JDK {@link HttpClient}, which keeps HTTP/1.1 connections alive and
+ * reuses them across calls. Every call is bounded by a request timeout, a bulkhead that caps
+ * in-flight requests (excess calls fail fast instead of queueing), and a circuit breaker that stops
+ * calling a gateway which keeps failing.
+ *
+ * <p>With {@code payment.gateway.simulated} set, no request is sent and responses are generated
+ * locally, as before a live gateway is configured; verification then always answers UNKNOWN.
+ * It is off unless set explicitly, so a deploy without it calls the configured gateway.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class PaymentGatewayServiceImpl implements PaymentGatewayService {
 
-    @Value("${payment.gateway.base-url}")
-    private String gatewayBaseUrl;
+    private static final TypeReference<Map<String, Object>> JSON_MAP = new TypeReference<>() {};
 
-    @Value("${payment.gateway.api-key}")
-    private String apiKey;
+    private final String gatewayBaseUrl;
+    private final String apiKey;
+    private final boolean simulated;
+    private final Duration requestTimeout;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final Semaphore bulkhead;
+    private final GatewayCircuitBreaker circuitBreaker;
 
-    @Value("${payment.gateway.secret-key}")
-    private String secretKey;
-
-    private final RestTemplate restTemplate = new RestTemplate();
+    public PaymentGatewayServiceImpl(
+            @Value("${payment.gateway.base-url}") String gatewayBaseUrl,
+            @Value("${payment.gateway.api-key}") String apiKey,
+            @Value("${payment.gateway.simulated:false}") boolean simulated,
+            @Value("${payment.gateway.connect-timeout:5000}") long connectTimeoutMillis,
+            @Value("${payment.gateway.timeout:30000}") long requestTimeoutMillis,
+            @Value("${payment.gateway.max-concurrent-calls:50}") int maxConcurrentCalls,
+            @Value("${payment.gateway.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${payment.gateway.circuit-breaker.open-duration:30000}") long openDurationMillis,
+            ObjectMapper objectMapper) {
+        this.gatewayBaseUrl = gatewayBaseUrl.endsWith("/")
+                ? gatewayBaseUrl.substring(0, gatewayBaseUrl.length() - 1)
+                : gatewayBaseUrl;
+        this.apiKey = apiKey;
+        this.simulated = simulated;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMillis);
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .build();
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.circuitBreaker = new GatewayCircuitBreaker(failureThreshold, Duration.ofMillis(openDurationMillis));
+    }
 
     @Override
     public String initiatePayment(Payment payment) {
+        return await(initiatePaymentAsync(payment));
+    }
+
+    @Override
+    public GatewayVerification verifyPayment(String gatewayRef) {
+        return await(verifyPaymentAsync(gatewayRef));
+    }
+
+    @Override
+    public void processRefund(String gatewayRef, BigDecimal amount) {
+        await(processRefundAsync(gatewayRef, amount));
+    }
+
+    @Override
+    public CompletableFuture<String> initiatePaymentAsync(Payment payment) {
         log.info("Initiating payment with gateway: amount={}, method={}",
                 payment.getAmount(), payment.getPaymentMethod());
 
-        // In production, this would make actual API calls to the payment gateway
-        // For now, we'll simulate the gateway response
-
-        try {
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("amount", payment.getAmount());
-            requestBody.put("currency", "ZMW");
-            requestBody.put("reference", payment.getTransactionRef());
-            requestBody.put("payment_method", mapPaymentMethod(payment.getPaymentMethod()));
-            requestBody.put("customer_phone", payment.getPayerPhone());
-            requestBody.put("customer_email", payment.getPayerEmail());
-            requestBody.put("customer_name", payment.getPayerName());
-            requestBody.put("callback_url", getCallbackUrl());
-
-            HttpHeaders headers = createHeaders();
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-
-            // Simulated gateway reference - in production this comes from the actual API response
+        if (simulated) {
             String gatewayRef = "GW" + UUID.randomUUID().toString().substring(0, 12).toUpperCase();
-
             log.info("Payment gateway reference generated: {}", gatewayRef);
-            return gatewayRef;
-
-            // Actual API call would be:
-            // ResponseEntity<Map> response = restTemplate.postForEntity(
-            //     gatewayBaseUrl + "/payments/initiate",
-            //     request,
-            //     Map.class
-            // );
-            // return (String) response.getBody().get("gateway_reference");
-
-        } catch (Exception e) {
-            log.error("Failed to initiate payment with gateway: {}", e.getMessage());
-            throw new RuntimeException("Payment gateway error: " + e.getMessage());
+            return CompletableFuture.completedFuture(gatewayRef);
         }
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("amount", payment.getAmount());
+        requestBody.put("currency", "ZMW");
+        requestBody.put("reference", payment.getTransactionRef());
+        requestBody.put("payment_method", mapPaymentMethod(payment.getPaymentMethod()));
+        requestBody.put("customer_phone", payment.getPayerPhone());
+        requestBody.put("customer_email", payment.getPayerEmail());
+        requestBody.put("customer_name", payment.getPayerName());
+        requestBody.put("callback_url", getCallbackUrl());
+
+        return send(post("/payments/initiate", requestBody)).thenApply(body -> {
+            Object gatewayRef = body.get("gateway_reference");
+            if (gatewayRef == null) {
+                throw new PaymentGatewayException("Gateway response has no gateway_reference");
+            }
+            log.info("Payment gateway reference received: {}", gatewayRef);
+            return gatewayRef.toString();
+        });
     }
 
     @Override
-    public boolean verifyPayment(String gatewayRef) {
+    public CompletableFuture<GatewayVerification> verifyPaymentAsync(String gatewayRef) {
         log.info("Verifying payment with gateway: {}", gatewayRef);
 
-        try {
-            HttpHeaders headers = createHeaders();
-            HttpEntity<Void> request = new HttpEntity<>(headers);
-
-            // In production:
-            // ResponseEntity<Map> response = restTemplate.exchange(
-            //     gatewayBaseUrl + "/payments/" + gatewayRef + "/verify",
-            //     HttpMethod.GET,
-            //     request,
-            //     Map.class
-            // );
-            // return "SUCCESS".equals(response.getBody().get("status"));
-
-            // Simulated verification
-            return true;
-
-        } catch (Exception e) {
-            log.error("Failed to verify payment: {}", e.getMessage());
-            return false;
+        // A simulated gateway never took the money, so it cannot vouch for a payment either way
+        if (simulated) {
+            return CompletableFuture.completedFuture(GatewayVerification.UNKNOWN);
         }
+
+        HttpRequest request = requestBuilder("/payments/" + gatewayRef + "/verify").GET().build();
+        return send(request).thenApply(body -> mapVerification(body.get("status")));
     }
 
     @Override
-    public void processRefund(String gatewayRef, BigDecimal amount) {
+    public CompletableFuture<Void> processRefundAsync(String gatewayRef, BigDecimal amount) {
         log.info("Processing refund for payment: {} amount: {}", gatewayRef, amount);
 
+        if (simulated) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("gateway_reference", gatewayRef);
+        requestBody.put("amount", amount);
+        requestBody.put("reason", "Customer requested refund");
+
+        return send(post("/payments/refund", requestBody))
+                .thenAccept(body -> log.info("Refund processed successfully for: {}", gatewayRef));
+    }
+
+    @Override
+    public boolean isSimulated() {
+        return simulated;
+    }
+
+    public GatewayCircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private CompletableFuture<Map<String, Object>> send(HttpRequest request) {
+        if (!bulkhead.tryAcquire()) {
+            return CompletableFuture.failedFuture(
+                    new PaymentGatewayException("Too many concurrent payment gateway calls"));
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            bulkhead.release();
+            return CompletableFuture.failedFuture(
+                    new PaymentGatewayException("Payment gateway circuit is open"));
+        }
+
+        CompletableFuture<HttpResponse<String>> response;
+        try {
+            response = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            circuitBreaker.onFailure();
+            return CompletableFuture.failedFuture(new PaymentGatewayException("Payment gateway error: " + e.getMessage(), e));
+        }
+
+        return response
+                .whenComplete((r, e) -> {
+                    bulkhead.release();
+                    if (e == null && r.statusCode() < 500) {
+                        circuitBreaker.onSuccess();
+                    } else {
+                        circuitBreaker.onFailure();
+                    }
+                })
+                .handle((r, e) -> {
+                    if (e != null) {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        log.error("Payment gateway call {} {} failed: {}",
+                                request.method(), request.uri().getPath(), cause.toString());
+                        throw new PaymentGatewayException("Payment gateway error: " + cause.getMessage(), cause);
+                    }
+                    if (r.statusCode() >= 300) {
+                        log.error("Payment gateway call {} {} returned HTTP {}",
+                                request.method(), request.uri().getPath(), r.statusCode());
+                        throw new PaymentGatewayException("Payment gateway returned HTTP " + r.statusCode());
+                    }
+                    return parse(r.body());
+                });
+    }
+
+    private Map<String, Object> parse(String body) {
+        if (body == null || body.isBlank()) {
+            return Map.of();
+        }
         try {
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("gateway_reference", gatewayRef);
-            requestBody.put("amount", amount);
-            requestBody.put("reason", "Customer requested refund");
-
-            HttpHeaders headers = createHeaders();
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-
-            // In production:
-            // restTemplate.postForEntity(
-            //     gatewayBaseUrl + "/payments/refund",
-            //     request,
-            //     Map.class
-            // );
-
-            log.info("Refund processed successfully for: {}", gatewayRef);
-
-        } catch (Exception e) {
-            log.error("Failed to process refund: {}", e.getMessage());
-            throw new RuntimeException("Refund processing failed: " + e.getMessage());
+            return objectMapper.readValue(body, JSON_MAP);
+        } catch (JsonProcessingException e) {
+            throw new PaymentGatewayException("Unreadable payment gateway response", e);
         }
     }
 
-    private HttpHeaders createHeaders() {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("Authorization", "Bearer " + apiKey);
-        headers.set("X-API-Key", apiKey);
-        return headers;
+    private HttpRequest post(String path, Map<String, Object> body) {
+        try {
+            return requestBuilder(path)
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new PaymentGatewayException("Could not serialise payment gateway request", e);
+        }
+    }
+
+    private HttpRequest.Builder requestBuilder(String path) {
+        return HttpRequest.newBuilder(URI.create(gatewayBaseUrl + path))
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .header("Authorization", "Bearer " + apiKey)
+                .header("X-API-Key", apiKey);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new PaymentGatewayException("Payment gateway error: " + e.getMessage(), e);
+        }
+    }
+
+    // Anything other than a final answer, including a status this client does not know, is UNKNOWN
+    private GatewayVerification mapVerification(Object status) {
+        if (status == null) {
+            return GatewayVerification.UNKNOWN;
+        }
+        return switch (status.toString()) {
+            case "SUCCESS" -> GatewayVerification.CONFIRMED;
+            case "FAILED", "DECLINED", "CANCELLED", "EXPIRED" -> GatewayVerification.DECLINED;
+            default -> GatewayVerification.UNKNOWN;
+        };
     }
 
     private String mapPaymentMethod(Payment.PaymentMethod method) {
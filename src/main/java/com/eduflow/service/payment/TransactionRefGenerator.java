@@ -0,0 +1,117 @@
+package com.eduflow.service.payment;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered, lock-free generator for payment transaction references, laid out like a Snowflake
+ * id: 41 bits of milliseconds since 2024-01-01, a 10-bit node id and a 12-bit per-millisecond
+ * sequence. Ids from one node never repeat and always increase; ids from different nodes cannot
+ * collide as long as every node is configured with its own {@code payment.transaction-ref.node-id}.
+ *
+ * <p>The last (millisecond, sequence) pair handed out is kept in a single {@link AtomicLong} and
+ * advanced with compare-and-set. When more than 4096 ids are requested in one millisecond, or the
+ * wall clock steps backwards, the generator keeps counting from the last pair instead of blocking,
+ * so its timestamp runs briefly ahead of the clock until the clock catches up.
+ *
+ * <p>References are rendered as {@code PAY} followed by the id in 13 Crockford base32 characters,
+ * e.g. {@code PAY0C4XJ1TZ8G01Q}: fixed width, so they sort in issue order as plain strings, and
+ * free of the easily confused letters I, L, O and U.
+ */
+@Slf4j
+@Component
+public class TransactionRefGenerator {
+
+    public static final String PREFIX = "PAY";
+
+    static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final int ENCODED_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    // Clock steps larger than this are logged; smaller ones are ordinary NTP slew
+    private static final long SKEW_WARN_MILLIS = 1000;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    // (milliseconds since epoch << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+
+    @Autowired
+    public TransactionRefGenerator(@Value("${payment.transaction-ref.node-id:-1}") long nodeId) {
+        this(nodeId >= 0 ? nodeId : nodeIdFromHostName(), System::currentTimeMillis);
+    }
+
+    TransactionRefGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Transaction ref node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+        log.info("Transaction reference generator using node id {}", nodeId);
+    }
+
+    public String nextTransactionRef() {
+        return format(nextId());
+    }
+
+    public long nextId() {
+        while (true) {
+            long previous = last.get();
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+            long candidate = now << SEQUENCE_BITS;
+            // Same millisecond, sequence exhausted or clock behind: continue from the last pair.
+            // A sequence overflow carries into the timestamp bits, i.e. borrows the next millisecond.
+            long next = candidate > previous ? candidate : previous + 1;
+            if (last.compareAndSet(previous, next)) {
+                long lag = (previous >>> SEQUENCE_BITS) - now;
+                if (lag > SKEW_WARN_MILLIS) {
+                    log.warn("System clock is {} ms behind the last transaction ref timestamp", lag);
+                }
+                return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS))
+                        | (nodeId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public static String format(long id) {
+        char[] chars = new char[PREFIX.length() + ENCODED_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return when the id behind a reference was issued, to the millisecond
+     */
+    public static Instant issuedAt(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS);
+    }
+
+    private static long nodeIdFromHostName() {
+        try {
+            long derived = Math.floorMod(InetAddress.getLocalHost().getHostName().hashCode(), MAX_NODE_ID + 1);
+            log.warn("payment.transaction-ref.node-id is not set, derived node id {} from the host name; " +
+                    "set it explicitly when running more than one instance", derived);
+            return derived;
+        } catch (UnknownHostException e) {
+            log.warn("payment.transaction-ref.node-id is not set and the host name is unknown, using node id 0");
+            return 0;
+        }
+    }
+}
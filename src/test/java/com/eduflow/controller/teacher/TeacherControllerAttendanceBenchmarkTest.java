@@ -0,0 +1,146 @@
+package com.eduflow.controller.teacher;
+
+import com.eduflow.dto.response.AttendanceResponse;
+import com.eduflow.entity.academic.Attendance;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Simulates morning roll-call: 200 classes of 40 students submit their attendance at the same
+ * moment, then every class corrects its roster, and checks that each student ends up with
+ * exactly one row carrying the last status submitted.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:attendancebench;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=30000",
+        "spring.datasource.hikari.maximum-pool-size=20"
+})
+@ActiveProfiles("test")
+class TeacherControllerAttendanceBenchmarkTest {
+
+    private static final int CLASSES = 200;
+    private static final int STUDENTS_PER_CLASS = 40;
+    private static final int THREADS = 16;
+    private static final String TEACHER_EMAIL = "rollcall.teacher@eduflow.test";
+
+    @Autowired
+    private TeacherController teacherController;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void twoHundredClassesMarkAttendanceAtOnce() throws Exception {
+        Map<Long, List<Long>> rosters = seedRosters();
+        LocalDate today = LocalDate.now();
+        UserDetails teacher = User.withUsername(TEACHER_EMAIL).password("x").roles("TEACHER").build();
+
+        submitAll(rosters, today, teacher, Attendance.AttendanceStatus.PRESENT);
+        assertThat(countByStatus(today, "PRESENT")).isEqualTo((long) CLASSES * STUDENTS_PER_CLASS);
+
+        // Late arrivals are corrected in place rather than added as new rows
+        submitAll(rosters, today, teacher, Attendance.AttendanceStatus.LATE);
+
+        assertThat(countByStatus(today, "LATE")).isEqualTo((long) CLASSES * STUDENTS_PER_CLASS);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM attendance WHERE date = ?", Long.class, today))
+                .isEqualTo((long) CLASSES * STUDENTS_PER_CLASS);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT student_id) FROM attendance WHERE date = ?", Long.class, today))
+                .isEqualTo((long) CLASSES * STUDENTS_PER_CLASS);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM attendance WHERE date = ? AND version = 1 AND marked_by IS NOT NULL",
+                Long.class, today)).isEqualTo((long) CLASSES * STUDENTS_PER_CLASS);
+
+        // A repeated student in one submission keeps the last mark, as the per-row loop did
+        Map.Entry<Long, List<Long>> firstClass = rosters.entrySet().iterator().next();
+        long studentId = firstClass.getValue().get(0);
+        List<AttendanceResponse> responses = teacherController.markAttendance(firstClass.getKey(), today,
+                List.of(mark(studentId, Attendance.AttendanceStatus.ABSENT),
+                        mark(studentId, Attendance.AttendanceStatus.EXCUSED)), teacher).getBody();
+        assertThat(responses).singleElement().satisfies(response -> {
+            assertThat(response.getStatus()).isEqualTo(Attendance.AttendanceStatus.EXCUSED);
+            assertThat(response.getMarkedByName()).isEqualTo("Rollcall Teacher");
+        });
+    }
+
+    private void submitAll(Map<Long, List<Long>> rosters, LocalDate date, UserDetails teacher,
+                           Attendance.AttendanceStatus status) throws Exception {
+        List<Callable<List<AttendanceResponse>>> tasks = new ArrayList<>();
+        rosters.forEach((classId, studentIds) -> {
+            List<TeacherController.MarkAttendanceRequest> requests = studentIds.stream()
+                    .map(studentId -> mark(studentId, status))
+                    .toList();
+            tasks.add(() -> teacherController.markAttendance(classId, date, requests, teacher).getBody());
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<AttendanceResponse>>> futures = new ArrayList<>();
+            for (Callable<List<AttendanceResponse>> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<List<AttendanceResponse>> future : futures) {
+                assertThat(future.get(120, TimeUnit.SECONDS))
+                        .hasSize(STUDENTS_PER_CLASS)
+                        .allSatisfy(response -> assertThat(response.getStatus()).isEqualTo(status));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static TeacherController.MarkAttendanceRequest mark(long studentId, Attendance.AttendanceStatus status) {
+        TeacherController.MarkAttendanceRequest request = new TeacherController.MarkAttendanceRequest();
+        request.setStudentId(studentId);
+        request.setStatus(status);
+        return request;
+    }
+
+    private long countByStatus(LocalDate date, String status) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM attendance WHERE date = ? AND status = ?", Long.class, date, status);
+    }
+
+    private Map<Long, List<Long>> seedRosters() {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        data.insertTeacher(data.insertUser(TEACHER_EMAIL, "Rollcall", "Teacher"), "ROLLCALL01");
+        data.insertUsers("rollcall.student", "Rollcall", CLASSES * STUDENTS_PER_CLASS);
+        List<Long> studentIds = data.insertStudents("rollcall.student", "ROLL", null);
+        // Students are spread over the classes in id order, STUDENTS_PER_CLASS to each
+        Map<Long, List<Long>> rosters = new LinkedHashMap<>();
+        List<Object[]> placements = new ArrayList<>();
+        for (int i = 0; i < CLASSES; i++) {
+            long classId = data.insertClass("Rollcall " + i, 1 + i % 12, "2026");
+            List<Long> roster = studentIds.subList(i * STUDENTS_PER_CLASS, (i + 1) * STUDENTS_PER_CLASS);
+            roster.forEach(studentId -> placements.add(new Object[]{classId, studentId}));
+            rosters.put(classId, roster);
+        }
+        jdbcTemplate.batchUpdate("UPDATE students SET current_class_id = ? WHERE id = ?", placements);
+        return rosters;
+    }
+}
@@ -0,0 +1,96 @@
+package com.eduflow.security.hmac;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Allocation comparison of the per-call HMAC path against the reusable per-thread path,
+ * measured with the JVM's per-thread allocation counter.
+ */
+class HmacSignatureVerifierBenchmarkTest {
+
+    private static final String SECRET = "current-webhook-secret";
+    private static final String PREVIOUS_SECRET = "previous-webhook-secret";
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 100_000;
+
+    private final String payload = "{\"eventType\":\"PAYMENT.SUCCESS\",\"gatewayReference\":\"GW1234567890AB\"," +
+            "\"merchantReference\":\"PAY1700000000000ABCDEF\",\"status\":\"SUCCESS\",\"amount\":1500.00," +
+            "\"currency\":\"ZMW\",\"paymentMethod\":\"mtn_momo\",\"transactionId\":\"TX-0001\"}";
+    private final byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void acceptsCurrentAndPreviousSecretsOnly() {
+        HmacSignatureVerifier verifier = new HmacSignatureVerifier(SECRET, new String[]{PREVIOUS_SECRET});
+
+        assertThat(verifier.verifySignature(payloadBytes, sign(SECRET))).isTrue();
+        assertThat(verifier.verifySignature(payload, sign(PREVIOUS_SECRET))).isTrue();
+        assertThat(verifier.verifySignature(payloadBytes, sign("unknown-secret"))).isFalse();
+        assertThat(verifier.verifySignature(payloadBytes, "not base64!")).isFalse();
+        assertThat(verifier.verifySignature(payloadBytes, "c2hvcnQ=")).isFalse();
+        assertThat(verifier.calculateHmacSignature(payload)).isEqualTo(sign(SECRET));
+    }
+
+    @Test
+    void reusablePathAllocatesLessThanPerCallPath() {
+        HmacSignatureVerifier verifier = new HmacSignatureVerifier(SECRET, new String[0]);
+        String signature = sign(SECRET);
+
+        long before = bytesPerOp(() -> legacyVerify(payload, signature));
+        long after = bytesPerOp(() -> verifier.verifySignature(payloadBytes, signature));
+
+        assertThat(after).isLessThan(before);
+    }
+
+    private long bytesPerOp(BooleanSupplier verification) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            assertThat(verification.getAsBoolean()).isTrue();
+        }
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        boolean all = true;
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            all &= verification.getAsBoolean();
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertThat(all).isTrue();
+        return allocated / MEASURED_ITERATIONS;
+    }
+
+    // The verification path as it was: new Mac and key per call, String payload, Base64 string compare
+    private static boolean legacyVerify(String payload, String signature) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            String expected = Base64.getEncoder().encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+            return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                    signature.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String sign(String secret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return Base64.getEncoder().encodeToString(mac.doFinal(payloadBytes));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
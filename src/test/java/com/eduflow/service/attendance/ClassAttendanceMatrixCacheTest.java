@@ -0,0 +1,73 @@
+package com.eduflow.service.attendance;
+
+import com.eduflow.repository.academic.AttendanceJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Eviction order of the class attendance week cache when roster writes invalidate weeks.
+ */
+class ClassAttendanceMatrixCacheTest {
+
+    private static final long CLASS_ID = 1L;
+    private static final LocalDate WEEK_A = LocalDate.of(2026, 3, 2);
+    private static final LocalDate WEEK_B = WEEK_A.plusWeeks(1);
+    private static final LocalDate WEEK_C = WEEK_A.plusWeeks(2);
+
+    private SimpleMeterRegistry meterRegistry;
+    private ClassAttendanceMatrixCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ClassAttendanceMatrixCache(mock(AttendanceJdbcRepository.class), meterRegistry, 2,
+                Duration.ofMinutes(10));
+    }
+
+    @Test
+    void weekReloadedAfterInvalidationIsEvictedByItsNewAge() {
+        load(WEEK_A);
+        load(WEEK_B);
+
+        // The invalidated week leaves the eviction order with its cells
+        cache.invalidate(CLASS_ID, WEEK_A);
+        assertThat(cache.size()).isEqualTo(1);
+        load(WEEK_C);
+        load(WEEK_A);
+
+        assertThat(cache.size()).isEqualTo(2);
+        double missesBefore = counter("miss");
+        load(WEEK_A);
+        load(WEEK_C);
+        assertThat(counter("miss")).isEqualTo(missesBefore);
+        load(WEEK_B);
+        assertThat(counter("miss")).isEqualTo(missesBefore + 1);
+    }
+
+    @Test
+    void staysWithinBoundUnderRepeatedInvalidation() {
+        for (int i = 0; i < 50; i++) {
+            LocalDate week = WEEK_A.plusWeeks(i);
+            load(week);
+            cache.invalidate(CLASS_ID, week);
+            load(week);
+        }
+
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    private void load(LocalDate week) {
+        cache.getWeeks(CLASS_ID, week, week.plusDays(6));
+    }
+
+    private double counter(String result) {
+        return meterRegistry.get("eduflow.attendance.matrix.cache").tag("result", result).counter().count();
+    }
+}
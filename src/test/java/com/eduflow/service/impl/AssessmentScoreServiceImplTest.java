@@ -0,0 +1,200 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.config.AssessmentStatisticsInitializer;
+import com.eduflow.dto.request.CreateAssessmentRequest;
+import com.eduflow.entity.academic.AssessmentStatistics;
+import com.eduflow.exception.ResourceNotFoundException;
+import com.eduflow.service.AssessmentScoreService;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Records a 60-student class's marks in one call, corrects some of them, and checks the stored
+ * scores and the statistics against values computed the slow way. Also checks that listing an
+ * assessment without stored statistics writes nothing and that the startup backfill stores them.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:assessmentscores;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+class AssessmentScoreServiceImplTest {
+
+    private static final int STUDENTS = 60;
+
+    @Autowired
+    private AssessmentScoreService scoreService;
+
+    @Autowired
+    private AssessmentStatisticsInitializer statisticsInitializer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void upsertsScoresAndKeepsStatisticsInStep() {
+        long assessmentId = seedAssessment("algebra");
+        List<Long> studentIds = studentIds("algebra");
+
+        List<CreateAssessmentRequest.StudentScore> firstEntry = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            firstEntry.add(score(studentIds.get(i), i % 15 == 0 ? null : BigDecimal.valueOf(35 + (i * 7) % 66),
+                    i % 15 == 0));
+        }
+        AssessmentStatistics first = scoreService.recordScores(assessmentId, firstEntry);
+
+        assertThat(scoreCount(assessmentId)).isEqualTo(STUDENTS);
+        assertThat(first.getAbsentCount()).isEqualTo(4);
+        assertThat(first.getClassSize()).isEqualTo(STUDENTS);
+        assertMatchesStoredScores(first, assessmentId);
+
+        // Corrections: five scores change, one student is now absent, and a repeated row keeps its last value
+        List<CreateAssessmentRequest.StudentScore> corrections = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            corrections.add(score(studentIds.get(i), new BigDecimal("99.50"), false));
+        }
+        corrections.add(score(studentIds.get(6), null, true));
+        corrections.add(score(studentIds.get(7), new BigDecimal("10.00"), false));
+        corrections.add(score(studentIds.get(7), new BigDecimal("20.00"), false));
+        AssessmentStatistics corrected = scoreService.recordScores(assessmentId, corrections);
+
+        assertThat(scoreCount(assessmentId)).isEqualTo(STUDENTS);
+        assertThat(corrected.getId()).isEqualTo(first.getId());
+        assertThat(corrected.getAbsentCount()).isEqualTo(5);
+        assertThat(corrected.getMinScore()).isEqualByComparingTo("20.00");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT version FROM assessment_scores WHERE assessment_id = ? AND student_id = ?",
+                Long.class, assessmentId, studentIds.get(1))).isEqualTo(1);
+        assertMatchesStoredScores(corrected, assessmentId);
+
+        // An unknown student rejects the whole submission
+        assertThatThrownBy(() -> scoreService.recordScores(assessmentId, List.of(
+                score(studentIds.get(2), new BigDecimal("1.00"), false),
+                score(-1L, new BigDecimal("1.00"), false))))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT score FROM assessment_scores WHERE assessment_id = ? AND student_id = ?",
+                BigDecimal.class, assessmentId, studentIds.get(2))).isEqualByComparingTo("99.50");
+        assertThatThrownBy(() -> scoreService.recordScores(-1L, List.of()))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void listsMissingStatisticsReadOnlyUntilBackfilled() {
+        long assessmentId = seedAssessment("geometry");
+        List<Long> studentIds = studentIds("geometry");
+        // Scores written before statistics were stored
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO assessment_scores (assessment_id, student_id, score, absent, created_at, version) " +
+                        "VALUES (?, ?, ?, false, CURRENT_TIMESTAMP, 0)",
+                studentIds.subList(0, 10), 10, (ps, studentId) -> {
+                    ps.setLong(1, assessmentId);
+                    ps.setLong(2, studentId);
+                    ps.setBigDecimal(3, BigDecimal.valueOf(50 + studentId % 50));
+                });
+
+        // Listed before the backfill reaches it: computed from the scores, nothing stored
+        AssessmentStatistics listed = scoreService.getStatistics(List.of(assessmentId)).get(assessmentId);
+        assertThat(listed.getId()).isNull();
+        assertThat(listed.getClassSize()).isEqualTo(STUDENTS);
+        assertThat(listed.getScoredCount()).isEqualTo(10);
+        assertThat(statisticsRows(assessmentId)).isZero();
+
+        statisticsInitializer.run(null);
+        AssessmentStatistics stored = scoreService.getStatistics(List.of(assessmentId)).get(assessmentId);
+        assertThat(stored.getId()).isNotNull();
+        assertThat(stored.getClassSize()).isEqualTo(STUDENTS);
+        assertMatchesStoredScores(stored, assessmentId);
+
+        // A second start finds nothing left to backfill
+        statisticsInitializer.run(null);
+        assertThat(statisticsRows(assessmentId)).isEqualTo(1);
+        assertThat(scoreService.getStatistics(List.of(assessmentId)).get(assessmentId).getId())
+                .isEqualTo(stored.getId());
+        assertThat(scoreService.getStatistics(List.of(-1L))).isEmpty();
+        assertThat(scoreService.getStatistics(List.of())).isEmpty();
+    }
+
+    private long statisticsRows(long assessmentId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM assessment_statistics WHERE assessment_id = ?", Long.class, assessmentId);
+    }
+
+    private void assertMatchesStoredScores(AssessmentStatistics statistics, long assessmentId) {
+        List<BigDecimal> scored = jdbcTemplate.queryForList(
+                "SELECT score FROM assessment_scores WHERE assessment_id = ? AND absent = false " +
+                        "AND score IS NOT NULL", BigDecimal.class, assessmentId);
+        BigDecimal sum = scored.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        double mean = sum.doubleValue() / scored.size();
+        double variance = scored.stream().mapToDouble(s -> Math.pow(s.doubleValue() - mean, 2)).sum() / scored.size();
+
+        assertThat(statistics.getScoredCount()).isEqualTo(scored.size());
+        assertThat(statistics.getMeanScore())
+                .isEqualByComparingTo(sum.divide(BigDecimal.valueOf(scored.size()), 2, RoundingMode.HALF_UP));
+        assertThat(statistics.getMeanPercentage()).isEqualByComparingTo(statistics.getMeanScore());
+        assertThat(statistics.getMinScore()).isEqualByComparingTo(scored.stream().min(BigDecimal::compareTo).orElseThrow());
+        assertThat(statistics.getMaxScore()).isEqualByComparingTo(scored.stream().max(BigDecimal::compareTo).orElseThrow());
+        assertThat(statistics.getStandardDeviation())
+                .isEqualByComparingTo(BigDecimal.valueOf(Math.sqrt(variance)).setScale(2, RoundingMode.HALF_UP));
+
+        Map<String, Integer> distribution = statistics.getGradeDistribution();
+        assertThat(distribution.values().stream().mapToInt(Integer::intValue).sum()).isEqualTo(scored.size());
+        assertThat(distribution.get("A")).isEqualTo((int) scored.stream().filter(s -> s.doubleValue() >= 90).count());
+        assertThat(distribution.get("F")).isEqualTo((int) scored.stream().filter(s -> s.doubleValue() < 50).count());
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT scored_count FROM assessment_statistics WHERE assessment_id = ?", Integer.class, assessmentId))
+                .isEqualTo(scored.size());
+    }
+
+    private List<Long> studentIds(String tag) {
+        return jdbcTemplate.queryForList(
+                "SELECT s.id FROM students s JOIN users u ON u.id = s.user_id WHERE u.email LIKE ? ORDER BY s.id",
+                Long.class, tag + ".student%");
+    }
+
+    private long scoreCount(long assessmentId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM assessment_scores WHERE assessment_id = ?", Long.class, assessmentId);
+    }
+
+    private static CreateAssessmentRequest.StudentScore score(Long studentId, BigDecimal score, boolean absent) {
+        CreateAssessmentRequest.StudentScore request = new CreateAssessmentRequest.StudentScore();
+        request.setStudentId(studentId);
+        request.setScore(score);
+        request.setAbsent(absent);
+        return request;
+    }
+
+    private long seedAssessment(String tag) {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        String code = tag.toUpperCase();
+        long teacherUserId = data.insertUser(tag + ".teacher" + TestDataFactory.EMAIL_DOMAIN, "Assessment", "Teacher");
+        long teacherId = data.insertTeacher(teacherUserId, code);
+        long classId = data.insertClass(code, 9, "2026");
+        data.insertUsers(tag + ".student", "Assessment", STUDENTS);
+        data.insertStudents(tag + ".student", "ASMT", classId);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(
+                "INSERT INTO subjects (name, code, is_mandatory, created_at, version) " +
+                        "VALUES ('Mathematics', ?, true, ?, 0)", code, now);
+        jdbcTemplate.update(
+                "INSERT INTO assessments (title, type, teacher_id, school_class_id, subject_id, date, max_score, " +
+                        "term, academic_year, created_at, version) " +
+                        "SELECT ?, 'TEST', ?, ?, id, CURRENT_DATE, 100.00, 'TERM_1', '2026', ?, 0 " +
+                        "FROM subjects WHERE code = ?", tag, teacherId, classId, now, code);
+        return jdbcTemplate.queryForObject("SELECT id FROM assessments WHERE title = ?", Long.class, tag);
+    }
+}
@@ -0,0 +1,233 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.response.AttendanceSummaryResponse;
+import com.eduflow.dto.response.ClassAttendanceMatrixResponse;
+import com.eduflow.dto.response.ClassAttendanceSummaryResponse;
+import com.eduflow.entity.academic.Attendance;
+import com.eduflow.entity.academic.SchoolClass;
+import com.eduflow.exception.BadRequestException;
+import com.eduflow.repository.academic.AttendanceJdbcRepository;
+import com.eduflow.repository.academic.AttendanceRepository;
+import com.eduflow.repository.academic.SchoolClassRepository;
+import com.eduflow.service.AttendanceAnalyticsService;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Checks the bitmap index against the per-student COUNT queries it replaces, its streaks across
+ * weekends and a year boundary, and that roster writes and marks from other nodes show up
+ * without a rebuild; and that the class matrix is served from cached weeks until a roster write evicts them.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:attendanceanalytics;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+class AttendanceAnalyticsServiceImplTest {
+
+    private static final int STUDENTS = 30;
+    private static final LocalDate TERM_START = LocalDate.of(2025, 11, 3);
+    private static final LocalDate TERM_END = LocalDate.of(2026, 2, 27);
+
+    @Autowired
+    private AttendanceAnalyticsService analyticsService;
+
+    @Autowired
+    private AttendanceJdbcRepository attendanceJdbcRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private SchoolClassRepository classRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void matchesCountQueriesAndTracksStreaks() {
+        SchoolClass schoolClass = classRepository.save(SchoolClass.builder()
+                .name("Analytics A").grade(5).academicYear("2026").build());
+        List<Long> studentIds = seedStudents(schoolClass.getId(), "analytics.student", STUDENTS);
+        List<LocalDate> schoolDays = TERM_START.datesUntil(TERM_END.plusDays(1))
+                .filter(day -> day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY)
+                .toList();
+        seedAttendance(schoolClass.getId(), studentIds, schoolDays);
+        // The index was built at startup; seeded history arrives the way a migration would
+        analyticsService.rebuild();
+
+        ClassAttendanceSummaryResponse summary =
+                analyticsService.getClassSummary(schoolClass.getId(), TERM_START, TERM_END);
+
+        assertThat(summary.getStudentCount()).isEqualTo(STUDENTS);
+        for (AttendanceSummaryResponse student : summary.getStudents()) {
+            long id = student.getStudentId();
+            assertThat(student.getPresentDays())
+                    .isEqualTo(attendanceRepository.countPresentDays(id, TERM_START, TERM_END));
+            assertThat(student.getAbsentDays())
+                    .isEqualTo(attendanceRepository.countAbsentDays(id, TERM_START, TERM_END));
+            assertThat(student.getTotalDays())
+                    .isEqualTo(attendanceRepository.countTotalDays(id, TERM_START, TERM_END));
+        }
+
+        // Always present across the new year and every weekend in between
+        AttendanceSummaryResponse perfect =
+                analyticsService.getStudentSummary(studentIds.get(1), TERM_START, TERM_END);
+        assertThat(perfect.getLongestPresentStreak()).isEqualTo(schoolDays.size());
+        assertThat(perfect.getAttendancePercentage()).isEqualByComparingTo("100.00");
+        assertThat(perfect.getLastMarkedDate()).isEqualTo(schoolDays.get(schoolDays.size() - 1));
+
+        AttendanceSummaryResponse absentee =
+                analyticsService.getStudentSummary(studentIds.get(0), TERM_START, TERM_END);
+        assertThat(absentee.getCurrentAbsenceStreak()).isEqualTo(4);
+        assertThat(summary.getStudentsWithAbsenceStreak()).isEqualTo(1);
+
+        // A range inside the term only counts its own days
+        LocalDate december = LocalDate.of(2025, 12, 1);
+        AttendanceSummaryResponse decemberOnly = analyticsService.getStudentSummary(
+                studentIds.get(1), december, december.withDayOfMonth(31));
+        assertThat(decemberOnly.getTotalDays()).isEqualTo(23);
+
+        // Marking the absentee present is reflected straight away and breaks the streak
+        LocalDate nextDay = LocalDate.of(2026, 3, 2);
+        mark(schoolClass.getId(), nextDay, Map.of(studentIds.get(0), Attendance.AttendanceStatus.PRESENT));
+        AttendanceSummaryResponse recovered =
+                analyticsService.getStudentSummary(studentIds.get(0), TERM_START, nextDay);
+        assertThat(recovered.getCurrentAbsenceStreak()).isZero();
+        assertThat(recovered.getTotalDays()).isEqualTo(absentee.getTotalDays() + 1);
+
+        // A rebuild from the table gives the same answers
+        analyticsService.rebuild();
+        assertThat(analyticsService.getStudentSummary(studentIds.get(0), TERM_START, nextDay)).isEqualTo(recovered);
+
+        // A mark written by another node shows up after the next refresh
+        LocalDate otherNodeDay = nextDay.plusDays(1);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO attendance (student_id, school_class_id, date, status, created_at, " +
+                        "updated_at, version) VALUES (?, ?, ?, 'ABSENT', ?, ?, 0)",
+                studentIds.get(0), schoolClass.getId(), Date.valueOf(otherNodeDay), now, now);
+        analyticsService.refresh();
+        AttendanceSummaryResponse refreshed =
+                analyticsService.getStudentSummary(studentIds.get(0), TERM_START, otherNodeDay);
+        assertThat(refreshed.getAbsentDays()).isEqualTo(recovered.getAbsentDays() + 1);
+        assertThat(refreshed.getCurrentAbsenceStreak()).isEqualTo(1);
+
+        assertThatThrownBy(() -> analyticsService.getClassSummary(schoolClass.getId(), TERM_END, TERM_START))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void buildsMatrixFromCachedWeeksAndEvictsOnWrite() {
+        SchoolClass schoolClass = classRepository.save(SchoolClass.builder()
+                .name("Matrix A").grade(6).academicYear("2026").build());
+        SchoolClass otherClass = classRepository.save(SchoolClass.builder()
+                .name("Matrix B").grade(6).academicYear("2026").build());
+        List<Long> students = seedStudents(schoolClass.getId(), "matrix.student", 3);
+        // Marked in Matrix A before moving to Matrix B, so still a row in Matrix A's grid
+        long moved = seedStudents(otherClass.getId(), "matrix.moved", 1).get(0);
+
+        LocalDate monday = LocalDate.of(2026, 3, 2);
+        mark(schoolClass.getId(), monday, Map.of(
+                students.get(0), Attendance.AttendanceStatus.PRESENT,
+                students.get(1), Attendance.AttendanceStatus.ABSENT,
+                moved, Attendance.AttendanceStatus.LATE));
+        mark(schoolClass.getId(), monday.plusDays(1), Map.of(
+                students.get(0), Attendance.AttendanceStatus.LATE,
+                students.get(1), Attendance.AttendanceStatus.PRESENT));
+        mark(schoolClass.getId(), monday.plusWeeks(1), Map.of(
+                students.get(0), Attendance.AttendanceStatus.EXCUSED));
+
+        LocalDate from = monday.minusDays(1);
+        LocalDate to = monday.plusWeeks(1).plusDays(6);
+        ClassAttendanceMatrixResponse matrix = analyticsService.getClassMatrix(schoolClass.getId(), from, to);
+        assertThat(matrix.getDates()).containsExactly(monday, monday.plusDays(1), monday.plusWeeks(1));
+        assertThat(matrix.getTotalRecords()).isEqualTo(6);
+        assertThat(matrix.getStatusCodes()).containsEntry('P', Attendance.AttendanceStatus.PRESENT);
+        assertThat(matrix.getStudents())
+                .extracting(ClassAttendanceMatrixResponse.Row::getStudentId,
+                        ClassAttendanceMatrixResponse.Row::getCells)
+                .containsExactly(
+                        tuple(students.get(0), "PLE"),
+                        tuple(moved, "L--"),
+                        tuple(students.get(1), "AP-"),
+                        tuple(students.get(2), "---"));
+
+        // Written behind the cache's back, so the cached week is served unchanged
+        jdbcTemplate.update("UPDATE attendance SET status = 'ABSENT' WHERE student_id = ? AND date = ?",
+                students.get(0), monday);
+        assertThat(analyticsService.getClassMatrix(schoolClass.getId(), from, to).getStudents().get(0).getCells())
+                .isEqualTo("PLE");
+
+        // A roster write through the service evicts the week it touched
+        mark(schoolClass.getId(), monday.plusDays(2), Map.of(students.get(2), Attendance.AttendanceStatus.PRESENT));
+        ClassAttendanceMatrixResponse refreshed = analyticsService.getClassMatrix(schoolClass.getId(), from, to);
+        assertThat(refreshed.getDates()).hasSize(4);
+        assertThat(refreshed.getStudents())
+                .extracting(ClassAttendanceMatrixResponse.Row::getCells)
+                .containsExactly("AL-E", "L---", "AP--", "--P-");
+
+        assertThatThrownBy(() -> analyticsService.getClassMatrix(schoolClass.getId(), from, from.plusYears(2)))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    private void mark(Long classId, LocalDate date, Map<Long, Attendance.AttendanceStatus> statuses) {
+        attendanceJdbcRepository.upsert(classId, date, null, statuses.entrySet().stream()
+                .map(entry -> new AttendanceJdbcRepository.AttendanceMark(entry.getKey(), entry.getValue(), null))
+                .toList());
+        analyticsService.recordMarks(classId, date, statuses);
+    }
+
+    // Student 0 misses the last four days, student 1 is never absent, the rest follow a pattern
+    private static Attendance.AttendanceStatus status(int student, int day, int days) {
+        if (student == 0 && day >= days - 4) {
+            return Attendance.AttendanceStatus.ABSENT;
+        }
+        if (student == 1) {
+            return Attendance.AttendanceStatus.PRESENT;
+        }
+        if ((student + day) % 7 == 0) {
+            return Attendance.AttendanceStatus.ABSENT;
+        }
+        if ((student * 3 + day) % 11 == 0) {
+            return Attendance.AttendanceStatus.LATE;
+        }
+        if ((student + day * 5) % 17 == 0) {
+            return Attendance.AttendanceStatus.EXCUSED;
+        }
+        return Attendance.AttendanceStatus.PRESENT;
+    }
+
+    private void seedAttendance(Long classId, List<Long> studentIds, List<LocalDate> schoolDays) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (int student = 0; student < studentIds.size(); student++) {
+            for (int day = 0; day < schoolDays.size(); day++) {
+                rows.add(new Object[]{studentIds.get(student), classId, Date.valueOf(schoolDays.get(day)),
+                        status(student, day, schoolDays.size()).name(), now});
+            }
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO attendance (student_id, school_class_id, date, status, created_at, version) " +
+                        "VALUES (?, ?, ?, ?, ?, 0)", rows);
+    }
+
+    private List<Long> seedStudents(Long classId, String emailPrefix, int count) {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        data.insertUsers(emailPrefix, "Analytics", count);
+        return data.insertStudents(emailPrefix, "ANL", classId);
+    }
+}
@@ -0,0 +1,149 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.request.BulkCashReceiptRequest;
+import com.eduflow.dto.response.BulkCashReceiptResponse;
+import com.eduflow.service.CashReceiptService;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Posts a day's worth of cash receipts as one batch, checks every derived total, and checks that
+ * a resubmitted batch posts nothing.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:cashreceipts;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+class CashReceiptServiceImplTest {
+
+    private static final int STUDENTS = 600;
+    private static final int BATCH = 500;
+    private static final String ACADEMIC_YEAR = "2026";
+
+    @Autowired
+    private CashReceiptService cashReceiptService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void postsBatchAndReportsEveryLine() {
+        seedAssignments();
+        List<Long> assignmentIds = jdbcTemplate.queryForList(
+                "SELECT id FROM student_fee_assignments ORDER BY id", Long.class);
+        // The first assignment is overdue before the receipts arrive
+        jdbcTemplate.update("UPDATE student_fee_assignments SET status = 'OVERDUE' WHERE id = ?", assignmentIds.get(0));
+        jdbcTemplate.update("UPDATE student_fee_ledger SET overdue_count = 1 WHERE student_id = " +
+                "(SELECT student_id FROM student_fee_assignments WHERE id = ?)", assignmentIds.get(0));
+
+        List<BulkCashReceiptRequest.Line> lines = new ArrayList<>();
+        for (int i = 0; i < BATCH; i++) {
+            lines.add(line(assignmentIds.get(i), "400.00", "R" + i));
+        }
+        // The first hundred fees are settled by a second receipt in the same batch
+        for (int i = 0; i < 100; i++) {
+            lines.add(line(assignmentIds.get(i), "600.00", "S" + i));
+        }
+        lines.add(line(assignmentIds.get(100), "600.01", "OVER"));
+        lines.add(line(assignmentIds.get(101), "10.00", "R101"));
+        lines.add(line(-1L, "10.00", "MISSING"));
+
+        BulkCashReceiptResponse response = cashReceiptService.postReceipts(
+                BulkCashReceiptRequest.builder().lines(lines).build());
+
+        assertThat(response.getLinesReceived()).isEqualTo(BATCH + 103);
+        assertThat(response.getLinesPosted()).isEqualTo(BATCH + 100);
+        assertThat(response.getLinesRejected()).isEqualTo(3);
+        assertThat(response.getTotalPosted()).isEqualByComparingTo("260000.00");
+        assertThat(response.getResults().get(BATCH + 100).getMessage()).contains("exceeds remaining balance of 600.00");
+        assertThat(response.getResults().get(BATCH + 101).getMessage()).isEqualTo("Duplicate receipt reference in this batch");
+        assertThat(response.getResults().get(BATCH + 102).getMessage()).isEqualTo("Fee assignment not found");
+        assertThat(response.getResults().get(0).getTransactionRef()).startsWith("PAY");
+        assertThat(response.getResults().get(0).getRemainingBalance()).isEqualByComparingTo("600.00");
+        assertThat(response.getResults().get(BATCH).getRemainingBalance()).isEqualByComparingTo("0.00");
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payments WHERE status = 'COMPLETED' AND payment_method = 'CASH'", Long.class))
+                .isEqualTo(BATCH + 100L);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM student_fee_assignments WHERE status = 'PAID'", Long.class)).isEqualTo(100L);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM student_fee_assignments WHERE status = 'PARTIAL'", Long.class)).isEqualTo(400L);
+        // Assignments and ledger agree after the set-based updates
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT SUM(total_paid) FROM student_fee_ledger", BigDecimal.class)).isEqualByComparingTo("260000.00");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT SUM(pending_count) FROM student_fee_ledger", Long.class)).isEqualTo(STUDENTS - 100L);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT SUM(overdue_count) FROM student_fee_ledger", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM student_fee_ledger l WHERE l.outstanding_balance <> (SELECT SUM(a.amount - " +
+                        "a.discount_amount - a.amount_paid) FROM student_fee_assignments a WHERE a.student_id = l.student_id)",
+                Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT SUM(payment_count) FROM payment_daily_rollup WHERE payment_method = 'CASH'", Long.class))
+                .isEqualTo(BATCH + 100L);
+
+        // An all-or-nothing batch with a bad line posts nothing
+        BulkCashReceiptResponse rejected = cashReceiptService.postReceipts(BulkCashReceiptRequest.builder()
+                .allOrNothing(true)
+                .lines(List.of(line(assignmentIds.get(200), "10.00", "A1"), line(assignmentIds.get(0), "1.00", "A2")))
+                .build());
+        assertThat(rejected.getLinesPosted()).isZero();
+        assertThat(rejected.getResults().get(0).getStatus()).isEqualTo(BulkCashReceiptResponse.LineStatus.SKIPPED);
+        assertThat(rejected.getResults().get(1).getStatus()).isEqualTo(BulkCashReceiptResponse.LineStatus.REJECTED);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payments", Long.class)).isEqualTo(BATCH + 100L);
+
+        assertResubmittedBatchPostsNothing(assignmentIds);
+    }
+
+    private void assertResubmittedBatchPostsNothing(List<Long> assignmentIds) {
+        List<BulkCashReceiptRequest.Line> lines = new ArrayList<>();
+        for (int i = BATCH; i < STUDENTS; i++) {
+            lines.add(line(assignmentIds.get(i), "100.00", "T" + i));
+        }
+        BulkCashReceiptRequest request = BulkCashReceiptRequest.builder().lines(lines).build();
+
+        BulkCashReceiptResponse first = cashReceiptService.postReceipts(request);
+        assertThat(first.getLinesPosted()).isEqualTo(STUDENTS - BATCH);
+        long payments = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payments", Long.class);
+
+        // Every assignment still has a balance, only the references give the resubmission away
+        BulkCashReceiptResponse second = cashReceiptService.postReceipts(request);
+        assertThat(second.getLinesPosted()).isZero();
+        assertThat(second.getLinesRejected()).isEqualTo(STUDENTS - BATCH);
+        assertThat(second.getResults()).allMatch(result ->
+                "Receipt reference has already been posted".equals(result.getMessage()));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payments", Long.class)).isEqualTo(payments);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT receipt_reference FROM payments WHERE student_fee_assignment_id = ?", String.class,
+                assignmentIds.get(BATCH))).isEqualTo("T" + BATCH);
+    }
+
+    private static BulkCashReceiptRequest.Line line(Long assignmentId, String amount, String reference) {
+        return BulkCashReceiptRequest.Line.builder()
+                .studentFeeAssignmentId(assignmentId)
+                .amount(new BigDecimal(amount))
+                .reference(reference)
+                .payerName("Bursar")
+                .build();
+    }
+
+    private void seedAssignments() {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        data.insertUsers("cash.student", "Cash", STUDENTS);
+        List<Long> studentIds = data.insertStudents("cash.student", "CASH", null);
+        long feeId = data.insertFee("Cash Tuition", new BigDecimal("1000.00"), ACADEMIC_YEAR);
+        data.insertAssignments(studentIds, feeId, LocalDate.now().plusDays(30));
+        data.insertLedgers(studentIds, ACADEMIC_YEAR, new BigDecimal("1000.00"));
+    }
+}
@@ -0,0 +1,151 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.entity.finance.StudentFeeLedger;
+import com.eduflow.repository.finance.StudentFeeAssignmentRepository;
+import com.eduflow.service.DashboardStatsService;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Creates students from several threads while the reconciler runs in a loop, and checks that the
+ * counters end up equal to the database without a final reconcile. Rolled-back writes must not
+ * move the counters at all, and the reconciled outstanding total must follow the ledger's rule.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:dashboardstats;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=30000",
+        "spring.datasource.hikari.maximum-pool-size=20",
+        "dashboard.stats.reconcile-interval=3600000"
+})
+@ActiveProfiles("test")
+class DashboardStatsServiceImplTest {
+
+    private static final int WRITERS = 6;
+    private static final int STUDENTS_PER_WRITER = 40;
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private DashboardStatsService statsService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StudentFeeAssignmentRepository assignmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void countersStayExactWhileReconcileRuns() throws Exception {
+        statsService.reconcile();
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            Future<?> reconciler = executor.submit(() -> {
+                start.await();
+                while (writing.get()) {
+                    statsService.reconcile();
+                }
+                return null;
+            });
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < STUDENTS_PER_WRITER; i++) {
+                        transactionTemplate.executeWithoutResult(status -> {
+                            insertStudent();
+                            statsService.recordStudentCreated();
+                        });
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(120, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            reconciler.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(statsService.getDashboardStats().getTotalStudents())
+                .isEqualTo(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM students", Long.class))
+                .isGreaterThanOrEqualTo(WRITERS * STUDENTS_PER_WRITER);
+    }
+
+    @Test
+    void rolledBackWritesLeaveCountersAlone() {
+        long before = statsService.reconcile().getTotalStudents();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            insertStudent();
+            statsService.recordStudentCreated();
+            status.setRollbackOnly();
+        });
+        assertThat(statsService.getDashboardStats().getTotalStudents()).isEqualTo(before);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            insertStudent();
+            statsService.recordStudentCreated();
+        });
+        assertThat(statsService.getDashboardStats().getTotalStudents()).isEqualTo(before + 1);
+        assertThat(statsService.reconcile().getTotalStudents()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void reconciledOutstandingFollowsTheLedgerRule() {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        long feeId = data.insertFee("Dashboard Tuition", new BigDecimal("500.00"), "2026");
+        // Part paid, discounted, waived with a balance, paid in full and overpaid
+        String[][] assignments = {
+                {"0", "200.00", "PARTIAL"}, {"100.00", "0", "PENDING"}, {"0", "0", "WAIVED"},
+                {"0", "500.00", "PAID"}, {"0", "600.00", "PAID"}};
+        for (String[] assignment : assignments) {
+            String email = "dashboard.payer" + SEQUENCE.incrementAndGet() + TestDataFactory.EMAIL_DOMAIN;
+            long userId = data.insertUser(email, "Dashboard", "Payer");
+            long assignmentId = data.insertAssignment(data.insertStudent(userId, "DASH" + userId, null), feeId,
+                    LocalDate.now().plusDays(30));
+            jdbcTemplate.update(
+                    "UPDATE student_fee_assignments SET discount_amount = ?, amount_paid = ?, status = ? WHERE id = ?",
+                    new BigDecimal(assignment[0]), new BigDecimal(assignment[1]), assignment[2], assignmentId);
+        }
+
+        BigDecimal incremental = assignmentRepository.findAll().stream()
+                .map(assignment -> StudentFeeLedger.Contribution.of(assignment).outstanding())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertThat(incremental).isEqualByComparingTo("700.00");
+        assertThat(statsService.reconcile().getOutstandingFees()).isEqualByComparingTo(incremental);
+    }
+
+    private void insertStudent() {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        String email = "dashboard.student" + SEQUENCE.incrementAndGet() + TestDataFactory.EMAIL_DOMAIN;
+        long userId = data.insertUser(email, "Dashboard", "Student");
+        data.insertStudent(userId, "DASH" + userId, null);
+    }
+}
@@ -0,0 +1,106 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.service.FeeExportService;
+import com.eduflow.service.export.ExportFormat;
+import com.eduflow.service.export.FeeStatementFilter;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports a grade of 10k students with five fees each as CSV and XLSX.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:feeexport;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+class FeeExportServiceImplTest {
+
+    private static final int STUDENTS = 10_000;
+    private static final int FEES = 5;
+    private static final int GRADE = 11;
+
+    @Autowired
+    private FeeExportService feeExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM school_classes WHERE name = 'Export 11A'", Long.class) > 0) {
+            return;
+        }
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        long classId = data.insertClass("Export 11A", GRADE, "2026");
+        data.insertUsers("export.student", "Export", STUDENTS);
+        jdbcTemplate.update("UPDATE users SET last_name = 'O\"Brien, Jr <b>' WHERE email = ?",
+                "export.student1" + TestDataFactory.EMAIL_DOMAIN);
+        List<Long> studentIds = data.insertStudents("export.student", "EXP", classId);
+        // Fee 1 is overdue and unpaid, fee 2 overdue but paid, the rest fall due next month
+        for (int fee = 1; fee <= FEES; fee++) {
+            long feeId = data.insertFee("Export Fee " + fee, new BigDecimal("500.00"), "2026");
+            data.insertAssignments(studentIds, feeId, LocalDate.now().plusDays(fee <= 2 ? -10 : 30));
+        }
+        jdbcTemplate.update("UPDATE student_fee_assignments SET amount_paid = amount, status = 'PAID' " +
+                "WHERE fee_id = (SELECT id FROM fees WHERE name = 'Export Fee 2')");
+    }
+
+    @Test
+    void streamsGradeStatementAsCsv() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = feeExportService.exportFeeStatement(
+                new FeeStatementFilter(null, GRADE, "2026", false), ExportFormat.CSV, out);
+
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertThat(rows).isEqualTo((long) STUDENTS * FEES);
+        assertThat(csv.split("\r\n")).hasSize(STUDENTS * FEES + 1);
+        assertThat(csv).startsWith("\uFEFFStudent ID,Student Name,");
+        assertThat(csv).contains("\"Export O\"\"Brien, Jr <b>\"");
+
+        ByteArrayOutputStream arrears = new ByteArrayOutputStream();
+        long arrearsRows = feeExportService.exportFeeStatement(
+                new FeeStatementFilter(null, GRADE, null, true), ExportFormat.CSV, arrears);
+        assertThat(arrearsRows).isEqualTo(STUDENTS);
+        assertThat(arrears.toString(StandardCharsets.UTF_8)).contains(",Export Fee 1,").doesNotContain(",Export Fee 2,");
+    }
+
+    @Test
+    void streamsArrearsAsReadableXlsx() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = feeExportService.exportFeeStatement(
+                new FeeStatementFilter(null, GRADE, "2026", true), ExportFormat.XLSX, out);
+
+        Map<String, String> parts = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                parts.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+
+        assertThat(parts).containsKeys("[Content_Types].xml", "_rels/.rels", "xl/workbook.xml",
+                "xl/_rels/workbook.xml.rels", "xl/worksheets/sheet1.xml");
+        assertThat(parts.get("xl/workbook.xml")).contains("name=\"Arrears\"");
+        String sheet = parts.get("xl/worksheets/sheet1.xml");
+        assertThat(sheet.split("<row ", -1)).hasSize(STUDENTS + 2);
+        assertThat(sheet).endsWith("</sheetData></worksheet>");
+        assertThat(sheet).contains("Export O&quot;Brien, Jr &lt;b&gt;");
+        assertThat(sheet).contains("<c t=\"n\"><v>500.00</v></c>");
+    }
+}
@@ -0,0 +1,154 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.request.AssignFeeRequest;
+import com.eduflow.dto.request.BulkFeeAdjustmentRequest;
+import com.eduflow.dto.response.BulkFeeAdjustmentResponse;
+import com.eduflow.entity.academic.SchoolClass;
+import com.eduflow.entity.finance.Fee;
+import com.eduflow.entity.finance.FeeCategory;
+import com.eduflow.exception.BadRequestException;
+import com.eduflow.repository.academic.SchoolClassRepository;
+import com.eduflow.repository.finance.FeeCategoryRepository;
+import com.eduflow.repository.finance.FeeRepository;
+import com.eduflow.service.FeeService;
+import com.eduflow.service.StudentFeeLedgerService;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:bulkadjust;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+class FeeServiceImplBulkAdjustmentTest {
+
+    @Autowired
+    private FeeService feeService;
+
+    @Autowired
+    private FeeRepository feeRepository;
+
+    @Autowired
+    private FeeCategoryRepository categoryRepository;
+
+    @Autowired
+    private SchoolClassRepository classRepository;
+
+    @Autowired
+    private StudentFeeLedgerService ledgerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void discountsAndWaivesWholeClassesAndIsSafeToRerun() {
+        SchoolClass gradeSeven = classRepository.save(SchoolClass.builder()
+                .name("Adjust A").grade(7).academicYear("2026").build());
+        SchoolClass gradeEight = classRepository.save(SchoolClass.builder()
+                .name("Adjust B").grade(8).academicYear("2026").build());
+        seedStudents(gradeSeven.getId(), "adjust.seven", 30);
+        seedStudents(gradeEight.getId(), "adjust.eight", 10);
+
+        Fee fee = feeRepository.save(Fee.builder()
+                .category(categoryRepository.findByName(FeeCategory.CategoryType.TUITION).orElseThrow())
+                .name("Adjust Tuition")
+                .amount(new BigDecimal("1500.00"))
+                .academicYear("2026")
+                .term(Fee.Term.TERM_1)
+                .build());
+        feeService.bulkAssignFeesToStudents(AssignFeeRequest.builder()
+                .feeId(fee.getId())
+                .classIds(Set.of(gradeSeven.getId(), gradeEight.getId()))
+                .dueDate(LocalDate.now().plusMonths(1))
+                .build());
+
+        // One grade 7 student has paid enough that the discount settles the fee
+        long partlyPaid = jdbcTemplate.queryForObject(
+                "SELECT MIN(sfa.id) FROM student_fee_assignments sfa JOIN students s ON s.id = sfa.student_id " +
+                        "WHERE s.current_class_id = ?", Long.class, gradeSeven.getId());
+        jdbcTemplate.update("UPDATE student_fee_assignments SET amount_paid = 1200.00, status = 'PARTIAL' " +
+                "WHERE id = ?", partlyPaid);
+        ledgerService.rebuildAllLedgers();
+
+        BulkFeeAdjustmentRequest discount = BulkFeeAdjustmentRequest.builder()
+                .classIds(Set.of(gradeSeven.getId()))
+                .feeIds(Set.of(fee.getId()))
+                .discountPercentage(new BigDecimal("20"))
+                .reason("Sibling discount")
+                .build();
+        BulkFeeAdjustmentResponse discounted = feeService.bulkApplyDiscount(discount);
+        assertThat(discounted.getAssignmentsUpdated()).isEqualTo(30);
+        assertThat(discounted.getStudentsAffected()).isEqualTo(30);
+        assertThat(discounted.getOutstandingChange()).isEqualByComparingTo("-9000.00");
+        assertThat(feeService.bulkApplyDiscount(discount).getAssignmentsUpdated()).isZero();
+
+        assertThat(statusCounts(gradeSeven.getId()))
+                .containsExactlyInAnyOrderEntriesOf(Map.of("PAID", 1L, "PENDING", 29L));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM student_fee_assignments WHERE discount_amount = 300.00 " +
+                        "AND discount_reason = 'Sibling discount'", Long.class)).isEqualTo(30);
+
+        BulkFeeAdjustmentRequest waiver = BulkFeeAdjustmentRequest.builder()
+                .grades(Set.of(8))
+                .academicYear("2026")
+                .reason("Bursary")
+                .build();
+        BulkFeeAdjustmentResponse waived = feeService.bulkWaiveFees(waiver);
+        assertThat(waived.getAssignmentsUpdated()).isEqualTo(10);
+        assertThat(waived.getOutstandingChange()).isEqualByComparingTo("-15000.00");
+        assertThat(feeService.bulkWaiveFees(waiver).getAssignmentsUpdated()).isZero();
+        assertThat(statusCounts(gradeEight.getId())).containsExactly(Map.entry("WAIVED", 10L));
+
+        // A waived fee is no longer discounted
+        assertThat(feeService.bulkApplyDiscount(BulkFeeAdjustmentRequest.builder()
+                .grades(Set.of(8))
+                .discountAmount(new BigDecimal("100.00"))
+                .reason("Late discount")
+                .build()).getAssignmentsUpdated()).isZero();
+
+        String ledgerTotalsSql = "SELECT SUM(total_fees), SUM(outstanding_balance), SUM(pending_count) " +
+                "FROM student_fee_ledger WHERE academic_year = '2026'";
+        List<Object> incremental = jdbcTemplate.queryForObject(ledgerTotalsSql,
+                (rs, rowNum) -> List.of(rs.getBigDecimal(1), rs.getBigDecimal(2), rs.getLong(3)));
+        ledgerService.rebuildAllLedgers();
+        List<Object> rebuilt = jdbcTemplate.queryForObject(ledgerTotalsSql,
+                (rs, rowNum) -> List.of(rs.getBigDecimal(1), rs.getBigDecimal(2), rs.getLong(3)));
+        assertThat(rebuilt).isEqualTo(incremental);
+
+        assertThatThrownBy(() -> feeService.bulkApplyDiscount(BulkFeeAdjustmentRequest.builder()
+                .feeIds(Set.of(fee.getId()))
+                .discountAmount(BigDecimal.TEN)
+                .discountPercentage(BigDecimal.TEN)
+                .reason("Both")
+                .build())).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> feeService.bulkWaiveFees(BulkFeeAdjustmentRequest.builder()
+                .academicYear("2026")
+                .reason("Everything")
+                .build())).isInstanceOf(BadRequestException.class);
+    }
+
+    private Map<String, Long> statusCounts(Long classId) {
+        return jdbcTemplate.query(
+                "SELECT sfa.status, COUNT(*) FROM student_fee_assignments sfa " +
+                        "JOIN students s ON s.id = sfa.student_id WHERE s.current_class_id = ? GROUP BY sfa.status",
+                (rs, rowNum) -> Map.entry(rs.getString(1), rs.getLong(2)), classId).stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    private void seedStudents(Long classId, String emailPrefix, int count) {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        data.insertUsers(emailPrefix, "Adjust", count);
+        data.insertStudents(emailPrefix, "ADJ", classId);
+    }
+}
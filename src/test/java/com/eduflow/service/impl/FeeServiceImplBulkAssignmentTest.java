@@ -0,0 +1,99 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.request.AssignFeeRequest;
+import com.eduflow.dto.response.BulkFeeAssignmentResponse;
+import com.eduflow.entity.academic.SchoolClass;
+import com.eduflow.entity.finance.Fee;
+import com.eduflow.entity.finance.FeeCategory;
+import com.eduflow.repository.academic.SchoolClassRepository;
+import com.eduflow.repository.finance.FeeCategoryRepository;
+import com.eduflow.repository.finance.FeeRepository;
+import com.eduflow.service.FeeService;
+import com.eduflow.service.StudentFeeLedgerService;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class FeeServiceImplBulkAssignmentTest {
+
+    private static final int STUDENT_COUNT = 10_000;
+
+    @Autowired
+    private FeeService feeService;
+
+    @Autowired
+    private FeeRepository feeRepository;
+
+    @Autowired
+    private FeeCategoryRepository categoryRepository;
+
+    @Autowired
+    private SchoolClassRepository classRepository;
+
+    @Autowired
+    private StudentFeeLedgerService ledgerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void bulkAssignsTenThousandStudentsAndIsSafeToRerun() {
+        SchoolClass schoolClass = classRepository.save(SchoolClass.builder()
+                .name("Bulk")
+                .grade(7)
+                .academicYear("2026")
+                .build());
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        data.insertUsers("bulk.student", "Bulk", STUDENT_COUNT);
+        data.insertStudents("bulk.student", "BULK", schoolClass.getId());
+
+        Fee fee = feeRepository.save(Fee.builder()
+                .category(categoryRepository.findByName(FeeCategory.CategoryType.TUITION).orElseThrow())
+                .name("Term 1 Tuition")
+                .amount(new BigDecimal("1500.00"))
+                .academicYear("2026")
+                .term(Fee.Term.TERM_1)
+                .build());
+
+        AssignFeeRequest request = AssignFeeRequest.builder()
+                .feeId(fee.getId())
+                .classIds(Set.of(schoolClass.getId()))
+                .dueDate(LocalDate.now().plusMonths(1))
+                .build();
+
+        BulkFeeAssignmentResponse first = feeService.bulkAssignFeesToStudents(request);
+        BulkFeeAssignmentResponse rerun = feeService.bulkAssignFeesToStudents(request);
+
+        assertThat(first.getAssignmentsCreated()).isEqualTo(STUDENT_COUNT);
+        assertThat(first.isCompleted()).isTrue();
+        assertThat(first.getBatchesProcessed()).isEqualTo(STUDENT_COUNT / 1000);
+        assertThat(rerun.getAssignmentsCreated()).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM student_fee_assignments WHERE fee_id = ?", Long.class, fee.getId()))
+                .isEqualTo(STUDENT_COUNT);
+
+        String ledgerTotalsSql = "SELECT COUNT(*), SUM(l.total_fees), SUM(l.pending_count) FROM student_fee_ledger l " +
+                "JOIN students s ON s.id = l.student_id WHERE s.current_class_id = ? AND l.academic_year = '2026'";
+        List<Object> incremental = jdbcTemplate.queryForObject(ledgerTotalsSql,
+                (rs, rowNum) -> List.of(rs.getLong(1), rs.getBigDecimal(2), rs.getLong(3)), schoolClass.getId());
+        assertThat(incremental).containsExactly(
+                (long) STUDENT_COUNT, new BigDecimal("15000000.00"), (long) STUDENT_COUNT);
+
+        ledgerService.rebuildAllLedgers();
+        List<Object> rebuilt = jdbcTemplate.queryForObject(ledgerTotalsSql,
+                (rs, rowNum) -> List.of(rs.getLong(1), rs.getBigDecimal(2), rs.getLong(3)), schoolClass.getId());
+        assertThat(rebuilt).isEqualTo(incremental);
+    }
+}
@@ -0,0 +1,257 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.response.PaymentResponse;
+import com.eduflow.exception.BadRequestException;
+import com.eduflow.exception.DuplicateResourceException;
+import com.eduflow.repository.finance.IdempotencyKeyRepository;
+import com.eduflow.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Retries of one payment request arrive together on two nodes; the payment must be initiated
+ * once and every retry must receive the same response, even when the request outlives its lease
+ * or its response cannot be stored straight away.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:idempotency;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+class IdempotencyServiceImplTest {
+
+    private static final int THREADS = 16;
+    private static final Map<String, Object> REQUEST = Map.of("studentFeeAssignmentId", 42, "amount", "150.00");
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyKeyRepository keyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentRetriesRunOnceAndReplayTheResponse() throws Exception {
+        IdempotencyService otherNode = otherNode(Duration.ofSeconds(10));
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<PaymentResponse> initiate = () -> {
+            int n = executions.incrementAndGet();
+            await(release);
+            return PaymentResponse.builder()
+                    .id((long) n)
+                    .amount(new BigDecimal("150.00"))
+                    .transactionRef("PAY" + n)
+                    .build();
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<PaymentResponse>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                IdempotencyService node = t % 2 == 0 ? idempotencyService : otherNode;
+                futures.add(executor.submit(() ->
+                        node.execute("parent-payment:parent@eduflow.test", "retry-1", REQUEST,
+                                PaymentResponse.class, initiate)));
+            }
+            // Let every duplicate reach its wait before the first request finishes
+            Thread.sleep(300);
+            release.countDown();
+
+            for (Future<PaymentResponse> future : futures) {
+                PaymentResponse response = future.get(30, TimeUnit.SECONDS);
+                assertThat(response.getTransactionRef()).isEqualTo("PAY1");
+                assertThat(response.getAmount()).isEqualByComparingTo("150.00");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(executions).hasValue(1);
+
+        // A node that never saw the request replays it from the table
+        PaymentResponse replayed = otherNode(Duration.ofSeconds(10)).execute("parent-payment:parent@eduflow.test",
+                "retry-1", REQUEST, PaymentResponse.class, initiate);
+        assertThat(replayed.getTransactionRef()).isEqualTo("PAY1");
+        assertThat(executions).hasValue(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM idempotency_keys WHERE scope = ?", String.class,
+                "parent-payment:parent@eduflow.test"))
+                .isEqualTo("COMPLETED");
+
+        // The same key from another caller is a different request
+        PaymentResponse otherCaller = idempotencyService.execute("parent-payment:other@eduflow.test", "retry-1",
+                REQUEST, PaymentResponse.class, initiate);
+        assertThat(otherCaller.getTransactionRef()).isEqualTo("PAY2");
+
+        assertThatThrownBy(() -> idempotencyService.execute("parent-payment:parent@eduflow.test", "retry-1",
+                Map.of("studentFeeAssignmentId", 42, "amount", "999.00"), PaymentResponse.class, initiate))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void failedRequestReleasesItsKey() {
+        AtomicInteger attempts = new AtomicInteger();
+        Supplier<PaymentResponse> flaky = () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new BadRequestException("Gateway unavailable");
+            }
+            return PaymentResponse.builder().transactionRef("PAY-OK").build();
+        };
+
+        assertThatThrownBy(() -> idempotencyService.execute("parent-payment:flaky@eduflow.test", "retry-2",
+                REQUEST, PaymentResponse.class, flaky)).isInstanceOf(BadRequestException.class);
+        assertThat(idempotencyService.execute("parent-payment:flaky@eduflow.test", "retry-2", REQUEST,
+                PaymentResponse.class, flaky).getTransactionRef()).isEqualTo("PAY-OK");
+        assertThat(attempts).hasValue(2);
+
+        // Without a key nothing is stored and the action always runs
+        idempotencyService.execute("parent-payment:flaky@eduflow.test", null, REQUEST, PaymentResponse.class, flaky);
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void duplicateGivesUpWhileAnotherNodeIsStillRunning() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<PaymentResponse> first = executor.submit(() -> idempotencyService.execute(
+                    "parent-payment:slow@eduflow.test", "retry-3", REQUEST, PaymentResponse.class, () -> {
+                        started.countDown();
+                        await(release);
+                        return PaymentResponse.builder().transactionRef("PAY-SLOW").build();
+                    }));
+            assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> otherNode(Duration.ofMillis(200)).execute("parent-payment:slow@eduflow.test",
+                    "retry-3", REQUEST, PaymentResponse.class, () -> PaymentResponse.builder().build()))
+                    .isInstanceOf(DuplicateResourceException.class);
+
+            release.countDown();
+            assertThat(first.get(10, TimeUnit.SECONDS).getTransactionRef()).isEqualTo("PAY-SLOW");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void renewedClaimOutlivesItsLease() throws Exception {
+        IdempotencyServiceImpl node = node(keyRepository, Duration.ofSeconds(2), Duration.ofSeconds(10));
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<PaymentResponse> first = executor.submit(() -> node.execute(
+                    "parent-payment:long@eduflow.test", "retry-4", REQUEST, PaymentResponse.class, () -> {
+                        executions.incrementAndGet();
+                        started.countDown();
+                        await(release);
+                        return PaymentResponse.builder().transactionRef("PAY-LONG").build();
+                    }));
+            assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+            // Past the original two-second lease, but renewed halfway through
+            Thread.sleep(1000);
+            node.renewClaims();
+            Thread.sleep(1200);
+
+            assertThatThrownBy(() -> otherNode(Duration.ofMillis(200)).execute("parent-payment:long@eduflow.test",
+                    "retry-4", REQUEST, PaymentResponse.class, () -> {
+                        executions.incrementAndGet();
+                        return PaymentResponse.builder().build();
+                    }))
+                    .isInstanceOf(DuplicateResourceException.class);
+
+            release.countDown();
+            assertThat(first.get(10, TimeUnit.SECONDS).getTransactionRef()).isEqualTo("PAY-LONG");
+            assertThat(executions).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void responseThatCouldNotBeStoredIsNeverRunAgain() {
+        IdempotencyKeyRepository flakyRepository =
+                mock(IdempotencyKeyRepository.class, AdditionalAnswers.delegatesTo(keyRepository));
+        doThrow(new DataAccessResourceFailureException("Connection reset"))
+                .doAnswer(AdditionalAnswers.delegatesTo(keyRepository))
+                .when(flakyRepository).complete(any(), any(), any(), any());
+        IdempotencyServiceImpl node = node(flakyRepository, Duration.ofSeconds(60), Duration.ofMillis(200));
+        AtomicInteger executions = new AtomicInteger();
+        Supplier<PaymentResponse> initiate = () -> PaymentResponse.builder()
+                .transactionRef("PAY-STORE-" + executions.incrementAndGet())
+                .build();
+
+        assertThat(node.execute("parent-payment:store@eduflow.test", "retry-5", REQUEST, PaymentResponse.class,
+                initiate).getTransactionRef()).isEqualTo("PAY-STORE-1");
+        assertThat(keyStatus("parent-payment:store@eduflow.test")).isEqualTo("IN_PROGRESS");
+
+        // The claim is still held: this node replays from memory, another node waits instead of running again
+        assertThat(node.execute("parent-payment:store@eduflow.test", "retry-5", REQUEST, PaymentResponse.class,
+                initiate).getTransactionRef()).isEqualTo("PAY-STORE-1");
+        assertThatThrownBy(() -> otherNode(Duration.ofMillis(200)).execute("parent-payment:store@eduflow.test",
+                "retry-5", REQUEST, PaymentResponse.class, initiate))
+                .isInstanceOf(DuplicateResourceException.class);
+
+        // The heartbeat stores the response, after which every node replays it
+        node.renewClaims();
+        assertThat(keyStatus("parent-payment:store@eduflow.test")).isEqualTo("COMPLETED");
+        assertThat(otherNode(Duration.ofMillis(200)).execute("parent-payment:store@eduflow.test", "retry-5",
+                REQUEST, PaymentResponse.class, initiate).getTransactionRef()).isEqualTo("PAY-STORE-1");
+        assertThat(executions).hasValue(1);
+    }
+
+    private String keyStatus(String scope) {
+        return jdbcTemplate.queryForObject("SELECT status FROM idempotency_keys WHERE scope = ?", String.class, scope);
+    }
+
+    private IdempotencyService otherNode(Duration waitTimeout) {
+        return node(keyRepository, Duration.ofSeconds(60), waitTimeout);
+    }
+
+    private IdempotencyServiceImpl node(IdempotencyKeyRepository repository, Duration lease, Duration waitTimeout) {
+        return new IdempotencyServiceImpl(repository, objectMapper, transactionManager, new SimpleMeterRegistry(),
+                Duration.ofHours(24), lease, waitTimeout, 100);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.response.LedgerVerificationResponse;
+import com.eduflow.repository.finance.LedgerDiscrepancyRepository;
+import com.eduflow.repository.finance.StudentFeeAssignmentJdbcRepository;
+import com.eduflow.repository.finance.StudentFeeAssignmentRepository;
+import com.eduflow.service.DashboardStatsService;
+import com.eduflow.service.LedgerVerificationService;
+import com.eduflow.service.StudentFeeLedgerService;
+import com.eduflow.support.TestDataFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the verifier of this node and a second instance standing in for another node at the same
+ * time, over drifted assignments, and checks that each drifted assignment ends up with exactly one
+ * open discrepancy.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledgerverifyconcurrency;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;" +
+                "LOCK_TIMEOUT=30000",
+        "spring.datasource.hikari.maximum-pool-size=20",
+        "fees.ledger-verify.chunk-size=5",
+        "fees.ledger-verify.concurrency=2"
+})
+@ActiveProfiles("test")
+class LedgerVerificationConcurrencyTest {
+
+    private static final int STUDENTS = 30;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private LedgerVerificationService verificationService;
+
+    @Autowired
+    private StudentFeeAssignmentJdbcRepository assignmentJdbcRepository;
+
+    @Autowired
+    private StudentFeeAssignmentRepository assignmentRepository;
+
+    @Autowired
+    private LedgerDiscrepancyRepository discrepancyRepository;
+
+    @Autowired
+    private StudentFeeLedgerService ledgerService;
+
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentRunsRecordEachDiscrepancyOnce() throws Exception {
+        List<Long> assignmentIds = seedPaidAssignments();
+        LedgerVerificationServiceImpl otherNode = new LedgerVerificationServiceImpl(assignmentJdbcRepository,
+                assignmentRepository, discrepancyRepository, ledgerService, dashboardStatsService,
+                transactionManager, new SimpleMeterRegistry(), 5, 2, false);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                // Every round drifts new assignments, so both runs find mismatches with no open record yet
+                for (int i = round; i < STUDENTS; i += ROUNDS) {
+                    jdbcTemplate.update("UPDATE student_fee_assignments SET amount_paid = 250.00 WHERE id = ?",
+                            assignmentIds.get(i));
+                }
+
+                CountDownLatch start = new CountDownLatch(1);
+                Future<LedgerVerificationResponse> local = executor.submit(() -> {
+                    start.await();
+                    return verificationService.verifyLedger(false);
+                });
+                Future<LedgerVerificationResponse> remote = executor.submit(() -> {
+                    start.await();
+                    return otherNode.verifyLedger(false);
+                });
+                start.countDown();
+                assertThat(local.get(60, TimeUnit.SECONDS).getChunkErrors()).isZero();
+                assertThat(remote.get(60, TimeUnit.SECONDS).getChunkErrors()).isZero();
+            }
+        } finally {
+            executor.shutdownNow();
+            otherNode.shutdown();
+        }
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ledger_discrepancies WHERE status = 'OPEN'", Long.class))
+                .isEqualTo(STUDENTS);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT student_fee_assignment_id) FROM ledger_discrepancies WHERE status = 'OPEN'",
+                Long.class)).isEqualTo(STUDENTS);
+    }
+
+    private List<Long> seedPaidAssignments() {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        data.insertUsers("concurrent.ledger", "Ledger", STUDENTS);
+        List<Long> studentIds = data.insertStudents("concurrent.ledger", "CLEDGER", null);
+        long feeId = data.insertFee("Concurrent Ledger Tuition", new BigDecimal("1000.00"), "2026");
+        List<Long> assignmentIds = data.insertAssignments(studentIds, feeId, LocalDate.now().plusDays(30));
+        jdbcTemplate.update(
+                "UPDATE student_fee_assignments SET amount_paid = 100.00, status = 'PARTIAL' WHERE fee_id = ?", feeId);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO payments (student_fee_assignment_id, amount, payment_method, transaction_ref, " +
+                        "status, paid_at, created_at, version) VALUES (?, 100.00, 'CASH', ?, 'COMPLETED', ?, ?, 0)",
+                assignmentIds, 100, (ps, assignmentId) -> {
+                    ps.setLong(1, assignmentId);
+                    ps.setString(2, "PAYCLEDGER" + assignmentId);
+                    ps.setTimestamp(3, now);
+                    ps.setTimestamp(4, now);
+                });
+        return assignmentIds;
+    }
+}
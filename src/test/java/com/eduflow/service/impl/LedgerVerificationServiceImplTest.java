@@ -0,0 +1,133 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.response.LedgerVerificationResponse;
+import com.eduflow.entity.finance.LedgerDiscrepancy;
+import com.eduflow.service.LedgerVerificationService;
+import com.eduflow.service.StudentFeeLedgerService;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drifts a few fee assignments away from their completed payments and checks that the verifier
+ * finds exactly those across several chunks, keeps one open record per assignment, and puts
+ * amount_paid and the ledger back when auto-correct is on.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledgerverify;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "fees.ledger-verify.chunk-size=6",
+        "fees.ledger-verify.concurrency=3"
+})
+@ActiveProfiles("test")
+class LedgerVerificationServiceImplTest {
+
+    private static final int STUDENTS = 20;
+
+    @Autowired
+    private LedgerVerificationService verificationService;
+
+    @Autowired
+    private StudentFeeLedgerService ledgerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findsDriftedAssignmentsAndCorrectsThem() {
+        List<Long> assignmentIds = seedPaidAssignments();
+        long overstated = assignmentIds.get(3);
+        long understated = assignmentIds.get(11);
+        long missedPayment = assignmentIds.get(17);
+
+        jdbcTemplate.update("UPDATE student_fee_assignments SET amount_paid = 250.00 WHERE id = ?", overstated);
+        jdbcTemplate.update("UPDATE student_fee_assignments SET amount_paid = 0 WHERE id = ?", understated);
+        insertPayment(missedPayment, "PAYLEDGERMISSED", "COMPLETED");
+        // Payments that never completed are not part of amount_paid
+        insertPayment(assignmentIds.get(5), "PAYLEDGERPENDING", "PENDING");
+        ledgerService.rebuildAllLedgers();
+
+        LedgerVerificationResponse first = verificationService.verifyLedger(false);
+        assertThat(first.getAssignmentsChecked()).isEqualTo(STUDENTS);
+        assertThat(first.getChunksProcessed()).isEqualTo(4);
+        assertThat(first.getChunkErrors()).isZero();
+        assertThat(first.getDiscrepanciesFound()).isEqualTo(3);
+        assertThat(first.getDiscrepanciesCorrected()).isZero();
+        assertThat(amountPaid(overstated)).isEqualByComparingTo("250.00");
+
+        // A second run refreshes the open records instead of adding more
+        verificationService.verifyLedger(false);
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT student_fee_assignment_id FROM ledger_discrepancies WHERE status = 'OPEN' " +
+                        "ORDER BY student_fee_assignment_id", Long.class))
+                .containsExactly(overstated, understated, missedPayment);
+        assertThat(verificationService.getDiscrepancies(LedgerDiscrepancy.DiscrepancyStatus.OPEN, 0, 50)
+                .getContent())
+                .filteredOn(discrepancy -> discrepancy.getStudentFeeAssignmentId() == overstated)
+                .singleElement()
+                .satisfies(discrepancy -> assertThat(discrepancy.getDifference()).isEqualByComparingTo("150.00"));
+
+        // Fixed elsewhere before the next run, so it is closed without a correction
+        jdbcTemplate.update("UPDATE student_fee_assignments SET amount_paid = 100.00 WHERE id = ?", understated);
+
+        LedgerVerificationResponse corrected = verificationService.verifyLedger(true);
+        assertThat(corrected.getDiscrepanciesFound()).isEqualTo(2);
+        assertThat(corrected.getDiscrepanciesCorrected()).isEqualTo(2);
+        assertThat(corrected.getDiscrepanciesResolved()).isEqualTo(1);
+
+        assertThat(amountPaid(overstated)).isEqualByComparingTo("100.00");
+        assertThat(amountPaid(missedPayment)).isEqualByComparingTo("200.00");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT l.total_paid FROM student_fee_ledger l JOIN student_fee_assignments sfa " +
+                        "ON sfa.student_id = l.student_id WHERE sfa.id = ?", BigDecimal.class, overstated))
+                .isEqualByComparingTo("100.00");
+        assertThat(countByStatus("OPEN")).isZero();
+        assertThat(countByStatus("CORRECTED")).isEqualTo(2);
+        assertThat(countByStatus("RESOLVED")).isEqualTo(1);
+
+        LedgerVerificationResponse clean = verificationService.verifyLedger(false);
+        assertThat(clean.getDiscrepanciesFound()).isZero();
+    }
+
+    private BigDecimal amountPaid(long assignmentId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT amount_paid FROM student_fee_assignments WHERE id = ?", BigDecimal.class, assignmentId);
+    }
+
+    private long countByStatus(String status) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ledger_discrepancies WHERE status = ?", Long.class, status);
+    }
+
+    private void insertPayment(long assignmentId, String transactionRef, String status) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(
+                "INSERT INTO payments (student_fee_assignment_id, amount, payment_method, transaction_ref, " +
+                        "status, paid_at, created_at, version) VALUES (?, 100.00, 'CASH', ?, ?, ?, ?, 0)",
+                assignmentId, transactionRef, status, now, now);
+    }
+
+    private List<Long> seedPaidAssignments() {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        data.insertUsers("ledger.student", "Ledger", STUDENTS);
+        List<Long> studentIds = data.insertStudents("ledger.student", "LEDGER", null);
+        long feeId = data.insertFee("Ledger Tuition", new BigDecimal("1000.00"), "2026");
+        List<Long> assignmentIds = data.insertAssignments(studentIds, feeId, LocalDate.now().plusDays(30));
+        jdbcTemplate.update(
+                "UPDATE student_fee_assignments SET amount_paid = 100.00, status = 'PARTIAL' WHERE fee_id = ?", feeId);
+        for (Long assignmentId : assignmentIds) {
+            insertPayment(assignmentId, "PAYLEDGER" + assignmentId, "COMPLETED");
+        }
+        return assignmentIds;
+    }
+}
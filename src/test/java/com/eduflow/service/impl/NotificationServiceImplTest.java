@@ -0,0 +1,94 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.response.MessageResponse;
+import com.eduflow.repository.communication.NotificationJdbcRepository;
+import com.eduflow.service.NotificationService;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Sends upcoming and overdue reminders to 1,250 parents and checks that the reminders reach the
+ * database in fixed-size batches, so the run never holds more than one batch in memory.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:notificationbatches;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+class NotificationServiceImplTest {
+
+    private static final int PARENTS = 1_250;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private NotificationJdbcRepository notificationJdbcRepository;
+
+    @Test
+    void remindersAreWrittenInBoundedBatches() {
+        seedFamilies();
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            batchSizes.add(invocation.<List<?>>getArgument(0).size());
+            return invocation.callRealMethod();
+        }).when(notificationJdbcRepository).insertSent(anyList());
+
+        MessageResponse upcoming = notificationService.sendUpcomingFeesNotifications(7);
+
+        assertThat(upcoming.getMessage()).startsWith("Sent 1250 notifications for 1250 upcoming fee assignments");
+        assertThat(batchSizes).containsExactly(500, 500, 250);
+
+        batchSizes.clear();
+        MessageResponse overdue = notificationService.sendOverdueFeesNotifications();
+
+        assertThat(overdue.getMessage()).isEqualTo(
+                "Sent 1250 notifications for 1251 overdue fee assignments. " +
+                        "1 assignments of students without parents were skipped.");
+        assertThat(batchSizes).containsExactly(500, 500, 250);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT recipient_id) FROM notifications WHERE title LIKE 'Overdue Fees Reminder%'",
+                Long.class)).isEqualTo(PARENTS);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM notifications", Long.class)).isEqualTo(2L * PARENTS);
+    }
+
+    // One child per parent with an upcoming and an overdue fee, plus one overdue child with no parent
+    private void seedFamilies() {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        data.insertUsers("reminder.student", "Reminder", PARENTS + 1);
+        data.insertUsers("reminder.parent", "Reminder", PARENTS);
+        jdbcTemplate.update(
+                "INSERT INTO parents (user_id, created_at, version) " +
+                        "SELECT id, ?, 0 FROM users WHERE email LIKE 'reminder.parent%@eduflow.test'",
+                Timestamp.valueOf(LocalDateTime.now()));
+        List<Long> studentIds = data.insertStudents("reminder.student", "RMD", null);
+        // Student n belongs to parent n; the last student has no parent
+        jdbcTemplate.update(
+                "UPDATE students s SET parent_id = (SELECT par.id FROM parents par " +
+                        "JOIN users pu ON pu.id = par.user_id " +
+                        "JOIN users su ON pu.email = REPLACE(su.email, 'reminder.student', 'reminder.parent') " +
+                        "WHERE su.id = s.user_id) WHERE s.student_id LIKE 'RMD%'");
+        long feeId = data.insertFee("Reminder Tuition", new BigDecimal("300.00"), "2026");
+        data.insertAssignments(jdbcTemplate.queryForList(
+                "SELECT id FROM students WHERE student_id LIKE 'RMD%' AND parent_id IS NOT NULL ORDER BY id",
+                Long.class), feeId, LocalDate.now().plusDays(3));
+        data.insertAssignments(studentIds, feeId, LocalDate.now().minusDays(3));
+    }
+}
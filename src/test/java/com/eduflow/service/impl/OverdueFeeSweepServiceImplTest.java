@@ -0,0 +1,96 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.response.OverdueSweepResponse;
+import com.eduflow.service.OverdueFeeSweepService;
+import com.eduflow.service.StudentFeeLedgerService;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sweeps a mix of assignments across several small chunks and checks that only unpaid rows that
+ * still owe something and are past due become OVERDUE, and that the ledger follows.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:overduesweep;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "fees.overdue-sweep.batch-size=3"
+})
+@ActiveProfiles("test")
+class OverdueFeeSweepServiceImplTest {
+
+    private static final int OVERDUE_STUDENTS = 7;
+
+    @Autowired
+    private OverdueFeeSweepService sweepService;
+
+    @Autowired
+    private StudentFeeLedgerService ledgerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long feeId;
+
+    @Test
+    void marksOnlyUnpaidPastDueAssignments() {
+        List<Long> studentIds = seedStudents(OVERDUE_STUDENTS + 5);
+        for (int i = 0; i < OVERDUE_STUDENTS; i++) {
+            insertAssignment(studentIds.get(i), -3, "0", "0", "PENDING");
+        }
+        long fullyDiscounted = insertAssignment(studentIds.get(OVERDUE_STUDENTS), -3, "500.00", "0", "PENDING");
+        long partlyPaid = insertAssignment(studentIds.get(OVERDUE_STUDENTS + 1), -3, "0", "100.00", "PARTIAL");
+        long notYetDue = insertAssignment(studentIds.get(OVERDUE_STUDENTS + 2), 10, "0", "0", "PENDING");
+        long dueToday = insertAssignment(studentIds.get(OVERDUE_STUDENTS + 3), 0, "0", "0", "PENDING");
+        long waived = insertAssignment(studentIds.get(OVERDUE_STUDENTS + 4), -3, "500.00", "0", "WAIVED");
+        ledgerService.rebuildAllLedgers();
+
+        OverdueSweepResponse first = sweepService.sweepOverdueFees();
+
+        assertThat(first.getAssignmentsMarkedOverdue()).isEqualTo(OVERDUE_STUDENTS);
+        assertThat(first.getBatchesProcessed()).isEqualTo(3);
+        assertThat(status(fullyDiscounted)).isEqualTo("PENDING");
+        assertThat(status(partlyPaid)).isEqualTo("PARTIAL");
+        assertThat(status(notYetDue)).isEqualTo("PENDING");
+        assertThat(status(dueToday)).isEqualTo("PENDING");
+        assertThat(status(waived)).isEqualTo("WAIVED");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM student_fee_assignments WHERE status = 'OVERDUE'", Long.class))
+                .isEqualTo(OVERDUE_STUDENTS);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT SUM(overdue_count) FROM student_fee_ledger", Long.class)).isEqualTo(OVERDUE_STUDENTS);
+
+        OverdueSweepResponse second = sweepService.sweepOverdueFees();
+        assertThat(second.getAssignmentsMarkedOverdue()).isZero();
+        assertThat(second.getBatchesProcessed()).isZero();
+    }
+
+    private String status(long assignmentId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT status FROM student_fee_assignments WHERE id = ?", String.class, assignmentId);
+    }
+
+    private long insertAssignment(long studentId, int dueInDays, String discount, String paid, String status) {
+        long assignmentId = new TestDataFactory(jdbcTemplate)
+                .insertAssignment(studentId, feeId, LocalDate.now().plusDays(dueInDays));
+        jdbcTemplate.update(
+                "UPDATE student_fee_assignments SET discount_amount = ?, amount_paid = ?, status = ? WHERE id = ?",
+                new BigDecimal(discount), new BigDecimal(paid), status, assignmentId);
+        return assignmentId;
+    }
+
+    private List<Long> seedStudents(int count) {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        data.insertUsers("sweep.student", "Sweep", count);
+        feeId = data.insertFee("Sweep Tuition", new BigDecimal("500.00"), "2026");
+        return data.insertStudents("sweep.student", "SWEEP", null);
+    }
+}
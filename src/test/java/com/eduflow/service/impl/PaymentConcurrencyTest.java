@@ -0,0 +1,130 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.request.CreatePaymentRequest;
+import com.eduflow.dto.response.PaymentResponse;
+import com.eduflow.entity.finance.Payment;
+import com.eduflow.exception.BadRequestException;
+import com.eduflow.service.PaymentService;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Applies 1,000 payments to one fee assignment from many threads at once, half as cash payments
+ * and half as gateway completions, and checks that none is lost or rejected.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:paymentconcurrency;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=30000",
+        "spring.datasource.hikari.maximum-pool-size=20"
+})
+@ActiveProfiles("test")
+class PaymentConcurrencyTest {
+
+    private static final int PAYMENTS = 1_000;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void parallelPaymentsOnOneFeeAreAllApplied() throws Exception {
+        long assignmentId = seedAssignment(new BigDecimal("1000.00"));
+
+        // Gateway payments are initiated up front; their completions race the cash payments below
+        List<String> gatewayRefs = new ArrayList<>();
+        for (int i = 0; i < PAYMENTS / 2; i++) {
+            PaymentResponse initiated = paymentService.initiatePayment(request(assignmentId, Payment.PaymentMethod.MOBILE_MONEY_MTN));
+            gatewayRefs.add(initiated.getGatewayRef());
+        }
+
+        List<Callable<PaymentResponse>> tasks = new ArrayList<>();
+        for (int i = 0; i < PAYMENTS / 2; i++) {
+            String gatewayRef = gatewayRefs.get(i);
+            tasks.add(() -> paymentService.initiatePayment(request(assignmentId, Payment.PaymentMethod.CASH)));
+            tasks.add(() -> paymentService.processPaymentCallback(gatewayRef, true, "{\"status\":\"SUCCESS\"}"));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        int failures = 0;
+        Throwable firstFailure = null;
+        try {
+            List<Future<PaymentResponse>> futures = new ArrayList<>();
+            for (Callable<PaymentResponse> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<PaymentResponse> future : futures) {
+                try {
+                    assertThat(future.get(120, TimeUnit.SECONDS).getStatus()).isEqualTo(Payment.PaymentStatus.COMPLETED);
+                } catch (Exception | AssertionError e) {
+                    firstFailure = firstFailure == null ? e : firstFailure;
+                    failures++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(failures).as("failed payments, first: %s", firstFailure).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT amount_paid FROM student_fee_assignments WHERE id = ?", BigDecimal.class, assignmentId))
+                .isEqualByComparingTo("1000.00");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT status FROM student_fee_assignments WHERE id = ?", String.class, assignmentId))
+                .isEqualTo("PAID");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payments WHERE status = 'COMPLETED'", Long.class)).isEqualTo(PAYMENTS);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT total_paid FROM student_fee_ledger", BigDecimal.class)).isEqualByComparingTo("1000.00");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT outstanding_balance FROM student_fee_ledger", BigDecimal.class)).isEqualByComparingTo("0.00");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT pending_count FROM student_fee_ledger", Long.class)).isZero();
+
+        // Nothing is left to pay, so a further cash payment is refused instead of overpaying
+        assertThatThrownBy(() -> paymentService.initiatePayment(request(assignmentId, Payment.PaymentMethod.CASH)))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    private static CreatePaymentRequest request(long assignmentId, Payment.PaymentMethod method) {
+        return CreatePaymentRequest.builder()
+                .studentFeeAssignmentId(assignmentId)
+                .amount(BigDecimal.ONE)
+                .paymentMethod(method)
+                .payerName("Concurrent Payer")
+                .build();
+    }
+
+    private long seedAssignment(BigDecimal amount) {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        long userId = data.insertUser("concurrent.student" + TestDataFactory.EMAIL_DOMAIN, "Concurrent", "Student");
+        long studentId = data.insertStudent(userId, "CONC0001", null);
+        long feeId = data.insertFee("Concurrent Tuition", amount, "2026");
+        data.insertLedgers(List.of(studentId), "2026", amount);
+        return data.insertAssignment(studentId, feeId, LocalDate.now().plusDays(30));
+    }
+}
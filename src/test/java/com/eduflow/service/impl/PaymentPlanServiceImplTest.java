@@ -0,0 +1,188 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.request.CreatePaymentRequest;
+import com.eduflow.dto.request.GeneratePaymentPlansRequest;
+import com.eduflow.dto.response.BulkPaymentPlanResponse;
+import com.eduflow.dto.response.PaymentPlanInstallmentResponse;
+import com.eduflow.dto.response.PaymentPlanResponse;
+import com.eduflow.dto.response.PaymentPlanScanResponse;
+import com.eduflow.entity.finance.Payment;
+import com.eduflow.entity.finance.PaymentPlan;
+import com.eduflow.entity.finance.PaymentPlanInstallment;
+import com.eduflow.service.PaymentPlanService;
+import com.eduflow.service.PaymentService;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Generates, scans and pages 20k payment plans, then checks allocation and concurrent generation runs.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:paymentplans;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=30000",
+        "fees.payment-plans.batch-size=1000",
+        "fees.payment-plans.default-grace-days=30"
+})
+@ActiveProfiles("test")
+class PaymentPlanServiceImplTest {
+
+    private static final int PLANS = 20_000;
+    private static final String ACADEMIC_YEAR = "2026";
+    private static final int GRADE = 9;
+    private static final int RACE_STUDENTS = 500;
+
+    @Autowired
+    private PaymentPlanService paymentPlanService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void generatesScansAndAllocatesTwentyThousandPlans() throws Exception {
+        seedStudentsWithBalances();
+        LocalDate today = LocalDate.now();
+
+        GeneratePaymentPlansRequest request = GeneratePaymentPlansRequest.builder()
+                .academicYear(ACADEMIC_YEAR)
+                .grade(GRADE)
+                .numberOfInstallments(3)
+                .firstDueDate(today.minusDays(10))
+                .intervalMonths(1)
+                .build();
+
+        BulkPaymentPlanResponse generated = paymentPlanService.generatePlans(request);
+
+        assertThat(generated.getPlansCreated()).isEqualTo(PLANS);
+        assertThat(generated.getInstallmentsCreated()).isEqualTo(3L * PLANS);
+        assertThat(generated.getBatchesProcessed()).isEqualTo(PLANS / 1000);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payment_plan_installments", Long.class)).isEqualTo(3L * PLANS);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payment_plans WHERE total_amount <> " +
+                        "(SELECT SUM(i.amount) FROM payment_plan_installments i WHERE i.payment_plan_id = payment_plans.id)",
+                Long.class)).isZero();
+
+        // A second run finds every student already on a plan
+        assertThat(paymentPlanService.generatePlans(request).getPlansCreated()).isZero();
+
+        // A quarter of the plans fell behind long ago, another quarter has been paid off
+        jdbcTemplate.update("UPDATE payment_plan_installments SET due_date = DATEADD('DAY', -40, due_date) " +
+                "WHERE installment_number = 1 AND MOD(payment_plan_id, 4) = 0");
+        jdbcTemplate.update("UPDATE payment_plan_installments SET paid_amount = amount, status = 'PAID' " +
+                "WHERE MOD(payment_plan_id, 4) = 1");
+
+        PaymentPlanScanResponse scan = paymentPlanService.scanInstallments();
+
+        assertThat(scan.getInstallmentsMarkedOverdue()).isEqualTo(PLANS * 3L / 4);
+        assertThat(scan.getPlansDefaulted()).isEqualTo(PLANS / 4);
+        assertThat(scan.getPlansCompleted()).isEqualTo(PLANS / 4);
+
+        long due = 0;
+        long afterId = 0;
+        int pages = 0;
+        while (true) {
+            List<PaymentPlanInstallmentResponse> page = paymentPlanService.getDueInstallments(today, afterId, 1000);
+            if (page.isEmpty()) {
+                break;
+            }
+            due += page.size();
+            pages++;
+            afterId = page.get(page.size() - 1).getId();
+        }
+        assertThat(due).isEqualTo(PLANS * 3L / 4);
+        assertThat(pages).isEqualTo(PLANS * 3 / 4 / 1000);
+
+        assertAllocationPaysOldestInstallmentFirst();
+        assertConcurrentRunsWriteEachScheduleOnce();
+    }
+
+    private void assertAllocationPaysOldestInstallmentFirst() {
+        Long studentId = jdbcTemplate.queryForObject(
+                "SELECT MIN(student_id) FROM payment_plans WHERE status = 'ACTIVE'", Long.class);
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        long feeId = data.insertFee("Plan Tuition", new BigDecimal("3000.00"), ACADEMIC_YEAR);
+        long assignmentId = data.insertAssignment(studentId, feeId, LocalDate.now().plusDays(30));
+
+        paymentService.initiatePayment(CreatePaymentRequest.builder()
+                .studentFeeAssignmentId(assignmentId)
+                .amount(new BigDecimal("1200.00"))
+                .paymentMethod(Payment.PaymentMethod.CASH)
+                .payerName("Plan Payer")
+                .build());
+
+        PaymentPlanResponse plan = paymentPlanService.getStudentPlans(studentId).get(0);
+        assertThat(plan.getStatus()).isEqualTo(PaymentPlan.PlanStatus.ACTIVE);
+        assertThat(plan.getInstallments().get(0).getStatus()).isEqualTo(PaymentPlanInstallment.InstallmentStatus.PAID);
+        assertThat(plan.getInstallments().get(0).getPaidDate()).isEqualTo(LocalDate.now());
+        assertThat(plan.getInstallments().get(1).getStatus()).isEqualTo(PaymentPlanInstallment.InstallmentStatus.PARTIAL);
+        assertThat(plan.getInstallments().get(1).getPaidAmount()).isEqualByComparingTo("200.00");
+        assertThat(plan.getInstallments().get(2).getStatus()).isEqualTo(PaymentPlanInstallment.InstallmentStatus.PENDING);
+    }
+
+    private void assertConcurrentRunsWriteEachScheduleOnce() throws Exception {
+        String academicYear = "2027";
+        seedStudentsWithBalances("Grade 10 Plans", GRADE + 1, academicYear, "race.student", RACE_STUDENTS);
+        GeneratePaymentPlansRequest request = GeneratePaymentPlansRequest.builder()
+                .academicYear(academicYear)
+                .grade(GRADE + 1)
+                .numberOfInstallments(3)
+                .firstDueDate(LocalDate.now().plusDays(10))
+                .intervalMonths(1)
+                .build();
+
+        // Both runs read the same candidates before either has written a plan
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch ready = new CountDownLatch(2);
+        List<Future<BulkPaymentPlanResponse>> runs = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            runs.add(executor.submit(() -> {
+                ready.countDown();
+                ready.await();
+                return paymentPlanService.generatePlans(request);
+            }));
+        }
+        long created = 0;
+        for (Future<BulkPaymentPlanResponse> run : runs) {
+            created += run.get().getPlansCreated();
+        }
+        executor.shutdown();
+
+        assertThat(created).isEqualTo(RACE_STUDENTS);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payment_plans WHERE academic_year = ?", Long.class, academicYear))
+                .isEqualTo(RACE_STUDENTS);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payment_plan_installments i JOIN payment_plans p ON p.id = i.payment_plan_id " +
+                        "WHERE p.academic_year = ?", Long.class, academicYear)).isEqualTo(3L * RACE_STUDENTS);
+    }
+
+    private void seedStudentsWithBalances() {
+        seedStudentsWithBalances("Grade 9 Plans", GRADE, ACADEMIC_YEAR, "plan.student", PLANS);
+    }
+
+    private void seedStudentsWithBalances(String className, int grade, String academicYear, String emailPrefix,
+                                          int count) {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        long classId = data.insertClass(className, grade, academicYear);
+        data.insertUsers(emailPrefix, "Plan", count);
+        List<Long> studentIds = data.insertStudents(emailPrefix, "PLAN", classId);
+        data.insertLedgers(studentIds, academicYear, new BigDecimal("3000.00"));
+    }
+}
@@ -0,0 +1,206 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.response.PaymentReconciliationResponse;
+import com.eduflow.entity.finance.Payment;
+import com.eduflow.service.PaymentReconciliationService;
+import com.eduflow.service.payment.GatewayVerification;
+import com.eduflow.service.payment.PaymentGatewayException;
+import com.eduflow.service.payment.PaymentGatewayService;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reconciliation;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "payment.reconciliation.concurrency=4",
+        "payment.reconciliation.page-size=16",
+        "payment.reconciliation.rate-per-second=200"
+})
+@ActiveProfiles("test")
+class PaymentReconciliationServiceImplTest {
+
+    private static final int STALE_PAYMENTS = 40;
+
+    @Autowired
+    private PaymentReconciliationService reconciliationService;
+
+    @Autowired
+    private StubGateway stubGateway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void settlesStalePaymentsWithBoundedConcurrency() {
+        List<Long> assignmentIds = seedAssignments();
+        Timestamp stale = Timestamp.valueOf(LocalDateTime.now().minusHours(2));
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO payments (student_fee_assignment_id, amount, payment_method, transaction_ref, " +
+                        "gateway_ref, status, created_at, version) VALUES (?, 10.00, 'MOBILE_MONEY_MTN', ?, ?, ?, ?, 0)",
+                IntStream.range(0, STALE_PAYMENTS).boxed().toList(), 100, (ps, i) -> {
+                    ps.setLong(1, assignmentIds.get(i));
+                    ps.setString(2, "PAYSTALE" + i);
+                    ps.setString(3, "GW-STALE-" + i);
+                    ps.setString(4, i % 2 == 0 ? "PROCESSING" : "PENDING");
+                    ps.setTimestamp(5, stale);
+                });
+        jdbcTemplate.update(
+                "INSERT INTO payments (student_fee_assignment_id, amount, payment_method, transaction_ref, " +
+                        "gateway_ref, status, created_at, version) " +
+                        "VALUES (?, 10.00, 'MOBILE_MONEY_MTN', 'PAYFRESH', 'GW-FRESH', 'PROCESSING', ?, 0)",
+                assignmentIds.get(0), Timestamp.valueOf(LocalDateTime.now()));
+
+        PaymentReconciliationResponse response = reconciliationService.reconcileStalePayments();
+
+        assertThat(response.getPaymentsChecked()).isEqualTo(STALE_PAYMENTS);
+        assertThat(response.getPaymentsCompleted()).isEqualTo(30);
+        assertThat(response.getPaymentsFailed()).isEqualTo(4);
+        assertThat(response.getPaymentsUnverified()).isEqualTo(5);
+        assertThat(response.getErrors()).isEqualTo(1);
+        assertThat(stubGateway.maxInFlight.get()).isBetween(1, 4);
+
+        // Only declined payments fail; unknown answers and gateway errors leave the payment as it was
+        assertThat(statusCount("FAILED")).isEqualTo(4);
+        assertThat(statusCount("COMPLETED")).isEqualTo(30);
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT status FROM payments WHERE transaction_ref IN " +
+                        "('PAYSTALE0', 'PAYSTALE4', 'PAYSTALE12', 'PAYSTALE20', 'PAYSTALE28', 'PAYSTALE36')",
+                String.class)).containsOnly("PENDING", "PROCESSING").hasSize(6);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT status FROM payments WHERE transaction_ref = 'PAYFRESH'", String.class))
+                .isEqualTo(Payment.PaymentStatus.PROCESSING.name());
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT SUM(amount_paid) FROM student_fee_assignments WHERE fee_id = " +
+                        "(SELECT id FROM fees WHERE name = 'Reconciliation Tuition')", BigDecimal.class))
+                .isEqualByComparingTo("300.00");
+
+        // The next run asks again about the payments it could not settle, and only those
+        PaymentReconciliationResponse rerun = reconciliationService.reconcileStalePayments();
+        assertThat(rerun.getPaymentsChecked()).isEqualTo(6);
+        assertThat(rerun.getPaymentsUnverified()).isEqualTo(5);
+        assertThat(rerun.getErrors()).isEqualTo(1);
+        assertThat(rerun.getPaymentsFailed()).isZero();
+    }
+
+    @Test
+    void failsStalePaymentsThatNeverReachedTheGateway() {
+        List<Long> assignmentIds = seedAssignments("Unsent Tuition", "unsent.student", 2);
+        String insert = "INSERT INTO payments (student_fee_assignment_id, amount, payment_method, transaction_ref, " +
+                "status, created_at, version) VALUES (?, 10.00, 'MOBILE_MONEY_MTN', ?, 'PENDING', ?, 0)";
+        jdbcTemplate.update(insert, assignmentIds.get(0), "PAYUNSENT-OLD",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(2)));
+        jdbcTemplate.update(insert, assignmentIds.get(1), "PAYUNSENT-NEW", Timestamp.valueOf(LocalDateTime.now()));
+
+        PaymentReconciliationResponse response = reconciliationService.reconcileStalePayments();
+
+        assertThat(response.getPaymentsExpired()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT status FROM payments WHERE transaction_ref = 'PAYUNSENT-OLD'", String.class))
+                .isEqualTo("FAILED");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT status FROM payments WHERE transaction_ref = 'PAYUNSENT-NEW'", String.class))
+                .isEqualTo("PENDING");
+        assertThat(reconciliationService.reconcileStalePayments().getPaymentsExpired()).isZero();
+    }
+
+    private long statusCount(String status) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payments WHERE transaction_ref LIKE 'PAYSTALE%' AND status = ?",
+                Long.class, status);
+    }
+
+    private List<Long> seedAssignments() {
+        return seedAssignments("Reconciliation Tuition", "reconcile.student", STALE_PAYMENTS);
+    }
+
+    private List<Long> seedAssignments(String feeName, String emailPrefix, int count) {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        data.insertUsers(emailPrefix, "Reconcile", count);
+        List<Long> studentIds = data.insertStudents(emailPrefix, "RECON", null);
+        long feeId = data.insertFee(feeName, new BigDecimal("1000.00"), "2026");
+        return data.insertAssignments(studentIds, feeId, LocalDate.now().plusDays(30));
+    }
+
+    static class StubGateway implements PaymentGatewayService {
+
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        @Override
+        public String initiatePayment(Payment payment) {
+            return "GW-STUB";
+        }
+
+        // Of every fourth payment: the first call errors, then odd ones are unknown and even ones declined
+        @Override
+        public GatewayVerification verifyPayment(String gatewayRef) {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            int index = Integer.parseInt(gatewayRef.substring(gatewayRef.lastIndexOf('-') + 1));
+            if (index == 0) {
+                throw new PaymentGatewayException("Payment gateway circuit is open");
+            }
+            if (index % 4 != 0) {
+                return GatewayVerification.CONFIRMED;
+            }
+            return index % 8 == 0 ? GatewayVerification.DECLINED : GatewayVerification.UNKNOWN;
+        }
+
+        @Override
+        public void processRefund(String gatewayRef, BigDecimal amount) {
+        }
+
+        @Override
+        public CompletableFuture<String> initiatePaymentAsync(Payment payment) {
+            return CompletableFuture.completedFuture(initiatePayment(payment));
+        }
+
+        @Override
+        public CompletableFuture<GatewayVerification> verifyPaymentAsync(String gatewayRef) {
+            return CompletableFuture.supplyAsync(() -> verifyPayment(gatewayRef));
+        }
+
+        @Override
+        public CompletableFuture<Void> processRefundAsync(String gatewayRef, BigDecimal amount) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public boolean isSimulated() {
+            return false;
+        }
+    }
+
+    @TestConfiguration
+    static class StubGatewayConfig {
+
+        @Bean
+        @Primary
+        StubGateway stubGateway() {
+            return new StubGateway();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.response.PaymentReconciliationResponse;
+import com.eduflow.service.PaymentReconciliationService;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reconciliation against the simulated gateway, whose answers say nothing about whether money was
+ * collected: stale payments must be left exactly as they were.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reconciliationsimulated;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "payment.gateway.simulated=true"
+})
+@ActiveProfiles("test")
+class PaymentReconciliationSimulatedGatewayTest {
+
+    private static final int STALE_PAYMENTS = 10;
+
+    @Autowired
+    private PaymentReconciliationService reconciliationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void leavesStalePaymentsUnsettled() {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        data.insertUsers("simulated.student", "Simulated", STALE_PAYMENTS);
+        List<Long> studentIds = data.insertStudents("simulated.student", "SIM", null);
+        long feeId = data.insertFee("Simulated Tuition", new BigDecimal("1000.00"), "2026");
+        List<Long> assignmentIds = data.insertAssignments(studentIds, feeId, LocalDate.now().plusDays(30));
+        Timestamp stale = Timestamp.valueOf(LocalDateTime.now().minusHours(2));
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO payments (student_fee_assignment_id, amount, payment_method, transaction_ref, " +
+                        "gateway_ref, status, created_at, version) " +
+                        "VALUES (?, 10.00, 'MOBILE_MONEY_MTN', ?, ?, ?, ?, 0)",
+                IntStream.range(0, STALE_PAYMENTS).boxed().toList(), 100, (ps, i) -> {
+                    ps.setLong(1, assignmentIds.get(i));
+                    ps.setString(2, "PAYSIM" + i);
+                    ps.setString(3, "GW-SIM-" + i);
+                    ps.setString(4, i % 2 == 0 ? "PROCESSING" : "PENDING");
+                    ps.setTimestamp(5, stale);
+                });
+
+        PaymentReconciliationResponse response = reconciliationService.reconcileStalePayments();
+
+        assertThat(response.getPaymentsCompleted()).isZero();
+        assertThat(response.getPaymentsFailed()).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payments WHERE transaction_ref LIKE 'PAYSIM%' AND status = 'COMPLETED'",
+                Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT status FROM payments WHERE transaction_ref LIKE 'PAYSIM%'", String.class))
+                .containsOnly("PENDING", "PROCESSING").hasSize(STALE_PAYMENTS);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT SUM(amount_paid) FROM student_fee_assignments WHERE fee_id = ?", BigDecimal.class, feeId))
+                .isEqualByComparingTo("0");
+    }
+}
@@ -0,0 +1,169 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.request.CreatePaymentRequest;
+import com.eduflow.dto.response.CollectionBreakdownResponse;
+import com.eduflow.dto.response.CollectionSeriesResponse;
+import com.eduflow.dto.response.PaymentResponse;
+import com.eduflow.entity.finance.FeeCategory;
+import com.eduflow.entity.finance.Payment;
+import com.eduflow.service.PaymentRollupService;
+import com.eduflow.service.PaymentService;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rollup;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=30000",
+        "spring.datasource.hikari.maximum-pool-size=20"
+})
+@ActiveProfiles("test")
+class PaymentRollupServiceImplTest {
+
+    private static final int STUDENTS = 6;
+    private static final int WRITERS = 6;
+    private static final int PAYMENTS_PER_WRITER = 40;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRollupService rollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void rollupTracksCompletedPaymentsAndMatchesRebuild() {
+        List<Long> assignmentIds = seedAssignments("Rollup Tuition", "rollup.student");
+        LocalDate today = LocalDate.now();
+
+        // Cash completes immediately; mobile money completes once the gateway confirms
+        for (int i = 0; i < STUDENTS; i++) {
+            Payment.PaymentMethod method = i % 2 == 0 ? Payment.PaymentMethod.CASH : Payment.PaymentMethod.MOBILE_MONEY_MTN;
+            PaymentResponse payment = paymentService.initiatePayment(CreatePaymentRequest.builder()
+                    .studentFeeAssignmentId(assignmentIds.get(i))
+                    .amount(new BigDecimal("100.00"))
+                    .paymentMethod(method)
+                    .payerName("Rollup Payer")
+                    .build());
+            if (method != Payment.PaymentMethod.CASH) {
+                paymentService.reconcileStalePayment(payment.getId(), true, "{}");
+            }
+        }
+        // A payment that never completes must not be counted
+        paymentService.initiatePayment(CreatePaymentRequest.builder()
+                .studentFeeAssignmentId(assignmentIds.get(0))
+                .amount(new BigDecimal("50.00"))
+                .paymentMethod(Payment.PaymentMethod.VISA)
+                .build());
+
+        CollectionBreakdownResponse incremental = rollupService.getCollectionBreakdown(today, today);
+        assertThat(incremental.getTotalCollected()).isEqualByComparingTo("600.00");
+        assertThat(incremental.getPaymentCount()).isEqualTo(STUDENTS);
+        assertThat(incremental.getByPaymentMethod().get(Payment.PaymentMethod.CASH).getAmount())
+                .isEqualByComparingTo("300.00");
+        assertThat(incremental.getByPaymentMethod()).doesNotContainKey(Payment.PaymentMethod.VISA);
+
+        // History written behind the service's back only shows up after a rebuild
+        LocalDateTime lastMonth = today.minusMonths(1).withDayOfMonth(3).atTime(10, 0);
+        jdbcTemplate.update(
+                "INSERT INTO payments (student_fee_assignment_id, amount, payment_method, transaction_ref, " +
+                        "status, paid_at, created_at, version) VALUES (?, 40.00, 'BANK_TRANSFER', 'PAYROLLUPOLD', " +
+                        "'COMPLETED', ?, ?, 0)",
+                assignmentIds.get(1), Timestamp.valueOf(lastMonth), Timestamp.valueOf(lastMonth));
+
+        rollupService.rebuildAllRollups();
+
+        CollectionBreakdownResponse rebuilt = rollupService.getCollectionBreakdown(today, today);
+        assertThat(rebuilt).isEqualTo(incremental);
+
+        CollectionSeriesResponse monthly = rollupService.getCollectionSeries(
+                lastMonth.toLocalDate().withDayOfMonth(1), today, CollectionSeriesResponse.Bucket.MONTH);
+        assertThat(monthly.getTotalCollected()).isEqualByComparingTo("640.00");
+        assertThat(monthly.getPoints()).hasSize(2);
+        assertThat(monthly.getPoints().get(0).getPeriodStart()).isEqualTo(lastMonth.toLocalDate().withDayOfMonth(1));
+        assertThat(monthly.getPoints().get(0).getAmount()).isEqualByComparingTo("40.00");
+        assertThat(monthly.getPoints().get(1).getPaymentCount()).isEqualTo(STUDENTS);
+    }
+
+    @Test
+    void rebuildRacingDeltaWritersKeepsEveryPayment() throws Exception {
+        long assignmentId = seedAssignments("Race Tuition", "rollup.race").get(0);
+        FeeCategory.CategoryType category = FeeCategory.CategoryType.valueOf(jdbcTemplate.queryForObject(
+                "SELECT fc.name FROM fee_categories fc JOIN fees f ON f.category_id = fc.id " +
+                        "WHERE f.name = 'Race Tuition'", String.class));
+        // Far enough back that the other test's date ranges never see these payments
+        LocalDateTime paidAt = LocalDate.now().minusYears(2).withDayOfMonth(10).atTime(9, 0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < PAYMENTS_PER_WRITER; i++) {
+                    String ref = "PAYRACE" + writer + "X" + i;
+                    transactionTemplate.executeWithoutResult(status -> {
+                        jdbcTemplate.update(
+                                "INSERT INTO payments (student_fee_assignment_id, amount, payment_method, " +
+                                        "transaction_ref, status, paid_at, created_at, version) " +
+                                        "VALUES (?, 10.00, 'CASH', ?, 'COMPLETED', ?, ?, 0)",
+                                assignmentId, ref, Timestamp.valueOf(paidAt), Timestamp.valueOf(paidAt));
+                        rollupService.recordCompleted(paidAt.toLocalDate(), Payment.PaymentMethod.CASH, category,
+                                new BigDecimal("10.00"), 1);
+                    });
+                }
+            }));
+        }
+        Future<Integer> rebuilds = executor.submit(() -> {
+            int runs = 0;
+            while (writing.get()) {
+                rollupService.rebuildAllRollups();
+                runs++;
+            }
+            return runs;
+        });
+
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        writing.set(false);
+        assertThat(rebuilds.get()).isPositive();
+        executor.shutdown();
+
+        // No increment lost to a rebuild and none counted twice
+        int payments = WRITERS * PAYMENTS_PER_WRITER;
+        CollectionBreakdownResponse day = rollupService.getCollectionBreakdown(
+                paidAt.toLocalDate(), paidAt.toLocalDate());
+        assertThat(day.getPaymentCount()).isEqualTo(payments);
+        assertThat(day.getTotalCollected()).isEqualByComparingTo(BigDecimal.valueOf(payments * 10L));
+    }
+
+    private List<Long> seedAssignments(String feeName, String emailPrefix) {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        data.insertUsers(emailPrefix, "Rollup", STUDENTS);
+        List<Long> studentIds = data.insertStudents(emailPrefix, "ROLLUP", null);
+        long feeId = data.insertFee(feeName, new BigDecimal("1000.00"), "2026");
+        return data.insertAssignments(studentIds, feeId, LocalDate.now().plusDays(30));
+    }
+}
@@ -0,0 +1,188 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.dto.response.WebhookInboxDrainResponse;
+import com.eduflow.service.PaymentWebhookInboxService;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:webhookinbox;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "payment.webhooks.drain-interval=3600000",
+        "payment.webhooks.retry-backoff=50"
+})
+@ActiveProfiles("test")
+class PaymentWebhookInboxServiceImplTest {
+
+    private static final int PAYMENTS = 1500;
+
+    @Autowired
+    private PaymentWebhookInboxService inboxService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void absorbsBurstAndAppliesEachPaymentOnce() throws Exception {
+        seedPayments();
+
+        // Every payment gets a pending event, a success event and a redelivery of the success event
+        List<String> payloads = new ArrayList<>();
+        for (int i = 0; i < PAYMENTS; i++) {
+            payloads.add(payload("GW-INBOX-" + i, "TX-PENDING-" + i, "PAYMENT.PENDING", "PENDING"));
+            payloads.add(payload("GW-INBOX-" + i, "TX-SUCCESS-" + i, "PAYMENT.SUCCESS", "SUCCESS"));
+            payloads.add(payload("GW-INBOX-" + i, "TX-SUCCESS-" + i, "PAYMENT.SUCCESS", "SUCCESS"));
+        }
+
+        ExecutorService senders = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> accepted = new ArrayList<>();
+        for (String payload : payloads) {
+            accepted.add(senders.submit(() -> inboxService.enqueue(payload)));
+        }
+        int appended = 0;
+        for (Future<Boolean> future : accepted) {
+            appended += future.get() ? 1 : 0;
+        }
+        senders.shutdown();
+
+        WebhookInboxDrainResponse drained = inboxService.drainInbox();
+
+        assertThat(appended).isEqualTo(PAYMENTS * 2);
+        assertThat(drained.getEventsProcessed()).isEqualTo(PAYMENTS * 2);
+        assertThat(drained.getEventsRetried()).isZero();
+        assertThat(drained.getBacklog()).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payments WHERE gateway_ref LIKE 'GW-INBOX-%' AND status = 'COMPLETED'",
+                Long.class)).isEqualTo(PAYMENTS);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT SUM(amount_paid) FROM student_fee_assignments WHERE fee_id = " +
+                        "(SELECT id FROM fees WHERE name = 'Inbox Tuition')", BigDecimal.class))
+                .isEqualByComparingTo(BigDecimal.valueOf(PAYMENTS * 10L));
+
+        // Late gateway retries are answered by the idempotency cache
+        for (int i = 0; i < PAYMENTS; i++) {
+            assertThat(inboxService.enqueue(payload("GW-INBOX-" + i, "TX-SUCCESS-" + i, "PAYMENT.SUCCESS", "SUCCESS")))
+                    .isFalse();
+        }
+    }
+
+    @Test
+    void retriesEventsForUnknownPaymentsInOrder() throws Exception {
+        inboxService.enqueue(payload("GW-LATE", "TX-LATE-1", "PAYMENT.PENDING", "PENDING"));
+        inboxService.enqueue(payload("GW-LATE", "TX-LATE-2", "PAYMENT.SUCCESS", "SUCCESS"));
+
+        WebhookInboxDrainResponse first = inboxService.drainInbox();
+        assertThat(first.getEventsRetried()).isEqualTo(1);
+        assertThat(first.getEventsProcessed()).isZero();
+        assertThat(first.getBacklog()).isEqualTo(2);
+
+        long assignmentId = seedAssignments("Late Tuition", "late.student", 1).get(0);
+        jdbcTemplate.update(
+                "INSERT INTO payments (student_fee_assignment_id, amount, payment_method, transaction_ref, " +
+                        "gateway_ref, status, created_at, version) " +
+                        "VALUES (?, 10.00, 'MOBILE_MONEY_MTN', 'PAYLATE', 'GW-LATE', 'PROCESSING', ?, 0)",
+                assignmentId, Timestamp.valueOf(LocalDateTime.now()));
+        Thread.sleep(100);
+
+        WebhookInboxDrainResponse second = inboxService.drainInbox();
+        assertThat(second.getEventsProcessed()).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT gateway_ref FROM payment_transactions WHERE gateway_ref LIKE 'TX-LATE-%' ORDER BY id",
+                String.class)).containsExactly("TX-LATE-1", "TX-LATE-2");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT status FROM payments WHERE gateway_ref = 'GW-LATE'", String.class)).isEqualTo("COMPLETED");
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT DISTINCT partition_key FROM payment_webhook_inbox WHERE transaction_id LIKE 'TX-LATE-%'",
+                String.class)).containsExactly("P:" + jdbcTemplate.queryForObject(
+                "SELECT id FROM payments WHERE gateway_ref = 'GW-LATE'", Long.class));
+    }
+
+    @Test
+    void eventsByEitherReferenceShareThePaymentPartition() {
+        long assignmentId = seedAssignments("Mixed Tuition", "mixed.student", 1).get(0);
+        jdbcTemplate.update(
+                "INSERT INTO payments (student_fee_assignment_id, amount, payment_method, transaction_ref, " +
+                        "gateway_ref, status, created_at, version) " +
+                        "VALUES (?, 10.00, 'MOBILE_MONEY_MTN', 'PAYMIXED', 'GW-MIXED', 'PROCESSING', ?, 0)",
+                assignmentId, Timestamp.valueOf(LocalDateTime.now()));
+        long paymentId = jdbcTemplate.queryForObject(
+                "SELECT id FROM payments WHERE transaction_ref = 'PAYMIXED'", Long.class);
+
+        // Another drainer holds the first event; the later one must wait even though it names the other reference
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(
+                "INSERT INTO payment_webhook_inbox (raw_payload, partition_key, transaction_id, event_type, status, " +
+                        "attempts, next_attempt_at, claimed_at, created_at, updated_at, created_by, updated_by, " +
+                        "version) VALUES (?, ?, 'TX-MIXED-1', 'PAYMENT.PENDING', 'PROCESSING', 0, ?, ?, ?, ?, " +
+                        "'system', 'system', 0)",
+                merchantPayload("PAYMIXED", "TX-MIXED-1", "PAYMENT.PENDING", "PENDING"), "P:" + paymentId,
+                now, now, now, now);
+        assertThat(inboxService.enqueue(payload("GW-MIXED", "TX-MIXED-2", "PAYMENT.SUCCESS", "SUCCESS"))).isTrue();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT partition_key FROM payment_webhook_inbox WHERE transaction_id = 'TX-MIXED-2'", String.class))
+                .isEqualTo("P:" + paymentId);
+
+        WebhookInboxDrainResponse blocked = inboxService.drainInbox();
+        assertThat(blocked.getEventsProcessed()).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT status FROM payments WHERE id = ?", String.class, paymentId)).isEqualTo("PROCESSING");
+
+        // Once the first event is done the second one goes through
+        jdbcTemplate.update(
+                "UPDATE payment_webhook_inbox SET status = 'PROCESSED' WHERE transaction_id = 'TX-MIXED-1'");
+        WebhookInboxDrainResponse released = inboxService.drainInbox();
+        assertThat(released.getEventsProcessed()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT status FROM payments WHERE id = ?", String.class, paymentId)).isEqualTo("COMPLETED");
+    }
+
+    private void seedPayments() {
+        List<Long> assignmentIds = seedAssignments("Inbox Tuition", "inbox.student", PAYMENTS);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO payments (student_fee_assignment_id, amount, payment_method, transaction_ref, " +
+                        "gateway_ref, status, created_at, version) " +
+                        "VALUES (?, 10.00, 'MOBILE_MONEY_MTN', ?, ?, 'PROCESSING', ?, 0)",
+                IntStream.range(0, PAYMENTS).boxed().toList(), 500, (ps, i) -> {
+                    ps.setLong(1, assignmentIds.get(i));
+                    ps.setString(2, "PAYINBOX" + i);
+                    ps.setString(3, "GW-INBOX-" + i);
+                    ps.setTimestamp(4, now);
+                });
+    }
+
+    private List<Long> seedAssignments(String feeName, String emailPrefix, int count) {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        data.insertUsers(emailPrefix, "Inbox", count);
+        List<Long> studentIds = data.insertStudents(emailPrefix, "INBOX", null);
+        long feeId = data.insertFee(feeName, new BigDecimal("1000.00"), "2026");
+        return data.insertAssignments(studentIds, feeId, LocalDate.now().plusDays(30));
+    }
+
+    private static String merchantPayload(String merchantRef, String transactionId, String eventType,
+                                          String status) {
+        return "{\"eventType\":\"" + eventType + "\",\"merchantReference\":\"" + merchantRef +
+                "\",\"status\":\"" + status + "\",\"amount\":10.00,\"transactionId\":\"" + transactionId + "\"}";
+    }
+
+    private static String payload(String gatewayRef, String transactionId, String eventType, String status) {
+        return "{\"eventType\":\"" + eventType + "\",\"gatewayReference\":\"" + gatewayRef +
+                "\",\"status\":\"" + status + "\",\"amount\":10.00,\"transactionId\":\"" + transactionId + "\"}";
+    }
+}
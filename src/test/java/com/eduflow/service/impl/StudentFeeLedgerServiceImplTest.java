@@ -0,0 +1,147 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.entity.finance.StudentFeeAssignment;
+import com.eduflow.entity.finance.StudentFeeLedger;
+import com.eduflow.repository.finance.StudentFeeAssignmentRepository;
+import com.eduflow.service.OverdueFeeSweepService;
+import com.eduflow.service.StudentFeeLedgerService;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Opens ledger rows from many threads at once and checks that each student and year gets one row
+ * carrying every delta, then checks that payments and the overdue sweep leave the ledger equal to
+ * a rebuild from the assignments.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledgerservice;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=30000",
+        "spring.datasource.hikari.maximum-pool-size=20"
+})
+@ActiveProfiles("test")
+class StudentFeeLedgerServiceImplTest {
+
+    private static final int STUDENTS = 10;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private StudentFeeLedgerService ledgerService;
+
+    @Autowired
+    private OverdueFeeSweepService sweepService;
+
+    @Autowired
+    private StudentFeeAssignmentRepository assignmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentFirstWritesShareOneRow() throws Exception {
+        List<Long> studentIds = seedStudents("ledgerrace");
+        Long first = studentIds.get(0);
+
+        List<Runnable> writes = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            writes.add(() -> ledgerService.recordPayments(first, "2031", new BigDecimal("5.00"), 0, 0));
+            writes.add(() -> ledgerService.recordBulkAssignment(studentIds, "2032", new BigDecimal("100.00")));
+        }
+        runTogether(writes);
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM student_fee_ledger WHERE student_id = ? AND academic_year = '2031'",
+                Long.class, first)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT total_paid FROM student_fee_ledger WHERE student_id = ? AND academic_year = '2031'",
+                BigDecimal.class, first)).isEqualByComparingTo("40.00");
+
+        List<Map<String, Object>> bulkRows = jdbcTemplate.queryForList(
+                "SELECT fee_count, total_fees FROM student_fee_ledger WHERE academic_year = '2032'");
+        assertThat(bulkRows).hasSize(STUDENTS).allSatisfy(row -> {
+            assertThat(((Number) row.get("FEE_COUNT")).intValue()).isEqualTo(THREADS);
+            assertThat((BigDecimal) row.get("TOTAL_FEES")).isEqualByComparingTo("800.00");
+        });
+    }
+
+    @Test
+    void paymentsAndOverdueSweepMatchRebuild() {
+        List<Long> studentIds = seedStudents("ledgersweep");
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        long feeId = data.insertFee("Ledger Sweep Tuition", new BigDecimal("1000.00"), "2033");
+        // Every other fee is already past its due date
+        for (int i = 0; i < STUDENTS; i++) {
+            data.insertAssignment(studentIds.get(i), feeId, LocalDate.now().plusDays(i % 2 == 0 ? -5 : 30));
+        }
+        ledgerService.rebuildAllLedgers();
+
+        // An incremental payment on a fee that is not yet due
+        StudentFeeAssignment assignment = assignmentRepository.findAll().stream()
+                .filter(a -> "2033".equals(a.getAcademicYear()) && a.getDueDate().isAfter(LocalDate.now()))
+                .findFirst()
+                .orElseThrow();
+        StudentFeeLedger.Contribution before = StudentFeeLedger.Contribution.of(assignment);
+        assignment.addPayment(new BigDecimal("400.00"));
+        assignment = assignmentRepository.save(assignment);
+        ledgerService.recordChange(before, assignment);
+
+        sweepService.sweepOverdueFees();
+
+        String totalsSql = "SELECT SUM(total_fees), SUM(total_paid), SUM(outstanding_balance), SUM(fee_count), " +
+                "SUM(pending_count), SUM(overdue_count) FROM student_fee_ledger WHERE academic_year = '2033'";
+        List<Object> incremental = jdbcTemplate.queryForObject(totalsSql, (rs, rowNum) -> List.of(
+                rs.getBigDecimal(1), rs.getBigDecimal(2), rs.getBigDecimal(3),
+                rs.getLong(4), rs.getLong(5), rs.getLong(6)));
+        assertThat(incremental).containsExactly(
+                new BigDecimal("10000.00"), new BigDecimal("400.00"), new BigDecimal("9600.00"),
+                (long) STUDENTS, (long) STUDENTS, (long) STUDENTS / 2);
+
+        ledgerService.rebuildAllLedgers();
+        List<Object> rebuilt = jdbcTemplate.queryForObject(totalsSql, (rs, rowNum) -> List.of(
+                rs.getBigDecimal(1), rs.getBigDecimal(2), rs.getBigDecimal(3),
+                rs.getLong(4), rs.getLong(5), rs.getLong(6)));
+        assertThat(rebuilt).isEqualTo(incremental);
+    }
+
+    private static void runTogether(List<Runnable> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Long> seedStudents(String prefix) {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        data.insertUsers(prefix, "Ledger", STUDENTS);
+        return data.insertStudents(prefix, prefix.toUpperCase(), null);
+    }
+}
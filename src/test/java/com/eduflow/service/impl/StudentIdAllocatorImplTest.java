@@ -0,0 +1,109 @@
+package com.eduflow.service.impl;
+
+import com.eduflow.repository.academic.IdSequenceRepository;
+import com.eduflow.repository.academic.StudentRepository;
+import com.eduflow.service.StudentIdAllocator;
+import com.eduflow.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two allocators on one database stand in for two nodes; many threads draw student numbers from
+ * both at once, which must never repeat and must continue after numbers issued before the counter.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:studentids;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "students.id-block-size=50"
+})
+@ActiveProfiles("test")
+class StudentIdAllocatorImplTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 5_000;
+
+    @Autowired
+    private StudentIdAllocator studentIdAllocator;
+
+    @Autowired
+    private IdSequenceRepository idSequenceRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void allocatesUniqueNumbersAcrossThreadsAndNodes() throws Exception {
+        String prefix = "STU" + LocalDate.now().getYear();
+        seedExistingStudent(prefix + "0007");
+
+        StudentIdAllocator otherNode =
+                new StudentIdAllocatorImpl(idSequenceRepository, studentRepository, transactionManager, 50);
+
+        String first = studentIdAllocator.nextStudentId();
+        assertThat(first).isEqualTo(prefix + "0008");
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                StudentIdAllocator allocator = t % 2 == 0 ? studentIdAllocator : otherNode;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    List<String> ids = new ArrayList<>(IDS_PER_THREAD);
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        ids.add(allocator.nextStudentId());
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+
+            Set<String> all = new HashSet<>();
+            all.add(first);
+            for (Future<List<String>> future : futures) {
+                for (String id : future.get(60, TimeUnit.SECONDS)) {
+                    assertThat(all.add(id)).as("duplicate %s", id).isTrue();
+                }
+            }
+
+            assertThat(all).hasSize(THREADS * IDS_PER_THREAD + 1);
+            assertThat(all).allMatch(id -> id.startsWith(prefix)
+                    && Long.parseLong(id.substring(prefix.length())) >= 8);
+
+            long blocksReserved = (idSequenceRepository.findNextValue(prefix) - 8) / 50;
+            // One counter round trip per block, not per id
+            assertThat(blocksReserved).isLessThanOrEqualTo((THREADS * IDS_PER_THREAD + 1) / 50 + 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void seedExistingStudent(String studentId) {
+        TestDataFactory data = new TestDataFactory(jdbcTemplate);
+        long userId = data.insertUser("existing.student" + TestDataFactory.EMAIL_DOMAIN, "Existing", "Student");
+        data.insertStudent(userId, studentId, null);
+    }
+}
@@ -0,0 +1,109 @@
+package com.eduflow.service.payment;
+
+import com.eduflow.repository.finance.PaymentTransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Expiry, eviction order and hit/miss counting of the idempotency cache on a hand-driven clock.
+ */
+class GatewayRefIdempotencyCacheTest {
+
+    private static final Duration TTL = Duration.ofSeconds(10);
+
+    private final AtomicLong now = new AtomicLong();
+    private PaymentTransactionRepository transactionRepository;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository = mock(PaymentTransactionRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void entriesExpireAfterTtl() {
+        GatewayRefIdempotencyCache cache = cache(10);
+        cache.markProcessed("TX-1");
+
+        advance(Duration.ofSeconds(9));
+        assertThat(cache.isKnownDuplicate("TX-1")).isTrue();
+
+        advance(Duration.ofSeconds(2));
+        assertThat(cache.isKnownDuplicate("TX-1")).isFalse();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void evictsOldestFirstWhenFull() {
+        GatewayRefIdempotencyCache cache = cache(3);
+        for (int i = 1; i <= 5; i++) {
+            cache.markProcessed("TX-" + i);
+        }
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.isKnownDuplicate("TX-1")).isFalse();
+        assertThat(cache.isKnownDuplicate("TX-2")).isFalse();
+        assertThat(cache.isKnownDuplicate("TX-3")).isTrue();
+        assertThat(cache.isKnownDuplicate("TX-5")).isTrue();
+    }
+
+    @Test
+    void referenceReaddedAfterExpiryIsEvictedByItsNewAge() {
+        GatewayRefIdempotencyCache cache = cache(2);
+        cache.markProcessed("TX-A");
+        advance(Duration.ofSeconds(6));
+        cache.markProcessed("TX-B");
+        advance(Duration.ofSeconds(5));
+
+        // TX-A has expired and is dropped; adding it again makes it younger than TX-B
+        assertThat(cache.isKnownDuplicate("TX-A")).isFalse();
+        cache.markProcessed("TX-A");
+        cache.markProcessed("TX-C");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.isKnownDuplicate("TX-B")).isFalse();
+        assertThat(cache.isKnownDuplicate("TX-A")).isTrue();
+        assertThat(cache.isKnownDuplicate("TX-C")).isTrue();
+    }
+
+    @Test
+    void countsHitsAndMissesOnBothPaths() {
+        GatewayRefIdempotencyCache cache = cache(10);
+        cache.markProcessed("TX-1");
+        when(transactionRepository.existsByGatewayRef("TX-2")).thenReturn(true);
+
+        assertThat(cache.isKnownDuplicate("TX-1")).isTrue();
+        assertThat(cache.isKnownDuplicate("TX-2")).isFalse();
+        assertThat(cache.isProcessed("TX-1")).isTrue();
+        assertThat(cache.isProcessed("TX-2")).isTrue();
+        // Found in the database, so the next check is answered from memory
+        assertThat(cache.isProcessed("TX-2")).isTrue();
+
+        assertThat(counter("hit")).isEqualTo(3);
+        assertThat(counter("miss")).isEqualTo(2);
+        verify(transactionRepository, never()).existsByGatewayRef("TX-1");
+    }
+
+    private GatewayRefIdempotencyCache cache(int maxSize) {
+        return new GatewayRefIdempotencyCache(transactionRepository, meterRegistry, maxSize, TTL, now::get);
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+
+    private double counter(String result) {
+        return meterRegistry.get("eduflow.payments.idempotency.cache").tag("result", result).counter().count();
+    }
+}
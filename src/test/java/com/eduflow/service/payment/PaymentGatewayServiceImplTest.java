@@ -0,0 +1,159 @@
+package com.eduflow.service.payment;
+
+import com.eduflow.entity.finance.Payment;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Gateway client against {@link StubPaymentGateway}: connection reuse, timeouts, circuit breaker,
+ * bulkhead, and overlapping async calls.
+ */
+class PaymentGatewayServiceImplTest {
+
+    private static final int ASYNC_CALLS = 40;
+    private static final long ASYNC_LATENCY_MILLIS = 20;
+
+    private StubPaymentGateway stub;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        stub = new StubPaymentGateway();
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void callsGatewayOverReusedConnection() {
+        PaymentGatewayServiceImpl gateway = client(5000, 50, 5);
+
+        String gatewayRef = gateway.initiatePayment(payment());
+        assertThat(gatewayRef).startsWith("GW");
+        assertThat(gateway.verifyPayment(gatewayRef)).isEqualTo(GatewayVerification.CONFIRMED);
+        gateway.processRefund(gatewayRef, new BigDecimal("100.00"));
+        for (int i = 0; i < 20; i++) {
+            gateway.verifyPayment(gatewayRef);
+        }
+
+        assertThat(stub.requestCount()).isEqualTo(23);
+        assertThat(stub.connectionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void simulatedGatewayNeverConfirmsPayments() {
+        PaymentGatewayServiceImpl gateway = new PaymentGatewayServiceImpl(stub.baseUrl(), "test-api-key", true,
+                1000, 5000, 50, 5, 60_000, new ObjectMapper());
+
+        String gatewayRef = gateway.initiatePayment(payment());
+        assertThat(gateway.verifyPayment(gatewayRef)).isEqualTo(GatewayVerification.UNKNOWN);
+        assertThat(stub.requestCount()).isZero();
+    }
+
+    @Test
+    void onlyFinalStatusesAreTreatedAsAnswers() {
+        PaymentGatewayServiceImpl gateway = client(5000, 50, 5);
+
+        stub.setVerifyStatus("DECLINED");
+        assertThat(gateway.verifyPayment("GW1")).isEqualTo(GatewayVerification.DECLINED);
+        stub.setVerifyStatus("EXPIRED");
+        assertThat(gateway.verifyPayment("GW1")).isEqualTo(GatewayVerification.DECLINED);
+        stub.setVerifyStatus("PENDING");
+        assertThat(gateway.verifyPayment("GW1")).isEqualTo(GatewayVerification.UNKNOWN);
+        stub.setVerifyStatus(null);
+        assertThat(gateway.verifyPayment("GW1")).isEqualTo(GatewayVerification.UNKNOWN);
+    }
+
+    @Test
+    void slowGatewayTimesOut() {
+        PaymentGatewayServiceImpl gateway = client(100, 50, 5);
+        stub.setLatencyMillis(1000);
+
+        assertThatThrownBy(() -> gateway.verifyPayment("GW1"))
+                .isInstanceOf(PaymentGatewayException.class);
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailures() {
+        PaymentGatewayServiceImpl gateway = client(5000, 50, 3);
+        stub.setFailing(true);
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> gateway.verifyPayment("GW1")).isInstanceOf(PaymentGatewayException.class);
+        }
+        assertThat(gateway.getCircuitState()).isEqualTo(GatewayCircuitBreaker.State.OPEN);
+
+        stub.setFailing(false);
+        assertThatThrownBy(() -> gateway.verifyPayment("GW1"))
+                .isInstanceOf(PaymentGatewayException.class)
+                .hasMessageContaining("circuit is open");
+        assertThat(stub.requestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondLimit() {
+        PaymentGatewayServiceImpl gateway = client(5000, 2, 5);
+        stub.setLatencyMillis(300);
+
+        List<CompletableFuture<GatewayVerification>> calls = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            calls.add(gateway.verifyPaymentAsync("GW" + i));
+        }
+
+        long rejected = calls.stream().filter(call -> {
+            try {
+                call.join();
+                return false;
+            } catch (CompletionException e) {
+                return e.getCause() instanceof PaymentGatewayException;
+            }
+        }).count();
+        assertThat(rejected).isEqualTo(3);
+        assertThat(gateway.getCircuitState()).isEqualTo(GatewayCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void asyncCallsOverlapGatewayLatency() {
+        PaymentGatewayServiceImpl gateway = client(5000, 50, 5);
+        stub.setLatencyMillis(ASYNC_LATENCY_MILLIS);
+
+        List<CompletableFuture<GatewayVerification>> calls = new ArrayList<>();
+        for (int i = 0; i < ASYNC_CALLS; i++) {
+            calls.add(gateway.verifyPaymentAsync("GW" + i));
+        }
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+
+        // Async callers do not wait for each other, so the stub serves several requests at once
+        assertThat(calls).allMatch(call -> call.join() == GatewayVerification.CONFIRMED);
+        assertThat(stub.requestCount()).isEqualTo(ASYNC_CALLS);
+        assertThat(stub.maxConcurrentRequests()).isGreaterThan(1);
+    }
+
+    private PaymentGatewayServiceImpl client(long timeoutMillis, int maxConcurrentCalls, int failureThreshold) {
+        return new PaymentGatewayServiceImpl(stub.baseUrl(), "test-api-key", false,
+                1000, timeoutMillis, maxConcurrentCalls, failureThreshold, 60_000, new ObjectMapper());
+    }
+
+    private static Payment payment() {
+        return Payment.builder()
+                .amount(new BigDecimal("250.00"))
+                .paymentMethod(Payment.PaymentMethod.MOBILE_MONEY_MTN)
+                .transactionRef("PAY-TEST-1")
+                .payerName("Test Payer")
+                .payerPhone("+260970000000")
+                .status(Payment.PaymentStatus.PENDING)
+                .build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.eduflow.service.payment;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for the payment gateway API on a loopback port, with adjustable latency,
+ * verification status and an outage switch. Records how many requests and distinct client
+ * connections it served, and the most requests it was serving at once.
+ */
+class StubPaymentGateway implements AutoCloseable {
+
+    static {
+        // Without TCP_NODELAY small keep-alive responses wait on delayed ACKs (~40 ms each)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(64);
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    private volatile long latencyMillis;
+    private volatile boolean failing;
+    private volatile String verifyStatus = "SUCCESS";
+
+    StubPaymentGateway() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/payments/initiate", exchange ->
+                respond(exchange, "{\"gateway_reference\":\"GW" + UUID.randomUUID().toString().substring(0, 12).toUpperCase() + "\"}"));
+        server.createContext("/payments/refund", exchange -> respond(exchange, "{\"status\":\"SUCCESS\"}"));
+        server.createContext("/payments/", exchange ->
+                respond(exchange, verifyStatus == null ? "{}" : "{\"status\":\"" + verifyStatus + "\"}"));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    void setVerifyStatus(String verifyStatus) {
+        this.verifyStatus = verifyStatus;
+    }
+
+    void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    int requestCount() {
+        return requests.get();
+    }
+
+    int connectionCount() {
+        return clientPorts.size();
+    }
+
+    int maxConcurrentRequests() {
+        return maxInFlight.get();
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        requests.incrementAndGet();
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        exchange.getRequestBody().readAllBytes();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            byte[] bytes = (failing ? "{\"error\":\"unavailable\"}" : body).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(failing ? 503 : 200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
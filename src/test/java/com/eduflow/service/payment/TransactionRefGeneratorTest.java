@@ -0,0 +1,124 @@
+package com.eduflow.service.payment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Stress-tests the generator for duplicates and ordering across threads and checks clock-skew
+ * handling on a controllable clock.
+ */
+class TransactionRefGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 500_000;
+
+    @Test
+    void generatesMillionsOfUniqueIncreasingIdsAcrossThreads() throws Exception {
+        TransactionRefGenerator generator = new TransactionRefGenerator(7, System::currentTimeMillis);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    long[] ids = new long[IDS_PER_THREAD];
+                    start.await();
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+
+            long[] all = new long[THREADS * IDS_PER_THREAD];
+            int offset = 0;
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get(60, TimeUnit.SECONDS);
+                // Each thread sees strictly increasing ids
+                for (int i = 1; i < ids.length; i++) {
+                    assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+                }
+                System.arraycopy(ids, 0, all, offset, ids.length);
+                offset += ids.length;
+            }
+
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                if (all[i] == all[i - 1]) {
+                    throw new AssertionError("Duplicate id " + all[i]);
+                }
+            }
+            // Node bits are intact on every id
+            assertThat(Arrays.stream(all).allMatch(id -> ((id >>> TransactionRefGenerator.SEQUENCE_BITS)
+                    & TransactionRefGenerator.MAX_NODE_ID) == 7)).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void formattedRefsAreFixedWidthAndSortInIssueOrder() {
+        TransactionRefGenerator generator = new TransactionRefGenerator(1, System::currentTimeMillis);
+        String previous = generator.nextTransactionRef();
+        for (int i = 0; i < 100_000; i++) {
+            String ref = generator.nextTransactionRef();
+            assertThat(ref).hasSize(16).startsWith("PAY").matches("PAY[0-9A-HJKMNP-TV-Z]{13}");
+            assertThat(ref).isGreaterThan(previous);
+            previous = ref;
+        }
+        assertThat(TransactionRefGenerator.format(0)).isEqualTo("PAY0000000000000");
+        assertThat(TransactionRefGenerator.format(Long.MAX_VALUE)).isEqualTo("PAY7ZZZZZZZZZZZZ");
+    }
+
+    @Test
+    void keepsIncreasingWhenTheClockStepsBackOrTheSequenceOverflows() {
+        long base = TransactionRefGenerator.EPOCH_MILLIS + 1_000_000;
+        AtomicLong clock = new AtomicLong(base);
+        TransactionRefGenerator generator = new TransactionRefGenerator(3, clock::get);
+
+        long first = generator.nextId();
+        assertThat(TransactionRefGenerator.issuedAt(first).toEpochMilli()).isEqualTo(base);
+
+        // Exhaust the 4096 sequence values of this millisecond: the next id borrows the following one
+        long id = first;
+        for (int i = 0; i < TransactionRefGenerator.SEQUENCE_MASK + 1; i++) {
+            long next = generator.nextId();
+            assertThat(next).isGreaterThan(id);
+            id = next;
+        }
+        assertThat(TransactionRefGenerator.issuedAt(id).toEpochMilli()).isEqualTo(base + 1);
+
+        // A backwards step of the wall clock does not produce smaller or repeated ids
+        clock.set(base - 5_000);
+        long afterSkew = generator.nextId();
+        assertThat(afterSkew).isGreaterThan(id);
+        assertThat(TransactionRefGenerator.issuedAt(afterSkew).toEpochMilli()).isEqualTo(base + 1);
+
+        // Once the clock passes the last timestamp, ids follow the clock again
+        clock.set(base + 10);
+        long caughtUp = generator.nextId();
+        assertThat(TransactionRefGenerator.issuedAt(caughtUp).toEpochMilli()).isEqualTo(base + 10);
+        assertThat(caughtUp & TransactionRefGenerator.SEQUENCE_MASK).isZero();
+    }
+
+    @Test
+    void rejectsNodeIdsThatDoNotFit() {
+        assertThatThrownBy(() -> new TransactionRefGenerator(1024, System::currentTimeMillis))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TransactionRefGenerator(-1, System::currentTimeMillis))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,150 @@
+package com.eduflow.support;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Seeds users, students, fees and fee assignments with plain SQL, so tests can set up thousands
+ * of rows without going through the services under test. Bulk inserts are keyed by an email or
+ * student id prefix; every email ends in {@value #EMAIL_DOMAIN}.
+ */
+public class TestDataFactory {
+
+    public static final String EMAIL_DOMAIN = "@eduflow.test";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TestDataFactory(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long insertUser(String email, String firstName, String lastName) {
+        jdbcTemplate.update(
+                "INSERT INTO users (email, password, first_name, last_name, enabled, account_non_expired, " +
+                        "account_non_locked, credentials_non_expired, created_at, version) " +
+                        "VALUES (?, 'x', ?, ?, true, true, true, true, ?, 0)",
+                email, firstName, lastName, now());
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+    }
+
+    /**
+     * Inserts users {@code <emailPrefix>0} up to {@code <emailPrefix><count - 1>}; last names are
+     * zero-padded ({@code Student00000}, ...) so they sort in the same order as the emails were numbered.
+     */
+    public void insertUsers(String emailPrefix, String firstName, int count) {
+        jdbcTemplate.update(
+                "INSERT INTO users (email, password, first_name, last_name, enabled, account_non_expired, " +
+                        "account_non_locked, credentials_non_expired, created_at, version) " +
+                        "SELECT CONCAT(?, X, ?), 'x', ?, CONCAT('Student', LPAD(CAST(X AS VARCHAR), 5, '0')), " +
+                        "true, true, true, true, ?, 0 FROM SYSTEM_RANGE(0, ?)",
+                emailPrefix, EMAIL_DOMAIN, firstName, now(), count - 1);
+    }
+
+    public long insertStudent(long userId, String studentId, Long classId) {
+        jdbcTemplate.update(
+                "INSERT INTO students (student_id, user_id, current_class_id, status, created_at, version) " +
+                        "VALUES (?, ?, ?, 'ACTIVE', ?, 0)", studentId, userId, classId, now());
+        return jdbcTemplate.queryForObject("SELECT id FROM students WHERE user_id = ?", Long.class, userId);
+    }
+
+    /**
+     * Makes every user whose email starts with {@code emailPrefix} a student numbered
+     * {@code <studentIdPrefix><user id>}, and returns the new student ids in insertion order.
+     */
+    public List<Long> insertStudents(String emailPrefix, String studentIdPrefix, Long classId) {
+        String emailPattern = emailPrefix + "%" + EMAIL_DOMAIN;
+        jdbcTemplate.update(
+                "INSERT INTO students (student_id, user_id, current_class_id, status, created_at, version) " +
+                        "SELECT CONCAT(?, u.id), u.id, ?, 'ACTIVE', ?, 0 FROM users u " +
+                        "WHERE u.email LIKE ? ORDER BY u.id",
+                studentIdPrefix, classId, now(), emailPattern);
+        return jdbcTemplate.queryForList(
+                "SELECT s.id FROM students s JOIN users u ON u.id = s.user_id WHERE u.email LIKE ? ORDER BY s.id",
+                Long.class, emailPattern);
+    }
+
+    public long insertClass(String name, int grade, String academicYear) {
+        jdbcTemplate.update(
+                "INSERT INTO school_classes (name, grade, academic_year, active, created_at, version) " +
+                        "VALUES (?, ?, ?, true, ?, 0)", name, grade, academicYear, now());
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM school_classes WHERE name = ?", Long.class, name);
+    }
+
+    public long insertTeacher(long userId, String employeeId) {
+        jdbcTemplate.update(
+                "INSERT INTO teachers (employee_id, user_id, created_at, version) VALUES (?, ?, ?, 0)",
+                employeeId, userId, now());
+        return jdbcTemplate.queryForObject("SELECT id FROM teachers WHERE employee_id = ?", Long.class, employeeId);
+    }
+
+    /**
+     * Inserts a mandatory fee in the first fee category.
+     */
+    public long insertFee(String name, BigDecimal amount, String academicYear) {
+        jdbcTemplate.update(
+                "INSERT INTO fees (category_id, name, amount, academic_year, mandatory, active, created_at, version) " +
+                        "SELECT MIN(id), ?, ?, ?, true, true, ?, 0 FROM fee_categories",
+                name, amount, academicYear, now());
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM fees WHERE name = ?", Long.class, name);
+    }
+
+    /**
+     * Assigns the fee at its full amount, unpaid and PENDING, to one student.
+     */
+    public long insertAssignment(long studentId, long feeId, LocalDate dueDate) {
+        insertAssignments(List.of(studentId), feeId, dueDate);
+        return jdbcTemplate.queryForObject(
+                "SELECT MAX(id) FROM student_fee_assignments WHERE student_id = ? AND fee_id = ?",
+                Long.class, studentId, feeId);
+    }
+
+    /**
+     * Assigns the fee at its full amount, unpaid and PENDING, to each student, and returns the ids
+     * of all the fee's assignments in insertion order.
+     */
+    public List<Long> insertAssignments(List<Long> studentIds, long feeId, LocalDate dueDate) {
+        Timestamp now = now();
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO student_fee_assignments (student_id, fee_id, academic_year, due_date, amount, " +
+                        "discount_amount, amount_paid, status, created_at, version) " +
+                        "SELECT ?, id, academic_year, ?, amount, 0, 0, 'PENDING', ?, 0 FROM fees WHERE id = ?",
+                studentIds, 1000, (ps, studentId) -> {
+                    ps.setLong(1, studentId);
+                    ps.setDate(2, Date.valueOf(dueDate));
+                    ps.setTimestamp(3, now);
+                    ps.setLong(4, feeId);
+                });
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM student_fee_assignments WHERE fee_id = ? ORDER BY id", Long.class, feeId);
+    }
+
+    /**
+     * Opens a ledger row for each student as if one unpaid, pending fee of {@code outstanding} had been assigned.
+     */
+    public void insertLedgers(List<Long> studentIds, String academicYear, BigDecimal outstanding) {
+        Timestamp now = now();
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO student_fee_ledger (student_id, academic_year, total_fees, total_paid, " +
+                        "outstanding_balance, fee_count, pending_count, overdue_count, created_at, updated_at, " +
+                        "created_by, updated_by, version) " +
+                        "VALUES (?, ?, ?, 0, ?, 1, 1, 0, ?, ?, 'system', 'system', 0)",
+                studentIds, 1000, (ps, studentId) -> {
+                    ps.setLong(1, studentId);
+                    ps.setString(2, academicYear);
+                    ps.setBigDecimal(3, outstanding);
+                    ps.setBigDecimal(4, outstanding);
+                    ps.setTimestamp(5, now);
+                    ps.setTimestamp(6, now);
+                });
+    }
+
+    private static Timestamp now() {
+        return Timestamp.valueOf(LocalDateTime.now());
+    }
+}